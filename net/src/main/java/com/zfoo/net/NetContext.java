@@ -17,6 +17,7 @@ import com.zfoo.event.manager.EventBus;
 import com.zfoo.net.config.manager.IConfigManager;
 import com.zfoo.net.consumer.service.IConsumer;
 import com.zfoo.net.core.AbstractServer;
+import com.zfoo.net.core.local.LocalServer;
 import com.zfoo.net.core.tcp.TcpClient;
 import com.zfoo.net.dispatcher.manager.IPacketDispatcher;
 import com.zfoo.net.packet.service.IPacketService;
@@ -139,7 +140,11 @@ public class NetContext implements ApplicationListener<ApplicationContextEvent>,
 
         // 关闭客户端和服务器
         TcpClient.shutdown();
+        LocalServer.shutdownEventLoop();
         AbstractServer.shutdownAllServers();
+        if (TaskManager.getInstance().isThreadPerCore()) {
+            AbstractServer.shutdownEventLoopGracefully(TaskManager.getInstance().getCoreEventLoopGroup());
+        }
 
         // 关闭TaskManager
         try {
@@ -27,6 +27,15 @@ public class ConsumerConfig {
 
     private String loadBalancer;
 
+    /**
+     * 同一个进程内服务提供者的调用方式，对应于LocalTransport
+     * <p>
+     * disable：不使用进程内调用，总是走tcp
+     * reference：直接传递packet的引用（默认）
+     * copy：传递packet的深拷贝，防止提供者和消费者修改同一个对象
+     */
+    private String localTransport;
+
     private List<ProtocolModule> modules;
 
     public static ConsumerConfig valueOf(String loadBalancer, List<ProtocolModule> modules) {
@@ -50,6 +59,14 @@ public class ConsumerConfig {
         this.loadBalancer = loadBalancer;
     }
 
+    public String getLocalTransport() {
+        return localTransport;
+    }
+
+    public void setLocalTransport(String localTransport) {
+        this.localTransport = localTransport;
+    }
+
     public List<ProtocolModule> getModules() {
         return modules;
     }
@@ -36,6 +36,21 @@ public class ProviderConfig {
 
     private String dispatchThread;
 
+    /**
+     * 解码的线程，io为默认值在netty的io线程中反序列化，task为在处理packet的TaskManager线程中反序列化
+     */
+    private String decodeThread;
+
+    /**
+     * 线程模型，default为netty的io线程和TaskManager的线程分开，thread-per-core为每个cpu一个线程，session的io和处理都在同一个线程
+     */
+    private String threadMode;
+
+    /**
+     * thread-per-core模式下是否把线程绑定到cpu上
+     */
+    private boolean cpuAffinity;
+
     private String address;
 
     private List<ProtocolModule> modules;
@@ -72,6 +87,30 @@ public class ProviderConfig {
         this.dispatchThread = dispatchThread;
     }
 
+    public String getDecodeThread() {
+        return decodeThread;
+    }
+
+    public void setDecodeThread(String decodeThread) {
+        this.decodeThread = decodeThread;
+    }
+
+    public String getThreadMode() {
+        return threadMode;
+    }
+
+    public void setThreadMode(String threadMode) {
+        this.threadMode = threadMode;
+    }
+
+    public boolean isCpuAffinity() {
+        return cpuAffinity;
+    }
+
+    public void setCpuAffinity(boolean cpuAffinity) {
+        this.cpuAffinity = cpuAffinity;
+    }
+
     public String getAddress() {
         return address;
     }
@@ -15,12 +15,15 @@ package com.zfoo.net.consumer.balancer;
 
 import com.zfoo.net.NetContext;
 import com.zfoo.net.consumer.registry.RegisterVO;
+import com.zfoo.net.core.local.LocalTransport;
 import com.zfoo.net.session.model.AttributeType;
 import com.zfoo.net.session.model.Session;
+import com.zfoo.net.util.SessionUtils;
 import com.zfoo.protocol.IPacket;
 import com.zfoo.protocol.ProtocolManager;
 import com.zfoo.protocol.registration.ProtocolModule;
 import com.zfoo.protocol.util.StringUtils;
+import org.springframework.lang.Nullable;
 
 import java.util.List;
 import java.util.Objects;
@@ -75,6 +78,19 @@ public abstract class AbstractConsumerLoadBalancer implements IConsumerLoadBalan
     }
 
 
+    /**
+     * 同一个进程内的服务提供者不需要经过序列化和网络，负载均衡器优先选择
+     */
+    @Nullable
+    public Session localSession(List<Session> sessions) {
+        for (var session : sessions) {
+            if (LocalTransport.isLocal(session) && SessionUtils.isActive(session)) {
+                return session;
+            }
+        }
+        return null;
+    }
+
     public boolean sessionHasModule(Session session, IPacket packet) {
 
         var attribute = session.getAttribute(AttributeType.CONSUMER);
@@ -44,6 +44,10 @@ public class ConsistentHashConsumerLoadBalancer extends AbstractConsumerLoadBala
 
     private volatile int lastClientSessionChangeId = 0;
     private static final Map<ProtocolModule, ConsistentHash<String, Long>> consistentHashMap = new ConcurrentHashMap<>();
+    /**
+     * 同一个进程内的服务提供者，key：module，value：session的id
+     */
+    private static final Map<ProtocolModule, Long> localSidMap = new ConcurrentHashMap<>();
     private static final int VIRTUAL_NODE_NUMS = 200;
 
     private ConsistentHashConsumerLoadBalancer() {
@@ -86,6 +90,16 @@ public class ConsistentHashConsumerLoadBalancer extends AbstractConsumerLoadBala
         if (consistentHash == null) {
             throw new RuntimeException(StringUtils.format("没有服务提供者提供服务[{}]", module));
         }
+
+        // 同一个进程内有服务提供者的时候优先选择
+        var localSid = localSidMap.get(module);
+        if (localSid != null) {
+            var localSession = NetContext.getSessionManager().getClientSession(localSid);
+            if (localSession != null) {
+                return localSession;
+            }
+        }
+
         var sid = consistentHash.getRealNode(argument).getValue();
         return NetContext.getSessionManager().getClientSession(sid);
 
@@ -94,7 +108,16 @@ public class ConsistentHashConsumerLoadBalancer extends AbstractConsumerLoadBala
 
     @Nullable
     private ConsistentHash<String, Long> updateModuleToConsistentHash(ProtocolModule module) {
-        var sessionStringList = getSessionsByModule(module)
+        var sessions = getSessionsByModule(module);
+
+        var localSession = localSession(sessions);
+        if (localSession == null) {
+            localSidMap.remove(module);
+        } else {
+            localSidMap.put(module, localSession.getSid());
+        }
+
+        var sessionStringList = sessions
                 .stream()
                 .map(session -> new Pair<>(session.getAttribute(AttributeType.CONSUMER).toString(), session.getSid()))
                 .sorted((a, b) -> a.getKey().compareTo(b.getKey()))
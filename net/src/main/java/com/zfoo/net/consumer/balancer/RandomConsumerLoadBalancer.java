@@ -45,6 +45,11 @@ public class RandomConsumerLoadBalancer extends AbstractConsumerLoadBalancer {
             throw new RunException("没有服务提供者提供服务[{}]", module);
         }
 
+        var localSession = localSession(sessions);
+        if (localSession != null) {
+            return localSession;
+        }
+
         return RandomUtils.randomEle(sessions);
     }
 
@@ -50,6 +50,11 @@ public class ShortestTimeConsumerLoadBalancer extends AbstractConsumerLoadBalanc
             throw new RunException("没有服务提供者提供服务[{}]", module);
         }
 
+        var localSession = localSession(sessions);
+        if (localSession != null) {
+            return localSession;
+        }
+
         var sortedSessions = sessions.stream()
                 .sorted((a, b) -> {
                     var aMap = (Map<Short, Long>) a.getAttribute(AttributeType.RESPONSE_TIME);
@@ -16,6 +16,9 @@ package com.zfoo.net.consumer.registry;
 import com.zfoo.event.manager.EventBus;
 import com.zfoo.net.NetContext;
 import com.zfoo.net.consumer.event.ConsumerStartEvent;
+import com.zfoo.net.core.local.LocalClient;
+import com.zfoo.net.core.local.LocalServer;
+import com.zfoo.net.core.local.LocalTransport;
 import com.zfoo.net.core.tcp.TcpClient;
 import com.zfoo.net.core.tcp.TcpServer;
 import com.zfoo.net.session.model.AttributeType;
@@ -149,6 +152,21 @@ public class ZookeeperRegistry implements IRegistry {
 
         var providerServer = new TcpServer(providerConfig.localHostAndPortOrDefault());
         providerServer.start();
+
+        // 同一个进程内的消费者通过LocalServer调用服务提供者
+        if (Objects.nonNull(localRegisterVO.getConsumerConfig()) && LocalTransport.isEnable()) {
+            var localServer = new LocalServer(providerConfig.getAddress());
+            localServer.start();
+        }
+    }
+
+    private boolean isLocalProvider(RegisterVO provider) {
+        var localProviderConfig = localRegisterVO.getProviderConfig();
+        if (Objects.isNull(localProviderConfig) || !LocalTransport.isEnable()) {
+            return false;
+        }
+        return Objects.equals(localRegisterVO.getId(), provider.getId())
+                && Objects.equals(localProviderConfig.getAddress(), provider.getProviderConfig().getAddress());
     }
 
     private void startCurator() {
@@ -413,7 +431,9 @@ public class ZookeeperRegistry implements IRegistry {
                 continue;
             }
 
-            var client = new TcpClient(HostAndPort.valueOf(providerCache.getProviderConfig().getAddress()));
+            var client = isLocalProvider(providerCache)
+                    ? new LocalClient(providerCache.getProviderConfig().getAddress())
+                    : new TcpClient(HostAndPort.valueOf(providerCache.getProviderConfig().getAddress()));
             var session = client.start();
             if (Objects.isNull(session)) {
                 logger.error("[consumer:{}]启动失败，等待[{}]秒，重新检查consumer", providerCache, RETRY_SECONDS);
@@ -13,6 +13,7 @@
 
 package com.zfoo.net.core;
 
+import com.zfoo.net.task.TaskManager;
 import com.zfoo.util.net.HostAndPort;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
@@ -71,9 +72,14 @@ public abstract class AbstractServer implements IServer {
                 ? new EpollEventLoopGroup(Math.max(1, cpuNum / 4), new DefaultThreadFactory("netty-boss", true))
                 : new NioEventLoopGroup(Math.max(1, cpuNum / 4), new DefaultThreadFactory("netty-boss", true));
 
-        workerGroup = Epoll.isAvailable()
-                ? new EpollEventLoopGroup(cpuNum * 2, new DefaultThreadFactory("netty-worker", true))
-                : new NioEventLoopGroup(cpuNum * 2, new DefaultThreadFactory("netty-worker", true));
+        // thread-per-core模式下网络读写和任务处理使用同一组EventLoop
+        if (TaskManager.getInstance().isThreadPerCore()) {
+            workerGroup = TaskManager.getInstance().getCoreEventLoopGroup();
+        } else {
+            workerGroup = Epoll.isAvailable()
+                    ? new EpollEventLoopGroup(cpuNum * 2, new DefaultThreadFactory("netty-worker", true))
+                    : new NioEventLoopGroup(cpuNum * 2, new DefaultThreadFactory("netty-worker", true));
+        }
 
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(bossGroup, workerGroup)
@@ -102,7 +108,10 @@ public abstract class AbstractServer implements IServer {
     public synchronized void shutdown() {
         shutdownEventLoopGracefully(bossGroup);
 
-        shutdownEventLoopGracefully(workerGroup);
+        // coreEventLoopGroup是所有服务器共享的，和TaskManager一起关闭
+        if (workerGroup != TaskManager.getInstance().getCoreEventLoopGroup()) {
+            shutdownEventLoopGracefully(workerGroup);
+        }
 
         if (channelFuture != null) {
             try {
@@ -15,14 +15,15 @@ package com.zfoo.net.core.gateway;
 
 import com.zfoo.net.core.AbstractServer;
 import com.zfoo.net.handler.GatewayDispatcherHandler;
+import com.zfoo.net.handler.capture.CaptureHandler;
 import com.zfoo.net.handler.codec.tcp.TcpPacketCodecHandler;
+import com.zfoo.net.handler.idle.IdleDetectHandler;
 import com.zfoo.net.handler.idle.ServerIdleHandler;
 import com.zfoo.net.session.model.Session;
 import com.zfoo.protocol.IPacket;
 import com.zfoo.util.net.HostAndPort;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.Nullable;
@@ -38,14 +39,25 @@ public class GatewayServer extends AbstractServer {
 
     private BiFunction<Session, IPacket, Boolean> packetFilter;
 
+    /**
+     * 抓包，为null的时候不抓包
+     */
+    private CaptureHandler captureHandler;
+
     public GatewayServer(HostAndPort host, @Nullable BiFunction<Session, IPacket, Boolean> packetFilter) {
         super(host);
         this.packetFilter = packetFilter;
     }
 
+    public GatewayServer(HostAndPort host, @Nullable BiFunction<Session, IPacket, Boolean> packetFilter, @Nullable CaptureHandler captureHandler) {
+        super(host);
+        this.packetFilter = packetFilter;
+        this.captureHandler = captureHandler;
+    }
+
     @Override
     public ChannelInitializer<SocketChannel> channelChannelInitializer() {
-        return new GatewayChannelHandler(packetFilter);
+        return new GatewayChannelHandler(packetFilter, captureHandler);
     }
 
 
@@ -53,14 +65,20 @@ public class GatewayServer extends AbstractServer {
 
         private BiFunction<Session, IPacket, Boolean> packetFilter;
 
-        public GatewayChannelHandler(BiFunction<Session, IPacket, Boolean> packetFilter) {
+        private CaptureHandler captureHandler;
+
+        public GatewayChannelHandler(BiFunction<Session, IPacket, Boolean> packetFilter, CaptureHandler captureHandler) {
             this.packetFilter = packetFilter;
+            this.captureHandler = captureHandler;
         }
 
         @Override
         protected void initChannel(SocketChannel channel) {
-            channel.pipeline().addLast(new IdleStateHandler(0, 0, 180));
+            channel.pipeline().addLast(IdleDetectHandler.SERVER_IDLE_DETECT_HANDLER);
             channel.pipeline().addLast(new ServerIdleHandler());
+            if (captureHandler != null) {
+                channel.pipeline().addLast(captureHandler);
+            }
             channel.pipeline().addLast(new TcpPacketCodecHandler());
             channel.pipeline().addLast(new GatewayDispatcherHandler(packetFilter));
         }
@@ -16,6 +16,7 @@ package com.zfoo.net.core.gateway;
 import com.zfoo.net.core.AbstractServer;
 import com.zfoo.net.handler.GatewayDispatcherHandler;
 import com.zfoo.net.handler.codec.websocket.WebSocketCodecHandler;
+import com.zfoo.net.handler.idle.IdleDetectHandler;
 import com.zfoo.net.handler.idle.ServerIdleHandler;
 import com.zfoo.net.session.model.Session;
 import com.zfoo.protocol.IPacket;
@@ -26,7 +27,6 @@ import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.Nullable;
@@ -63,7 +63,7 @@ public class WebsocketGatewayServer extends AbstractServer {
 
         @Override
         protected void initChannel(SocketChannel channel) {
-            channel.pipeline().addLast(new IdleStateHandler(0, 0, 180));
+            channel.pipeline().addLast(IdleDetectHandler.SERVER_IDLE_DETECT_HANDLER);
             channel.pipeline().addLast(new ServerIdleHandler());
 
             channel.pipeline().addLast(new HttpServerCodec());
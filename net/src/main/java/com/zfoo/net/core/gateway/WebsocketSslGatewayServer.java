@@ -16,6 +16,7 @@ package com.zfoo.net.core.gateway;
 import com.zfoo.net.core.AbstractServer;
 import com.zfoo.net.handler.GatewayDispatcherHandler;
 import com.zfoo.net.handler.codec.websocket.WebSocketCodecHandler;
+import com.zfoo.net.handler.idle.IdleDetectHandler;
 import com.zfoo.net.handler.idle.ServerIdleHandler;
 import com.zfoo.net.session.model.Session;
 import com.zfoo.protocol.IPacket;
@@ -29,7 +30,6 @@ import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.stream.ChunkedWriteHandler;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,7 +77,7 @@ public class WebsocketSslGatewayServer extends AbstractServer {
 
         @Override
         protected void initChannel(SocketChannel channel) {
-            channel.pipeline().addLast(new IdleStateHandler(0, 0, 180));
+            channel.pipeline().addLast(IdleDetectHandler.SERVER_IDLE_DETECT_HANDLER);
             channel.pipeline().addLast(new ServerIdleHandler());
 
             channel.pipeline().addLast(sslContext.newHandler(channel.alloc()));
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.local;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.core.IClient;
+import com.zfoo.net.handler.BaseDispatcherHandler;
+import com.zfoo.net.handler.ClientDispatcherHandler;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.protocol.exception.ExceptionUtils;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 连接同一个进程中的LocalServer，返回的session发送packet的时候直接交给服务器session，见LocalTransport
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class LocalClient implements IClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalClient.class);
+
+    private LocalAddress localAddress;
+
+    public LocalClient(String id) {
+        this.localAddress = new LocalAddress(id);
+    }
+
+    @Override
+    public synchronized Session start() {
+        var bootstrap = new Bootstrap();
+        bootstrap.group(LocalServer.localEventLoopGroup())
+                .channel(LocalChannel.class)
+                .handler(new LocalChannelInitHandler());
+
+        var channelFuture = bootstrap.connect(localAddress);
+        channelFuture.syncUninterruptibly();
+
+        if (channelFuture.isSuccess()) {
+            if (channelFuture.channel().isActive()) {
+                var channel = channelFuture.channel();
+                var peerSession = LocalServer.serverSession(channel.localAddress());
+                if (peerSession == null) {
+                    logger.error("LocalClient没有找到[{}]对应的服务器session", localAddress);
+                    channel.close();
+                    return null;
+                }
+
+                var session = BaseDispatcherHandler.initChannel(channel);
+                channel.attr(LocalTransport.PEER_SESSION_KEY).set(peerSession);
+                peerSession.getChannel().attr(LocalTransport.PEER_SESSION_KEY).set(session);
+                NetContext.getSessionManager().addClientSession(session);
+                logger.info("LocalClient started at [{}]", localAddress);
+                return session;
+            }
+        } else if (channelFuture.cause() != null) {
+            logger.error(ExceptionUtils.getMessage(channelFuture.cause()));
+        } else {
+            logger.error("启动客户端[client:{}]未知错误", this);
+        }
+        return null;
+    }
+
+
+    private static class LocalChannelInitHandler extends ChannelInitializer<LocalChannel> {
+        @Override
+        protected void initChannel(LocalChannel channel) {
+            channel.pipeline().addLast(new ClientDispatcherHandler());
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.local;
+
+import com.zfoo.net.core.AbstractServer;
+import com.zfoo.net.core.IServer;
+import com.zfoo.net.handler.ServerDispatcherHandler;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.net.util.SessionUtils;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的服务提供者，只能被同一个进程中的LocalClient连接
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class LocalServer implements IServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalServer.class);
+
+    /**
+     * LocalChannel只负责session的连接和断开，不承载packet的传输，一个线程就足够了。
+     * 只有一个线程也保证了服务器session的channelActive一定在客户端connect完成之前执行。
+     * 第一次使用的时候才创建，没有使用进程内调用的应用不会多出一个线程。
+     */
+    private static EventLoopGroup localEventLoopGroup;
+
+    /**
+     * key：客户端LocalChannel的地址，value：对应的服务器session
+     */
+    private static final Map<SocketAddress, Session> serverSessionMap = new ConcurrentHashMap<>();
+
+    private LocalAddress localAddress;
+
+    private Channel channel;
+
+    public LocalServer(String id) {
+        this.localAddress = new LocalAddress(id);
+    }
+
+    @Override
+    public synchronized void start() {
+        var bootstrap = new ServerBootstrap();
+        bootstrap.group(localEventLoopGroup())
+                .channel(LocalServerChannel.class)
+                .childHandler(new LocalChannelHandler());
+
+        var channelFuture = bootstrap.bind(localAddress);
+        channelFuture.syncUninterruptibly();
+        channel = channelFuture.channel();
+
+        logger.info("LocalServer started at [{}]", localAddress);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (channel != null) {
+            try {
+                channel.close().syncUninterruptibly();
+            } catch (Exception e) {
+                logger.warn(e.getMessage(), e);
+            }
+        }
+    }
+
+    public static Session serverSession(SocketAddress clientAddress) {
+        return serverSessionMap.get(clientAddress);
+    }
+
+    public synchronized static EventLoopGroup localEventLoopGroup() {
+        if (localEventLoopGroup == null) {
+            localEventLoopGroup = new DefaultEventLoopGroup(1, new DefaultThreadFactory("netty-local", true));
+        }
+        return localEventLoopGroup;
+    }
+
+    public synchronized static void shutdownEventLoop() {
+        if (localEventLoopGroup != null) {
+            AbstractServer.shutdownEventLoopGracefully(localEventLoopGroup);
+        }
+    }
+
+
+    private static class LocalChannelHandler extends ChannelInitializer<LocalChannel> {
+        @Override
+        protected void initChannel(LocalChannel channel) {
+            channel.pipeline().addLast(new LocalServerDispatcherHandler());
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class LocalServerDispatcherHandler extends ServerDispatcherHandler {
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            super.channelActive(ctx);
+            serverSessionMap.put(ctx.channel().remoteAddress(), SessionUtils.getSession(ctx));
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            serverSessionMap.remove(ctx.channel().remoteAddress());
+            super.channelInactive(ctx);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.local;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.packet.model.GatewayPacketAttachment;
+import com.zfoo.net.packet.model.IPacketAttachment;
+import com.zfoo.net.packet.model.NoAnswerAttachment;
+import com.zfoo.net.packet.model.SignalPacketAttachment;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.net.util.SessionUtils;
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.local.LocalChannel;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 进程内调用，消费者和服务提供者在同一个进程中的时候，packet不经过序列化和网络，直接交给对端的session处理
+ * <p>
+ * LocalChannel只用来管理session的生命周期，packet的传递不经过netty的pipeline
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class LocalTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalTransport.class);
+
+    public static final String DISABLE = "disable";
+    public static final String REFERENCE = "reference";
+    public static final String COPY = "copy";
+
+    /**
+     * 进程内连接的对端session，客户端session的对端是服务器session，服务器session的对端是客户端session
+     */
+    public static final AttributeKey<Session> PEER_SESSION_KEY = AttributeKey.valueOf("peerSession");
+
+
+    public static String localTransport() {
+        var consumerConfig = NetContext.getConfigManager().getLocalConfig().getConsumerConfig();
+        if (consumerConfig == null || StringUtils.isBlank(consumerConfig.getLocalTransport())) {
+            return REFERENCE;
+        }
+        return consumerConfig.getLocalTransport();
+    }
+
+    public static boolean isEnable() {
+        return !DISABLE.equals(localTransport());
+    }
+
+    public static boolean isLocal(Session session) {
+        return session.getChannel() instanceof LocalChannel;
+    }
+
+    public static void send(Session session, IPacket packet, IPacketAttachment packetAttachment) {
+        var peerSession = session.getChannel().attr(PEER_SESSION_KEY).get();
+        if (!SessionUtils.isActive(peerSession)) {
+            logger.error("[session:{}]的对端session不可用，无法发送[packet:{}]", SessionUtils.sessionInfo(session), packet.getClass().getSimpleName());
+            return;
+        }
+
+        // copy模式下，消费者和服务提供者各自持有一份packet，互相修改不会影响
+        // reference模式下只共享packet，附加包会被接收方修改（例如setClient(false)），必须每一端各自持有一份
+        if (COPY.equals(localTransport())) {
+            packet = deepCopy(packet);
+            packetAttachment = packetAttachment == null ? null : (IPacketAttachment) deepCopy(packetAttachment);
+        } else {
+            packetAttachment = shallowCopy(packetAttachment);
+        }
+
+        NetContext.getDispatcher().receive(peerSession, packet, packetAttachment);
+    }
+
+    /**
+     * 附加包只有几个基本类型的属性，直接复制属性，不经过序列化
+     */
+    private static IPacketAttachment shallowCopy(IPacketAttachment packetAttachment) {
+        if (packetAttachment == null) {
+            return null;
+        }
+
+        switch (packetAttachment.packetType()) {
+            case SIGNAL_PACKET:
+                return shallowCopy((SignalPacketAttachment) packetAttachment);
+            case GATEWAY_PACKET:
+                var gatewayAttachment = (GatewayPacketAttachment) packetAttachment;
+                var gatewayCopy = new GatewayPacketAttachment(gatewayAttachment.getSid(), gatewayAttachment.getUid());
+                gatewayCopy.setUseExecutorConsistentHash(gatewayAttachment.isUseExecutorConsistentHash());
+                gatewayCopy.setExecutorConsistentHash(gatewayAttachment.getExecutorConsistentHash());
+                gatewayCopy.setClient(gatewayAttachment.isClient());
+                gatewayCopy.setSignalPacketAttachment(shallowCopy(gatewayAttachment.getSignalPacketAttachment()));
+                return gatewayCopy;
+            case NO_ANSWER_PACKET:
+                return NoAnswerAttachment.valueOf(packetAttachment.executorConsistentHash());
+            default:
+                return (IPacketAttachment) deepCopy(packetAttachment);
+        }
+    }
+
+    private static SignalPacketAttachment shallowCopy(SignalPacketAttachment signalAttachment) {
+        if (signalAttachment == null) {
+            return null;
+        }
+        var signalCopy = new SignalPacketAttachment();
+        signalCopy.setPacketId(signalAttachment.getPacketId());
+        signalCopy.setExecutorConsistentHash(signalAttachment.getExecutorConsistentHash());
+        signalCopy.setClient(signalAttachment.isClient());
+        signalCopy.setTimestamp(signalAttachment.getTimestamp());
+        // 回调只在发送方完成，副本和原件共享同一个future
+        signalCopy.setResponseFuture(signalAttachment.getResponseFuture());
+        return signalCopy;
+    }
+
+    private static IPacket deepCopy(IPacket packet) {
+        var buffer = ByteBufAllocator.DEFAULT.heapBuffer();
+        try {
+            ProtocolManager.write(buffer, packet);
+            return ProtocolManager.read(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.replay;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.core.tcp.TcpClient;
+import com.zfoo.net.handler.codec.tcp.TcpPacketCodecHandler;
+import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.net.packet.model.GatewayPacketAttachment;
+import com.zfoo.net.packet.model.IPacketAttachment;
+import com.zfoo.net.packet.model.SignalPacketAttachment;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.util.net.HostAndPort;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 回放用的虚拟客户端，直接发送抓到的原始网络包，收到的包只用来统计吞吐量和延迟，不会派发给业务逻辑
+ * <p>
+ * 应答按照SignalPacketAttachment的packetId和请求匹配，没有附加包的单向包不统计延迟
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ReplayClient extends TcpClient {
+
+    /**
+     * 不需要应答的包
+     */
+    public static final int NO_REPLY = 0;
+
+    /**
+     * 还没有收到应答的请求的发送时间，key：packetId
+     */
+    private static final AttributeKey<Map<Integer, Long>> SEND_NANO_TIME_KEY = AttributeKey.valueOf("replaySendNanoTime");
+
+    private final ReplayReport report;
+
+    public ReplayClient(HostAndPort host, ReplayReport report) {
+        super(host);
+        this.report = report;
+    }
+
+    @Override
+    public ChannelInitializer<? extends Channel> channelChannelInitializer() {
+        return new ReplayChannelInitHandler(report);
+    }
+
+    /**
+     * @param replyPacketId 需要应答的请求的packetId，见replyPacketId(byte[])，NO_REPLY为不需要应答
+     */
+    public static void send(Session session, byte[] frame, int replyPacketId, ReplayReport report) {
+        var channel = session.getChannel();
+        if (replyPacketId != NO_REPLY) {
+            channel.attr(SEND_NANO_TIME_KEY).get().put(replyPacketId, System.nanoTime());
+            report.addExpected();
+        }
+        report.addSent();
+        channel.writeAndFlush(Unpooled.wrappedBuffer(frame));
+    }
+
+    /**
+     * 解析抓到的网络包中的附加包，得到需要应答的请求的packetId
+     *
+     * @return 没有SignalPacketAttachment或者无法解析的时候返回NO_REPLY
+     */
+    public static int replyPacketId(byte[] frame) {
+        var buffer = Unpooled.wrappedBuffer(frame);
+        buffer.skipBytes(ProtocolManager.PROTOCOL_HEAD_LENGTH);
+        try {
+            return packetId(NetContext.getPacketService().read(buffer).getPacketAttachment());
+        } catch (Exception e) {
+            return NO_REPLY;
+        }
+    }
+
+    private static int packetId(IPacketAttachment attachment) {
+        if (attachment == null) {
+            return NO_REPLY;
+        }
+        switch (attachment.packetType()) {
+            case SIGNAL_PACKET:
+                return ((SignalPacketAttachment) attachment).getPacketId();
+            case GATEWAY_PACKET:
+                var signalAttachment = ((GatewayPacketAttachment) attachment).getSignalPacketAttachment();
+                return signalAttachment == null ? NO_REPLY : signalAttachment.getPacketId();
+            default:
+                return NO_REPLY;
+        }
+    }
+
+
+    private static class ReplayChannelInitHandler extends ChannelInitializer<SocketChannel> {
+
+        private final ReplayReport report;
+
+        public ReplayChannelInitHandler(ReplayReport report) {
+            this.report = report;
+        }
+
+        @Override
+        protected void initChannel(SocketChannel channel) {
+            channel.attr(SEND_NANO_TIME_KEY).set(new ConcurrentHashMap<>());
+            channel.pipeline().addLast(new TcpPacketCodecHandler());
+            channel.pipeline().addLast(new ReplayHandler(report));
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class ReplayHandler extends ChannelInboundHandlerAdapter {
+
+        private final ReplayReport report;
+
+        public ReplayHandler(ReplayReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                // 服务器主动推送的包匹配不到请求，只统计吞吐量
+                var sendNanoTime = msg instanceof DecodedPacketInfo
+                        ? ctx.channel().attr(SEND_NANO_TIME_KEY).get().remove(packetId(((DecodedPacketInfo) msg).getPacketAttachment()))
+                        : null;
+                report.addReceived(sendNanoTime == null ? -1 : System.nanoTime() - sendNanoTime);
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.replay;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.dispatcher.manager.PacketDispatcher;
+import com.zfoo.net.handler.capture.CaptureLogReader;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.net.util.SessionUtils;
+import com.zfoo.protocol.util.AssertionUtils;
+import com.zfoo.util.ThreadUtils;
+import com.zfoo.util.net.HostAndPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 把CaptureLog抓到的流量按照原来的时间间隔重新发送给服务器，回放之前先读一遍抓包日志，连接好所有的虚拟session
+ * <p>
+ * 每个抓到的session会对应sessionMultiplier个虚拟session，speed为回放的速度倍数，speed为2表示用一半的时间回放完
+ * <p>
+ * 抓包目录中有多次启动的数据的时候，每个run按照自己的时间间隔回放，run之间停机的时间不回放
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ReplayDriver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayDriver.class);
+
+    private String captureDirectory;
+
+    private HostAndPort host;
+
+    private double speed;
+
+    private int sessionMultiplier;
+
+    public static ReplayDriver valueOf(String captureDirectory, HostAndPort host, double speed, int sessionMultiplier) {
+        AssertionUtils.isTrue(speed > 0, "回放的速度[speed:{}]必须大于0", speed);
+        AssertionUtils.isTrue(sessionMultiplier > 0, "虚拟session的倍数[sessionMultiplier:{}]必须大于0", sessionMultiplier);
+
+        var driver = new ReplayDriver();
+        driver.captureDirectory = captureDirectory;
+        driver.host = host;
+        driver.speed = speed;
+        driver.sessionMultiplier = sessionMultiplier;
+        return driver;
+    }
+
+    public ReplayReport replay() {
+        var report = new ReplayReport();
+
+        // key：run，value：(key：抓包的sid，value：回放的虚拟session)，不同的run中sid可能重复
+        // 开始计时之前先连接所有的虚拟session，建立连接的耗时不会推迟后面的包，也不会算进回放的时间
+        var virtualSessionMap = new HashMap<Integer, Map<Long, List<Session>>>();
+        CaptureLogReader.read(captureDirectory, frame -> virtualSessionMap
+                .computeIfAbsent(frame.getRun(), it -> new HashMap<>())
+                .computeIfAbsent(frame.getSid(), it -> startVirtualSessions(report)));
+
+        // [0]为当前的run，[1]为当前run第一个包的抓包时间，[2]为当前run第一个包在回放时间轴上的位置，[3]为上一个包在回放时间轴上的位置
+        var timeline = new long[]{-1, 0, 0, 0};
+
+        report.start();
+        CaptureLogReader.read(captureDirectory, frame -> {
+            if (frame.getRun() != timeline[0]) {
+                // 新的run紧接着上一个run的最后一个包回放
+                timeline[0] = frame.getRun();
+                timeline[1] = frame.getEpochNano();
+                timeline[2] = timeline[3];
+            }
+            timeline[3] = timeline[2] + frame.getEpochNano() - timeline[1];
+
+            // 按照抓包的时间间隔等待
+            var dueNanoTime = report.getStartNanoTime() + (long) (timeline[3] / speed);
+            var waitNanoTime = dueNanoTime - System.nanoTime();
+            if (waitNanoTime > 0) {
+                LockSupport.parkNanos(waitNanoTime);
+            }
+
+            var replyPacketId = ReplayClient.replyPacketId(frame.getFrame());
+            for (var session : virtualSessionMap.get(frame.getRun()).get(frame.getSid())) {
+                if (SessionUtils.isActive(session)) {
+                    ReplayClient.send(session, frame.getFrame(), replyPacketId, report);
+                }
+            }
+        });
+
+        // 只等待需要应答的请求，最多等待一个请求的超时时间
+        var waitStartTime = System.currentTimeMillis();
+        while (report.getAnswered() < report.getExpected() && System.currentTimeMillis() - waitStartTime < PacketDispatcher.DEFAULT_TIMEOUT) {
+            ThreadUtils.sleep(10);
+        }
+        report.finish();
+
+        virtualSessionMap.values().stream()
+                .flatMap(it -> it.values().stream())
+                .flatMap(it -> it.stream())
+                .forEach(it -> NetContext.getSessionManager().removeClientSession(it));
+
+        logger.info("回放[{}]完成{}", captureDirectory, report);
+        return report;
+    }
+
+    private List<Session> startVirtualSessions(ReplayReport report) {
+        var sessions = new ArrayList<Session>(sessionMultiplier);
+        for (var i = 0; i < sessionMultiplier; i++) {
+            var session = new ReplayClient(host, report).start();
+            if (session == null) {
+                logger.error("回放的虚拟session连接[{}]失败", host);
+                continue;
+            }
+            report.addSession();
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+}
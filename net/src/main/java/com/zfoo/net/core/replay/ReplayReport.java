@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.replay;
+
+import com.zfoo.protocol.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 回放的结果统计，吞吐量和延迟
+ * <p>
+ * 延迟的计算方式：每个虚拟session按照packetId把应答和请求匹配起来，只有带SignalPacketAttachment的请求才统计延迟
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ReplayReport {
+
+    // 最多记录的延迟样本数量，超过之后不再记录
+    private static final int MAX_LATENCY_SAMPLES = 100_0000;
+
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder expected = new LongAdder();
+    private final LongAdder answered = new LongAdder();
+
+    private final long[] latencies = new long[MAX_LATENCY_SAMPLES];
+    private final AtomicInteger latencyIndex = new AtomicInteger(0);
+
+    private long startNanoTime;
+    private long endNanoTime;
+
+    public void start() {
+        startNanoTime = System.nanoTime();
+    }
+
+    public void finish() {
+        endNanoTime = System.nanoTime();
+    }
+
+    public void addSession() {
+        sessions.increment();
+    }
+
+    public void addSent() {
+        sent.increment();
+    }
+
+    /**
+     * 发送了一个需要应答的请求
+     */
+    public void addExpected() {
+        expected.increment();
+    }
+
+    /**
+     * @param latencyNanoTime 小于0表示没有匹配到发送的请求
+     */
+    public void addReceived(long latencyNanoTime) {
+        received.increment();
+        if (latencyNanoTime < 0) {
+            return;
+        }
+        answered.increment();
+        var index = latencyIndex.getAndIncrement();
+        if (index < MAX_LATENCY_SAMPLES) {
+            latencies[index] = latencyNanoTime;
+        }
+    }
+
+    public long getStartNanoTime() {
+        return startNanoTime;
+    }
+
+    public long getSessions() {
+        return sessions.sum();
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public long getExpected() {
+        return expected.sum();
+    }
+
+    public long getAnswered() {
+        return answered.sum();
+    }
+
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(1, endNanoTime - startNanoTime));
+    }
+
+    @Override
+    public String toString() {
+        var elapsedMillis = Math.max(1, elapsedMillis());
+        var sampleSize = Math.min(latencyIndex.get(), MAX_LATENCY_SAMPLES);
+        var samples = Arrays.copyOf(latencies, sampleSize);
+        Arrays.sort(samples);
+
+        var avg = sampleSize == 0 ? 0 : Arrays.stream(samples).sum() / sampleSize;
+        var p50 = percentile(samples, 0.5);
+        var p99 = percentile(samples, 0.99);
+        var max = sampleSize == 0 ? 0 : samples[sampleSize - 1];
+
+        return StringUtils.format("[sessions:{}] [sent:{}] [received:{}] [unanswered:{}] [time:{}ms] [sendTps:{}] [receiveTps:{}] [latency avg:{}us p50:{}us p99:{}us max:{}us]"
+                , getSessions(), getSent(), getReceived(), getExpected() - getAnswered(), elapsedMillis
+                , getSent() * 1000 / elapsedMillis, getReceived() * 1000 / elapsedMillis
+                , TimeUnit.NANOSECONDS.toMicros(avg), TimeUnit.NANOSECONDS.toMicros(p50)
+                , TimeUnit.NANOSECONDS.toMicros(p99), TimeUnit.NANOSECONDS.toMicros(max));
+    }
+
+    private long percentile(long[] sortedSamples, double percentile) {
+        if (sortedSamples.length == 0) {
+            return 0;
+        }
+        var index = (int) Math.ceil(percentile * sortedSamples.length) - 1;
+        return sortedSamples[Math.max(0, Math.min(index, sortedSamples.length - 1))];
+    }
+
+}
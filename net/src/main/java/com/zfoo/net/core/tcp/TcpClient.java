@@ -17,11 +17,11 @@ import com.zfoo.net.core.AbstractClient;
 import com.zfoo.net.handler.ClientDispatcherHandler;
 import com.zfoo.net.handler.codec.tcp.TcpPacketCodecHandler;
 import com.zfoo.net.handler.idle.ClientIdleHandler;
+import com.zfoo.net.handler.idle.IdleDetectHandler;
 import com.zfoo.util.net.HostAndPort;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,7 +46,7 @@ public class TcpClient extends AbstractClient {
     private static class TcpChannelInitHandler extends ChannelInitializer<SocketChannel> {
         @Override
         protected void initChannel(SocketChannel channel) {
-            channel.pipeline().addLast(new IdleStateHandler(0, 0, 60));
+            channel.pipeline().addLast(IdleDetectHandler.CLIENT_IDLE_DETECT_HANDLER);
             channel.pipeline().addLast(new ClientIdleHandler());
             channel.pipeline().addLast(new TcpPacketCodecHandler());
             channel.pipeline().addLast(new ClientDispatcherHandler());
@@ -15,14 +15,16 @@ package com.zfoo.net.core.tcp;
 
 import com.zfoo.net.core.AbstractServer;
 import com.zfoo.net.handler.ServerDispatcherHandler;
+import com.zfoo.net.handler.capture.CaptureHandler;
 import com.zfoo.net.handler.codec.tcp.TcpPacketCodecHandler;
+import com.zfoo.net.handler.idle.IdleDetectHandler;
 import com.zfoo.net.handler.idle.ServerIdleHandler;
 import com.zfoo.util.net.HostAndPort;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
 
 /**
  * @author jaysunxiao
@@ -32,22 +34,42 @@ public class TcpServer extends AbstractServer {
 
     private static final Logger logger = LoggerFactory.getLogger(TcpServer.class);
 
+    /**
+     * 抓包，为null的时候不抓包
+     */
+    private CaptureHandler captureHandler;
+
     public TcpServer(HostAndPort host) {
         super(host);
     }
 
+    public TcpServer(HostAndPort host, @Nullable CaptureHandler captureHandler) {
+        super(host);
+        this.captureHandler = captureHandler;
+    }
+
     @Override
     public ChannelInitializer<SocketChannel> channelChannelInitializer() {
-        return new TcpChannelHandler();
+        return new TcpChannelHandler(captureHandler);
     }
 
 
     private static class TcpChannelHandler extends ChannelInitializer<SocketChannel> {
+
+        private CaptureHandler captureHandler;
+
+        public TcpChannelHandler(CaptureHandler captureHandler) {
+            this.captureHandler = captureHandler;
+        }
+
         @Override
         protected void initChannel(SocketChannel channel) {
-            channel.pipeline().addLast(new IdleStateHandler(0, 0, 180));
+            channel.pipeline().addLast(IdleDetectHandler.SERVER_IDLE_DETECT_HANDLER);
             channel.pipeline().addLast(new ServerIdleHandler());
-            channel.pipeline().addLast(new TcpPacketCodecHandler());
+            if (captureHandler != null) {
+                channel.pipeline().addLast(captureHandler);
+            }
+            channel.pipeline().addLast(new TcpPacketCodecHandler(TcpPacketCodecHandler.decodeInTaskThread()));
             channel.pipeline().addLast(new ServerDispatcherHandler());
         }
     }
@@ -16,6 +16,7 @@ package com.zfoo.net.dispatcher.manager;
 import com.zfoo.event.manager.EventBus;
 import com.zfoo.event.model.event.IEvent;
 import com.zfoo.net.NetContext;
+import com.zfoo.net.core.local.LocalTransport;
 import com.zfoo.net.core.gateway.model.AuthUidToGatewayCheck;
 import com.zfoo.net.core.gateway.model.AuthUidToGatewayConfirm;
 import com.zfoo.net.core.gateway.model.AuthUidToGatewayEvent;
@@ -171,6 +172,12 @@ public class PacketDispatcher implements IPacketDispatcher {
             return;
         }
 
+        // 同一个进程内的session，packet直接交给对端，不经过序列化和网络
+        if (LocalTransport.isLocal(session)) {
+            LocalTransport.send(session, packet, packetAttachment);
+            return;
+        }
+
         var packetInfo = EncodedPacketInfo.valueOf(packet, packetAttachment);
 
         var channel = session.getChannel();
@@ -17,13 +17,17 @@ import com.zfoo.net.NetContext;
 import com.zfoo.net.packet.model.DecodedPacketInfo;
 import com.zfoo.net.session.model.AttributeType;
 import com.zfoo.net.session.model.Session;
+import com.zfoo.net.task.TaskManager;
+import com.zfoo.net.task.model.DecodeTask;
 import com.zfoo.net.util.SessionUtils;
 import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +59,12 @@ public class BaseDispatcherHandler extends ChannelInboundHandlerAdapter {
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         var session = SessionUtils.getSession(ctx);
         if (session == null) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        // 还没有反序列化的包，交给TaskManager的线程反序列化，见TcpPacketCodecHandler
+        if (msg instanceof ByteBuf) {
+            TaskManager.getInstance().addDecodeTask(new DecodeTask(session, (ByteBuf) msg));
             return;
         }
         DecodedPacketInfo decodedPacketInfo = (DecodedPacketInfo) msg;
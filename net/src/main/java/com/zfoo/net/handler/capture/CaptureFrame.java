@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.capture;
+
+/**
+ * 抓包日志中还原出来的一个完整的网络包，包括包头的长度
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class CaptureFrame {
+
+    /**
+     * 抓包目录中第几次启动写入的数据，从0开始，不同的run中sid可能重复
+     */
+    private int run;
+
+    /**
+     * 收到这个包的时间，纳秒精度的epoch时间
+     */
+    private long epochNano;
+
+    private long sid;
+
+    private byte[] frame;
+
+    public static CaptureFrame valueOf(int run, long epochNano, long sid, byte[] frame) {
+        var captureFrame = new CaptureFrame();
+        captureFrame.run = run;
+        captureFrame.epochNano = epochNano;
+        captureFrame.sid = sid;
+        captureFrame.frame = frame;
+        return captureFrame;
+    }
+
+    public int getRun() {
+        return run;
+    }
+
+    public long getEpochNano() {
+        return epochNano;
+    }
+
+    public long getSid() {
+        return sid;
+    }
+
+    public byte[] getFrame() {
+        return frame;
+    }
+}
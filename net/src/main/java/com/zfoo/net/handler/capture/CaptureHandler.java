@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.capture;
+
+import com.zfoo.net.util.SessionUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 抓包，必须放在解码器的前面，把收到的原始数据和session的id一起追加到CaptureLog中，不做任何解析
+ * <p>
+ * 抓到的数据可以通过ReplayDriver重新发送给服务器，用来做压力测试
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@ChannelHandler.Sharable
+public class CaptureHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaptureHandler.class);
+
+    private final CaptureLog captureLog;
+
+    public CaptureHandler(CaptureLog captureLog) {
+        this.captureLog = captureLog;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf) {
+            try {
+                var session = SessionUtils.getSession(ctx);
+                captureLog.append(session == null ? -1 : session.getSid(), (ByteBuf) msg);
+            } catch (Throwable t) {
+                logger.error("[session:{}]抓包未知异常", SessionUtils.sessionInfo(ctx), t);
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    public CaptureLog getCaptureLog() {
+        return captureLog;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.capture;
+
+import com.zfoo.protocol.util.FileUtils;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * 网络流量的抓包日志，使用内存映射文件追加写入，写满一个segment之后滚动到下一个segment
+ * <p>
+ * 每个segment的开头是[long runId]，runId为这次启动的epoch纳秒时间，每次启动都从一个新的segment开始写，
+ * 不同的run中sid可能重复，读取的时候按照runId区分
+ * <p>
+ * 每一条记录的格式：[int length][long epochNano][long sid][byte[length] data]
+ * <p>
+ * epochNano是纳秒精度的epoch时间，由启动时的System.currentTimeMillis()加上System.nanoTime()的偏移得到，
+ * 同一个进程中单调递增，进程重启之后接着写同一个目录，时间戳也是连续的
+ * <p>
+ * length为0表示segment后面还没有写入数据，length为-1表示segment已经结束，数据在下一个segment中
+ * <p>
+ * 只有一个写入线程操作文件，EventLoop线程之间没有锁竞争，写入线程跟不上的时候丢弃数据并计数，不会阻塞EventLoop
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class CaptureLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaptureLog.class);
+
+    public static final String SEGMENT_PREFIX = "capture-";
+    public static final String SEGMENT_SUFFIX = ".log";
+
+    public static final int SEGMENT_HEAD_LENGTH = 8;
+    public static final int RECORD_HEAD_LENGTH = 4 + 8 + 8;
+    public static final int END_OF_SEGMENT = -1;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+
+    /**
+     * 队列为空的时候写入线程的等待时间，EventLoop线程追加的时候不需要唤醒写入线程
+     */
+    private static final long DRAIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * System.nanoTime()和epoch纳秒时间的差值
+     */
+    private final long epochNanoOffset = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    private final long runId = System.nanoTime() + epochNanoOffset;
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private int segmentIndex;
+
+    private RandomAccessFile segmentFile;
+
+    /**
+     * 只有写入线程访问
+     */
+    private MappedByteBuffer buffer;
+
+    private final Queue<CaptureRecord> queue = PlatformDependent.newMpscQueue(QUEUE_CAPACITY);
+
+    private final Thread writer;
+
+    private volatile boolean closed = false;
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * 丢弃过数据的session，后面的数据无法和前面的数据拼接成完整的包，所以这个session后面的数据都不再记录
+     */
+    private final Set<Long> droppedSids = ConcurrentHashMap.newKeySet();
+
+    public CaptureLog(String directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public CaptureLog(String directory, int segmentSize) {
+        this.directory = new File(directory);
+        this.segmentSize = segmentSize;
+        FileUtils.createDirectory(directory);
+
+        // 接着目录中已经存在的segment继续写
+        var segments = segments(directory);
+        this.segmentIndex = segments.isEmpty() ? 0 : segmentIndex(segments.get(segments.size() - 1)) + 1;
+        rotate();
+
+        this.writer = new DefaultThreadFactory("capture-log", true).newThread(this::drain);
+        this.writer.start();
+    }
+
+    /**
+     * netty的不同EventLoop线程会同时写入，这里只复制数据放入无锁的MPSC队列，由唯一的写入线程追加到文件中
+     * <p>
+     * 时间戳在EventLoop线程中获取，不同线程的记录在日志中的顺序和时间戳的顺序可能有微小的差别，回放的时候按照时间戳等待
+     */
+    public void append(long sid, ByteBuf data) {
+        var length = data.readableBytes();
+        if (length <= 0) {
+            return;
+        }
+        if (SEGMENT_HEAD_LENGTH + RECORD_HEAD_LENGTH + length > segmentSize) {
+            logger.error("抓包数据[length:{}]超过了segment的大小[segmentSize:{}]，忽略这条数据", length, segmentSize);
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        if (!droppedSids.isEmpty() && droppedSids.contains(sid)) {
+            droppedCount.increment();
+            return;
+        }
+
+        var bytes = new byte[length];
+        data.getBytes(data.readerIndex(), bytes);
+        var record = new CaptureRecord(System.nanoTime() + epochNanoOffset, sid, bytes);
+
+        // 队列满了说明写入线程跟不上，不能在EventLoop线程中等待，丢弃数据并计数
+        if (!queue.offer(record)) {
+            droppedCount.increment();
+            if (droppedSids.add(sid)) {
+                logger.warn("抓包队列已满，丢弃[sid:{}]的数据，这个session后面的数据不再记录", sid);
+            }
+        }
+    }
+
+    /**
+     * 写入线程跟不上而丢弃的记录数量
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    private void drain() {
+        while (true) {
+            var record = queue.poll();
+            if (record != null) {
+                try {
+                    write(record);
+                } catch (Throwable t) {
+                    logger.error("[sid:{}]抓包数据写入异常", record.sid, t);
+                }
+                continue;
+            }
+            if (closed) {
+                // 关闭之后再检查一次，写入线程退出之前队列中的数据都要写完
+                if (queue.isEmpty()) {
+                    break;
+                }
+                continue;
+            }
+            LockSupport.parkNanos(DRAIN_PARK_NANOS);
+        }
+        closeSegment();
+    }
+
+    private void write(CaptureRecord record) {
+        if (buffer == null) {
+            return;
+        }
+
+        var length = record.data.length;
+        if (buffer.remaining() < RECORD_HEAD_LENGTH + length) {
+            if (buffer.remaining() >= 4) {
+                buffer.putInt(END_OF_SEGMENT);
+            }
+            rotate();
+        }
+
+        buffer.putInt(length);
+        buffer.putLong(record.epochNano);
+        buffer.putLong(record.sid);
+        buffer.put(record.data);
+    }
+
+    private void rotate() {
+        closeSegment();
+        var file = new File(directory, segmentName(segmentIndex++));
+        try {
+            segmentFile = new RandomAccessFile(file, "rw");
+            buffer = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putLong(runId);
+        } catch (IOException e) {
+            throw new RuntimeException(StringUtils.format("无法创建抓包文件[{}]", file.getAbsolutePath()), e);
+        }
+    }
+
+    private void closeSegment() {
+        if (buffer != null) {
+            buffer.force();
+            // 主动解除映射，不用等到GC的时候才释放文件和虚拟内存
+            PlatformDependent.freeDirectBuffer(buffer);
+            buffer = null;
+        }
+        if (segmentFile != null) {
+            try {
+                segmentFile.close();
+            } catch (IOException e) {
+                logger.error("关闭抓包文件异常", e);
+            }
+            segmentFile = null;
+        }
+    }
+
+    /**
+     * 等待写入线程把队列中剩下的数据写完之后再返回
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static String segmentName(int segmentIndex) {
+        return StringUtils.format("{}{}{}", SEGMENT_PREFIX, String.format("%08d", segmentIndex), SEGMENT_SUFFIX);
+    }
+
+    public static int segmentIndex(File segment) {
+        var name = segment.getName();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return 目录中所有的segment，按照写入的顺序排序
+     */
+    public static List<File> segments(String directory) {
+        var files = new File(directory).listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return List.of();
+        }
+        return Arrays.stream(files)
+                .sorted(Comparator.comparingInt(it -> segmentIndex(it)))
+                .collect(Collectors.toList());
+    }
+
+
+    private static class CaptureRecord {
+        private final long epochNano;
+        private final long sid;
+        private final byte[] data;
+
+        private CaptureRecord(long epochNano, long sid, byte[] data) {
+            this.epochNano = epochNano;
+            this.sid = sid;
+            this.data = data;
+        }
+    }
+
+}
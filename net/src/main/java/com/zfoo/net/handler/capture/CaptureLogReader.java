@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.capture;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 按照写入的顺序读取抓包日志，把同一个session收到的数据拼接起来，再按照包头的长度切分成完整的网络包
+ * <p>
+ * 进程重启之后的数据属于一个新的run，上一个run中没有拼接完整的数据直接丢弃
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class CaptureLogReader {
+
+    public static void read(String directory, Consumer<CaptureFrame> consumer) {
+        // 每个session还没有组成完整网络包的数据，key：sid
+        var cumulationMap = new HashMap<Long, ByteBuf>();
+        // [0]为当前的runId，[1]为当前run的序号
+        var run = new long[]{0, -1};
+        try {
+            for (var segment : CaptureLog.segments(directory)) {
+                readSegment(segment, run, cumulationMap, consumer);
+            }
+        } finally {
+            cumulationMap.values().forEach(it -> it.release());
+        }
+    }
+
+    private static void readSegment(File segment, long[] run, Map<Long, ByteBuf> cumulationMap, Consumer<CaptureFrame> consumer) {
+        try (var file = new RandomAccessFile(segment, "r")) {
+            if (file.length() < CaptureLog.SEGMENT_HEAD_LENGTH) {
+                return;
+            }
+            var buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            try {
+                var runId = buffer.getLong();
+                if (run[1] < 0 || runId != run[0]) {
+                    cumulationMap.values().forEach(it -> it.release());
+                    cumulationMap.clear();
+                    run[0] = runId;
+                    run[1]++;
+                }
+                readRecords(buffer, (int) run[1], cumulationMap, consumer);
+            } finally {
+                // 数据都已经复制到cumulation中，读完之后马上解除映射
+                PlatformDependent.freeDirectBuffer(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(StringUtils.format("读取抓包文件[{}]异常", segment.getAbsolutePath()), e);
+        }
+    }
+
+    private static void readRecords(ByteBuffer buffer, int run, Map<Long, ByteBuf> cumulationMap, Consumer<CaptureFrame> consumer) {
+        while (buffer.remaining() >= CaptureLog.RECORD_HEAD_LENGTH) {
+            var length = buffer.getInt();
+            if (length <= 0) {
+                // 0为还没有写入的数据，-1为segment结束
+                break;
+            }
+            var epochNano = buffer.getLong();
+            var sid = buffer.getLong();
+            if (buffer.remaining() < length) {
+                break;
+            }
+
+            var record = buffer.duplicate();
+            record.limit(record.position() + length);
+            buffer.position(buffer.position() + length);
+
+            var cumulation = cumulationMap.computeIfAbsent(sid, it -> Unpooled.buffer());
+            cumulation.writeBytes(record);
+
+            while (cumulation.readableBytes() >= ProtocolManager.PROTOCOL_HEAD_LENGTH) {
+                var frameLength = ProtocolManager.PROTOCOL_HEAD_LENGTH + cumulation.getInt(cumulation.readerIndex());
+                if (cumulation.readableBytes() < frameLength) {
+                    break;
+                }
+                var frame = new byte[frameLength];
+                cumulation.readBytes(frame);
+                consumer.accept(CaptureFrame.valueOf(run, epochNano, sid, frame));
+            }
+            cumulation.discardReadBytes();
+        }
+    }
+
+}
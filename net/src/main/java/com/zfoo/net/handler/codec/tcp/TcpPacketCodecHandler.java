@@ -42,38 +42,61 @@ public class TcpPacketCodecHandler extends ByteToMessageCodec<EncodedPacketInfo>
     // 数据包的最大长度限制，防止恶意的攻击
     private static final int MAX_LENGTH = 1 * IOUtils.BITS_PER_MB;
 
-    private int length;
-    private boolean remain = false;
+    public static final String DECODE_IN_IO_THREAD = "io";
+    public static final String DECODE_IN_TASK_THREAD = "task";
 
+    /**
+     * 为true的时候只切分出完整的网络包，反序列化交给处理这个包的TaskManager线程，见DecodeTask
+     */
+    private final boolean decodeInTaskThread;
+
+    public TcpPacketCodecHandler() {
+        this(false);
+    }
+
+    public TcpPacketCodecHandler(boolean decodeInTaskThread) {
+        this.decodeInTaskThread = decodeInTaskThread;
+    }
+
+    /**
+     * 服务提供者配置了decode-thread="task"的时候，在TaskManager的线程中反序列化
+     */
+    public static boolean decodeInTaskThread() {
+        var providerConfig = NetContext.getConfigManager().getLocalConfig().getProviderConfig();
+        return providerConfig != null && DECODE_IN_TASK_THREAD.equals(providerConfig.getDecodeThread());
+    }
+
+    /**
+     * 一次把ByteBuf中所有完整的网络包都切分出来，流水线的客户端一次read会收到很多个包，不用在ByteToMessageDecoder的循环中反复进出
+     */
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
         try {
-            if (!remain) {
-                // 不够读一个int
-                if (in.readableBytes() <= ProtocolManager.PROTOCOL_HEAD_LENGTH) {
+            while (in.readableBytes() >= ProtocolManager.PROTOCOL_HEAD_LENGTH) {
+                // 只是看一下包头的长度，数据不够一个完整的包的时候不移动readerIndex
+                var length = in.getInt(in.readerIndex());
+
+                // 如果长度超过限制，则抛出异常断开连接
+                if (length < 0 || length > MAX_LENGTH) {
+                    throw new IllegalArgumentException(StringUtils
+                            .format("[session:{}]的包头长度[length:{}]超过最大长度[maxLength:{}]限制"
+                                    , SessionUtils.sessionInfo(ctx), length, MAX_LENGTH));
+                }
+
+                // ByteBuf里的数据太小
+                if (in.readableBytes() < ProtocolManager.PROTOCOL_HEAD_LENGTH + length) {
                     return;
                 }
-                length = in.readInt();
-                remain = true;
-            }
 
-            // 如果长度超过限制，则抛出异常断开连接
-            if (length > MAX_LENGTH) {
-                throw new IllegalArgumentException(StringUtils
-                        .format("[session:{}]的包头长度[length:{}]超过最大长度[maxLength:{}]限制"
-                                , SessionUtils.sessionInfo(ctx), length, MAX_LENGTH));
-            }
+                in.skipBytes(ProtocolManager.PROTOCOL_HEAD_LENGTH);
 
-            // ByteBuf里的数据太小
-            if (in.readableBytes() < length) {
-                return;
+                if (decodeInTaskThread) {
+                    out.add(in.readRetainedSlice(length));
+                } else {
+                    DecodedPacketInfo packetInfo = NetContext.getPacketService().read(in.readSlice(length));
+                    out.add(packetInfo);
+                }
             }
-
-            remain = false;
-
-            DecodedPacketInfo packetInfo = NetContext.getPacketService().read(in);
-
-            out.add(packetInfo);
         } catch (Exception e) {
             logger.error("[session:{}]解码exception异常", SessionUtils.sessionInfo(ctx), e);
             throw e;
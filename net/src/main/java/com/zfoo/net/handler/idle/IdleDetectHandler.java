@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.idle;
+
+import com.zfoo.net.util.SessionUtils;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有连接共享一个时间轮的空闲检测，用来代替每个连接都有一个的IdleStateHandler
+ * <p>
+ * IdleStateHandler每个连接都要创建一个handler对象，并且把定时任务放到EventLoop的优先队列中，百万连接的时候内存占用和定时任务的调度开销都很大。
+ * 这里的handler是无状态共享的，最后一次读写的时间记录在Session中，定时任务放在时间轮中，添加和取消都是O(1)。
+ * 和IdleStateHandler一样使用System.nanoTime()计时，不依赖scheduler模块缓存的时间。
+ * <p>
+ * 空闲的时候向后面的handler发送IdleStateEvent.ALL_IDLE_STATE_EVENT，所以ServerIdleHandler和ClientIdleHandler不需要任何改变
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@ChannelHandler.Sharable
+public class IdleDetectHandler extends ChannelDuplexHandler {
+
+    /**
+     * 空闲时间都是秒级别的，时间轮一秒钟走一格
+     */
+    private static final Timer idleTimer = new HashedWheelTimer(new DefaultThreadFactory("netty-idle", true), 1, TimeUnit.SECONDS, 512);
+
+    public static final IdleDetectHandler SERVER_IDLE_DETECT_HANDLER = new IdleDetectHandler(180);
+
+    public static final IdleDetectHandler CLIENT_IDLE_DETECT_HANDLER = new IdleDetectHandler(60);
+
+    private final long idleTimeNanos;
+
+    public IdleDetectHandler(int idleTimeSeconds) {
+        this.idleTimeNanos = TimeUnit.SECONDS.toNanos(idleTimeSeconds);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        // 服务器的session在后面的handler的channelActive中创建，所以先往后传递
+        super.channelActive(ctx);
+        schedule(ctx, idleTimeNanos);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        var session = SessionUtils.getSession(ctx);
+        if (session != null && session.getIdleTimeout() != null) {
+            session.getIdleTimeout().cancel();
+            session.setIdleTimeout(null);
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        active(ctx);
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        active(ctx);
+        super.write(ctx, msg, promise);
+    }
+
+    private void active(ChannelHandlerContext ctx) {
+        var session = SessionUtils.getSession(ctx);
+        if (session != null) {
+            session.setLastActiveNanoTime(System.nanoTime());
+        }
+    }
+
+    private void schedule(ChannelHandlerContext ctx, long delayNanos) {
+        var timeout = idleTimer.newTimeout(it -> check(ctx), delayNanos, TimeUnit.NANOSECONDS);
+        // 客户端的session在连接成功之后才创建，这个时候还没有session，到期的时候channel已经关闭的话定时任务自然结束
+        var session = SessionUtils.getSession(ctx);
+        if (session != null) {
+            session.setIdleTimeout(timeout);
+        }
+    }
+
+    private void check(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+
+        var session = SessionUtils.getSession(ctx);
+        if (session == null) {
+            schedule(ctx, idleTimeNanos);
+            return;
+        }
+
+        var idleNanos = System.nanoTime() - session.getLastActiveNanoTime();
+        if (idleNanos < idleTimeNanos) {
+            schedule(ctx, idleTimeNanos - idleNanos);
+            return;
+        }
+
+        // 在channel自己的EventLoop中触发事件，和IdleStateHandler保持一致
+        ctx.executor().execute(() -> ctx.fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT));
+        schedule(ctx, idleTimeNanos);
+    }
+
+}
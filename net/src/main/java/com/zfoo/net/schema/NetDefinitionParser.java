@@ -181,6 +181,9 @@ public class NetDefinitionParser implements BeanDefinitionParser {
 
         resolvePlaceholder("dispatch", "dispatch", builder, element, parserContext);
         resolvePlaceholder("dispatch-thread", "dispatchThread", builder, element, parserContext);
+        resolvePlaceholder("decode-thread", "decodeThread", builder, element, parserContext);
+        resolvePlaceholder("thread-mode", "threadMode", builder, element, parserContext);
+        resolvePlaceholder("cpu-affinity", "cpuAffinity", builder, element, parserContext);
         resolvePlaceholder("address", "address", builder, element, parserContext);
 
         var providerModules = parseModules("provider", element, parserContext);
@@ -193,6 +196,7 @@ public class NetDefinitionParser implements BeanDefinitionParser {
         var builder = BeanDefinitionBuilder.rootBeanDefinition(clazz);
 
         resolvePlaceholder("load-balancer", "loadBalancer", builder, element, parserContext);
+        resolvePlaceholder("local-transport", "localTransport", builder, element, parserContext);
 
         var consumerModules = parseModules("consumer", element, parserContext);
         builder.addPropertyValue("modules", consumerModules);
@@ -17,15 +17,19 @@ import com.zfoo.net.packet.model.IPacketAttachment;
 import com.zfoo.net.packet.model.SignalPacketAttachment;
 import com.zfoo.protocol.util.StringUtils;
 import io.netty.channel.Channel;
+import io.netty.util.Timeout;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Collections;
-import java.util.EnumMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * 百万连接的时候每个Session的内存占用都很重要，所以Session中的结构尽量紧凑，并且只在需要的时候才创建
+ *
  * @author jaysunxiao
  * @version 3.0
  */
@@ -33,6 +37,20 @@ public class Session {
 
     private static final AtomicLong ATOMIC_LONG = new AtomicLong(0);
 
+    private static final AttributeType[] ATTRIBUTE_TYPES = AttributeType.values();
+
+    private static final VarHandle ATTRIBUTES_HANDLE = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final VarHandle ATTACHMENT_MAP_HANDLE;
+
+    static {
+        try {
+            ATTACHMENT_MAP_HANDLE = MethodHandles.lookup().findVarHandle(Session.class, "clientSignalPacketAttachmentMap", Map.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     /**
      * session的id
      */
@@ -41,14 +59,26 @@ public class Session {
     private Channel channel;
 
     /**
-     * Session附带的属性参数
+     * Session附带的属性参数，使用AttributeType的ordinal作为下标，无锁读写
      */
-    private Map<AttributeType, Object> attributes = new EnumMap<>(AttributeType.class);
+    private final Object[] attributes = new Object[ATTRIBUTE_TYPES.length];
 
     /**
      * 客户端Session控制同步或异步的附加包，key：packetId
+     * <p>
+     * 服务器Session不会用到，第一次使用的时候才创建
+     */
+    private volatile Map<Integer, SignalPacketAttachment> clientSignalPacketAttachmentMap;
+
+    /**
+     * 最后一次读写的时间，System.nanoTime()，见IdleDetectHandler
+     */
+    private volatile long lastActiveNanoTime;
+
+    /**
+     * 空闲检测的定时任务，见IdleDetectHandler
      */
-    private Map<Integer, SignalPacketAttachment> clientSignalPacketAttachmentMap = new ConcurrentHashMap<>();
+    private volatile Timeout idleTimeout;
 
 
     public Session(Channel channel) {
@@ -57,21 +87,39 @@ public class Session {
         }
         this.sid = ATOMIC_LONG.getAndIncrement();
         this.channel = channel;
+        this.lastActiveNanoTime = System.nanoTime();
     }
 
 
     public void addClientSignalAttachment(SignalPacketAttachment packetAttachment) {
-        clientSignalPacketAttachmentMap.put(packetAttachment.getPacketId(), packetAttachment);
+        var attachmentMap = clientSignalPacketAttachmentMap;
+        if (attachmentMap == null) {
+            ATTACHMENT_MAP_HANDLE.compareAndSet(this, null, new ConcurrentHashMap<Integer, SignalPacketAttachment>());
+            attachmentMap = clientSignalPacketAttachmentMap;
+        }
+        attachmentMap.put(packetAttachment.getPacketId(), packetAttachment);
     }
 
     public IPacketAttachment removeClientSignalAttachment(SignalPacketAttachment packetAttachment) {
-        return clientSignalPacketAttachmentMap.remove(packetAttachment.getPacketId());
+        var attachmentMap = clientSignalPacketAttachmentMap;
+        return attachmentMap == null ? null : attachmentMap.remove(packetAttachment.getPacketId());
     }
 
 
     @Override
     public String toString() {
-        return StringUtils.format("[sid:{}] [channel:{}] [attributes:{}]", sid, channel, attributes);
+        var attributeMap = new StringBuilder("{");
+        for (var type : ATTRIBUTE_TYPES) {
+            var value = getAttribute(type);
+            if (value != null) {
+                if (attributeMap.length() > 1) {
+                    attributeMap.append(", ");
+                }
+                attributeMap.append(type).append("=").append(value);
+            }
+        }
+        attributeMap.append("}");
+        return StringUtils.format("[sid:{}] [channel:{}] [attributes:{}]", sid, channel, attributeMap);
     }
 
     @Override
@@ -99,21 +147,38 @@ public class Session {
         this.sid = sid;
     }
 
-    public synchronized void putAttribute(AttributeType key, Object value) {
-        attributes.put(key, value);
+    public void putAttribute(AttributeType key, Object value) {
+        ATTRIBUTES_HANDLE.setVolatile(attributes, key.ordinal(), value);
     }
 
-    public synchronized void removeAttribute(AttributeType key) {
-        attributes.remove(key);
+    public void removeAttribute(AttributeType key) {
+        ATTRIBUTES_HANDLE.setVolatile(attributes, key.ordinal(), null);
     }
 
 
     public Object getAttribute(AttributeType key) {
-        return attributes.get(key);
+        return ATTRIBUTES_HANDLE.getVolatile(attributes, key.ordinal());
     }
 
     public Map<Integer, IPacketAttachment> getClientSignalPacketAttachmentMap() {
-        return Collections.unmodifiableMap(clientSignalPacketAttachmentMap);
+        var attachmentMap = clientSignalPacketAttachmentMap;
+        return attachmentMap == null ? Collections.emptyMap() : Collections.unmodifiableMap(attachmentMap);
+    }
+
+    public long getLastActiveNanoTime() {
+        return lastActiveNanoTime;
+    }
+
+    public void setLastActiveNanoTime(long lastActiveNanoTime) {
+        this.lastActiveNanoTime = lastActiveNanoTime;
+    }
+
+    public Timeout getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Timeout idleTimeout) {
+        this.idleTimeout = idleTimeout;
     }
 
     public Channel getChannel() {
@@ -122,6 +187,9 @@ public class Session {
 
     public void close() {
         channel.close();
-        clientSignalPacketAttachmentMap.clear();
+        var attachmentMap = clientSignalPacketAttachmentMap;
+        if (attachmentMap != null) {
+            attachmentMap.clear();
+        }
     }
 }
@@ -13,6 +13,8 @@
 
 package com.zfoo.net.task;
 
+import com.zfoo.net.session.model.Session;
+import com.zfoo.net.task.model.DecodeTask;
 import com.zfoo.net.task.model.ReceiveTask;
 
 import java.util.concurrent.ExecutorService;
@@ -25,5 +27,9 @@ public interface ITaskManager {
 
     void addTask(ReceiveTask task);
 
+    void addDecodeTask(DecodeTask task);
+
     ExecutorService getExecutorByConsistentHash(int hash);
+
+    ExecutorService getExecutorBySession(Session session);
 }
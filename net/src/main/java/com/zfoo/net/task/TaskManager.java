@@ -14,14 +14,25 @@
 package com.zfoo.net.task;
 
 import com.zfoo.net.NetContext;
+import com.zfoo.net.session.model.Session;
 import com.zfoo.net.task.model.AbstractTaskDispatch;
+import com.zfoo.net.task.model.DecodeTask;
 import com.zfoo.net.task.model.ITaskDispatch;
 import com.zfoo.net.task.model.ReceiveTask;
+import com.zfoo.net.util.CpuAffinityUtils;
 import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.util.math.HashUtils;
 import com.zfoo.util.math.RandomUtils;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.FastThreadLocalThread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -43,6 +54,13 @@ public final class TaskManager implements ITaskManager {
 
     private static final ITaskDispatch taskDispatch;
 
+    public static final String THREAD_PER_CORE = "thread-per-core";
+
+    /**
+     * thread-per-core模式下每个cpu一个EventLoop，既是服务器的netty io线程，也是TaskManager的线程，其它模式下为null
+     */
+    private static final EventLoopGroup coreEventLoopGroup;
+
 
     /**
      * 使用不同的线程池，让线程池之间实现隔离，互不影响
@@ -57,13 +75,56 @@ public final class TaskManager implements ITaskManager {
         var dispatchThread = (providerConfig == null || StringUtils.isBlank(providerConfig.getDispatchThread()))
                 ? "default" : providerConfig.getDispatchThread();
 
-        EXECUTOR_SIZE = "default".equals(dispatchThread) ? (Runtime.getRuntime().availableProcessors() + 1) : Integer.parseInt(dispatchThread);
+        var threadPerCore = providerConfig != null && THREAD_PER_CORE.equals(providerConfig.getThreadMode());
+        var cpuNum = Runtime.getRuntime().availableProcessors();
+
+        if (threadPerCore) {
+            EXECUTOR_SIZE = "default".equals(dispatchThread) ? cpuNum : Integer.parseInt(dispatchThread);
+        } else {
+            EXECUTOR_SIZE = "default".equals(dispatchThread) ? (cpuNum + 1) : Integer.parseInt(dispatchThread);
+        }
         taskDispatch = AbstractTaskDispatch.valueOf(dispatch);
 
         executors = new ExecutorService[EXECUTOR_SIZE];
-        for (int i = 0; i < executors.length; i++) {
-            var namedThreadFactory = new TaskThreadFactory();
-            executors[i] = Executors.newSingleThreadExecutor(namedThreadFactory);
+        if (threadPerCore) {
+            // 一致性hash的key直接映射到EventLoop上，session的io和任务处理在同一个线程中，没有线程切换
+            var threadFactory = new CoreThreadFactory(providerConfig.isCpuAffinity());
+            coreEventLoopGroup = Epoll.isAvailable()
+                    ? new EpollEventLoopGroup(EXECUTOR_SIZE, threadFactory)
+                    : new NioEventLoopGroup(EXECUTOR_SIZE, threadFactory);
+            var i = 0;
+            for (var eventExecutor : coreEventLoopGroup) {
+                executors[i++] = (EventLoop) eventExecutor;
+            }
+        } else {
+            coreEventLoopGroup = null;
+            for (int i = 0; i < executors.length; i++) {
+                var namedThreadFactory = new TaskThreadFactory(i);
+                executors[i] = Executors.newSingleThreadExecutor(namedThreadFactory);
+            }
+        }
+    }
+
+    private static class CoreThreadFactory extends DefaultThreadFactory {
+        private final AtomicInteger threadIndex = new AtomicInteger(0);
+        private final boolean cpuAffinity;
+
+        CoreThreadFactory(boolean cpuAffinity) {
+            super("netty-core", true);
+            this.cpuAffinity = cpuAffinity;
+        }
+
+        @Override
+        protected Thread newThread(Runnable runnable, String name) {
+            var cpuIndex = threadIndex.getAndIncrement();
+            var thread = super.newThread(() -> {
+                if (cpuAffinity) {
+                    CpuAffinityUtils.bind(cpuIndex);
+                }
+                runnable.run();
+            }, name);
+            thread.setUncaughtExceptionHandler((t, e) -> logger.error(t.toString(), e));
+            return thread;
         }
     }
 
@@ -72,8 +133,10 @@ public final class TaskManager implements ITaskManager {
         private final ThreadGroup group;
         private final AtomicInteger threadNumber = new AtomicInteger(1);
         private final String namePrefix;
+        private final int executorIndex;
 
-        TaskThreadFactory() {
+        TaskThreadFactory(int executorIndex) {
+            this.executorIndex = executorIndex;
             var s = System.getSecurityManager();
             group = (s != null) ? s.getThreadGroup() : Thread.currentThread().getThreadGroup();
             namePrefix = "task-p" + poolNumber.getAndIncrement() + "-t";
@@ -81,7 +144,7 @@ public final class TaskManager implements ITaskManager {
 
         @Override
         public Thread newThread(Runnable runnable) {
-            var t = new FastThreadLocalThread(group, runnable, namePrefix + threadNumber.getAndIncrement(), 0);
+            var t = new TaskThread(group, runnable, namePrefix + threadNumber.getAndIncrement(), executorIndex);
             t.setDaemon(false);
             t.setPriority(Thread.NORM_PRIORITY);
             t.setUncaughtExceptionHandler((thread, e) -> logger.error(thread.toString(), e));
@@ -89,6 +152,18 @@ public final class TaskManager implements ITaskManager {
         }
     }
 
+    /**
+     * 记录线程属于哪一个单线程的线程池，用来判断任务的目标线程池是不是当前线程
+     */
+    private static class TaskThread extends FastThreadLocalThread {
+        private final int executorIndex;
+
+        TaskThread(ThreadGroup group, Runnable runnable, String name, int executorIndex) {
+            super(group, runnable, name, 0);
+            this.executorIndex = executorIndex;
+        }
+    }
+
     private TaskManager() {
     }
 
@@ -98,7 +173,52 @@ public final class TaskManager implements ITaskManager {
 
     @Override
     public void addTask(ReceiveTask task) {
-        taskDispatch.getExecutor(task).execute(task);
+        var executor = taskDispatch.getExecutor(task);
+        // 已经在目标线程中了（thread-per-core模式下的io线程，或者执行DecodeTask的任务线程），直接执行，不用再放到任务队列中
+        if (inExecutor(executor)) {
+            task.run();
+            return;
+        }
+        executor.execute(task);
+    }
+
+    private boolean inExecutor(ExecutorService executor) {
+        if (coreEventLoopGroup != null) {
+            return executor instanceof EventLoop && ((EventLoop) executor).inEventLoop();
+        }
+        var thread = Thread.currentThread();
+        return thread instanceof TaskThread && executors[((TaskThread) thread).executorIndex] == executor;
+    }
+
+    /**
+     * 解码之前还不知道packet的附加包，所以使用session的id选择线程，保证同一个session的包按照顺序解码
+     */
+    @Override
+    public void addDecodeTask(DecodeTask task) {
+        getExecutorBySession(task.getSession()).execute(task);
+    }
+
+    /**
+     * thread-per-core模式下session固定在处理它io的EventLoop上，其它模式下使用session的id做一致性hash
+     */
+    @Override
+    public ExecutorService getExecutorBySession(Session session) {
+        if (coreEventLoopGroup != null) {
+            var eventLoop = session.getChannel().eventLoop();
+            if (eventLoop.parent() == coreEventLoopGroup) {
+                return eventLoop;
+            }
+        }
+        return getExecutorByConsistentHash(HashUtils.fnvHash(session.getSid()));
+    }
+
+    public boolean isThreadPerCore() {
+        return coreEventLoopGroup != null;
+    }
+
+    @Nullable
+    public EventLoopGroup getCoreEventLoopGroup() {
+        return coreEventLoopGroup;
     }
 
     @Override
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task.model;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.net.util.SessionUtils;
+import io.netty.buffer.ByteBuf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 在TaskManager的线程中反序列化一个完整的网络包，然后和io线程中解码的包一样交给PacketDispatcher
+ * <p>
+ * packet的目标线程就是当前线程的时候，TaskManager.addTask直接执行，不会再放入任务队列
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public final class DecodeTask implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecodeTask.class);
+
+    private Session session;
+
+    /**
+     * 不包括包头长度的网络包，由TcpPacketCodecHandler切分出来并且retain过，执行完之后release
+     */
+    private ByteBuf frame;
+
+    public DecodeTask(Session session, ByteBuf frame) {
+        this.session = session;
+        this.frame = frame;
+    }
+
+    @Override
+    public void run() {
+        try {
+            var packetInfo = NetContext.getPacketService().read(frame);
+            NetContext.getDispatcher().receive(session, packetInfo.getPacket(), packetInfo.getPacketAttachment());
+        } catch (Throwable t) {
+            // 和在io线程中解码失败一样，断开连接
+            logger.error("[session:{}]解码异常", SessionUtils.sessionInfo(session), t);
+            session.close();
+        } finally {
+            frame.release();
+        }
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public ByteBuf getFrame() {
+        return frame;
+    }
+
+}
@@ -14,7 +14,6 @@
 package com.zfoo.net.task.model;
 
 import com.zfoo.net.task.TaskManager;
-import com.zfoo.util.math.HashUtils;
 
 import java.util.concurrent.ExecutorService;
 
@@ -35,7 +34,7 @@ public class SessionIdTaskDispatch extends AbstractTaskDispatch {
     @Override
     public ExecutorService getExecutor(ReceiveTask receiveTask) {
         var session = receiveTask.getSession();
-        return TaskManager.getInstance().getExecutorByConsistentHash(HashUtils.fnvHash(session.getSid()));
+        return TaskManager.getInstance().getExecutorBySession(session);
     }
 
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.util;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+
+/**
+ * 把当前线程绑定到进程允许使用的第几个cpu上，只支持linux，通过jna调用sched_getaffinity和sched_setaffinity
+ * <p>
+ * 在cgroup或者cpuset的限制下，进程可以使用的cpu编号不一定是从0开始连续的，所以先通过sched_getaffinity取得进程可以使用的cpu
+ * <p>
+ * jna是可选的依赖，没有jna或者不是linux的时候只打印警告，不影响线程的正常运行
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class CpuAffinityUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(CpuAffinityUtils.class);
+
+    /**
+     * glibc中CPU_SETSIZE的默认值，内核支持更多cpu的时候sched_getaffinity返回EINVAL，需要加倍重试
+     */
+    private static final int DEFAULT_CPU_SET_BITS = 1024;
+    private static final int MAX_CPU_SET_BITS = 64 * 1024;
+
+    private interface CLibrary extends Library {
+        int sched_getaffinity(int pid, int cpuSetSize, long[] cpuSet);
+
+        int sched_setaffinity(int pid, int cpuSetSize, long[] cpuSet);
+    }
+
+    /**
+     * 进程启动时可以使用的cpu编号，第一次绑定的时候获取，绑定之后的线程的亲和性已经改变了，不能再用来计算
+     */
+    private static volatile int[] allowedCpus;
+
+    /**
+     * @param cpuIndex 进程可以使用的cpu中的第几个，超过可以使用的cpu的数量的时候取余
+     */
+    public static boolean bind(int cpuIndex) {
+        try {
+            if (!Platform.isLinux()) {
+                logger.warn("cpu亲和性只支持linux，线程[{}]没有绑定cpu[{}]", Thread.currentThread().getName(), cpuIndex);
+                return false;
+            }
+
+            var clib = Native.load("c", CLibrary.class);
+            var cpus = allowedCpus(clib);
+            if (cpus.length == 0) {
+                logger.warn("线程[{}]获取进程可以使用的cpu失败[errno:{}]，没有绑定cpu", Thread.currentThread().getName(), Native.getLastError());
+                return false;
+            }
+            var cpu = cpus[cpuIndex % cpus.length];
+
+            var cpuSet = new long[cpu / Long.SIZE + 1];
+            cpuSet[cpu / Long.SIZE] |= 1L << (cpu % Long.SIZE);
+
+            // pid为0表示当前线程
+            var result = clib.sched_setaffinity(0, cpuSet.length * Long.BYTES, cpuSet);
+            if (result != 0) {
+                logger.warn("线程[{}]绑定cpu[{}]失败[errno:{}]", Thread.currentThread().getName(), cpu, Native.getLastError());
+                return false;
+            }
+            logger.info("线程[{}]绑定cpu[{}]", Thread.currentThread().getName(), cpu);
+            return true;
+        } catch (Throwable t) {
+            logger.warn("线程[{}]绑定cpu[{}]失败，需要依赖jna", Thread.currentThread().getName(), cpuIndex, t);
+            return false;
+        }
+    }
+
+    private static int[] allowedCpus(CLibrary clib) {
+        var cpus = allowedCpus;
+        if (cpus != null) {
+            return cpus;
+        }
+
+        synchronized (CpuAffinityUtils.class) {
+            if (allowedCpus != null) {
+                return allowedCpus;
+            }
+
+            // 绑定cpu的线程是新创建的线程，继承的是进程的亲和性，还没有被改变
+            for (var bits = DEFAULT_CPU_SET_BITS; bits <= MAX_CPU_SET_BITS; bits *= 2) {
+                var cpuSet = new long[bits / Long.SIZE];
+                if (clib.sched_getaffinity(0, cpuSet.length * Long.BYTES, cpuSet) != 0) {
+                    continue;
+                }
+                cpus = BitSet.valueOf(cpuSet).stream().toArray();
+                allowedCpus = cpus;
+                return cpus;
+            }
+            return new int[0];
+        }
+    }
+
+}
@@ -13,12 +13,14 @@
 
 package com.zfoo.net.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.zfoo.event.manager.EventBus;
 import com.zfoo.protocol.collection.CollectionUtils;
 import com.zfoo.protocol.model.Pair;
+import com.zfoo.protocol.util.StringUtils;
 import com.zfoo.scheduler.manager.SchedulerManager;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -26,6 +28,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
@@ -50,6 +53,12 @@ public class SimpleCache<K, V> {
     private LoadingCache<K, V> cache;
     private ConcurrentLinkedQueue<K> linkedQueue;
 
+    /**
+     * batchReloadCallback查询不到的key，在过期之前不会再通过batchReloadCallback查询
+     */
+    private Cache<K, Boolean> negativeCache;
+    private LongAdder negativeHitCount;
+
     private long expiredAccessDuration;
     private long refreshDuration;
     private Function<List<K>, List<Pair<K, V>>> batchReloadCallback;
@@ -68,6 +77,11 @@ public class SimpleCache<K, V> {
             , Function<K, V> defaultValueBuilder) {
 
         var linkedQueue = new ConcurrentLinkedQueue<K>();
+        var negativeHitCount = new LongAdder();
+        Cache<K, Boolean> negativeCache = Caffeine.newBuilder()
+                .expireAfterWrite(expiredAccessDuration, TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .build();
 
         // 没有用guava的expireAfterWrite的原因是容易造成缓存击穿
         var cache = Caffeine.newBuilder()
@@ -79,12 +93,25 @@ public class SimpleCache<K, V> {
                     @Override
                     public @Nullable V load(@NonNull K key) {
                         // 因为通过SimpleCache封装过后，上层逻辑是不会调用guava的cache的get方法，所以理论上load不会执行
+                        if (negativeCache.getIfPresent(key) != null) {
+                            negativeHitCount.increment();
+                            return defaultValueBuilder.apply(key);
+                        }
                         var resultList = batchReloadCallback.apply(List.of(key));
-                        return CollectionUtils.isEmpty(resultList) ? defaultValueBuilder.apply(key) : resultList.get(0).getValue();
+                        if (CollectionUtils.isEmpty(resultList)) {
+                            negativeCache.put(key, Boolean.TRUE);
+                            return defaultValueBuilder.apply(key);
+                        }
+                        return resultList.get(0).getValue();
                     }
 
                     @Override
                     public @Nullable V reload(@NonNull K key, @NonNull V oldValue) {
+                        // 不存在的key在负缓存过期之前不需要刷新
+                        if (negativeCache.getIfPresent(key) != null) {
+                            negativeHitCount.increment();
+                            return oldValue;
+                        }
                         linkedQueue.offer(key);
                         // 先返回老的值，等周期任务刷新新的值
                         return oldValue;
@@ -104,15 +131,13 @@ public class SimpleCache<K, V> {
                             var key = linkedQueue.poll();
                             list.add(key);
                             if (list.size() >= BATCH_RELOAD_SIZE) {
-                                var result = batchReloadCallback.apply(list);
-                                result.forEach(it -> cache.put(it.getKey(), it.getValue()));
+                                batchReload(list, batchReloadCallback, cache, negativeCache);
                                 list.clear();
                             }
                         }
 
                         if (CollectionUtils.isNotEmpty(list)) {
-                            var result = batchReloadCallback.apply(list);
-                            result.forEach(it -> cache.put(it.getKey(), it.getValue()));
+                            batchReload(list, batchReloadCallback, cache, negativeCache);
                         }
                     }
                 });
@@ -123,6 +148,8 @@ public class SimpleCache<K, V> {
         var simpleCache = new SimpleCache<K, V>();
         simpleCache.cache = cache;
         simpleCache.linkedQueue = linkedQueue;
+        simpleCache.negativeCache = negativeCache;
+        simpleCache.negativeHitCount = negativeHitCount;
         simpleCache.expiredAccessDuration = expiredAccessDuration;
         simpleCache.refreshDuration = refreshDuration;
         simpleCache.batchReloadCallback = batchReloadCallback;
@@ -130,6 +157,19 @@ public class SimpleCache<K, V> {
         return simpleCache;
     }
 
+    /**
+     * 刷新的时候查询不到的key放入负缓存，之后不会再刷新
+     */
+    private static <K, V> void batchReload(List<K> keys, Function<List<K>, List<Pair<K, V>>> batchReloadCallback
+            , LoadingCache<K, V> cache, Cache<K, Boolean> negativeCache) {
+        var notPresentKeySet = new HashSet<>(keys);
+        batchReloadCallback.apply(keys).forEach(it -> {
+            cache.put(it.getKey(), it.getValue());
+            notPresentKeySet.remove(it.getKey());
+        });
+        notPresentKeySet.forEach(it -> negativeCache.put(it, Boolean.TRUE));
+    }
+
     /**
      * 单个查找
      */
@@ -151,6 +191,7 @@ public class SimpleCache<K, V> {
     }
 
     public void put(K k, V v) {
+        negativeCache.invalidate(k);
         cache.put(k, v);
     }
 
@@ -168,6 +209,11 @@ public class SimpleCache<K, V> {
             var value = cache.getIfPresent(id);
             if (value != null) {
                 result.put(id, value);
+            } else if (negativeCache.getIfPresent(id) != null) {
+                negativeHitCount.increment();
+                var defaultValue = defaultValueBuilder.apply(id);
+                result.put(id, defaultValue);
+                cache.put(id, defaultValue);
             } else {
                 notPresentIdSet.add(id);
             }
@@ -188,10 +234,20 @@ public class SimpleCache<K, V> {
                 var defaultValue = defaultValueBuilder.apply(it);
                 result.put(it, defaultValue);
                 cache.put(it, defaultValue);
+                negativeCache.put(it, Boolean.TRUE);
             });
         }
 
         return result;
     }
 
+    /**
+     * 统计缓存命中率和不存在的key的命中次数
+     */
+    public String recordStatus() {
+        var stats = cache.stats();
+        return StringUtils.format("缓存命中率[hitRate:{}]，命中次数[hitCount:{}]，未命中次数[missCount:{}]，不存在的key的数量[negativeSize:{}]，不存在的key的命中次数[negativeHitCount:{}]"
+                , stats.hitRate(), stats.hitCount(), stats.missCount(), negativeCache.estimatedSize(), negativeHitCount.sum());
+    }
+
 }
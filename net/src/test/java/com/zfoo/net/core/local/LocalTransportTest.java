@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.local;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.core.tcp.TcpClient;
+import com.zfoo.net.core.tcp.TcpServer;
+import com.zfoo.net.packet.CM_Benchmark;
+import com.zfoo.net.packet.SM_Benchmark;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.util.net.HostAndPort;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内调用和本地回环tcp调用的性能对比
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class LocalTransportTest {
+
+    private static final int THREAD_NUM = Runtime.getRuntime().availableProcessors();
+    private static final int BENCHMARK = 10_0000;
+
+    @Test
+    public void benchmarkTest() throws InterruptedException {
+        var context = new ClassPathXmlApplicationContext("server_config.xml");
+        var executor = Executors.newFixedThreadPool(THREAD_NUM);
+
+        var hostAndPort = HostAndPort.valueOf("127.0.0.1:9000");
+        new TcpServer(hostAndPort).start();
+        var tcpSession = new TcpClient(hostAndPort).start();
+
+        new LocalServer("benchmark").start();
+        var localSession = new LocalClient("benchmark").start();
+
+        // 预热
+        syncAskBenchmark(executor, tcpSession, BENCHMARK);
+        syncAskBenchmark(executor, localSession, BENCHMARK);
+
+        var tcpTime = syncAskBenchmark(executor, tcpSession, BENCHMARK);
+        System.out.println(StringUtils.format("[tcp]             [benchmark:{}] [time:{}ms] [qps:{}]", BENCHMARK, tcpTime, BENCHMARK * 1000L / tcpTime));
+
+        NetContext.getConfigManager().getLocalConfig().getConsumerConfig().setLocalTransport(LocalTransport.REFERENCE);
+        var referenceTime = syncAskBenchmark(executor, localSession, BENCHMARK);
+        System.out.println(StringUtils.format("[local-reference] [benchmark:{}] [time:{}ms] [qps:{}]", BENCHMARK, referenceTime, BENCHMARK * 1000L / referenceTime));
+
+        NetContext.getConfigManager().getLocalConfig().getConsumerConfig().setLocalTransport(LocalTransport.COPY);
+        var copyTime = syncAskBenchmark(executor, localSession, BENCHMARK);
+        System.out.println(StringUtils.format("[local-copy]      [benchmark:{}] [time:{}ms] [qps:{}]", BENCHMARK, copyTime, BENCHMARK * 1000L / copyTime));
+
+        executor.shutdown();
+        context.close();
+    }
+
+    private long syncAskBenchmark(ExecutorService executor, Session session, int benchmark) throws InterruptedException {
+        var latch = new CountDownLatch(THREAD_NUM);
+        var errorCount = new AtomicLong(0);
+        var startTime = System.currentTimeMillis();
+        for (int i = 0; i < THREAD_NUM; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < benchmark / THREAD_NUM; j++) {
+                    try {
+                        NetContext.getDispatcher().syncAsk(session, CM_Benchmark.valueOf(j, "Hello, this is benchmark!"), SM_Benchmark.class, null);
+                    } catch (Exception e) {
+                        errorCount.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        if (errorCount.get() > 0) {
+            System.out.println(StringUtils.format("syncAsk失败次数[{}]", errorCount.get()));
+        }
+        return Math.max(1, System.currentTimeMillis() - startTime);
+    }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.local.controller;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.dispatcher.model.anno.PacketReceiver;
+import com.zfoo.net.packet.CM_Benchmark;
+import com.zfoo.net.packet.SM_Benchmark;
+import com.zfoo.net.session.model.Session;
+import org.springframework.stereotype.Component;
+
+/**
+ * 性能测试用的应答，收到什么就返回什么，不做任何打印
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Component
+public class BenchmarkController {
+
+    @PacketReceiver
+    public void atCM_Benchmark(Session session, CM_Benchmark cm) {
+        NetContext.getDispatcher().send(session, SM_Benchmark.valueOf(cm.getId(), cm.getA()));
+    }
+
+}
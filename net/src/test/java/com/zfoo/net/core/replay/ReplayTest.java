@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.replay;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.core.tcp.TcpClient;
+import com.zfoo.net.core.tcp.TcpServer;
+import com.zfoo.net.handler.capture.CaptureHandler;
+import com.zfoo.net.handler.capture.CaptureLog;
+import com.zfoo.net.packet.CM_Benchmark;
+import com.zfoo.net.packet.SM_Benchmark;
+import com.zfoo.protocol.util.FileUtils;
+import com.zfoo.util.net.HostAndPort;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.File;
+
+/**
+ * 先抓包，再把抓到的流量以不同的速度和session倍数回放到服务器
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class ReplayTest {
+
+    private static final int REQUEST_NUM = 1_0000;
+
+    @Test
+    public void captureAndReplayTest() throws Exception {
+        var context = new ClassPathXmlApplicationContext("server_config.xml");
+        var directory = new File(System.getProperty("java.io.tmpdir"), "zfoo-replay-test");
+        FileUtils.deleteFile(directory);
+
+        var captureLog = new CaptureLog(directory.getAbsolutePath());
+        var hostAndPort = HostAndPort.valueOf("127.0.0.1:9000");
+        new TcpServer(hostAndPort, new CaptureHandler(captureLog)).start();
+
+        // 抓包
+        var session = new TcpClient(hostAndPort).start();
+        for (var i = 0; i < REQUEST_NUM; i++) {
+            NetContext.getDispatcher().syncAsk(session, CM_Benchmark.valueOf(i, "Hello, this is replay!"), SM_Benchmark.class, null);
+        }
+        captureLog.close();
+
+        // 回放
+        System.out.println(ReplayDriver.valueOf(directory.getAbsolutePath(), hostAndPort, 1, 1).replay());
+        System.out.println(ReplayDriver.valueOf(directory.getAbsolutePath(), hostAndPort, 10, 10).replay());
+
+        context.close();
+    }
+
+}
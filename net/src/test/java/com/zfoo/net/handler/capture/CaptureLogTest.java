@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.capture;
+
+import com.zfoo.protocol.util.FileUtils;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class CaptureLogTest {
+
+    @Test
+    public void roundTripTest() throws Exception {
+        var directory = new File(System.getProperty("java.io.tmpdir"), "zfoo-capture-test-" + System.nanoTime());
+        try {
+            var frameA = frame(100, (byte) 1);
+            var frameB = frame(200, (byte) 2);
+            var frameC = frame(50, (byte) 3);
+
+            // 很小的segment强制滚动，两个session交错写入，并且一个网络包被拆成多次读取
+            try (var captureLog = new CaptureLog(directory.getAbsolutePath(), 256)) {
+                captureLog.append(1L, Unpooled.wrappedBuffer(frameA, 0, 30));
+                captureLog.append(2L, Unpooled.wrappedBuffer(frameB));
+                captureLog.append(1L, Unpooled.wrappedBuffer(frameA, 30, frameA.length - 30));
+                captureLog.append(1L, Unpooled.wrappedBuffer(frameC));
+            }
+            Assert.assertTrue(CaptureLog.segments(directory.getAbsolutePath()).size() > 1);
+
+            var frames = new ArrayList<CaptureFrame>();
+            CaptureLogReader.read(directory.getAbsolutePath(), it -> frames.add(it));
+
+            Assert.assertEquals(3, frames.size());
+            Assert.assertEquals(2L, frames.get(0).getSid());
+            Assert.assertArrayEquals(frameB, frames.get(0).getFrame());
+            Assert.assertEquals(1L, frames.get(1).getSid());
+            Assert.assertArrayEquals(frameA, frames.get(1).getFrame());
+            Assert.assertEquals(1L, frames.get(2).getSid());
+            Assert.assertArrayEquals(frameC, frames.get(2).getFrame());
+            Assert.assertTrue(frames.get(0).getEpochNano() <= frames.get(2).getEpochNano());
+        } finally {
+            FileUtils.deleteFile(directory);
+        }
+    }
+
+    @Test
+    public void restartTest() throws Exception {
+        var directory = new File(System.getProperty("java.io.tmpdir"), "zfoo-capture-test-" + System.nanoTime());
+        try {
+            var frameA = frame(100, (byte) 1);
+            var frameB = frame(50, (byte) 2);
+
+            // 第一次启动只写了半个包就停止了
+            var startEpochNano = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            try (var captureLog = new CaptureLog(directory.getAbsolutePath())) {
+                captureLog.append(1L, Unpooled.wrappedBuffer(frameA, 0, 30));
+                Assert.assertEquals(0, captureLog.getDroppedCount());
+            }
+
+            // 重启之后sid从头开始分配，和上一次启动的sid重复
+            try (var captureLog = new CaptureLog(directory.getAbsolutePath())) {
+                captureLog.append(1L, Unpooled.wrappedBuffer(frameB));
+            }
+
+            var frames = new ArrayList<CaptureFrame>();
+            CaptureLogReader.read(directory.getAbsolutePath(), it -> frames.add(it));
+
+            Assert.assertEquals(1, frames.size());
+            Assert.assertEquals(1, frames.get(0).getRun());
+            Assert.assertEquals(1L, frames.get(0).getSid());
+            Assert.assertArrayEquals(frameB, frames.get(0).getFrame());
+            Assert.assertTrue(frames.get(0).getEpochNano() >= startEpochNano - TimeUnit.MILLISECONDS.toNanos(1));
+        } finally {
+            FileUtils.deleteFile(directory);
+        }
+    }
+
+    private byte[] frame(int length, byte value) {
+        var frame = new byte[4 + length];
+        Arrays.fill(frame, value);
+        Unpooled.wrappedBuffer(frame).setInt(0, length);
+        return frame;
+    }
+
+}
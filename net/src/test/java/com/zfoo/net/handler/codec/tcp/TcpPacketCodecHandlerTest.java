@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.codec.tcp;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.packet.CM_Benchmark;
+import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * io线程中解码的开销，流水线的客户端一次read收到很多个包
+ * <p>
+ * decodeInTaskThread为true的时候io线程只切分网络包，反序列化的开销转移到TaskManager的线程
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class TcpPacketCodecHandlerTest {
+
+    private static final int PACKETS_PER_READ = 64;
+    private static final int READ_COUNT = 2_0000;
+
+    @Test
+    public void benchmarkTest() {
+        var context = new ClassPathXmlApplicationContext("server_config.xml");
+
+        var frames = ByteBufAllocator.DEFAULT.heapBuffer();
+        var packetBuffer = ByteBufAllocator.DEFAULT.heapBuffer();
+        for (var i = 0; i < PACKETS_PER_READ; i++) {
+            NetContext.getPacketService().write(packetBuffer, CM_Benchmark.valueOf(i, "Hello, this is benchmark!"), null);
+            frames.writeBytes(packetBuffer);
+        }
+        packetBuffer.release();
+
+        // 预热
+        benchmark(frames, false);
+        benchmark(frames, true);
+
+        var ioTime = benchmark(frames, false);
+        var taskTime = benchmark(frames, true);
+        var packets = (long) PACKETS_PER_READ * READ_COUNT;
+        System.out.println(StringUtils.format("[decode-thread:io]   [packets:{}] [io time:{}ms] [packets/s:{}]", packets, ioTime, packets * 1000 / ioTime));
+        System.out.println(StringUtils.format("[decode-thread:task] [packets:{}] [io time:{}ms] [packets/s:{}]", packets, taskTime, packets * 1000 / taskTime));
+
+        frames.release();
+        context.close();
+    }
+
+    private long benchmark(ByteBuf frames, boolean decodeInTaskThread) {
+        var channel = new EmbeddedChannel(new TcpPacketCodecHandler(decodeInTaskThread), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                if (!(msg instanceof DecodedPacketInfo)) {
+                    ReferenceCountUtil.release(msg);
+                }
+            }
+        });
+
+        var startTime = System.currentTimeMillis();
+        for (var i = 0; i < READ_COUNT; i++) {
+            channel.writeInbound(frames.retainedDuplicate());
+        }
+        var time = Math.max(1, System.currentTimeMillis() - startTime);
+        channel.finishAndReleaseAll();
+        return time;
+    }
+
+}
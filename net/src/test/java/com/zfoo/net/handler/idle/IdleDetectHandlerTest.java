@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.idle;
+
+import com.zfoo.net.handler.BaseDispatcherHandler;
+import com.zfoo.net.session.model.Session;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 没有启动scheduler的时候空闲检测也要触发
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class IdleDetectHandlerTest {
+
+    @Test
+    public void idleTest() throws Exception {
+        var idleCount = new AtomicInteger(0);
+        var channel = new EmbeddedChannel();
+        channel.attr(BaseDispatcherHandler.SESSION_KEY).set(new Session(channel));
+        channel.pipeline().addLast(new IdleDetectHandler(1));
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                if (evt == IdleStateEvent.ALL_IDLE_STATE_EVENT) {
+                    idleCount.incrementAndGet();
+                }
+            }
+        });
+        channel.pipeline().fireChannelActive();
+
+        // 时间轮一秒钟走一格，空闲一秒之后最多再过两格触发
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (idleCount.get() == 0 && System.nanoTime() < deadline) {
+            channel.runPendingTasks();
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(idleCount.get() > 0);
+        channel.close();
+    }
+
+}
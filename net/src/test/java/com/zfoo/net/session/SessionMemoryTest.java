@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.session;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.handler.ServerDispatcherHandler;
+import com.zfoo.net.handler.idle.IdleDetectHandler;
+import com.zfoo.net.handler.idle.ServerIdleHandler;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.timeout.IdleStateHandler;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * C1M的内存测试，使用进程内的LocalChannel模拟大量的连接，统计每个连接占用的内存
+ * <p>
+ * 每个连接包括客户端和服务器两个channel，两种空闲检测方式的差值就是服务器端节省的内存
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class SessionMemoryTest {
+
+    private static final int CONNECTIONS = 10_0000;
+
+    private static final ChannelHandler CLIENT_HANDLER = new ChannelInboundHandlerAdapter() {
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+    };
+
+    @Test
+    public void memoryTest() {
+        var context = new ClassPathXmlApplicationContext("server_config.xml");
+
+        var idleStateBytes = bytesPerConnection("idle-state-handler", channel -> {
+            channel.pipeline().addLast(new IdleStateHandler(0, 0, 180));
+            channel.pipeline().addLast(new ServerIdleHandler());
+            channel.pipeline().addLast(new ServerDispatcherHandler());
+        });
+
+        var idleDetectBytes = bytesPerConnection("idle-detect-handler", channel -> {
+            channel.pipeline().addLast(IdleDetectHandler.SERVER_IDLE_DETECT_HANDLER);
+            channel.pipeline().addLast(new ServerIdleHandler());
+            channel.pipeline().addLast(new ServerDispatcherHandler());
+        });
+
+        System.out.println(StringUtils.format("[IdleStateHandler:{}bytes] [IdleDetectHandler:{}bytes] [saved:{}bytes/connection]"
+                , idleStateBytes, idleDetectBytes, idleStateBytes - idleDetectBytes));
+
+        context.close();
+    }
+
+    private long bytesPerConnection(String name, Consumer<Channel> serverPipeline) {
+        var eventLoopGroup = new DefaultEventLoopGroup(1);
+        var address = new LocalAddress(name);
+        var serverChannel = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel channel) {
+                        serverPipeline.accept(channel);
+                    }
+                })
+                .bind(address).syncUninterruptibly().channel();
+
+        var bootstrap = new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(LocalChannel.class)
+                .handler(CLIENT_HANDLER);
+
+        var beforeMemory = usedMemory();
+        var clients = new ArrayList<Channel>(CONNECTIONS);
+        for (var i = 0; i < CONNECTIONS; i++) {
+            clients.add(bootstrap.connect(address).syncUninterruptibly().channel());
+        }
+        var afterMemory = usedMemory();
+
+        var bytes = (afterMemory - beforeMemory) / CONNECTIONS;
+        System.out.println(StringUtils.format("[{}] [connections:{}] [sessions:{}] [memory:{}MB] [{}bytes/connection]"
+                , name, CONNECTIONS, NetContext.getSessionManager().getServerSessionMap().size()
+                , (afterMemory - beforeMemory) / 1024 / 1024, bytes));
+
+        clients.forEach(it -> it.close().syncUninterruptibly());
+        serverChannel.close().syncUninterruptibly();
+        eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+        return bytes;
+    }
+
+    private long usedMemory() {
+        for (var i = 0; i < 3; i++) {
+            System.gc();
+        }
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
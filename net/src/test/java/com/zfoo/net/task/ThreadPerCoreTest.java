@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.core.tcp.TcpClient;
+import com.zfoo.net.core.tcp.TcpServer;
+import com.zfoo.net.packet.CM_Benchmark;
+import com.zfoo.net.packet.SM_Benchmark;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.util.net.HostAndPort;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+/**
+ * 默认线程模型和thread-per-core线程模型的吞吐量和延迟对比，TaskManager的线程模型在一个进程中只能初始化一次，所以需要分别运行：
+ * <p>
+ * 使用sessionId分发，session的io和任务处理才会固定在同一个EventLoop上，random分发会把任务随机扔到其它线程
+ * <p>
+ * mvn test -Dtest=ThreadPerCoreTest -DthreadMode=default
+ * <p>
+ * mvn test -Dtest=ThreadPerCoreTest -DthreadMode=thread-per-core
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class ThreadPerCoreTest {
+
+    private static final int CLIENT_NUM = Runtime.getRuntime().availableProcessors();
+    private static final int BENCHMARK = 10_0000;
+
+    @Test
+    public void benchmarkTest() throws InterruptedException {
+        var context = new ClassPathXmlApplicationContext("task/thread_per_core_config.xml");
+
+        var threadMode = System.getProperty("threadMode", "default");
+        NetContext.getConfigManager().getLocalConfig().getProviderConfig().setThreadMode(threadMode);
+
+        var hostAndPort = HostAndPort.valueOf("127.0.0.1:9000");
+        new TcpServer(hostAndPort).start();
+        var sessions = new ArrayList<Session>();
+        for (var i = 0; i < CLIENT_NUM; i++) {
+            sessions.add(new TcpClient(hostAndPort).start());
+        }
+
+        // 预热
+        benchmark(sessions, threadMode);
+        benchmark(sessions, threadMode);
+
+        context.close();
+    }
+
+    private void benchmark(ArrayList<Session> sessions, String threadMode) throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(CLIENT_NUM);
+        var latch = new CountDownLatch(CLIENT_NUM);
+        var countPerClient = BENCHMARK / CLIENT_NUM;
+        var latencies = new long[countPerClient * CLIENT_NUM];
+
+        var startTime = System.nanoTime();
+        for (var i = 0; i < CLIENT_NUM; i++) {
+            var clientIndex = i;
+            executor.execute(() -> {
+                var session = sessions.get(clientIndex);
+                for (var j = 0; j < countPerClient; j++) {
+                    var requestTime = System.nanoTime();
+                    try {
+                        NetContext.getDispatcher().syncAsk(session, CM_Benchmark.valueOf(j, "Hello, this is benchmark!"), SM_Benchmark.class, null);
+                    } catch (Exception e) {
+                        // 超时的请求按照超时时间统计
+                    }
+                    latencies[clientIndex * countPerClient + j] = System.nanoTime() - requestTime;
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+        var time = Math.max(1, (System.nanoTime() - startTime) / 100_0000);
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.println(StringUtils.format("[{}] [requests:{}] [time:{}ms] [qps:{}] [latency avg:{}us p50:{}us p99:{}us]"
+                , threadMode, latencies.length, time, latencies.length * 1000L / time
+                , Arrays.stream(latencies).sum() / latencies.length / 1000
+                , latencies[latencies.length / 2] / 1000, latencies[latencies.length * 99 / 100] / 1000));
+    }
+
+}
@@ -19,6 +19,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -54,4 +55,25 @@ public class SimpleCacheTest {
         ThreadUtils.sleep(Long.MAX_VALUE);
     }
 
+    @Test
+    public void negativeTest() {
+        var callbackCount = new AtomicInteger(0);
+        var cache = SimpleCache.build(3000, 1000, 100, new Function<List<String>, List<Pair<String, String>>>() {
+            @Override
+            public List<Pair<String, String>> apply(List<String> keyList) {
+                callbackCount.incrementAndGet();
+                return keyList.stream().filter(it -> !it.startsWith("none")).map(it -> new Pair<>(it, "new-" + it + "-value")).collect(Collectors.toList());
+            }
+        }, key -> "empty");
+
+        // 不存在的key只会查询一次
+        for (var i = 0; i < 5; i++) {
+            cache.batchGet(List.of("a", "none-b"));
+            cache.get("none-c");
+            ThreadUtils.sleep(500);
+        }
+        System.out.println("callbackCount:" + callbackCount.get());
+        System.out.println(cache.recordStatus());
+    }
+
 }
@@ -17,6 +17,7 @@ import com.mongodb.client.MongoClient;
 import com.zfoo.orm.manager.IOrmManager;
 import com.zfoo.orm.manager.OrmManager;
 import com.zfoo.orm.model.accessor.IAccessor;
+import com.zfoo.orm.model.persister.PersistScheduler;
 import com.zfoo.orm.model.query.IQuery;
 import com.zfoo.orm.schema.OrmProcessor;
 import com.zfoo.protocol.util.ReflectionUtils;
@@ -115,9 +116,8 @@ public class OrmContext implements ApplicationListener<ApplicationContextEvent>,
     public static synchronized void shutdownBetween() {
         instance.stop = true;
         try {
-            instance.ormManager
-                    .getAllEntityCaches()
-                    .forEach(it -> it.persistAll());
+            // 不同实体类并行持久化
+            PersistScheduler.shutdown(instance.ormManager.getAllEntityCaches());
         } catch (Exception e) {
             logger.error("关闭服务器时，持久化缓存数据异常", e);
         } finally {
@@ -130,7 +130,10 @@ public class OrmContext implements ApplicationListener<ApplicationContextEvent>,
             var field = OrmManager.class.getDeclaredField("mongoClient");
             ReflectionUtils.makeAccessible(field);
             var mongoClient = (MongoClient) ReflectionUtils.getField(field, instance.ormManager);
-            mongoClient.close();
+            // 内存数据库模式没有创建MongoClient
+            if (mongoClient != null) {
+                mongoClient.close();
+            }
         } catch (Exception e) {
             logger.error("关闭MongoClient数据库连接失败", e);
             return;
@@ -18,6 +18,7 @@ import com.mongodb.client.MongoCollection;
 import com.zfoo.orm.model.cache.IEntityCaches;
 import com.zfoo.orm.model.entity.IEntity;
 import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
 
 import java.util.Collection;
 
@@ -36,6 +37,11 @@ public interface IOrmManager {
 
     Collection<IEntityCaches<?, ?>> getAllEntityCaches();
 
+    /**
+     * 实体的编解码器，MongoDB和内存数据库共用
+     */
+    CodecRegistry getCodecRegistry();
+
     /**
      * 获取一个会话
      */
@@ -20,8 +20,10 @@ import com.mongodb.client.*;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
 import com.zfoo.orm.model.anno.EntityCache;
+import com.zfoo.orm.model.cache.CacheHeapBudget;
 import com.zfoo.orm.model.cache.EntityCaches;
 import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.codec.EntityCodecProvider;
 import com.zfoo.orm.model.config.OrmConfig;
 import com.zfoo.orm.model.entity.IEntity;
 import com.zfoo.orm.model.vo.EntityDef;
@@ -34,6 +36,8 @@ import org.bson.Document;
 import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.pojo.PojoCodecProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.type.AnnotationMetadata;
@@ -53,10 +57,13 @@ import java.util.stream.Collectors;
  */
 public class OrmManager implements IOrmManager {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrmManager.class);
+
     private static final Map<Class<? extends IEntity<?>>, IEntityCaches<?, ?>> entityCachesMap = new HashMap<>();
 
     private OrmConfig ormConfig;
 
+    private CodecRegistry codecRegistry;
     private MongoClient mongoClient;
     private MongoDatabase mongodbDatabase;
 
@@ -79,13 +86,38 @@ public class OrmManager implements IOrmManager {
             entityCachesMap.put(entityDef.getClazz(), entityCaches);
         }
 
+        // 实体类优先使用生成的编解码器，无法生成的再交给PojoCodecProvider
         CodecRegistry pojoCodecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(new EntityCodecProvider(entityDefMap.keySet())),
                 MongoClientSettings.getDefaultCodecRegistry(),
                 CodecRegistries.fromProviders(PojoCodecProvider.builder().automatic(true).build()));
 
+        codecRegistry = pojoCodecRegistry;
+
+        // 内存数据库启动的时候是空的，没有索引，预写日志和需要预加载的数据
+        if (ormConfig.isMemory()) {
+            logger.info("orm使用内存数据库，数据不会写入MongoDB");
+        } else {
+            initMongodb(entityDefMap);
+        }
+
+        // 按照内存淘汰的缓存共享全局的内存预算
+        var heapBudget = ormConfig.getCachesConfig().getHeapBudget();
+        if (heapBudget > 0) {
+            var weightedCaches = entityCachesMap.values().stream()
+                    .<EntityCaches<?, ?>>map(it -> (EntityCaches<?, ?>) it)
+                    .filter(it -> it.isWeighted())
+                    .collect(Collectors.toList());
+            if (CollectionUtils.isNotEmpty(weightedCaches)) {
+                new CacheHeapBudget(heapBudget, weightedCaches).start();
+            }
+        }
+    }
+
+    private void initMongodb(Map<Class<? extends IEntity<?>>, EntityDef> entityDefMap) {
         var mongoBuilder = MongoClientSettings
                 .builder()
-                .codecRegistry(pojoCodecRegistry);
+                .codecRegistry(codecRegistry);
 
         // 设置数据库地址
         var hostConfig = ormConfig.getHostConfig();
@@ -156,6 +188,19 @@ public class OrmManager implements IOrmManager {
                 }
             }
         }
+
+        // 恢复预写日志
+        if (!StringUtils.isBlank(ormConfig.getJournal())) {
+            for (var entityCaches : entityCachesMap.values()) {
+                ((EntityCaches<?, ?>) entityCaches).startJournal(ormConfig.getJournal());
+            }
+        }
+
+        // 预加载缓存，需要在恢复预写日志之后
+        for (var entityCaches : entityCachesMap.values()) {
+            ((EntityCaches<?, ?>) entityCaches).initBloomFilter();
+            ((EntityCaches<?, ?>) entityCaches).warmUp();
+        }
     }
 
     private Map<Class<? extends IEntity<?>>, EntityDef> scanEntity() {
@@ -229,13 +274,20 @@ public class OrmManager implements IOrmManager {
         return Collections.unmodifiableCollection(entityCachesMap.values());
     }
 
+    @Override
+    public CodecRegistry getCodecRegistry() {
+        return codecRegistry;
+    }
+
     @Override
     public ClientSession getClientSession() {
+        checkMongodb();
         return mongoClient.startSession();
     }
 
     @Override
     public <E extends IEntity<?>> MongoCollection<E> getCollection(Class<E> entityClazz) {
+        checkMongodb();
         var collectionName = collectionNameMap.get(entityClazz);
         if (collectionName == null) {
             collectionName = StringUtils.substringBeforeLast(StringUtils.uncapitalize(entityClazz.getSimpleName()), "Entity");
@@ -248,7 +300,14 @@ public class OrmManager implements IOrmManager {
 
     @Override
     public MongoCollection<Document> getCollection(String collection) {
+        checkMongodb();
         return mongodbDatabase.getCollection(collection);
     }
 
+    private void checkMongodb() {
+        if (ormConfig.isMemory()) {
+            throw new UnsupportedOperationException("orm使用内存数据库的时候没有MongoDB的连接，请通过IAccessor和IQuery操作数据库");
+        }
+    }
+
 }
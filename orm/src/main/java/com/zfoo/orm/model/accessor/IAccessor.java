@@ -13,6 +13,7 @@
 
 package com.zfoo.orm.model.accessor;
 
+import com.mongodb.client.model.WriteModel;
 import com.zfoo.orm.model.entity.IEntity;
 import org.springframework.lang.Nullable;
 
@@ -26,6 +27,9 @@ import java.util.List;
  */
 public interface IAccessor {
 
+    /**
+     * 插入之后通过IEntityCaches.onInsert通知实体缓存，主键从负缓存中移除并且加入布隆过滤器，之后通过缓存可以加载到这个实体
+     */
     <E extends IEntity<?>> boolean insert(E entity);
 
     <E extends IEntity<?>> void batchInsert(List<E> entities);
@@ -42,6 +46,13 @@ public interface IAccessor {
 
     <E extends IEntity<?>> void batchDelete(List<?> pks, Class<E> entityClazz);
 
+    /**
+     * 无序的批量写入，写入关注为ACKNOWLEDGED，缓存的持久化器通过这个方法写入数据库
+     *
+     * @return 修改的文档数量加上upsert和insert插入的文档数量，和MongoDB一样，内容没有改变的文档不算作修改
+     */
+    <E extends IEntity<?>> int bulkWrite(Class<E> entityClazz, List<WriteModel<E>> writeModels);
+
     @Nullable
     <E extends IEntity<?>> E load(Object pk, Class<E> entityClazz);
 
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.accessor;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.WriteModel;
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import com.zfoo.protocol.collection.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 基于MemoryDatabase的IAccessor，和MongodbAccessor的行为一致，用于测试和压测
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class MemoryAccessor implements IAccessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryAccessor.class);
+
+    @Override
+    public <E extends IEntity<?>> boolean insert(E entity) {
+        var inserted = MemoryDatabase.insert(entity);
+        if (inserted) {
+            onInsert((Class<E>) entity.getClass(), List.of(entity));
+        }
+        return inserted;
+    }
+
+    @Override
+    public <E extends IEntity<?>> void batchInsert(List<E> entities) {
+        if (CollectionUtils.isEmpty(entities)) {
+            return;
+        }
+        entities.forEach(it -> MemoryDatabase.insert(it));
+        onInsert((Class<E>) entities.get(0).getClass(), entities);
+    }
+
+    @Override
+    public <E extends IEntity<?>> boolean update(E entity) {
+        try {
+            var entityClazz = (Class<E>) entity.getClass();
+            var modifiedCount = MemoryDatabase.replaceOne(entityClazz, Filters.eq("_id", entity.id()), MemoryDatabase.encode(entity), false);
+            if (modifiedCount <= 0) {
+                logger.error("数据库[{}]中没有[id:{}]的字段，或者需要更新的数据和数据库中的相同", entityClazz.getSimpleName(), entity.id());
+                return false;
+            }
+            return true;
+        } catch (Throwable t) {
+            logger.error("更新update未知异常", t);
+        }
+        return false;
+    }
+
+    @Override
+    public <E extends IEntity<?>> void batchUpdate(List<E> entities) {
+        if (CollectionUtils.isEmpty(entities)) {
+            return;
+        }
+        try {
+            var entityClazz = (Class<E>) entities.get(0).getClass();
+            var modifiedCount = 0;
+            for (var entity : entities) {
+                modifiedCount += MemoryDatabase.replaceOne(entityClazz, Filters.eq("_id", entity.id()), MemoryDatabase.encode(entity), false);
+            }
+            if (modifiedCount != entities.size()) {
+                logger.error("在数据库[{}]的批量更新操作中需要更新的数量[{}]和最终更新的数量[{}]不相同"
+                        , entityClazz.getSimpleName(), entities.size(), modifiedCount);
+            }
+        } catch (Throwable t) {
+            logger.error("批量更新batchUpdate未知异常", t);
+        }
+    }
+
+    @Override
+    public <E extends IEntity<?>> boolean delete(E entity) {
+        return MemoryDatabase.delete((Class<E>) entity.getClass(), Filters.eq("_id", entity.id()));
+    }
+
+    @Override
+    public <E extends IEntity<?>> boolean delete(Object pk, Class<E> entityClazz) {
+        return MemoryDatabase.delete(entityClazz, Filters.eq("_id", pk));
+    }
+
+    @Override
+    public <E extends IEntity<?>> void batchDelete(List<E> entities) {
+        if (CollectionUtils.isEmpty(entities)) {
+            return;
+        }
+        var entityClazz = (Class<E>) entities.get(0).getClass();
+        var ids = entities.stream().map(it -> (it).id()).collect(Collectors.toList());
+        MemoryDatabase.delete(entityClazz, Filters.in("_id", ids));
+    }
+
+    @Override
+    public <E extends IEntity<?>> void batchDelete(List<?> pks, Class<E> entityClazz) {
+        MemoryDatabase.delete(entityClazz, Filters.in("_id", pks));
+    }
+
+    @Override
+    public <E extends IEntity<?>> int bulkWrite(Class<E> entityClazz, List<WriteModel<E>> writeModels) {
+        return MemoryDatabase.bulkWrite(entityClazz, writeModels);
+    }
+
+    @Override
+    public <E extends IEntity<?>> E load(Object pk, Class<E> entityClazz) {
+        var documents = MemoryDatabase.find(entityClazz, Filters.eq("_id", pk));
+        if (CollectionUtils.isEmpty(documents)) {
+            return null;
+        }
+        return MemoryDatabase.decode(documents.get(0), entityClazz);
+    }
+
+    /**
+     * 不经过缓存插入的实体，通知实体缓存这个实体已经存在
+     */
+    private <E extends IEntity<?>> void onInsert(Class<E> entityClazz, List<E> entities) {
+        var entityCaches = OrmContext.getOrmManager().getEntityCaches(entityClazz);
+        if (entityCaches != null) {
+            entities.forEach(it -> entityCaches.onInsert(it));
+        }
+    }
+
+}
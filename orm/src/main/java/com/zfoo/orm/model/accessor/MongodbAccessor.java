@@ -13,9 +13,11 @@
 
 package com.zfoo.orm.model.accessor;
 
+import com.mongodb.WriteConcern;
 import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
 import com.zfoo.orm.OrmContext;
 import com.zfoo.orm.model.entity.IEntity;
 import com.zfoo.protocol.collection.CollectionUtils;
@@ -44,6 +46,7 @@ public class MongodbAccessor implements IAccessor {
         var entityClazz = (Class<E>) entity.getClass();
         var collection = OrmContext.getOrmManager().getCollection(entityClazz);
         var result = collection.insertOne(entity);
+        onInsert(entityClazz, List.of(entity));
         return result.getInsertedId() != null;
     }
 
@@ -55,6 +58,7 @@ public class MongodbAccessor implements IAccessor {
         var entityClazz = (Class<E>) entities.get(0).getClass();
         var collection = OrmContext.getOrmManager().getCollection(entityClazz);
         collection.insertMany(entities);
+        onInsert(entityClazz, entities);
     }
 
     @Override
@@ -133,6 +137,13 @@ public class MongodbAccessor implements IAccessor {
         collection.deleteMany(in("_id", pks));
     }
 
+    @Override
+    public <E extends IEntity<?>> int bulkWrite(Class<E> entityClazz, List<WriteModel<E>> writeModels) {
+        var collection = OrmContext.getOrmManager().getCollection(entityClazz).withWriteConcern(WriteConcern.ACKNOWLEDGED);
+        var result = collection.bulkWrite(writeModels, new BulkWriteOptions().ordered(false));
+        return result.getModifiedCount() + result.getUpserts().size() + result.getInsertedCount();
+    }
+
     @Override
     public <E extends IEntity<?>> E load(Object pk, Class<E> entityClazz) {
         var collection = OrmContext.getOrmManager().getCollection(entityClazz);
@@ -144,4 +155,14 @@ public class MongodbAccessor implements IAccessor {
         return result.get(0);
     }
 
+    /**
+     * 不经过缓存插入的实体，通知实体缓存这个实体已经存在
+     */
+    private <E extends IEntity<?>> void onInsert(Class<E> entityClazz, List<E> entities) {
+        var entityCaches = OrmContext.getOrmManager().getEntityCaches(entityClazz);
+        if (entityCaches != null) {
+            entities.forEach(it -> entityCaches.onInsert(it));
+        }
+    }
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 第二级的冷缓存，被Caffeine淘汰的和数据库一致的实体以BSON的格式保存在堆外内存中，再次加载的时候不需要访问数据库
+ * <p>
+ * 适合隔几个小时才访问一次的实体，比如每次登录才加载的玩家数据，占用的堆外内存受-XX:MaxDirectMemorySize限制
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface ColdTier {
+
+    /**
+     * 冷缓存最多占用的堆外内存，单位byte，0为不开启
+     */
+    long maxBytes() default 0;
+
+    /**
+     * 实体在冷缓存中最多保存多久，毫秒
+     */
+    long expireMillisecond() default 6 * 60 * 60 * 1000;
+
+}
@@ -28,4 +28,10 @@ public @interface EntityCache {
 
     Persister persister() default @Persister;
 
+    WarmUp warmUp() default @WarmUp;
+
+    NegativeCache negativeCache() default @NegativeCache;
+
+    ColdTier coldTier() default @ColdTier;
+
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 记录数据库中不存在的主键，查询不存在的主键的时候不需要访问数据库
+ * <p>
+ * 开启之后，不存在的主键返回的默认值不会加入缓存，不会占用缓存的空间
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface NegativeCache {
+
+    /**
+     * 最多记录多少个不存在的主键，0为不开启
+     */
+    int size() default 0;
+
+    /**
+     * 不存在的主键记录多久，毫秒
+     */
+    long expireMillisecond() default 60 * 1000;
+
+    /**
+     * 启动的时候通过_id投影加载所有的主键构建布隆过滤器，loadView和loadAllViews在布隆过滤器判断不存在的时候不需要访问数据库
+     * <p>
+     * 其它进程或者管理工具插入数据库的实体会被误判为不存在，只适合单一写入者的集合。
+     * load和loadAll返回的实体可能被修改之后写回数据库，所以不使用布隆过滤器，不存在的主键仍然通过一次_id查询确认
+     */
+    boolean bloomFilter() default false;
+
+}
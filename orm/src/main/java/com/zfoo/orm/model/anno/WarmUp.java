@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 启动的时候预加载实体到缓存
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface WarmUp {
+
+    /**
+     * 预加载的实体数量，不会超过缓存的大小，0为不预加载
+     */
+    int size() default 0;
+
+    /**
+     * 按照这个被@Index标注的属性降序预加载，比如最近的登录时间，为空的时候按照主键升序预加载
+     */
+    String index() default "";
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.cache;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.scheduler.SchedulerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按照内存淘汰的缓存共享一个内存预算，定时根据每个缓存最近的访问量重新分配，访问多的热点缓存得到更多的内存
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class CacheHeapBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheHeapBudget.class);
+
+    /**
+     * 重新分配的频率
+     */
+    private static final long REBALANCE_RATE = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 所有缓存保底分到的内存占预算的比例，防止访问少的缓存被分到0
+     */
+    private static final double MIN_SHARE = 0.25;
+
+    private final long heapBudget;
+
+    private final List<EntityCaches<?, ?>> weightedCaches;
+
+    private final long[] lastRequestCounts;
+
+    public CacheHeapBudget(long heapBudget, List<EntityCaches<?, ?>> weightedCaches) {
+        this.heapBudget = heapBudget;
+        this.weightedCaches = weightedCaches;
+        this.lastRequestCounts = new long[weightedCaches.size()];
+    }
+
+    public void start() {
+        // 第一次按照配置的内存上限的比例分配
+        var configWeights = weightedCaches.stream().mapToLong(it -> it.getMaxWeight()).toArray();
+        apply(allocate(heapBudget, configWeights));
+
+        SchedulerContext.getSchedulerManager().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                if (!OrmContext.isStop()) {
+                    rebalance();
+                }
+            }
+        }, REBALANCE_RATE, TimeUnit.MILLISECONDS);
+    }
+
+    public void rebalance() {
+        var demands = new long[weightedCaches.size()];
+        for (var i = 0; i < demands.length; i++) {
+            var requestCount = weightedCaches.get(i).requestCount();
+            demands[i] = requestCount - lastRequestCounts[i];
+            lastRequestCounts[i] = requestCount;
+        }
+
+        // 这段时间没有访问的时候保持原来的分配
+        if (demands.length == 0 || Arrays.stream(demands).sum() <= 0) {
+            return;
+        }
+        apply(allocate(heapBudget, demands));
+    }
+
+    private void apply(long[] maxWeights) {
+        for (var i = 0; i < maxWeights.length; i++) {
+            weightedCaches.get(i).setMaxWeight(maxWeights[i]);
+        }
+        logger.info("缓存的内存预算[heapBudget:{}]重新分配为[{}]", heapBudget, StringUtils.joinWith(StringUtils.COMMA, Arrays.stream(maxWeights).boxed().toArray()));
+    }
+
+    /**
+     * 每个缓存先分到保底的内存，剩下的按照需求的比例分配
+     *
+     * @param budget  总的内存预算
+     * @param demands 每个缓存的需求，比如最近的访问次数
+     * @return 每个缓存分到的内存
+     */
+    public static long[] allocate(long budget, long[] demands) {
+        var result = new long[demands.length];
+        if (demands.length == 0) {
+            return result;
+        }
+
+        var minWeight = (long) (budget * MIN_SHARE / demands.length);
+        var remainBudget = budget - minWeight * demands.length;
+        var totalDemand = Arrays.stream(demands).map(it -> Math.max(it, 0)).sum();
+        for (var i = 0; i < demands.length; i++) {
+            var share = totalDemand <= 0
+                    ? remainBudget / demands.length
+                    : (long) (remainBudget * ((double) Math.max(demands[i], 0) / totalDemand));
+            result[i] = minWeight + share;
+        }
+        return result;
+    }
+
+}
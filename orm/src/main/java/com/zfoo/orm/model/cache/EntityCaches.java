@@ -14,29 +14,71 @@
 package com.zfoo.orm.model.cache;
 
 import com.github.benmanes.caffeine.cache.*;
-import com.mongodb.WriteConcern;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
 import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.zfoo.event.manager.EventBus;
 import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.model.anno.Index;
 import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.orm.model.metrics.EntityMetrics;
+import com.zfoo.orm.model.persister.EntityFingerprint;
+import com.zfoo.orm.model.persister.EntityJournal;
 import com.zfoo.orm.model.persister.IOrmPersister;
 import com.zfoo.orm.model.persister.PNode;
+import com.zfoo.orm.model.persister.PersistScheduler;
 import com.zfoo.orm.model.query.Page;
+import com.zfoo.orm.model.query.SeekPage;
 import com.zfoo.orm.model.vo.EntityDef;
+import com.zfoo.orm.model.vo.ViewDef;
 import com.zfoo.protocol.collection.CollectionUtils;
 import com.zfoo.protocol.util.AssertionUtils;
 import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.scheduler.SchedulerContext;
 import com.zfoo.scheduler.util.TimeUtils;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.conversions.Bson;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -50,48 +92,171 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
 
     private static final int BATCH_SIZE = 512;
 
+    /**
+     * 写回缓冲区的大小，超过之后立刻异步写入数据库
+     */
+    private static final int EVICTED_BUFFER_SIZE = BATCH_SIZE;
+
+    private static final double BLOOM_FILTER_FPP = 0.01;
+
+    /**
+     * 修改过的实体写入预写日志的周期，也是进程崩溃的时候最多可能丢失的修改的时间
+     */
+    private static final long JOURNAL_FLUSH_PERIOD = TimeUtils.MILLIS_PER_SECOND;
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    /**
+     * 节点的大小变化超过原来的1/4的时候重新计算节点在缓存中的大小
+     */
+    private static final int REWEIGH_THRESHOLD = 4;
+
     private EntityDef entityDef;
 
     private LoadingCache<PK, PNode<E>> cache;
 
     private boolean usable;
 
+    /**
+     * 被@Index标注的属性的内存索引，key：属性的名称
+     */
+    private Map<String, EntityIndex<PK, E>> indexMap = Collections.emptyMap();
+
+    /**
+     * 等待写入数据库的节点，update的时候放入，持久化的时候只需要遍历修改过的节点，不需要遍历整个缓存
+     */
+    private Queue<PNode<E>> dirtyQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 写回缓冲区，被Caffeine移除但是还没有写入数据库的脏节点，在写入之前加载会直接使用缓冲区中的节点，避免读到数据库中的旧数据
+     */
+    private Map<PK, PNode<E>> evictedMap = new ConcurrentHashMap<>();
+
+    private AtomicBoolean persistingEvicted = new AtomicBoolean(false);
+
+    private Lock persistLock = new ReentrantLock();
+
+    /**
+     * 预写日志，没有配置的时候为null
+     */
+    private volatile EntityJournal journal;
+
+    private AtomicBoolean flushingJournal = new AtomicBoolean(false);
+
+    /**
+     * 数据库中不存在的主键，没有开启的时候为null
+     */
+    private Cache<PK, Boolean> negativeCache;
+
+    /**
+     * 数据库中所有的主键，没有开启的时候为null
+     */
+    private volatile BloomFilter<PK> bloomFilter;
+
+    /**
+     * 被淘汰的和数据库一致的实体的冷缓存，没有开启的时候为null
+     */
+    private EntityColdTier<PK, E> coldTier;
+
+    /**
+     * 负缓存命中的次数，布隆过滤器判断不存在的次数，查询了数据库但是不存在的次数
+     */
+    private LongAdder negativeHitCount = new LongAdder();
+    private LongAdder bloomFilterHitCount = new LongAdder();
+    private LongAdder negativeMissCount = new LongAdder();
+
+    /**
+     * 持久化的次数，总的耗时，最近一次和最长的一次的耗时，纳秒
+     */
+    private EntityMetrics metrics;
+
     public EntityCaches(EntityDef entityDef) {
         this.entityDef = entityDef;
+        this.metrics = new EntityMetrics(entityDef.getClazz().getSimpleName(), () -> dirtyQueue.size(), () -> evictedMap.size());
+        this.metrics.registerMBean();
 
-        this.cache = Caffeine.newBuilder()
+        var builder = Caffeine.newBuilder()
                 .expireAfterAccess(entityDef.getExpireMillisecond(), TimeUnit.MILLISECONDS)
-                .maximumSize(entityDef.getCacheSize())
                 .initialCapacity(CollectionUtils.comfortableCapacity(entityDef.getCacheSize()))
-                .recordStats() // 开启统计信息开关，cache.stats()获取统计信息
-                .removalListener(new RemovalListener<PK, PNode<E>>() {
+                .recordStats(); // 开启统计信息开关，cache.stats()获取统计信息
+
+        // 配置了内存上限的时候按照实体的估算大小淘汰，实体的大小相差很大的时候按照数量淘汰要么浪费内存要么频繁淘汰
+        if (isWeighted()) {
+            builder.maximumWeight(entityDef.getCacheMaxWeight()).weigher((Object pk, Object pnode) -> ((PNode<E>) pnode).getWeight());
+        } else {
+            builder.maximumSize(entityDef.getCacheSize());
+        }
+
+        this.cache = builder
+                // CacheWriter的delete和缓存的移除是原子的，在重新加载之前节点一定已经放入了写回缓冲区；removalListener是异步执行的，做不到这一点
+                .writer(new CacheWriter<PK, PNode<E>>() {
                     @Override
-                    public void onRemoval(@Nullable PK pk, @Nullable PNode<E> pnode, @NonNull RemovalCause removalCause) {
-                        if (pnode.getWriteToDbTime() == pnode.getModifiedTime()) {
+                    public void write(@NonNull PK pk, @NonNull PNode<E> pnode) {
+                    }
+
+                    @Override
+                    public void delete(@NonNull PK pk, @Nullable PNode<E> pnode, @NonNull RemovalCause removalCause) {
+                        removeIndex(pk, pnode);
+
+                        if (pnode == null || removalCause == RemovalCause.REPLACED) {
                             return;
                         }
 
-                        // 缓存失效之前，将数据写入数据库
-                        var entity = pnode.getEntity();
-                        var collection = OrmContext.getOrmManager().getCollection((Class<E>) entityDef.getClazz());
+                        // 被淘汰的干净节点放入冷缓存
+                        if (!pnode.isDirty()) {
+                            if (removalCause.wasEvicted()) {
+                                putColdTier(pk, pnode);
+                            }
+                            return;
+                        }
 
-                        var version = entity.gvs();
-                        entity.svs(version + 1);
+                        // 被移除的脏节点还在dirtyQueue中，放入写回缓冲区等待持久化器批量写入，不在触发移除的业务线程中同步写入数据库
+                        evictedMap.put(pk, pnode);
 
-                        var filter = entity.gvs() > 0
-                                ? Filters.and(Filters.eq("_id", entity.id()), Filters.eq("vs", version))
-                                : Filters.eq("_id", entity.id());
-                        var result = collection.replaceOne(filter, entity);
-                        if (result.getModifiedCount() <= 0) {
-                            logger.error("移除[removalCause:{}]缓存时，更新数据库[{}]中的实体主键[pk:{}]的文档异常"
-                                    , removalCause, entityDef.getClazz().getSimpleName(), entity.id());
+                        if (evictedMap.size() >= EVICTED_BUFFER_SIZE && persistingEvicted.compareAndSet(false, true)) {
+                            EventBus.asyncExecute().execute(() -> {
+                                try {
+                                    persistEvicted();
+                                } finally {
+                                    persistingEvicted.set(false);
+                                }
+                            });
                         }
                     }
                 })
                 .build(new CacheLoader<PK, PNode<E>>() {
                     @Override
                     public @Nullable PNode<E> load(@NonNull PK pk) {
+                        // 还在写回缓冲区中没有写入数据库的节点比数据库中的新
+                        var evictedPnode = evictedMap.remove(pk);
+                        if (evictedPnode != null) {
+                            addIndex(pk, evictedPnode);
+                            return evictedPnode;
+                        }
+
+                        var coldPnode = takeColdTier(pk);
+                        if (coldPnode != null) {
+                            addIndex(pk, coldPnode);
+                            return coldPnode;
+                        }
+
+                        // 布隆过滤器不能发现其它进程插入的主键，返回的默认值被修改之后写回会和数据库冲突，所以只相信负缓存
+                        if (negativeAbsent(pk)) {
+                            return null;
+                        }
+
+                        var startTime = System.nanoTime();
                         var entity = (E) OrmContext.getAccessor().load(pk, (Class<IEntity<?>>) entityDef.getClazz());
+                        metrics.recordDbLoad(1, System.nanoTime() - startTime);
+                        if (entity != null) {
+                            markPresent(pk);
+                        }
+
+                        // 开启了负缓存的时候记录不存在的主键，返回null不加入缓存
+                        if (entity == null && negativeCache != null) {
+                            markAbsent(pk);
+                            return null;
+                        }
 
                         // 如果数据库中不存在则给一个默认值
                         if (entity == null) {
@@ -99,18 +264,83 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
                             logger.error("数据库[{}]没有包含主键[pk:{}]的文档，返回默认值", entityDef.getClazz().getSimpleName(), pk);
                         }
 
-                        return new PNode<E>(entity);
+                        var pnode = new PNode<E>(entity);
+                        if (entity.id() != null) {
+                            pnode.setFingerprint(fingerprint(entity));
+                        }
+                        addIndex(pk, pnode);
+                        return pnode;
+                    }
+
+                    @Override
+                    public @NonNull Map<@NonNull PK, @NonNull PNode<E>> loadAll(@NonNull Iterable<? extends @NonNull PK> pks) {
+                        var pnodeMap = new HashMap<PK, PNode<E>>();
+                        var missPks = new ArrayList<PK>();
+                        for (var pk : pks) {
+                            var evictedPnode = evictedMap.remove(pk);
+                            if (evictedPnode != null) {
+                                pnodeMap.put(pk, evictedPnode);
+                                continue;
+                            }
+                            var coldPnode = takeColdTier(pk);
+                            if (coldPnode != null) {
+                                pnodeMap.put(pk, coldPnode);
+                            } else if (!negativeAbsent(pk)) {
+                                missPks.add(pk);
+                            }
+                        }
+
+                        // 缓存中没有的主键只查询一次数据库
+                        if (!missPks.isEmpty()) {
+                            var startTime = System.nanoTime();
+                            var entities = OrmContext.getQuery().queryFieldIn("_id", missPks, (Class<E>) entityDef.getClazz());
+                            metrics.recordDbLoad(missPks.size(), System.nanoTime() - startTime);
+                            for (var entity : entities) {
+                                var pnode = new PNode<E>(entity);
+                                pnode.setFingerprint(fingerprint(entity));
+                                pnodeMap.put(entity.id(), pnode);
+                                markPresent(entity.id());
+                            }
+                        }
+
+                        for (var pk : missPks) {
+                            if (pnodeMap.containsKey(pk)) {
+                                continue;
+                            }
+                            if (negativeCache != null) {
+                                markAbsent(pk);
+                            } else {
+                                pnodeMap.put(pk, new PNode<E>((E) entityDef.newEntity(pk)));
+                                logger.error("数据库[{}]没有包含主键[pk:{}]的文档，返回默认值", entityDef.getClazz().getSimpleName(), pk);
+                            }
+                        }
+
+                        pnodeMap.forEach((pk, pnode) -> addIndex(pk, pnode));
+                        return pnodeMap;
                     }
                 });
 
         if (CollectionUtils.isNotEmpty(entityDef.getIndexDefMap())) {
-            // indexMap
+            var map = new HashMap<String, EntityIndex<PK, E>>();
+            entityDef.getIndexDefMap().forEach((fieldName, indexDef) -> map.put(fieldName, new EntityIndex<>(indexDef)));
+            indexMap = Collections.unmodifiableMap(map);
         }
 
         if (CollectionUtils.isNotEmpty(entityDef.getIndexTextDefMap())) {
             // indexText
         }
 
+        if (entityDef.getColdTierMaxBytes() > 0) {
+            coldTier = new EntityColdTier<>(entityDef.getColdTierMaxBytes(), entityDef.getColdTierExpireMillisecond());
+        }
+
+        if (entityDef.getNegativeCacheSize() > 0) {
+            negativeCache = Caffeine.newBuilder()
+                    .expireAfterWrite(entityDef.getNegativeExpireMillisecond(), TimeUnit.MILLISECONDS)
+                    .maximumSize(entityDef.getNegativeCacheSize())
+                    .build();
+        }
+
         var persisterDef = entityDef.getPersisterStrategy();
         IOrmPersister persister = persisterDef.getType().createPersister(entityDef, this);
         persister.start();
@@ -121,7 +351,9 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
     public E load(PK pk) {
         AssertionUtils.notNull(pk);
         try {
-            return cache.get(pk).getEntity();
+            var pnode = cache.get(pk);
+            // 数据库中不存在的主键，开启了负缓存的时候默认值不加入缓存
+            return pnode == null ? (E) entityDef.newEntity(pk) : pnode.getEntity();
         } catch (Exception e) {
             logger.error("数据库[{}]缓存[pk:{}]加载发生exception异常", entityDef.getClazz().getSimpleName(), pk, e);
         } catch (Throwable t) {
@@ -131,23 +363,490 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
         logger.error("数据库[{}]无法加载缓存[pk:{}]，返回默认值", entityDef.getClazz().getSimpleName(), pk);
         var entity = (E) entityDef.newEntity(pk);
         var pnode = new PNode<E>(entity);
+        addIndex(pk, pnode);
         cache.put(pk, pnode);
         return entity;
     }
 
+    @Override
+    public Map<PK, E> loadAll(Collection<PK> pks) {
+        AssertionUtils.notNull(pks);
+        if (pks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            var pnodeMap = cache.getAll(pks);
+            var entityMap = new LinkedHashMap<PK, E>(CollectionUtils.comfortableCapacity(pks.size()));
+            for (var pk : pks) {
+                var pnode = pnodeMap.get(pk);
+                entityMap.put(pk, pnode == null ? (E) entityDef.newEntity(pk) : pnode.getEntity());
+            }
+            return entityMap;
+        } catch (Throwable t) {
+            logger.error("数据库[{}]批量加载缓存[size:{}]异常，逐个加载", entityDef.getClazz().getSimpleName(), pks.size(), t);
+        }
+
+        var entityMap = new LinkedHashMap<PK, E>(CollectionUtils.comfortableCapacity(pks.size()));
+        pks.forEach(pk -> entityMap.put(pk, load(pk)));
+        return entityMap;
+    }
+
+    @Override
+    public <V> V loadView(PK pk, Class<V> viewClazz) {
+        AssertionUtils.notNull(pk);
+        return loadAllViews(List.of(pk), viewClazz).get(pk);
+    }
+
+    @Override
+    public <V> Map<PK, V> loadAllViews(Collection<PK> pks, Class<V> viewClazz) {
+        AssertionUtils.notNull(pks);
+        var viewDef = ViewDef.valueOf((Class<E>) entityDef.getClazz(), viewClazz);
+        var viewMap = new LinkedHashMap<PK, V>(CollectionUtils.comfortableCapacity(pks.size()));
+        var missPks = new ArrayList<PK>();
+        for (var pk : pks) {
+            // 缓存和写回缓冲区中的实体比数据库中的新
+            var pnode = cache.getIfPresent(pk);
+            if (pnode == null) {
+                pnode = evictedMap.get(pk);
+            }
+            if (pnode != null) {
+                viewMap.put(pk, viewDef.newView(pnode.getEntity()));
+            } else if (!absent(pk)) {
+                viewMap.put(pk, null);
+                missPks.add(pk);
+            }
+        }
+
+        if (!missPks.isEmpty()) {
+            var startTime = System.nanoTime();
+            var entities = OrmContext.getQuery().queryFieldIn("_id", missPks, (Class<E>) entityDef.getClazz(), viewDef.getIncludeFields());
+            metrics.recordDbLoad(missPks.size(), System.nanoTime() - startTime);
+            entities.forEach(it -> viewMap.put(it.id(), viewDef.newView(it)));
+        }
+
+        // 数据库中不存在的主键
+        viewMap.values().removeIf(Objects::isNull);
+        return viewMap;
+    }
+
+    /**
+     * 启动的时候通过_id投影加载所有的主键构建布隆过滤器，需要在数据库连接创建之后调用
+     */
+    public void initBloomFilter() {
+        if (negativeCache == null || !entityDef.isBloomFilter()) {
+            return;
+        }
+
+        var startTime = TimeUtils.currentTimeMillis();
+        var collection = OrmContext.getOrmManager().getCollection((Class<E>) entityDef.getClazz()).withDocumentClass(Document.class);
+        var expectedInsertions = Math.max(collection.estimatedDocumentCount() * 2, entityDef.getCacheSize());
+        var filter = BloomFilter.create((Funnel<PK>) (pk, into) -> into.putString(pk.toString(), StandardCharsets.UTF_8), expectedInsertions, BLOOM_FILTER_FPP);
+        for (var document : collection.find().projection(Projections.include("_id")).batchSize(BATCH_SIZE * 8)) {
+            filter.put((PK) document.get("_id"));
+        }
+        bloomFilter = filter;
+
+        logger.info("数据库[{}]构建布隆过滤器[expectedInsertions:{}]，耗时[{}]毫秒", entityDef.getClazz().getSimpleName()
+                , expectedInsertions, TimeUtils.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 只读的视图查询使用，负缓存或者布隆过滤器判断不存在的时候返回true，不需要查询数据库
+     * <p>
+     * 布隆过滤器只在启动的时候构建，其它进程插入的主键会被误判为不存在，视图不会写回数据库，误判只是少返回一个视图
+     */
+    private boolean absent(PK pk) {
+        if (negativeAbsent(pk)) {
+            return true;
+        }
+        var filter = bloomFilter;
+        if (filter != null && !filter.mightContain(pk)) {
+            bloomFilterHitCount.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * load和loadAll使用，只相信最近一次查询数据库的结果，布隆过滤器判断不存在的主键仍然通过一次_id查询确认
+     */
+    private boolean negativeAbsent(PK pk) {
+        if (negativeCache == null) {
+            return false;
+        }
+        if (negativeCache.getIfPresent(pk) != null) {
+            negativeHitCount.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 和negativeAbsent()一样的判断，不计入命中次数
+     */
+    private boolean isProbablyAbsent(PK pk) {
+        return negativeCache != null && negativeCache.getIfPresent(pk) != null;
+    }
+
+    private void markAbsent(PK pk) {
+        negativeMissCount.increment();
+        negativeCache.put(pk, Boolean.TRUE);
+    }
+
+    @Override
+    public void onInsert(E entity) {
+        markPresent(entity.id());
+        for (var entityIndex : indexMap.values()) {
+            entityIndex.inserted(entity);
+        }
+    }
+
+    /**
+     * 数据库中存在或者即将插入的主键，从负缓存中移除并且加入布隆过滤器
+     */
+    private void markPresent(PK pk) {
+        if (negativeCache == null) {
+            return;
+        }
+        negativeCache.invalidate(pk);
+        var filter = bloomFilter;
+        if (filter != null) {
+            filter.put(pk);
+        }
+    }
+
+    /**
+     * 启动的时候按照@WarmUp的配置预加载实体，需要在数据库连接创建之后调用
+     * <p>
+     * 顺序地只读取主键找到每一段的边界，每找到一段就提交到线程池中用一个单独的游标按照_id加载，不使用skip
+     */
+    public void warmUp() {
+        var warmUpSize = entityDef.getWarmUpSize();
+        if (warmUpSize <= 0) {
+            return;
+        }
+
+        var startTime = TimeUtils.currentTimeMillis();
+        var entityClazz = (Class<E>) entityDef.getClazz();
+        var collection = OrmContext.getOrmManager().getCollection(entityClazz);
+
+        var parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), warmUpSize / BATCH_SIZE));
+        var rangeSize = (warmUpSize + parallelism - 1) / parallelism;
+        var executor = Executors.newFixedThreadPool(parallelism, new PersistScheduler.PersistThreadFactory("orm-warmup-" + entityClazz.getSimpleName()));
+        var futures = new ArrayList<CompletableFuture<Void>>(parallelism);
+        try {
+            if (StringUtils.isEmpty(entityDef.getWarmUpIndex())) {
+                // 按照_id升序的前warmUpSize个实体，每一页的最后一个主键就是一段的上界
+                SeekPage<E> page = null;
+                Object lowerId = null;
+                for (var remainSize = warmUpSize; remainSize > 0; ) {
+                    page = OrmContext.getQuery().seekQuery("_id", page, Math.min(rangeSize, remainSize), entityClazz, "_id");
+                    if (page.getList().isEmpty()) {
+                        break;
+                    }
+                    remainSize -= page.getList().size();
+
+                    var filter = lowerId == null
+                            ? Filters.lte("_id", page.getLastId())
+                            : Filters.and(Filters.gt("_id", lowerId), Filters.lte("_id", page.getLastId()));
+                    futures.add(CompletableFuture.runAsync(() -> warmUp(collection.find(filter)), executor));
+                    lowerId = page.getLastId();
+                    if (!page.hasNext()) {
+                        break;
+                    }
+                }
+            } else {
+                // 按照索引降序的前warmUpSize个实体的主键不是连续的，每rangeSize个主键提交一次加载
+                var sort = Sorts.orderBy(Sorts.descending(entityDef.getWarmUpIndex()), Sorts.ascending("_id"));
+                var ids = new ArrayList<Object>(rangeSize);
+                var iterable = collection.withDocumentClass(Document.class).find()
+                        .sort(sort)
+                        .projection(Projections.include("_id"))
+                        .limit(warmUpSize)
+                        .batchSize(BATCH_SIZE * 8);
+                for (var document : iterable) {
+                    ids.add(document.get("_id"));
+                    if (ids.size() >= rangeSize) {
+                        var filter = Filters.in("_id", ids);
+                        futures.add(CompletableFuture.runAsync(() -> warmUp(collection.find(filter)), executor));
+                        ids = new ArrayList<>(rangeSize);
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    var filter = Filters.in("_id", ids);
+                    futures.add(CompletableFuture.runAsync(() -> warmUp(collection.find(filter)), executor));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        logger.info("数据库[{}]预加载了[{}]个实体，使用了[{}]个游标，耗时[{}]毫秒", entityDef.getClazz().getSimpleName()
+                , size(), futures.size(), TimeUtils.currentTimeMillis() - startTime);
+    }
+
+    private void warmUp(FindIterable<E> iterable) {
+        for (var entity : iterable.batchSize(BATCH_SIZE)) {
+            // 缓存中已经存在的实体可能比数据库中的新
+            var pnode = cache.asMap().computeIfAbsent(entity.id(), pk -> {
+                var newPnode = new PNode<>(entity);
+                newPnode.setFingerprint(fingerprint(entity));
+                return newPnode;
+            });
+            addIndex(entity.id(), pnode);
+        }
+    }
+
+    @Override
+    public E loadByIndex(String fieldName, Object value) {
+        AssertionUtils.notNull(value);
+        var entityIndex = entityIndex(fieldName);
+
+        var entity = loadFromIndex(entityIndex, value).stream().findFirst();
+        if (entity.isPresent()) {
+            return entity.get();
+        }
+
+        return loadAllFromDb(entityIndex, value).stream().findFirst().orElse(null);
+    }
+
+    @Override
+    public List<E> loadAllByIndex(String fieldName, Object value) {
+        AssertionUtils.notNull(value);
+        var entityIndex = entityIndex(fieldName);
+
+        // 唯一索引在缓存中找到了就是全部，非唯一索引只有从数据库完整加载过才能只使用缓存
+        if (entityIndex.isComplete(value)) {
+            return loadFromIndex(entityIndex, value);
+        }
+        if (entityIndex.getIndexDef().isUnique()) {
+            var entities = loadFromIndex(entityIndex, value);
+            if (!entities.isEmpty()) {
+                return entities;
+            }
+        }
+
+        return loadAllFromDb(entityIndex, value);
+    }
+
+    private List<E> loadFromIndex(EntityIndex<PK, E> entityIndex, Object value) {
+        var pks = entityIndex.pks(value);
+        if (pks.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        var entities = new ArrayList<E>(pks.size());
+        for (var pk : pks) {
+            var pnode = cache.getIfPresent(pk);
+            if (pnode != null && entityIndex.matches(pnode.getEntity(), value)) {
+                entities.add(pnode.getEntity());
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * 缓存中已经存在的实体可能比数据库中的新，所以数据库中查出来的实体只有在缓存中不存在的时候才会加入缓存
+     */
+    private List<E> loadAllFromDb(EntityIndex<PK, E> entityIndex, Object value) {
+        var removeStamp = entityIndex.removeStamp();
+        var fieldName = entityIndex.getIndexDef().getField().getName();
+        var dbEntities = OrmContext.getQuery().queryFieldEqual(fieldName, value, (Class<E>) entityDef.getClazz());
+
+        for (var dbEntity : dbEntities) {
+            var pnode = cache.asMap().computeIfAbsent(dbEntity.id(), pk -> {
+                var evictedPnode = evictedMap.remove(pk);
+                if (evictedPnode != null) {
+                    return evictedPnode;
+                }
+                if (coldTier != null) {
+                    coldTier.invalidate(pk);
+                }
+                var newPnode = new PNode<>(dbEntity);
+                newPnode.setFingerprint(fingerprint(dbEntity));
+                return newPnode;
+            });
+            addIndex(dbEntity.id(), pnode);
+        }
+
+        entityIndex.complete(value, removeStamp);
+        return loadFromIndex(entityIndex, value);
+    }
+
+    private EntityIndex<PK, E> entityIndex(String fieldName) {
+        var entityIndex = indexMap.get(fieldName);
+        if (entityIndex == null) {
+            throw new RuntimeException(StringUtils.format("实体类Entity[{}]的属性[{}]没有被[{}]注解标注，不能通过索引加载"
+                    , entityDef.getClazz().getSimpleName(), fieldName, Index.class.getSimpleName()));
+        }
+        return entityIndex;
+    }
+
+    private void addIndex(PK pk, PNode<E> pnode) {
+        for (var entityIndex : indexMap.values()) {
+            entityIndex.index(pk, pnode);
+        }
+    }
+
+    private void removeIndex(PK pk, PNode<E> pnode) {
+        if (pk == null || pnode == null) {
+            return;
+        }
+        for (var entityIndex : indexMap.values()) {
+            entityIndex.remove(pk, pnode);
+        }
+    }
+
     @Override
     public void update(E entity) {
+        update(entity, false);
+    }
+
+    @Override
+    public void insert(E entity) {
+        AssertionUtils.notNull(entity);
+        AssertionUtils.notNull(entity.id());
+        update(entity, true);
+    }
+
+    private void update(E entity, boolean inserting) {
         AssertionUtils.notNull(entity);
 
         var currentPnode = cache.getIfPresent(entity.id());
 
+        // 负缓存或者布隆过滤器认为不存在的主键，load返回的是默认值，数据库中可能已经有了其它进程插入的文档，只能插入
+        var probablyAbsent = !inserting && currentPnode == null && isProbablyAbsent(entity.id());
+
+        // 新插入的实体不再是不存在的主键
+        markPresent(entity.id());
+
         if (currentPnode == null) {
             currentPnode = new PNode<>(entity);
+            currentPnode.setProbablyAbsent(probablyAbsent);
             cache.put(entity.id(), currentPnode);
         }
 
+        // 先设置插入标记再放入dirtyQueue，写入的时候一定能看到这个标记
+        if (inserting) {
+            currentPnode.setEntity(entity);
+            currentPnode.setInserting(true);
+        }
+
+        // 索引的属性可能被修改了
+        addIndex(entity.id(), currentPnode);
+
         // 加100以防止，立刻加载并且立刻修改数据的情况发生时，服务器取到的时间戳相同
         currentPnode.setModifiedTime(TimeUtils.now() + 100);
+
+        if (currentPnode.markDirty()) {
+            dirtyQueue.offer(currentPnode);
+            // 冷缓存中的实体不再和最新的数据一致
+            if (coldTier != null) {
+                coldTier.invalidate(entity.id());
+            }
+        }
+
+        // 业务线程只做标记，编码和写日志在持久化线程中通过flushJournal()批量完成
+        if (journal != null) {
+            currentPnode.setJournalDirty(true);
+        }
+    }
+
+    /**
+     * 把上一次写日志之后又修改过的脏节点写入预写日志，定时在持久化线程中执行
+     * <p>
+     * 只写dirtyQueue中的节点，保证在持久化之前切换segment的时候，旧的segment中的修改一定会在这次持久化中写入数据库
+     */
+    public void flushJournal() {
+        var currentJournal = journal;
+        if (currentJournal == null || !flushingJournal.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (var pnode : dirtyQueue) {
+                // 先清除标记再编码，编码过程中的修改会在下一次写入日志
+                if (!pnode.isJournalDirty()) {
+                    continue;
+                }
+                pnode.setJournalDirty(false);
+                var byteBuf = encode(pnode.getEntity()).getByteBuffer();
+                currentJournal.append(byteBuf.array(), byteBuf.position(), byteBuf.remaining());
+            }
+        } catch (Throwable t) {
+            logger.error("数据库[{}]写入预写日志异常", entityDef.getClazz().getSimpleName(), t);
+        } finally {
+            flushingJournal.set(false);
+        }
+    }
+
+    /**
+     * 恢复上一次进程崩溃的时候没有写入数据库的修改，然后开始记录预写日志，需要在数据库连接创建之后调用
+     */
+    public void startJournal(String journalDirectory) {
+        var directory = StringUtils.format("{}/{}", journalDirectory, entityDef.getClazz().getSimpleName());
+
+        var records = EntityJournal.records(directory);
+        if (CollectionUtils.isNotEmpty(records)) {
+            // 同一个实体只需要恢复最后一次的修改
+            var documentMap = new LinkedHashMap<BsonValue, RawBsonDocument>();
+            for (var record : records) {
+                var document = new RawBsonDocument(record);
+                documentMap.put(document.get("_id"), document);
+            }
+
+            // 和正常的持久化一样带有vs版本号的过滤条件，数据库中的版本号已经变了说明这个修改已经写入过或者被更新的修改覆盖了
+            var collection = OrmContext.getOrmManager().getCollection((Class<E>) entityDef.getClazz()).withDocumentClass(BsonDocument.class);
+            var replaceList = documentMap.values().stream()
+                    .map(it -> replayModel(it))
+                    .collect(Collectors.toList());
+            var replayCount = 0;
+            var page = Page.valueOf(1, BATCH_SIZE, replaceList.size());
+            for (var currentPage = 1; currentPage <= page.totalPage(); currentPage++) {
+                page.setPage(currentPage);
+                BulkWriteResult result;
+                try {
+                    result = collection.bulkWrite(page.currentPageList(replaceList), new BulkWriteOptions().ordered(false));
+                } catch (MongoBulkWriteException e) {
+                    // 没有版本号的新实体已经被插入过了，upsert的时候主键重复
+                    if (e.getWriteErrors().stream().anyMatch(it -> it.getCode() != DUPLICATE_KEY_ERROR_CODE)) {
+                        throw e;
+                    }
+                    result = e.getWriteResult();
+                }
+                replayCount += result.getMatchedCount() + result.getUpserts().size();
+            }
+            logger.info("数据库[{}]从预写日志中恢复了[{}]条记录，[{}]个实体，其中[{}]个实体的修改还没有写入数据库"
+                    , entityDef.getClazz().getSimpleName(), records.size(), documentMap.size(), replayCount);
+        }
+
+        journal = new EntityJournal(directory);
+        journal.truncate(journal.seal());
+
+        SchedulerContext.getSchedulerManager().scheduleAtFixedRate(() -> {
+            if (!OrmContext.isStop()) {
+                PersistScheduler.flushJournal(this);
+            }
+        }, JOURNAL_FLUSH_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 日志中的vs是修改之前数据库中的版本号，数据库中的版本号相同的时候才替换，替换之后的版本号加一；版本号为0的新实体可能还没有插入
+     */
+    private WriteModel<BsonDocument> replayModel(RawBsonDocument record) {
+        var id = record.get("_id");
+        var versionValue = record.get("vs");
+        if (versionValue == null || !versionValue.isNumber()) {
+            return new ReplaceOneModel<>(Filters.eq("_id", id), record, new ReplaceOptions().upsert(true));
+        }
+
+        var version = versionValue.asNumber().longValue();
+        var document = new BsonDocument();
+        record.forEach((key, value) -> document.put(key, value));
+        document.put("vs", new BsonInt64(version + 1));
+        var filter = Filters.and(Filters.eq("_id", id), Filters.eq("vs", version));
+        return new ReplaceOneModel<>(filter, document, new ReplaceOptions().upsert(version <= 0));
     }
 
     @Override
@@ -156,103 +855,347 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
         // 所以这边并不考虑
         AssertionUtils.notNull(pk);
         cache.invalidate(pk);
+        if (coldTier != null) {
+            coldTier.invalidate(pk);
+        }
     }
 
     // 游戏中80%都是执行更新的操作，这样做会极大的提高更新速度
+    // 只遍历dirtyQueue中修改过的节点，过期的缓存由Caffeine的expireAfterAccess清除，清除的脏节点放入evictedMap等待写入
     @Override
     public void persistAll() {
+        persistLock.lock();
+        var startTime = System.nanoTime();
         try {
-            var allPnodes = cache.asMap().values();
+            // 没有访问缓存的时候Caffeine不会主动清除过期的缓存，每次持久化的时候顺便清除
+            cache.cleanUp();
 
-            if (allPnodes.isEmpty()) {
-                return;
-            }
+            // 先切换日志的segment再获取dirtyQueue的大小，之前的segment中的修改都在这次持久化的范围内
+            var sealIndex = journal == null ? 0 : journal.seal();
+            var success = true;
 
-            var updateList = new ArrayList<E>();
-            var currentTime = TimeUtils.currentTimeMillis();
-            for (var pnode : allPnodes) {
-                var entity = pnode.getEntity();
-                if (pnode.getModifiedTime() != pnode.getWriteToDbTime()) {
-                    pnode.setWriteToDbTime(currentTime);
-                    pnode.setModifiedTime(currentTime);
-                    updateList.add(entity);
-                    continue;
+            // 只处理本次开始时已经在队列中的节点，持久化过程中新修改的节点留到下一次
+            var remainSize = dirtyQueue.size();
+            var previousWrite = CompletableFuture.completedFuture(true);
+            while (remainSize > 0) {
+                var currentPnodeList = new ArrayList<PNode<E>>(Math.min(remainSize, BATCH_SIZE));
+                for (; remainSize > 0 && currentPnodeList.size() < BATCH_SIZE; remainSize--) {
+                    var pnode = dirtyQueue.poll();
+                    if (pnode == null) {
+                        remainSize = 0;
+                        break;
+                    }
+                    currentPnodeList.add(pnode);
                 }
 
-                if (currentTime - pnode.getModifiedTime() >= entityDef.getExpireMillisecond()) {
-                    invalidate(pnode.getEntity().id());
-                }
+                // 上一页在写入线程池中写入数据库的同时准备这一页，同一个实体类同时最多只有一页在写入
+                var batch = prepareBatch(currentPnodeList);
+                success &= previousWrite.join();
+                previousWrite = PersistScheduler.write(() -> writeBatch(batch));
             }
+            success &= previousWrite.join();
 
-            // 执行更新
-            if (updateList.isEmpty()) {
-                return;
+            if (journal != null && success) {
+                journal.truncate(sealIndex);
             }
 
-            var page = Page.valueOf(1, BATCH_SIZE, updateList.size());
-            var maxPageSize = page.totalPage();
+            // 没有写入过程中的节点了，写回缓冲区中剩下的干净节点和数据库一致，不需要继续保留
+            purgeEvicted();
+        } catch (Exception e) {
+            logger.error("数据库持久化器[{}]的持久化过程中exception异常退出[e:{}]", entityDef.getClazz().getSimpleName(), e);
+        } catch (Throwable t) {
+            logger.error("数据库持久化器[{}]的持久化过程中throwable异常退出[t:{}]", entityDef.getClazz().getSimpleName(), t);
+        } finally {
+            persistLock.unlock();
+            metrics.recordPersist(System.nanoTime() - startTime);
+        }
+    }
 
-            for (var currentPage = 1; currentPage <= maxPageSize; currentPage++) {
+    /**
+     * 写回缓冲区满了之后不等下一次定时持久化，立刻写入缓冲区中的节点，缓冲区中的节点在dirtyQueue中的位置会在下一次持久化时被跳过
+     */
+    private void persistEvicted() {
+        persistLock.lock();
+        try {
+            var evictedList = new ArrayList<>(evictedMap.values());
+            var page = Page.valueOf(1, BATCH_SIZE, evictedList.size());
+            for (var currentPage = 1; currentPage <= page.totalPage(); currentPage++) {
                 page.setPage(currentPage);
-                var currentUpdateList = page.currentPageList(updateList);
-                try {
-                    var collection = OrmContext.getOrmManager().getCollection((Class<E>) entityDef.getClazz()).withWriteConcern(WriteConcern.ACKNOWLEDGED);
+                persistBatch(page.currentPageList(evictedList));
+            }
+            purgeEvicted();
+        } catch (Throwable t) {
+            logger.error("数据库[{}]写回缓冲区持久化异常", entityDef.getClazz().getSimpleName(), t);
+        } finally {
+            persistLock.unlock();
+        }
+    }
 
-                    var batchList = currentUpdateList.stream()
-                            .map(it -> {
-                                var version = it.gvs();
-                                it.svs(version + 1);
+    /**
+     * @return 写入数据库成功或者容错操作成功返回true
+     */
+    private boolean persistBatch(List<PNode<E>> pnodeList) {
+        return writeBatch(prepareBatch(pnodeList));
+    }
 
-                                var filter = it.gvs() > 0
-                                        ? Filters.and(Filters.eq("_id", it.id()), Filters.eq("vs", version))
-                                        : Filters.eq("_id", it.id());
+    /**
+     * 清除脏标记并且生成写入操作，只消耗CPU，可以和上一页的批量写入同时进行
+     * <p>
+     * 一个实体生成写入操作失败不影响同一页中的其它实体，失败的实体恢复版本号和脏标记之后重新放入队列，等待下一次持久化
+     */
+    private PreparedBatch<E> prepareBatch(List<PNode<E>> pnodeList) {
+        var batch = new PreparedBatch<E>(pnodeList.size());
+        var currentTime = TimeUtils.currentTimeMillis();
+        for (var pnode : pnodeList) {
+            // 先清除脏标记再写入，写入过程中的修改会把节点重新放入队列
+            if (!pnode.clearDirty()) {
+                continue;
+            }
+            pnode.setWriteToDbTime(currentTime);
+            pnode.setModifiedTime(currentTime);
 
-                                return new ReplaceOneModel<>(filter, it);
-                            })
-                            .collect(Collectors.toList());
+            var entity = pnode.getEntity();
+            var version = entity.gvs();
+            var fingerprint = pnode.getFingerprint();
+            var weight = pnode.getWeight();
+            try {
+                var writeModel = writeModel(pnode);
+                reweigh(pnode, weight);
+                if (writeModel != null) {
+                    batch.writeModels.add(writeModel);
+                    batch.pnodes.add(pnode);
+                }
+            } catch (Throwable t) {
+                logger.error("数据库[{}]的实体[pk:{}]生成写入操作异常，等待下一次持久化", entityDef.getClazz().getSimpleName(), entity.id(), t);
+                entity.svs(version);
+                pnode.setFingerprint(fingerprint);
+                if (pnode.markDirty()) {
+                    dirtyQueue.offer(pnode);
+                }
+                batch.failed = true;
+            }
+        }
+        return batch;
+    }
 
-                    var result = collection.bulkWrite(batchList, new BulkWriteOptions().ordered(false));
-                    if (result.getModifiedCount() == batchList.size()) {
-                        continue;
-                    }
+    /**
+     * @return 写入数据库成功或者容错操作成功返回true
+     */
+    private boolean writeBatch(PreparedBatch<E> batch) {
+        var writtenPnodeList = batch.pnodes;
+        try {
+            if (batch.writeModels.isEmpty()) {
+                return !batch.failed;
+            }
 
-                    logger.error("在数据库[{}]的批量更新操作中需要更新的数量[{}]和最终更新的数量[{}]不相同，开始执行容错操作"
-                            , entityDef.getClazz().getSimpleName(), currentUpdateList.size(), result.getModifiedCount());
-                    persistAllAndCompare(currentUpdateList);
-                } catch (Throwable t) {
-                    logger.error("数据库[{}]批量更新操作未知异常，开始执行容错操作", entityDef.getClazz().getSimpleName(), t);
-                    persistAllAndCompare(currentUpdateList);
+            var startTime = System.nanoTime();
+            var modifiedCount = OrmContext.getAccessor().bulkWrite((Class<E>) entityDef.getClazz(), batch.writeModels);
+            metrics.recordBulkWrite(batch.writeModels.size(), System.nanoTime() - startTime);
+            if (modifiedCount == batch.writeModels.size()) {
+                writtenPnodeList.forEach(it -> {
+                    it.setInserting(false);
+                    it.setProbablyAbsent(false);
+                });
+                return !batch.failed;
+            }
+
+            logger.error("在数据库[{}]的批量更新操作中需要更新的数量[{}]和最终更新的数量[{}]不相同，开始执行容错操作"
+                    , entityDef.getClazz().getSimpleName(), batch.writeModels.size(), modifiedCount);
+            return persistAllAndCompare(writtenPnodeList) && !batch.failed;
+        } catch (Throwable t) {
+            logger.error("数据库[{}]批量更新操作未知异常，开始执行容错操作", entityDef.getClazz().getSimpleName(), t);
+            return persistAllAndCompare(writtenPnodeList) && !batch.failed;
+        } finally {
+            for (var pnode : writtenPnodeList) {
+                var pk = pnode.getEntity().id();
+                if (evictedMap.remove(pk, pnode)) {
+                    putColdTier(pk, pnode);
                 }
             }
+        }
+    }
 
-            updateList.clear();
+    /**
+     * 生成一个实体的写入操作，有上一次写入时的属性指纹的时候只$set改变了的属性，没有指纹的时候替换整个文档，两种方式都带有vs版本号的过滤条件
+     *
+     * @return 没有任何属性改变的时候返回null，不需要写入数据库
+     */
+    private WriteModel<E> writeModel(PNode<E> pnode) {
+        var entity = pnode.getEntity();
+        var version = entity.gvs();
+        entity.svs(version + 1);
 
-        } catch (Exception e) {
-            logger.error("数据库持久化器[{}]的持久化过程中exception异常退出[e:{}]", entityDef.getClazz().getSimpleName(), e);
+        var filter = entity.gvs() > 0
+                ? Filters.and(Filters.eq("_id", entity.id()), Filters.eq("vs", version))
+                : Filters.eq("_id", entity.id());
+
+        var previousFingerprint = pnode.getFingerprint();
+        var document = encode(entity);
+        var fingerprint = EntityFingerprint.valueOf(document);
+        pnode.setFingerprint(fingerprint);
+
+        // 可能不存在的主键只插入，数据库中已经有文档的时候插入失败，在容错操作中放弃缓存中的默认值
+        if (pnode.isProbablyAbsent()) {
+            return new InsertOneModel<>(entity);
+        }
+
+        // 新插入的实体在数据库中还没有文档，也没有版本号可以比较，通过upsert和其他的修改在同一批中写入
+        if (pnode.isInserting()) {
+            return new ReplaceOneModel<>(Filters.eq("_id", entity.id()), entity, new ReplaceOptions().upsert(true));
+        }
+
+        if (previousFingerprint == null) {
+            return new ReplaceOneModel<>(filter, entity);
+        }
+
+        var updates = new ArrayList<Bson>();
+        var changed = false;
+        for (var fieldName : fingerprint.changedFields(previousFingerprint)) {
+            if ("_id".equals(fieldName)) {
+                continue;
+            }
+            changed |= !"vs".equals(fieldName);
+            updates.add(Updates.set(fieldName, document.get(fieldName)));
+        }
+        for (var fieldName : fingerprint.removedFields(previousFingerprint)) {
+            changed = true;
+            updates.add(Updates.unset(fieldName));
+        }
+
+        // 只有版本号改变了，说明实体的数据和数据库中的一样，恢复版本号
+        if (!changed) {
+            entity.svs(version);
+            pnode.setFingerprint(previousFingerprint);
+            return null;
+        }
+        return new UpdateOneModel<>(filter, Updates.combine(updates));
+    }
+
+    /**
+     * 写回缓冲区中已经写入数据库的干净节点转移到冷缓存
+     */
+    private void purgeEvicted() {
+        evictedMap.forEach((pk, pnode) -> {
+            if (!pnode.isDirty() && evictedMap.remove(pk, pnode)) {
+                putColdTier(pk, pnode);
+            }
+        });
+    }
+
+    /**
+     * 只有和数据库一致的节点才能放入冷缓存，容错操作之后指纹为null的节点不知道数据库中是什么状态
+     */
+    private void putColdTier(PK pk, PNode<E> pnode) {
+        if (coldTier == null || pnode.isDirty() || pnode.getFingerprint() == null) {
+            return;
+        }
+        try {
+            coldTier.put(pk, encode(pnode.getEntity()));
         } catch (Throwable t) {
-            logger.error("数据库持久化器[{}]的持久化过程中throwable异常退出[t:{}]", entityDef.getClazz().getSimpleName(), t);
-        } finally {
+            logger.error("数据库[{}]的实体[pk:{}]放入冷缓存异常", entityDef.getClazz().getSimpleName(), pk, t);
         }
     }
 
-    private void persistAllAndCompare(List<E> updateList) {
-        if (CollectionUtils.isEmpty(updateList)) {
+    private PNode<E> takeColdTier(PK pk) {
+        return coldTier == null ? null : coldTier.take(pk, codec());
+    }
+
+    /**
+     * Caffeine只在放入缓存的时候计算节点的大小，实体的大小变化比较多的时候用同一个节点替换自己，让Caffeine重新计算
+     */
+    private void reweigh(PNode<E> pnode, int previousWeight) {
+        if (!isWeighted()) {
             return;
         }
+        var weight = pnode.getWeight();
+        if (Math.abs(weight - previousWeight) > previousWeight / REWEIGH_THRESHOLD) {
+            cache.asMap().replace(pnode.getEntity().id(), pnode, pnode);
+        }
+    }
 
-        var ids = updateList.stream().map(it -> it.id()).collect(Collectors.toList());
+    public boolean isWeighted() {
+        return entityDef.getCacheMaxWeight() > 0;
+    }
+
+    /**
+     * @return 按照内存淘汰的缓存当前的内存上限，按照数量淘汰的缓存返回0
+     */
+    public long getMaxWeight() {
+        return isWeighted() ? cache.policy().eviction().get().getMaximum() : 0;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        if (isWeighted()) {
+            cache.policy().eviction().get().setMaximum(maxWeight);
+        }
+    }
+
+    /**
+     * @return 缓存被访问的总次数，包括命中和没有命中
+     */
+    public long requestCount() {
+        return cache.stats().requestCount();
+    }
+
+    private EntityFingerprint fingerprint(E entity) {
+        return EntityFingerprint.valueOf(encode(entity));
+    }
+
+    private RawBsonDocument encode(E entity) {
+        return new RawBsonDocument(entity, codec());
+    }
+
+    private Codec<E> codec() {
+        return OrmContext.getOrmManager().getCodecRegistry().get((Class<E>) entityDef.getClazz());
+    }
+
+    private boolean persistAllAndCompare(List<PNode<E>> pnodeList) {
+        if (CollectionUtils.isEmpty(pnodeList)) {
+            return true;
+        }
+
+        metrics.recordFallback(pnodeList.size());
+
+        // 写入失败的实体不知道数据库中的文档是什么状态，下一次写入的时候替换整个文档
+        pnodeList.forEach(it -> it.setFingerprint(null));
+        var ids = pnodeList.stream().map(it -> it.getEntity().id()).collect(Collectors.toList());
 
         try {
             var dbList = OrmContext.getQuery().queryFieldIn("_id", ids, (Class<E>) entityDef.getClazz());
             var dbMap = dbList.stream().collect(Collectors.toMap(key -> key.id(), value -> value));
-            for (var entity : updateList) {
+            for (var pnode : pnodeList) {
+                var entity = pnode.getEntity();
                 var dbEntity = dbMap.get(entity.id());
 
+                // 负缓存或者布隆过滤器判断错了，数据库中已经有了文档，不能用默认值覆盖，清除缓存之后重新从数据库中加载
+                if (pnode.isProbablyAbsent()) {
+                    pnode.setProbablyAbsent(false);
+                    if (dbEntity == null) {
+                        OrmContext.getAccessor().insert(entity);
+                    } else if (entity.gvs() <= 0 || dbEntity.gvs() != entity.gvs()) {
+                        logger.error("数据库[{}]中已经存在[pk:{}]的文档，放弃负缓存判断为不存在之后创建的实体，不覆盖数据库中的文档"
+                                , entityDef.getClazz().getSimpleName(), entity.id());
+                        metrics.recordVersionConflict();
+                    }
+                    cache.invalidate(entity.id());
+                    continue;
+                }
+
+                // 等待插入的实体在数据库中还不存在，单独插入
+                if (dbEntity == null && pnode.isInserting()) {
+                    OrmContext.getAccessor().insert(entity);
+                    pnode.setInserting(false);
+                    cache.invalidate(entity.id());
+                    continue;
+                }
+
                 if (dbEntity == null) {
                     cache.invalidate(entity.id());
                     continue;
                 }
 
+                pnode.setInserting(false);
+
                 // 如果没有版本号，则写入数据库并清除缓存
                 if (entity.gvs() <= 0) {
                     OrmContext.getAccessor().update(entity);
@@ -268,6 +1211,7 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
 
                 // 如果数据库版本号较大，说明缓存的数据不是最新的，直接清除缓存，下次重新加载
                 if (dbEntity.gvs() > entity.gvs()) {
+                    metrics.recordVersionConflict();
                     cache.invalidate(entity.id());
                     continue;
                 }
@@ -281,7 +1225,9 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
             }
         } catch (Throwable t) {
             logger.error("数据库[{}]容错操作异常,", entityDef.getClazz().getSimpleName(), t);
+            return false;
         }
+        return true;
     }
 
     @Override
@@ -304,6 +1250,11 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
         return cache.estimatedSize();
     }
 
+    @Override
+    public EntityMetrics metrics() {
+        return metrics;
+    }
+
     @Override
     public boolean isUsable() {
         return this.usable;
@@ -317,8 +1268,40 @@ public class EntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>> impl
     @Override
     public String recordStatus() {
         var stats = cache.stats();
-        return StringUtils.format("数据库[{}]缓存命中率[hitRate:{}]，命中次数[hitCount:{}]，加载次数[loadCount:{}]，加载新值的平均时间秒[averageLoadPenalty:{}]，缓存项被回收的总数[evictionCount:{}]"
+        var status = StringUtils.format("数据库[{}]缓存命中率[hitRate:{}]，命中次数[hitCount:{}]，加载次数[loadCount:{}]，加载新值的平均时间秒[averageLoadPenalty:{}]，缓存项被回收的总数[evictionCount:{}]"
                 , entityDef.getClazz().getSimpleName(), stats.hitRate(), stats.hitCount(), stats.loadCount(), stats.averageLoadPenalty() / TimeUtils.NANO_PER_SECOND, stats.evictionCount());
+        status = StringUtils.format("{}，持久化次数[persistCount:{}]，平均耗时毫秒[averagePersistMillis:{}]，最近一次耗时毫秒[lastPersistMillis:{}]，最长耗时毫秒[maxPersistMillis:{}]"
+                , status, metrics.getPersistCount(), TimeUnit.MICROSECONDS.toMillis(metrics.getPersistMeanMicros())
+                , TimeUnit.MICROSECONDS.toMillis(metrics.getPersistLastMicros()), TimeUnit.MICROSECONDS.toMillis(metrics.getPersistMaxMicros()));
+        status = StringUtils.format("{}，等待持久化的数量[dirtyBacklog:{}]，容错操作的实体数量[fallbackEntityCount:{}]，版本号冲突的数量[versionConflictCount:{}]"
+                , status, metrics.getDirtyBacklog(), metrics.getFallbackEntityCount(), metrics.getVersionConflictCount());
+        if (isWeighted()) {
+            status = StringUtils.format("{}，缓存占用的估算内存[weightedSize:{}]，内存上限[maxWeight:{}]"
+                    , status, cache.policy().eviction().get().weightedSize().orElse(0), getMaxWeight());
+        }
+        if (coldTier != null) {
+            status = StringUtils.format("{}，{}", status, coldTier.recordStatus());
+        }
+        if (negativeCache == null) {
+            return status;
+        }
+        return StringUtils.format("{}，负缓存命中次数[negativeHitCount:{}]，布隆过滤器命中次数[bloomFilterHitCount:{}]，不存在的主键查询数据库的次数[negativeMissCount:{}]"
+                , status, negativeHitCount.sum(), bloomFilterHitCount.sum(), negativeMissCount.sum());
+    }
+
+
+    private static class PreparedBatch<E extends IEntity<?>> {
+        private final List<WriteModel<E>> writeModels;
+        private final List<PNode<E>> pnodes;
+        /**
+         * 准备的过程中有实体生成写入操作失败，已经重新放入队列，这一页的修改没有全部写入数据库，不能截断预写日志
+         */
+        private boolean failed;
+
+        private PreparedBatch(int size) {
+            this.writeModels = new ArrayList<>(size);
+            this.pnodes = new ArrayList<>(size);
+        }
     }
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.orm.model.persister.EntityFingerprint;
+import com.zfoo.orm.model.persister.PNode;
+import com.zfoo.protocol.util.StringUtils;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 实体缓存的冷缓存层，保存被淘汰的和数据库一致的实体的BSON编码，字节保存在堆外内存中，不占用堆，也不会增加GC的负担
+ * <p>
+ * 加载的时候从冷缓存中取出，只需要解码，不需要访问数据库
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityColdTier<PK extends Comparable<PK>, E extends IEntity<PK>> {
+
+    /**
+     * ByteBuffer对象本身和Caffeine节点的大约开销
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final Cache<PK, ByteBuffer> cache;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder decodeNanoTime = new LongAdder();
+
+    public EntityColdTier(long maxBytes, long expireMillisecond) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(expireMillisecond, TimeUnit.MILLISECONDS)
+                .maximumWeight(maxBytes)
+                .weigher((PK pk, ByteBuffer buffer) -> ENTRY_OVERHEAD + buffer.capacity())
+                .build();
+    }
+
+    /**
+     * 放入的实体必须和数据库中的一致
+     */
+    public void put(PK pk, RawBsonDocument document) {
+        var byteBuf = document.getByteBuffer();
+        var buffer = ByteBuffer.allocateDirect(byteBuf.remaining());
+        buffer.put(byteBuf.asNIO());
+        buffer.flip();
+        cache.put(pk, buffer);
+    }
+
+    /**
+     * 取出并且移除冷缓存中的实体，取出之后实体回到一级缓存中
+     *
+     * @return 冷缓存中没有的时候返回null
+     */
+    public PNode<E> take(PK pk, Codec<E> codec) {
+        var buffer = cache.asMap().remove(pk);
+        if (buffer == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+
+        var startTime = System.nanoTime();
+        var bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        var document = new RawBsonDocument(bytes);
+        var pnode = new PNode<E>(document.decode(codec));
+        pnode.setFingerprint(EntityFingerprint.valueOf(document));
+        decodeNanoTime.add(System.nanoTime() - startTime);
+        return pnode;
+    }
+
+    public void invalidate(PK pk) {
+        cache.invalidate(pk);
+    }
+
+    public String recordStatus() {
+        var hits = hitCount.sum();
+        var averageDecodeMicros = hits == 0 ? 0 : decodeNanoTime.sum() / hits / 1000;
+        var weightedSize = cache.policy().eviction().get().weightedSize().orElse(0);
+        return StringUtils.format("冷缓存命中次数[coldHitCount:{}]，没有命中次数[coldMissCount:{}]，平均解码时间微秒[coldAverageDecodeMicros:{}]，冷缓存数量[coldSize:{}]，占用的堆外内存[coldWeightedSize:{}]"
+                , hits, missCount.sum(), averageDecodeMicros, cache.estimatedSize(), weightedSize);
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.cache;
+
+import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.orm.model.persister.PNode;
+import com.zfoo.orm.model.vo.IndexDef;
+import com.zfoo.protocol.util.ReflectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存中实体的内存二级索引，一个被@Index标注的属性对应一个EntityIndex
+ * <p>
+ * 只索引缓存中的实体，实体的属性被修改之后需要调用EntityCaches的update才会更新索引。
+ * 属性为集合的时候，和mongodb的多键索引一样，集合中的每一个元素都是一个索引的值。
+ * <p>
+ * 缓存的移除通过CacheWriter在Caffeine的compute中同步执行，但是被移除的节点可能还在写回缓冲区中，之后又被重新加载，
+ * 所以移除索引的时候必须是同一个PNode才会移除
+ * <p>
+ * 一个值的完整标记在IAccessor直接插入这个值的实体的时候失效，其它进程插入的实体在完整标记过期之后重新查询数据库才能发现
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityIndex<PK extends Comparable<PK>, E extends IEntity<PK>> {
+
+    private final IndexDef indexDef;
+
+    /**
+     * key：索引的值，value：缓存中索引的值为key的实体的主键
+     */
+    private final Map<Object, Set<PK>> indexMap = new ConcurrentHashMap<>();
+
+    /**
+     * key：主键，value：建立索引的时候的PNode和索引的值，实体的属性改变之后通过这个找到旧的索引
+     */
+    private final Map<PK, IndexNode<E>> pkMap = new ConcurrentHashMap<>();
+
+    /**
+     * 完整标记的有效时间，和负缓存默认的有效时间一样
+     */
+    private static final long COMPLETE_EXPIRE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * 已经从数据库完整加载到缓存中的索引的值，这些值的查询不需要再访问数据库，key：索引的值，value：标记完整的时间，System.nanoTime()
+     */
+    private final Map<Object, Long> completeValues = new ConcurrentHashMap<>();
+
+    /**
+     * 索引被移除的次数，用来判断从数据库加载的过程中有没有实体被移除
+     */
+    private final AtomicLong removeStamp = new AtomicLong(0);
+
+    private static class IndexNode<E extends IEntity<?>> {
+        private final PNode<E> pnode;
+        private final List<Object> values;
+
+        IndexNode(PNode<E> pnode, List<Object> values) {
+            this.pnode = pnode;
+            this.values = values;
+        }
+    }
+
+    public EntityIndex(IndexDef indexDef) {
+        this.indexDef = indexDef;
+        ReflectionUtils.makeAccessible(indexDef.getField());
+    }
+
+    /**
+     * 建立或者更新实体的索引
+     */
+    public void index(PK pk, PNode<E> pnode) {
+        var values = indexValues(pnode.getEntity());
+        pkMap.compute(pk, (key, oldNode) -> {
+            if (oldNode != null) {
+                for (var value : oldNode.values) {
+                    if (!values.contains(value)) {
+                        removeValue(value, pk);
+                    }
+                }
+            }
+            for (var value : values) {
+                indexMap.computeIfAbsent(value, it -> ConcurrentHashMap.newKeySet()).add(pk);
+            }
+            return new IndexNode<>(pnode, values);
+        });
+    }
+
+    /**
+     * 缓存中的实体被移除的时候调用，只有建立索引的是同一个PNode才会移除
+     */
+    public void remove(PK pk, PNode<E> pnode) {
+        pkMap.computeIfPresent(pk, (key, oldNode) -> {
+            if (oldNode.pnode != pnode) {
+                return oldNode;
+            }
+            removeStamp.incrementAndGet();
+            for (var value : oldNode.values) {
+                // 缓存中少了一个索引的值为value的实体，这个值的索引不再完整
+                completeValues.remove(value);
+                removeValue(value, pk);
+            }
+            return null;
+        });
+    }
+
+    private void removeValue(Object value, PK pk) {
+        indexMap.computeIfPresent(value, (key, pks) -> {
+            pks.remove(pk);
+            return pks.isEmpty() ? null : pks;
+        });
+    }
+
+    /**
+     * @return 缓存中索引的值为value的实体的主键
+     */
+    public Set<PK> pks(Object value) {
+        var pks = indexMap.get(value);
+        return pks == null ? Collections.emptySet() : Collections.unmodifiableSet(pks);
+    }
+
+    /**
+     * 缓存中的实体当前的属性值是不是还等于value，实体被修改之后没有调用update的时候索引可能是旧的
+     */
+    public boolean matches(E entity, Object value) {
+        return indexValues(entity).contains(value);
+    }
+
+    public boolean isComplete(Object value) {
+        var completeNanoTime = completeValues.get(value);
+        if (completeNanoTime == null) {
+            return false;
+        }
+        if (System.nanoTime() - completeNanoTime >= COMPLETE_EXPIRE_NANOS) {
+            completeValues.remove(value, completeNanoTime);
+            return false;
+        }
+        return true;
+    }
+
+    public long removeStamp() {
+        return removeStamp.get();
+    }
+
+    /**
+     * 从数据库加载完value对应的所有实体之后调用，如果加载的过程中有实体被移除则不能标记为完整
+     */
+    public void complete(Object value, long removeStamp) {
+        completeValues.put(value, System.nanoTime());
+        if (this.removeStamp.get() != removeStamp) {
+            completeValues.remove(value);
+        }
+    }
+
+    /**
+     * 不经过缓存直接插入数据库的实体，缓存中少了这个实体，它的索引的值不再完整
+     */
+    public void inserted(E entity) {
+        // 正在从数据库加载的查询可能在插入之前执行，同样不能标记为完整
+        removeStamp.incrementAndGet();
+        for (var value : indexValues(entity)) {
+            completeValues.remove(value);
+        }
+    }
+
+    public IndexDef getIndexDef() {
+        return indexDef;
+    }
+
+    private List<Object> indexValues(E entity) {
+        var fieldValue = ReflectionUtils.getField(indexDef.getField(), entity);
+        if (fieldValue == null) {
+            return Collections.emptyList();
+        }
+        if (fieldValue instanceof Collection) {
+            var values = new ArrayList<Object>(((Collection<?>) fieldValue).size());
+            for (var value : (Collection<?>) fieldValue) {
+                if (value != null && !values.contains(value)) {
+                    values.add(value);
+                }
+            }
+            return values;
+        }
+        return List.of(fieldValue);
+    }
+
+}
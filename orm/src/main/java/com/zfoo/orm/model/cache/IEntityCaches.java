@@ -14,8 +14,11 @@
 package com.zfoo.orm.model.cache;
 
 import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.orm.model.metrics.EntityMetrics;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 
 /**
@@ -29,11 +32,61 @@ public interface IEntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>>
      */
     E load(PK pk);
 
+    /**
+     * 批量加载，缓存中有的直接返回，缓存中没有的通过一次$in查询从数据库中加载并且加入缓存，数据库中不存在的和load一样返回默认值
+     *
+     * @return key：主键，value：实体，顺序和pks的顺序一致
+     */
+    Map<PK, E> loadAll(Collection<PK> pks);
+
+    /**
+     * 只加载实体的部分属性到视图类中，视图类的属性名称和类型需要和实体中的属性一致
+     * <p>
+     * 缓存中有这个实体的时候直接从缓存的实体中复制，没有的时候通过投影只查询视图需要的属性，查询的结果不会放入缓存
+     *
+     * @return 数据库中不存在的时候返回null
+     */
+    <V> V loadView(PK pk, Class<V> viewClazz);
+
+    /**
+     * 批量加载视图，缓存中没有的主键只查询一次数据库
+     *
+     * @return key：主键，value：视图，顺序和pks的顺序一致，数据库中不存在的主键不在返回值中
+     */
+    <V> Map<PK, V> loadAllViews(Collection<PK> pks, Class<V> viewClazz);
+
+    /**
+     * 通过被@Index标注的属性加载一个实体，先查找缓存中的内存索引，缓存中没有的时候才会查询数据库，数据库中也没有则返回null
+     *
+     * @param fieldName 被@Index标注的属性的名称
+     * @param value     属性的值，类型需要和属性的类型一致，集合属性为集合中的一个元素
+     */
+    E loadByIndex(String fieldName, Object value);
+
+    /**
+     * 通过被@Index标注的属性加载所有的实体，一个值第一次查询的时候会从数据库中加载全部的实体到缓存，之后只要缓存中的实体没有被移除，就直接使用缓存
+     * <p>
+     * 通过IAccessor插入这个值的实体之后会重新查询数据库，其它进程插入的实体最多一分钟之后才会被发现
+     */
+    List<E> loadAllByIndex(String fieldName, Object value);
+
     /**
      * 更新缓存中的数据，只更新缓存的时间戳，并通过一定策略写入到数据库
      */
     void update(E entity);
 
+    /**
+     * 插入一个新的实体，只放入缓存并且标记为等待插入，在下一次持久化的时候和其他的修改一起通过upsert批量写入数据库
+     * <p>
+     * 代替先同步调用IAccessor.insert再放入缓存的做法，大量创建实体的时候不需要每个实体都同步访问一次数据库
+     */
+    void insert(E entity);
+
+    /**
+     * 不经过缓存直接插入数据库的实体，由IAccessor的insert和batchInsert调用，让负缓存和内存索引知道这个实体已经存在
+     */
+    void onInsert(E entity);
+
     /**
      * 不会删除数据库中的数据，只会删除缓存数据
      *
@@ -64,4 +117,9 @@ public interface IEntityCaches<PK extends Comparable<PK>, E extends IEntity<PK>>
      */
     String recordStatus();
 
+    /**
+     * 结构化的加载和持久化指标，同样的指标也通过JMX暴露
+     */
+    EntityMetrics metrics();
+
 }
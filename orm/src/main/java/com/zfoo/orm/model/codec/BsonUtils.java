@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.*;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 生成的实体编解码器调用的读写方法，数字类型之间的转换和PojoCodec使用的编解码器保持一致
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class BsonUtils {
+
+    private static final BooleanCodec BOOLEAN_CODEC = new BooleanCodec();
+    private static final ByteCodec BYTE_CODEC = new ByteCodec();
+    private static final ShortCodec SHORT_CODEC = new ShortCodec();
+    private static final IntegerCodec INTEGER_CODEC = new IntegerCodec();
+    private static final LongCodec LONG_CODEC = new LongCodec();
+    private static final FloatCodec FLOAT_CODEC = new FloatCodec();
+    private static final DoubleCodec DOUBLE_CODEC = new DoubleCodec();
+    private static final CharacterCodec CHARACTER_CODEC = new CharacterCodec();
+    private static final StringCodec STRING_CODEC = new StringCodec();
+
+    public static boolean readBoolean(BsonReader reader, DecoderContext context) {
+        return reader.getCurrentBsonType() == BsonType.BOOLEAN ? reader.readBoolean() : BOOLEAN_CODEC.decode(reader, context);
+    }
+
+    public static byte readByte(BsonReader reader, DecoderContext context) {
+        return BYTE_CODEC.decode(reader, context);
+    }
+
+    public static short readShort(BsonReader reader, DecoderContext context) {
+        return SHORT_CODEC.decode(reader, context);
+    }
+
+    public static int readInt(BsonReader reader, DecoderContext context) {
+        return reader.getCurrentBsonType() == BsonType.INT32 ? reader.readInt32() : INTEGER_CODEC.decode(reader, context);
+    }
+
+    public static long readLong(BsonReader reader, DecoderContext context) {
+        return reader.getCurrentBsonType() == BsonType.INT64 ? reader.readInt64() : LONG_CODEC.decode(reader, context);
+    }
+
+    public static float readFloat(BsonReader reader, DecoderContext context) {
+        return FLOAT_CODEC.decode(reader, context);
+    }
+
+    public static double readDouble(BsonReader reader, DecoderContext context) {
+        return reader.getCurrentBsonType() == BsonType.DOUBLE ? reader.readDouble() : DOUBLE_CODEC.decode(reader, context);
+    }
+
+    public static char readChar(BsonReader reader, DecoderContext context) {
+        return CHARACTER_CODEC.decode(reader, context);
+    }
+
+    public static String readString(BsonReader reader, DecoderContext context) {
+        return reader.getCurrentBsonType() == BsonType.STRING ? reader.readString() : STRING_CODEC.decode(reader, context);
+    }
+
+    public static void writeCollection(BsonWriter writer, Collection<?> collection, Codec codec, EncoderContext context) {
+        writer.writeStartArray();
+        for (var element : collection) {
+            if (element == null) {
+                writer.writeNull();
+            } else {
+                context.encodeWithChildContext(codec, writer, element);
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    public static Collection readCollection(BsonReader reader, Codec<?> codec, DecoderContext context, Collection collection) {
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                collection.add(null);
+            } else {
+                collection.add(context.decodeWithChildContext(codec, reader));
+            }
+        }
+        reader.readEndArray();
+        return collection;
+    }
+
+    public static void writeMap(BsonWriter writer, Map<String, ?> map, Codec codec, EncoderContext context) {
+        writer.writeStartDocument();
+        for (var entry : map.entrySet()) {
+            writer.writeName(entry.getKey());
+            if (entry.getValue() == null) {
+                writer.writeNull();
+            } else {
+                context.encodeWithChildContext(codec, writer, entry.getValue());
+            }
+        }
+        writer.writeEndDocument();
+    }
+
+    public static Map readMap(BsonReader reader, Codec<?> codec, DecoderContext context, Map map) {
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            var name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                map.put(name, null);
+            } else {
+                map.put(name, context.decodeWithChildContext(codec, reader));
+            }
+        }
+        reader.readEndDocument();
+        return map;
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.codec;
+
+import com.zfoo.protocol.exception.ExceptionUtils;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 为实体类提供javassist生成的编解码器，不支持的实体类返回null，交给后面的PojoCodecProvider处理
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityCodecProvider implements CodecProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCodecProvider.class);
+
+    private final Set<Class<?>> entityClazzSet;
+
+    private final Map<Class<?>, Codec<?>> codecMap = new ConcurrentHashMap<>();
+
+    /**
+     * 无法生成编解码器，回退到PojoCodec的实体类
+     */
+    private final Set<Class<?>> fallbackSet = ConcurrentHashMap.newKeySet();
+
+    public EntityCodecProvider(Set<? extends Class<?>> entityClazzSet) {
+        this.entityClazzSet = new HashSet<>(entityClazzSet);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        if (!entityClazzSet.contains(clazz) || fallbackSet.contains(clazz)) {
+            return null;
+        }
+
+        var codec = codecMap.get(clazz);
+        if (codec != null) {
+            return (Codec<T>) codec;
+        }
+
+        synchronized (codecMap) {
+            codec = codecMap.get(clazz);
+            if (codec != null || fallbackSet.contains(clazz)) {
+                return (Codec<T>) codec;
+            }
+
+            var reason = EntityCodecUtils.unsupportedReason(clazz);
+            if (reason == null) {
+                try {
+                    codec = EntityCodecUtils.createCodec(clazz, registry);
+                    codecMap.put(clazz, codec);
+                    return (Codec<T>) codec;
+                } catch (Throwable t) {
+                    reason = ExceptionUtils.getMessage(t);
+                }
+            }
+
+            logger.warn("实体类[{}]无法生成编解码器，使用PojoCodec，原因：{}", clazz.getSimpleName(), reason);
+            fallbackSet.add(clazz);
+            return null;
+        }
+    }
+
+}
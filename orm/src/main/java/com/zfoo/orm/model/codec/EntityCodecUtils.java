@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.codec;
+
+import com.zfoo.protocol.util.ReflectionUtils;
+import com.zfoo.protocol.util.StringUtils;
+import javassist.*;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用javassist为实体类生成BSON编解码器，直接调用get和set方法，省去PojoCodec的反射和属性模型的开销
+ * <p>
+ * 生成的文档格式和PojoCodec保持一致：id属性写成_id并且放在最前面，null不写入，byte和short写成int32，float写成double，char写成string
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class EntityCodecUtils {
+
+    private static final AtomicInteger index = new AtomicInteger(0);
+
+    /**
+     * PojoCodec约定名称为id的属性写成_id
+     */
+    private static final String ID_PROPERTY = "id";
+    private static final String ID_FIELD = "_id";
+
+    private static final String bsonUtils = BsonUtils.class.getCanonicalName();
+
+    /**
+     * key：基础类型和对应的包装类型
+     */
+    private static final Map<Class<?>, ScalarType> scalarTypeMap = new HashMap<>();
+
+    static {
+        register(boolean.class, Boolean.class, "writeBoolean({})", "readBoolean", "booleanValue");
+        register(byte.class, Byte.class, "writeInt32((int) {})", "readByte", "byteValue");
+        register(short.class, Short.class, "writeInt32((int) {})", "readShort", "shortValue");
+        register(int.class, Integer.class, "writeInt32({})", "readInt", "intValue");
+        register(long.class, Long.class, "writeInt64({})", "readLong", "longValue");
+        register(float.class, Float.class, "writeDouble((double) {})", "readFloat", "floatValue");
+        register(double.class, Double.class, "writeDouble({})", "readDouble", "doubleValue");
+        register(char.class, Character.class, "writeString(String.valueOf({}))", "readChar", "charValue");
+        register(String.class, String.class, "writeString({})", "readString", null);
+    }
+
+    private static void register(Class<?> primitiveClazz, Class<?> boxedClazz, String write, String read, String unbox) {
+        var scalarType = new ScalarType(boxedClazz, write, read, unbox);
+        scalarTypeMap.put(primitiveClazz, scalarType);
+        scalarTypeMap.put(boxedClazz, scalarType);
+    }
+
+    /**
+     * 判断实体类能否生成编解码器，不能生成的返回原因，调用者应该回退到PojoCodec
+     */
+    public static String unsupportedReason(Class<?> clazz) {
+        if (!Modifier.isPublic(clazz.getModifiers()) || Modifier.isAbstract(clazz.getModifiers()) || clazz.getEnclosingClass() != null) {
+            return "entity class is not a public top level class";
+        }
+        if (clazz.getSuperclass() != Object.class) {
+            return "entity class has super class";
+        }
+        try {
+            if (!Modifier.isPublic(clazz.getConstructor().getModifiers())) {
+                return "entity class has no public constructor";
+            }
+        } catch (NoSuchMethodException e) {
+            return "entity class has no public constructor";
+        }
+
+        for (var field : fields(clazz)) {
+            if (fieldType(field) == null) {
+                return StringUtils.format("field:[{}] type:[{}] is not supported", field.getName(), field.getGenericType().getTypeName());
+            }
+            try {
+                var getMethod = clazz.getMethod(ReflectionUtils.fieldToGetMethod(clazz, field));
+                var setMethod = clazz.getMethod(ReflectionUtils.fieldToSetMethod(clazz, field), field.getType());
+                if (getMethod.getReturnType() != field.getType()) {
+                    return StringUtils.format("field:[{}] get method return type is not the field type", field.getName());
+                }
+            } catch (Exception e) {
+                return StringUtils.format("field:[{}] has no public get or set method", field.getName());
+            }
+        }
+        return null;
+    }
+
+    public static <T> Codec<T> createCodec(Class<T> clazz, CodecRegistry registry) throws Exception {
+        var fields = fields(clazz);
+        var codecs = new Codec<?>[fields.size()];
+        for (var i = 0; i < fields.size(); i++) {
+            var elementClazz = fieldType(fields.get(i)).elementClazz;
+            codecs[i] = elementClazz == null ? null : registry.get(elementClazz);
+        }
+
+        var classPool = ClassPool.getDefault();
+        if (classPool.find(clazz.getCanonicalName()) == null) {
+            classPool.insertClassPath(new ClassClassPath(clazz));
+        }
+
+        // 定义类名称，生成的类和EntityCodecUtils放在同一个包下
+        var enhanceClazz = classPool.makeClass(StringUtils.format("{}.EntityCodec{}{}", EntityCodecUtils.class.getPackageName(), clazz.getSimpleName(), index.incrementAndGet()));
+        enhanceClazz.addInterface(classPool.get(Codec.class.getCanonicalName()));
+
+        var clazzField = new CtField(classPool.get(Class.class.getCanonicalName()), "clazz", enhanceClazz);
+        clazzField.setModifiers(Modifier.PRIVATE);
+        enhanceClazz.addField(clazzField);
+
+        var codecsField = new CtField(classPool.get(Codec[].class.getCanonicalName()), "codecs", enhanceClazz);
+        codecsField.setModifiers(Modifier.PRIVATE);
+        enhanceClazz.addField(codecsField);
+
+        var constructor = new CtConstructor(classPool.get(new String[]{Class.class.getCanonicalName(), Codec[].class.getCanonicalName()}), enhanceClazz);
+        constructor.setBody("{this.clazz=$1;this.codecs=$2;}");
+        constructor.setModifiers(Modifier.PUBLIC);
+        enhanceClazz.addConstructor(constructor);
+
+        var encoderClassMethod = new CtMethod(classPool.get(Class.class.getCanonicalName()), "getEncoderClass", null, enhanceClazz);
+        encoderClassMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        encoderClassMethod.setBody("{return this.clazz;}");
+        enhanceClazz.addMethod(encoderClassMethod);
+
+        var encodeMethod = new CtMethod(classPool.get(void.class.getCanonicalName()), "encode", classPool.get(new String[]{BsonWriter.class.getCanonicalName(), Object.class.getCanonicalName(), EncoderContext.class.getCanonicalName()}), enhanceClazz);
+        encodeMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        encodeMethod.setBody(encodeMethodBody(clazz, fields));
+        enhanceClazz.addMethod(encodeMethod);
+
+        var decodeMethod = new CtMethod(classPool.get(Object.class.getCanonicalName()), "decode", classPool.get(new String[]{BsonReader.class.getCanonicalName(), DecoderContext.class.getCanonicalName()}), enhanceClazz);
+        decodeMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        decodeMethod.setBody(decodeMethodBody(clazz, fields));
+        enhanceClazz.addMethod(decodeMethod);
+
+        // 释放缓存
+        enhanceClazz.detach();
+
+        var resultClazz = enhanceClazz.toClass(EntityCodecUtils.class);
+        @SuppressWarnings("unchecked")
+        var codec = (Codec<T>) resultClazz.getConstructor(Class.class, Codec[].class).newInstance(clazz, codecs);
+        return codec;
+    }
+
+    private static String encodeMethodBody(Class<?> clazz, List<Field> fields) {
+        var builder = new StringBuilder();
+        builder.append("{");
+        builder.append(StringUtils.format("{} entity = ({}) $2;", clazz.getCanonicalName(), clazz.getCanonicalName()));
+        builder.append("$1.writeStartDocument();");
+        for (var i = 0; i < fields.size(); i++) {
+            var field = fields.get(i);
+            var fieldType = fieldType(field);
+            var getter = StringUtils.format("entity.{}()", ReflectionUtils.fieldToGetMethod(clazz, field));
+            var writeName = StringUtils.format("$1.writeName(\"{}\");", documentFieldName(field));
+
+            if (field.getType().isPrimitive()) {
+                builder.append(writeName);
+                builder.append("$1.").append(StringUtils.format(fieldType.scalarType.write, getter)).append(";");
+                continue;
+            }
+
+            var value = "v" + i;
+            builder.append(StringUtils.format("{} {} = {};", field.getType().getCanonicalName(), value, getter));
+            builder.append(StringUtils.format("if ({} != null) {", value));
+            builder.append(writeName);
+            if (fieldType.scalarType != null) {
+                var unboxValue = fieldType.scalarType.unbox == null ? value : StringUtils.format("{}.{}()", value, fieldType.scalarType.unbox);
+                builder.append("$1.").append(StringUtils.format(fieldType.scalarType.write, unboxValue)).append(";");
+            } else if (Map.class.isAssignableFrom(field.getType())) {
+                builder.append(StringUtils.format("{}.writeMap($1, {}, this.codecs[{}], $3);", bsonUtils, value, i));
+            } else {
+                builder.append(StringUtils.format("{}.writeCollection($1, {}, this.codecs[{}], $3);", bsonUtils, value, i));
+            }
+            builder.append("}");
+        }
+        builder.append("$1.writeEndDocument();");
+        builder.append("}");
+        return builder.toString();
+    }
+
+    private static String decodeMethodBody(Class<?> clazz, List<Field> fields) {
+        var builder = new StringBuilder();
+        var bsonType = BsonType.class.getCanonicalName();
+        builder.append("{");
+        builder.append(StringUtils.format("{} entity = new {}();", clazz.getCanonicalName(), clazz.getCanonicalName()));
+        builder.append("$1.readStartDocument();");
+        builder.append(StringUtils.format("while ($1.readBsonType() != {}.END_OF_DOCUMENT) {", bsonType));
+        builder.append("String name = $1.readName();");
+        builder.append(StringUtils.format("if ($1.getCurrentBsonType() == {}.NULL) { $1.readNull(); }", bsonType));
+        for (var i = 0; i < fields.size(); i++) {
+            var field = fields.get(i);
+            var fieldType = fieldType(field);
+            var setter = ReflectionUtils.fieldToSetMethod(clazz, field);
+
+            String value;
+            if (fieldType.scalarType != null) {
+                value = StringUtils.format("{}.{}($1, $2)", bsonUtils, fieldType.scalarType.read);
+                if (!field.getType().isPrimitive() && field.getType() != String.class) {
+                    value = StringUtils.format("{}.valueOf({})", fieldType.scalarType.boxedClazz.getCanonicalName(), value);
+                }
+            } else if (Map.class.isAssignableFrom(field.getType())) {
+                value = StringUtils.format("({}) {}.readMap($1, this.codecs[{}], $2, new {}())", field.getType().getCanonicalName(), bsonUtils, i, fieldType.containerClazz.getCanonicalName());
+            } else {
+                value = StringUtils.format("({}) {}.readCollection($1, this.codecs[{}], $2, new {}())", field.getType().getCanonicalName(), bsonUtils, i, fieldType.containerClazz.getCanonicalName());
+            }
+            builder.append(StringUtils.format("else if (\"{}\".equals(name)) { entity.{}({}); }", documentFieldName(field), setter, value));
+        }
+        builder.append("else { $1.skipValue(); }");
+        builder.append("}");
+        builder.append("$1.readEndDocument();");
+        builder.append("return entity;");
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * 和PojoCodec一样，id属性排在最前面，其它属性按照名称排序
+     */
+    private static List<Field> fields(Class<?> clazz) {
+        var fields = new ArrayList<Field>();
+        for (var field : clazz.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                continue;
+            }
+            fields.add(field);
+        }
+        fields.sort(Comparator.comparing((Field it) -> !ID_PROPERTY.equals(it.getName())).thenComparing(Field::getName));
+        return fields;
+    }
+
+    private static String documentFieldName(Field field) {
+        return ID_PROPERTY.equals(field.getName()) ? ID_FIELD : field.getName();
+    }
+
+    private static FieldType fieldType(Field field) {
+        var clazz = field.getType();
+        var scalarType = scalarTypeMap.get(clazz);
+        if (scalarType != null) {
+            return new FieldType(scalarType, null, null);
+        }
+
+        if (!(field.getGenericType() instanceof ParameterizedType)) {
+            return null;
+        }
+        var typeArguments = ((ParameterizedType) field.getGenericType()).getActualTypeArguments();
+
+        Class<?> containerClazz;
+        Type elementType;
+        if (clazz == List.class || clazz == Collection.class || clazz == ArrayList.class) {
+            containerClazz = ArrayList.class;
+            elementType = typeArguments[0];
+        } else if (clazz == Set.class || clazz == HashSet.class) {
+            containerClazz = HashSet.class;
+            elementType = typeArguments[0];
+        } else if (clazz == Map.class || clazz == HashMap.class) {
+            if (typeArguments[0] != String.class) {
+                return null;
+            }
+            containerClazz = HashMap.class;
+            elementType = typeArguments[1];
+        } else {
+            return null;
+        }
+
+        // 集合中只支持包装类型和字符串，它们的编解码器和运行时类型一致
+        if (!(elementType instanceof Class) || !scalarTypeMap.containsKey(elementType)) {
+            return null;
+        }
+        return new FieldType(null, containerClazz, (Class<?>) elementType);
+    }
+
+
+    private static class ScalarType {
+        private final Class<?> boxedClazz;
+        private final String write;
+        private final String read;
+        private final String unbox;
+
+        private ScalarType(Class<?> boxedClazz, String write, String read, String unbox) {
+            this.boxedClazz = boxedClazz;
+            this.write = write;
+            this.read = read;
+            this.unbox = unbox;
+        }
+    }
+
+    private static class FieldType {
+        private final ScalarType scalarType;
+        private final Class<?> containerClazz;
+        private final Class<?> elementClazz;
+
+        private FieldType(ScalarType scalarType, Class<?> containerClazz, Class<?> elementClazz) {
+            this.scalarType = scalarType;
+            this.containerClazz = containerClazz;
+            this.elementClazz = elementClazz;
+        }
+    }
+
+}
@@ -23,10 +23,20 @@ public class CacheStrategy {
     private int size;
     private long expireMillisecond;
 
+    /**
+     * 缓存占用内存的上限，单位byte，大于0的时候按照实体的估算大小淘汰缓存，size只用来初始化缓存的容量
+     */
+    private long maxWeight;
+
     public CacheStrategy(String strategy, int cacheSize, long expireMillisecond) {
+        this(strategy, cacheSize, expireMillisecond, 0);
+    }
+
+    public CacheStrategy(String strategy, int cacheSize, long expireMillisecond, long maxWeight) {
         this.strategy = strategy;
         this.size = cacheSize;
         this.expireMillisecond = expireMillisecond;
+        this.maxWeight = maxWeight;
     }
 
 
@@ -53,4 +63,12 @@ public class CacheStrategy {
     public void setExpireMillisecond(long expireMillisecond) {
         this.expireMillisecond = expireMillisecond;
     }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
 }
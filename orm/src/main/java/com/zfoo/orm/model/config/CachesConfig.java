@@ -23,6 +23,11 @@ public class CachesConfig {
 
     private List<CacheStrategy> cacheStrategies;
 
+    /**
+     * 所有按照内存淘汰的缓存共享的内存预算，单位byte，大于0的时候根据每个缓存最近的访问量动态调整它们的内存上限
+     */
+    private long heapBudget;
+
     public List<CacheStrategy> getCacheStrategies() {
         return cacheStrategies;
     }
@@ -30,4 +35,12 @@ public class CachesConfig {
     public void setCacheStrategies(List<CacheStrategy> cacheStrategies) {
         this.cacheStrategies = cacheStrategies;
     }
+
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+    public void setHeapBudget(long heapBudget) {
+        this.heapBudget = heapBudget;
+    }
 }
@@ -29,6 +29,16 @@ public class OrmConfig {
 
     private PersistersConfig persistersConfig;
 
+    /**
+     * 预写日志的目录，为空的时候不开启预写日志
+     */
+    private String journal;
+
+    /**
+     * 使用进程内的内存数据库代替MongoDB
+     */
+    private boolean memory;
+
     public String getId() {
         return id;
     }
@@ -68,4 +78,20 @@ public class OrmConfig {
     public void setPersistersConfig(PersistersConfig persistersConfig) {
         this.persistersConfig = persistersConfig;
     }
+
+    public String getJournal() {
+        return journal;
+    }
+
+    public void setJournal(String journal) {
+        this.journal = journal;
+    }
+
+    public boolean isMemory() {
+        return memory;
+    }
+
+    public void setMemory(boolean memory) {
+        this.memory = memory;
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.memory;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.MongoCursor;
+import com.zfoo.orm.model.entity.IEntity;
+import org.bson.BsonDocument;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 内存数据库的游标，遍历查询时的文档快照，每次next的时候才解码，和MongoDB的游标一样不会一次性创建全部的实体
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class MemoryCursor<E extends IEntity<?>> implements MongoCursor<E> {
+
+    private final Class<E> entityClazz;
+
+    private Iterator<BsonDocument> iterator;
+
+    public MemoryCursor(Class<E> entityClazz, List<BsonDocument> documents) {
+        this.entityClazz = entityClazz;
+        this.iterator = documents.iterator();
+    }
+
+    @Override
+    public void close() {
+        iterator = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return iterator != null && iterator.hasNext();
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return MemoryDatabase.decode(iterator.next(), entityClazz);
+    }
+
+    @Override
+    public E tryNext() {
+        return hasNext() ? next() : null;
+    }
+
+    @Override
+    public ServerCursor getServerCursor() {
+        return null;
+    }
+
+    @Override
+    public ServerAddress getServerAddress() {
+        return null;
+    }
+
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.memory;
+
+import com.mongodb.client.model.*;
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.protocol.util.StringUtils;
+import org.bson.*;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 进程内的文档数据库，给MemoryAccessor和MemoryQuery使用，可以在没有MongoDB的时候测试和压测缓存、持久化器和编解码器
+ * <p>
+ * 实体和MongoDB一样先编码成BSON文档再保存，读取的时候再解码，支持ORM用到的过滤条件（等于，比较，$in，$regex，$and，$or）和更新操作（$set，$unset，$inc）
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class MemoryDatabase {
+
+    private static final String ID = "_id";
+
+    /**
+     * key：实体类，value：按照_id排序的文档
+     */
+    private static final Map<Class<?>, ConcurrentNavigableMap<BsonValue, BsonDocument>> collectionMap = new ConcurrentHashMap<>();
+
+    public static void clear() {
+        collectionMap.clear();
+    }
+
+    public static long count(Class<?> entityClazz) {
+        return collection(entityClazz).size();
+    }
+
+    private static ConcurrentNavigableMap<BsonValue, BsonDocument> collection(Class<?> entityClazz) {
+        return collectionMap.computeIfAbsent(entityClazz, it -> new ConcurrentSkipListMap<>(MemoryDatabase::compare));
+    }
+
+    // -------------------------------------------------编解码-------------------------------------------------
+    private static <E> Codec<E> codec(Class<E> entityClazz) {
+        return OrmContext.getOrmManager().getCodecRegistry().get(entityClazz);
+    }
+
+    public static <E extends IEntity<?>> BsonDocument encode(E entity) {
+        var document = new BsonDocument();
+        var codec = (Codec<E>) codec(entity.getClass());
+        codec.encode(new BsonDocumentWriter(document), entity, EncoderContext.builder().build());
+        return document;
+    }
+
+    public static <E extends IEntity<?>> E decode(BsonDocument document, Class<E> entityClazz) {
+        return codec(entityClazz).decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    public static BsonDocument toBsonDocument(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, OrmContext.getOrmManager().getCodecRegistry());
+    }
+
+    public static BsonValue toBsonValue(Object value) {
+        return toBsonDocument(new Document(ID, value)).get(ID);
+    }
+
+    // -------------------------------------------------查询-------------------------------------------------
+    public static <E extends IEntity<?>> List<BsonDocument> find(Class<E> entityClazz, Bson filter) {
+        var filterDocument = toBsonDocument(filter);
+        var collection = collection(entityClazz);
+
+        // 通过_id查询的时候不需要遍历整个集合
+        var id = idOf(filterDocument);
+        if (id != null) {
+            var document = collection.get(id);
+            return document != null && matches(filterDocument, document) ? List.of(document) : Collections.emptyList();
+        }
+
+        // 只有_id的$in条件，批量加载的时候直接通过_id查找
+        var ids = filterDocument.size() == 1 ? filterDocument.get(ID) : null;
+        if (ids != null && ids.isDocument() && ids.asDocument().size() == 1 && ids.asDocument().containsKey("$in")) {
+            return ids.asDocument().getArray("$in").stream()
+                    .distinct()
+                    .map(it -> collection.get(it))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+
+        return collection.values().stream().filter(it -> matches(filterDocument, it)).collect(Collectors.toList());
+    }
+
+    /**
+     * 只保留_id和需要的属性，属性为空的时候返回原来的文档
+     */
+    public static BsonDocument project(BsonDocument document, Collection<String> includeFields) {
+        if (includeFields == null || includeFields.isEmpty()) {
+            return document;
+        }
+        var result = new BsonDocument();
+        for (var entry : document.entrySet()) {
+            if (ID.equals(entry.getKey()) || includeFields.contains(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按照多个属性升序排序
+     */
+    public static Comparator<BsonDocument> sortBy(String... fieldNames) {
+        return (a, b) -> {
+            for (var fieldName : fieldNames) {
+                var result = compare(a.get(fieldName), b.get(fieldName));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    // -------------------------------------------------写入-------------------------------------------------
+    public static <E extends IEntity<?>> boolean insert(E entity) {
+        var document = encode(entity);
+        var collection = collection(entity.getClass());
+        return collection.putIfAbsent(document.get(ID), document) == null;
+    }
+
+    public static <E extends IEntity<?>> boolean delete(Class<E> entityClazz, Bson filter) {
+        var collection = collection(entityClazz);
+        synchronized (collection) {
+            var documents = find(entityClazz, filter);
+            documents.forEach(it -> collection.remove(it.get(ID)));
+            return !documents.isEmpty();
+        }
+    }
+
+    /**
+     * @return 修改和upsert，insert插入的文档数量，和MongoDB一样，只有文档的内容发生了改变才算作修改
+     */
+    public static <E extends IEntity<?>> int bulkWrite(Class<E> entityClazz, List<? extends WriteModel<E>> writeModels) {
+        var modifiedCount = 0;
+        for (var writeModel : writeModels) {
+            if (writeModel instanceof ReplaceOneModel) {
+                var model = (ReplaceOneModel<E>) writeModel;
+                modifiedCount += replaceOne(entityClazz, model.getFilter(), encode(model.getReplacement()), model.getReplaceOptions().isUpsert());
+            } else if (writeModel instanceof UpdateOneModel) {
+                var model = (UpdateOneModel<E>) writeModel;
+                modifiedCount += updateOne(entityClazz, model.getFilter(), toBsonDocument(model.getUpdate()), model.getOptions().isUpsert());
+            } else if (writeModel instanceof InsertOneModel) {
+                modifiedCount += insert(((InsertOneModel<E>) writeModel).getDocument()) ? 1 : 0;
+            } else if (writeModel instanceof DeleteOneModel) {
+                delete(entityClazz, ((DeleteOneModel<E>) writeModel).getFilter());
+            } else {
+                throw new UnsupportedOperationException(StringUtils.format("内存数据库不支持[{}]", writeModel.getClass().getSimpleName()));
+            }
+        }
+        return modifiedCount;
+    }
+
+    public static <E extends IEntity<?>> int replaceOne(Class<E> entityClazz, Bson filter, BsonDocument replacement, boolean upsert) {
+        var collection = collection(entityClazz);
+        synchronized (collection) {
+            var documents = find(entityClazz, filter);
+            if (documents.isEmpty()) {
+                if (upsert) {
+                    upsertId(toBsonDocument(filter), replacement);
+                    collection.put(replacement.get(ID), replacement);
+                    return 1;
+                }
+                return 0;
+            }
+
+            var document = documents.get(0);
+            replacement.put(ID, document.get(ID));
+            collection.put(document.get(ID), replacement);
+            return document.equals(replacement) ? 0 : 1;
+        }
+    }
+
+    public static <E extends IEntity<?>> int updateOne(Class<E> entityClazz, Bson filter, BsonDocument update, boolean upsert) {
+        var collection = collection(entityClazz);
+        synchronized (collection) {
+            var documents = find(entityClazz, filter);
+            if (documents.isEmpty()) {
+                if (upsert) {
+                    var document = new BsonDocument();
+                    upsertId(toBsonDocument(filter), document);
+                    collection.put(document.get(ID), applyUpdate(document, update));
+                    return 1;
+                }
+                return 0;
+            }
+
+            var document = documents.get(0);
+            var newDocument = applyUpdate(document.clone(), update);
+            collection.put(document.get(ID), newDocument);
+            return document.equals(newDocument) ? 0 : 1;
+        }
+    }
+
+    private static void upsertId(BsonDocument filter, BsonDocument document) {
+        if (!document.containsKey(ID)) {
+            var id = idOf(filter);
+            if (id == null) {
+                throw new UnsupportedOperationException("内存数据库的upsert只支持通过_id过滤");
+            }
+            document.put(ID, id);
+        }
+    }
+
+    private static BsonDocument applyUpdate(BsonDocument document, BsonDocument update) {
+        for (var entry : update.entrySet()) {
+            var fields = entry.getValue().asDocument();
+            switch (entry.getKey()) {
+                case "$set":
+                    fields.forEach((name, value) -> document.put(name, value));
+                    break;
+                case "$unset":
+                    fields.keySet().forEach(name -> document.remove(name));
+                    break;
+                case "$inc":
+                    fields.forEach((name, value) -> {
+                        var oldValue = document.get(name);
+                        var newValue = oldValue == null ? value.asNumber().longValue() : oldValue.asNumber().longValue() + value.asNumber().longValue();
+                        document.put(name, oldValue != null && oldValue.isInt32() && value.isInt32() ? new BsonInt32((int) newValue) : new BsonInt64(newValue));
+                    });
+                    break;
+                default:
+                    throw new UnsupportedOperationException(StringUtils.format("内存数据库不支持更新操作[{}]", entry.getKey()));
+            }
+        }
+        return document;
+    }
+
+    // -------------------------------------------------过滤条件-------------------------------------------------
+
+    /**
+     * @return 过滤条件中_id的等值条件，没有的时候返回null
+     */
+    private static BsonValue idOf(BsonDocument filter) {
+        var id = filter.get(ID);
+        if (id != null && !isOperator(id)) {
+            return id;
+        }
+        var and = filter.get("$and");
+        if (and != null) {
+            for (var element : and.asArray()) {
+                var elementId = idOf(element.asDocument());
+                if (elementId != null) {
+                    return elementId;
+                }
+            }
+        }
+        return null;
+    }
+
+    public static boolean matches(BsonDocument filter, BsonDocument document) {
+        for (var entry : filter.entrySet()) {
+            var key = entry.getKey();
+            var condition = entry.getValue();
+            switch (key) {
+                case "$and":
+                    if (!condition.asArray().stream().allMatch(it -> matches(it.asDocument(), document))) {
+                        return false;
+                    }
+                    break;
+                case "$or":
+                    if (condition.asArray().stream().noneMatch(it -> matches(it.asDocument(), document))) {
+                        return false;
+                    }
+                    break;
+                case "$nor":
+                    if (condition.asArray().stream().anyMatch(it -> matches(it.asDocument(), document))) {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (!fieldMatches(document.get(key), condition)) {
+                        return false;
+                    }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isOperator(BsonValue condition) {
+        return condition.isDocument() && !condition.asDocument().isEmpty() && condition.asDocument().getFirstKey().startsWith("$");
+    }
+
+    private static boolean fieldMatches(BsonValue value, BsonValue condition) {
+        if (condition.isRegularExpression()) {
+            return regexMatches(value, condition.asRegularExpression());
+        }
+        if (!isOperator(condition)) {
+            return equalsValue(value, condition);
+        }
+
+        for (var entry : condition.asDocument().entrySet()) {
+            var argument = entry.getValue();
+            boolean result;
+            switch (entry.getKey()) {
+                case "$eq":
+                    result = equalsValue(value, argument);
+                    break;
+                case "$ne":
+                    result = !equalsValue(value, argument);
+                    break;
+                case "$gt":
+                    result = value != null && compare(value, argument) > 0;
+                    break;
+                case "$gte":
+                    result = value != null && compare(value, argument) >= 0;
+                    break;
+                case "$lt":
+                    result = value != null && compare(value, argument) < 0;
+                    break;
+                case "$lte":
+                    result = value != null && compare(value, argument) <= 0;
+                    break;
+                case "$in":
+                    result = argument.asArray().stream().anyMatch(it -> equalsValue(value, it));
+                    break;
+                case "$nin":
+                    result = argument.asArray().stream().noneMatch(it -> equalsValue(value, it));
+                    break;
+                case "$exists":
+                    result = (value != null) == argument.asBoolean().getValue();
+                    break;
+                case "$regex":
+                    var options = condition.asDocument().getString("$options", new BsonString(StringUtils.EMPTY)).getValue();
+                    result = regexMatches(value, argument.isRegularExpression() ? argument.asRegularExpression() : new BsonRegularExpression(argument.asString().getValue(), options));
+                    break;
+                case "$options":
+                    result = true;
+                    break;
+                default:
+                    throw new UnsupportedOperationException(StringUtils.format("内存数据库不支持过滤条件[{}]", entry.getKey()));
+            }
+            if (!result) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 和MongoDB一样，数组中有一个元素相等就算相等
+     */
+    private static boolean equalsValue(BsonValue value, BsonValue argument) {
+        if (value == null || value.isNull()) {
+            return argument.isNull();
+        }
+        if (compare(value, argument) == 0) {
+            return true;
+        }
+        return value.isArray() && !argument.isArray() && value.asArray().stream().anyMatch(it -> compare(it, argument) == 0);
+    }
+
+    private static boolean regexMatches(BsonValue value, BsonRegularExpression regex) {
+        if (value == null) {
+            return false;
+        }
+        var flags = regex.getOptions().contains("i") ? Pattern.CASE_INSENSITIVE : 0;
+        var pattern = Pattern.compile(regex.getPattern(), flags);
+        if (value.isArray()) {
+            return value.asArray().stream().anyMatch(it -> it.isString() && pattern.matcher(it.asString().getValue()).find());
+        }
+        return value.isString() && pattern.matcher(value.asString().getValue()).find();
+    }
+
+    /**
+     * 按照MongoDB的类型顺序比较，数字之间按照数值比较
+     */
+    public static int compare(BsonValue a, BsonValue b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        var rankA = typeRank(a);
+        var rankB = typeRank(b);
+        if (rankA != rankB) {
+            return Integer.compare(rankA, rankB);
+        }
+
+        if (a.isNumber()) {
+            if ((a.isInt32() || a.isInt64()) && (b.isInt32() || b.isInt64())) {
+                return Long.compare(a.asNumber().longValue(), b.asNumber().longValue());
+            }
+            return Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+        }
+        switch (a.getBsonType()) {
+            case NULL:
+                return 0;
+            case STRING:
+                return a.asString().getValue().compareTo(b.asString().getValue());
+            case OBJECT_ID:
+                return a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+            case BOOLEAN:
+                return Boolean.compare(a.asBoolean().getValue(), b.asBoolean().getValue());
+            case DATE_TIME:
+                return Long.compare(a.asDateTime().getValue(), b.asDateTime().getValue());
+            default:
+                return a.equals(b) ? 0 : a.toString().compareTo(b.toString());
+        }
+    }
+
+    private static int typeRank(BsonValue value) {
+        switch (value.getBsonType()) {
+            case NULL:
+                return 1;
+            case INT32:
+            case INT64:
+            case DOUBLE:
+            case DECIMAL128:
+                return 2;
+            case STRING:
+            case SYMBOL:
+                return 3;
+            case DOCUMENT:
+                return 4;
+            case ARRAY:
+                return 5;
+            case BINARY:
+                return 6;
+            case OBJECT_ID:
+                return 7;
+            case BOOLEAN:
+                return 8;
+            case DATE_TIME:
+                return 9;
+            case TIMESTAMP:
+                return 10;
+            case REGULAR_EXPRESSION:
+                return 11;
+            default:
+                return 12;
+        }
+    }
+
+}
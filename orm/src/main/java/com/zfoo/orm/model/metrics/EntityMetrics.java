@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 一个实体类的缓存和持久化指标，EntityCaches负责记录，可以通过IEntityCaches.metrics()拉取，也可以通过JMX查看
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityMetrics implements IEntityMetricsMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityMetrics.class);
+
+    private static final String OBJECT_NAME = "com.zfoo.orm:type=EntityMetrics,name=";
+
+    private final String entityName;
+
+    private final LatencyHistogram dbLoadLatency = new LatencyHistogram();
+    private final LongAdder dbLoadEntityCount = new LongAdder();
+
+    private final LatencyHistogram persistLatency = new LatencyHistogram();
+
+    private final LatencyHistogram bulkWriteLatency = new LatencyHistogram();
+    private final LongAdder bulkWriteEntityCount = new LongAdder();
+    private volatile long bulkWriteMaxBatchSize;
+
+    private final LongAdder fallbackEntityCount = new LongAdder();
+    private final LongAdder versionConflictCount = new LongAdder();
+
+    private final LongSupplier dirtyBacklog;
+    private final LongSupplier evictedBacklog;
+
+    public EntityMetrics(String entityName, LongSupplier dirtyBacklog, LongSupplier evictedBacklog) {
+        this.entityName = entityName;
+        this.dirtyBacklog = dirtyBacklog;
+        this.evictedBacklog = evictedBacklog;
+    }
+
+    /**
+     * 注册到JMX，重复创建同一个实体类的缓存的时候替换之前注册的指标
+     */
+    public void registerMBean() {
+        try {
+            var mbs = ManagementFactory.getPlatformMBeanServer();
+            var objectName = new ObjectName(OBJECT_NAME + entityName);
+            if (mbs.isRegistered(objectName)) {
+                mbs.unregisterMBean(objectName);
+            }
+            mbs.registerMBean(this, objectName);
+        } catch (Exception e) {
+            logger.error("数据库[{}]注册JMX指标异常", entityName, e);
+        }
+    }
+
+    // -------------------------------------------------记录-------------------------------------------------
+    public void recordDbLoad(int entityCount, long nanoTime) {
+        dbLoadLatency.recordNanos(nanoTime);
+        dbLoadEntityCount.add(entityCount);
+    }
+
+    public void recordPersist(long nanoTime) {
+        persistLatency.recordNanos(nanoTime);
+    }
+
+    public void recordBulkWrite(int batchSize, long nanoTime) {
+        bulkWriteLatency.recordNanos(nanoTime);
+        bulkWriteEntityCount.add(batchSize);
+        if (batchSize > bulkWriteMaxBatchSize) {
+            bulkWriteMaxBatchSize = batchSize;
+        }
+    }
+
+    public void recordFallback(int entityCount) {
+        fallbackEntityCount.add(entityCount);
+    }
+
+    public void recordVersionConflict() {
+        versionConflictCount.increment();
+    }
+
+    // -------------------------------------------------读取-------------------------------------------------
+    @Override
+    public String getEntityName() {
+        return entityName;
+    }
+
+    @Override
+    public long getDbLoadCount() {
+        return dbLoadLatency.count();
+    }
+
+    @Override
+    public long getDbLoadEntityCount() {
+        return dbLoadEntityCount.sum();
+    }
+
+    @Override
+    public long getDbLoadMeanMicros() {
+        return dbLoadLatency.meanMicros();
+    }
+
+    @Override
+    public long getDbLoadP99Micros() {
+        return dbLoadLatency.percentileMicros(0.99);
+    }
+
+    @Override
+    public long getDbLoadMaxMicros() {
+        return dbLoadLatency.maxMicros();
+    }
+
+    @Override
+    public long getPersistCount() {
+        return persistLatency.count();
+    }
+
+    @Override
+    public long getPersistMeanMicros() {
+        return persistLatency.meanMicros();
+    }
+
+    @Override
+    public long getPersistLastMicros() {
+        return persistLatency.lastMicros();
+    }
+
+    @Override
+    public long getPersistMaxMicros() {
+        return persistLatency.maxMicros();
+    }
+
+    @Override
+    public long getBulkWriteCount() {
+        return bulkWriteLatency.count();
+    }
+
+    @Override
+    public long getBulkWriteEntityCount() {
+        return bulkWriteEntityCount.sum();
+    }
+
+    @Override
+    public long getBulkWriteMaxBatchSize() {
+        return bulkWriteMaxBatchSize;
+    }
+
+    @Override
+    public long getBulkWriteMeanMicros() {
+        return bulkWriteLatency.meanMicros();
+    }
+
+    @Override
+    public long getBulkWriteP99Micros() {
+        return bulkWriteLatency.percentileMicros(0.99);
+    }
+
+    @Override
+    public long getBulkWriteMaxMicros() {
+        return bulkWriteLatency.maxMicros();
+    }
+
+    @Override
+    public long getFallbackEntityCount() {
+        return fallbackEntityCount.sum();
+    }
+
+    @Override
+    public long getVersionConflictCount() {
+        return versionConflictCount.sum();
+    }
+
+    @Override
+    public long getDirtyBacklog() {
+        return dirtyBacklog.getAsLong();
+    }
+
+    @Override
+    public long getEvictedBacklog() {
+        return evictedBacklog.getAsLong();
+    }
+
+    public LatencyHistogram getDbLoadLatency() {
+        return dbLoadLatency;
+    }
+
+    public LatencyHistogram getPersistLatency() {
+        return persistLatency;
+    }
+
+    public LatencyHistogram getBulkWriteLatency() {
+        return bulkWriteLatency;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.metrics;
+
+import javax.management.MXBean;
+
+/**
+ * 一个实体类的缓存和持久化指标，通过JMX暴露，ObjectName为com.zfoo.orm:type=EntityMetrics,name=实体类名
+ * <p>
+ * 耗时的单位都是微秒，百分位数是直方图所在桶的上界
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@MXBean
+public interface IEntityMetricsMBean {
+
+    String getEntityName();
+
+    // -------------------------------------------------加载-------------------------------------------------
+
+    /**
+     * 缓存没有命中，查询数据库的次数，批量加载算作一次
+     */
+    long getDbLoadCount();
+
+    /**
+     * 从数据库中加载的实体数量
+     */
+    long getDbLoadEntityCount();
+
+    long getDbLoadMeanMicros();
+
+    long getDbLoadP99Micros();
+
+    long getDbLoadMaxMicros();
+
+    // -------------------------------------------------持久化-------------------------------------------------
+
+    long getPersistCount();
+
+    long getPersistMeanMicros();
+
+    long getPersistLastMicros();
+
+    long getPersistMaxMicros();
+
+    long getBulkWriteCount();
+
+    /**
+     * 通过bulkWrite写入的实体数量
+     */
+    long getBulkWriteEntityCount();
+
+    long getBulkWriteMaxBatchSize();
+
+    long getBulkWriteMeanMicros();
+
+    long getBulkWriteP99Micros();
+
+    long getBulkWriteMaxMicros();
+
+    /**
+     * 批量写入失败或者写入数量不一致，进入容错操作逐个比较版本号的实体数量
+     */
+    long getFallbackEntityCount();
+
+    /**
+     * 容错操作中数据库的版本号比缓存的版本号大的实体数量，这些实体的修改被丢弃了
+     */
+    long getVersionConflictCount();
+
+    /**
+     * 等待持久化的脏数据数量，持续增长说明数据库的写入跟不上修改的速度
+     */
+    long getDirtyBacklog();
+
+    /**
+     * 写回缓冲区中被淘汰但是还没有写入数据库的实体数量
+     */
+    long getEvictedBacklog();
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按照2的幂次分桶的耗时直方图，单位微秒，记录的开销只有一次原子加法，百分位数返回所在桶的上界，误差不超过一倍
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class LatencyHistogram {
+
+    /**
+     * 第i个桶记录[2^(i-1), 2^i)微秒的耗时，第0个桶记录0微秒
+     */
+    private static final int BUCKET_SIZE = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_SIZE);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private volatile long maxMicros;
+    private volatile long lastMicros;
+
+    public void recordNanos(long nanoTime) {
+        record(TimeUnit.NANOSECONDS.toMicros(nanoTime));
+    }
+
+    public void record(long micros) {
+        micros = Math.max(micros, 0);
+        buckets.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_SIZE - 1));
+        count.increment();
+        sumMicros.add(micros);
+        lastMicros = micros;
+        if (micros > maxMicros) {
+            maxMicros = micros;
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long meanMicros() {
+        var n = count.sum();
+        return n == 0 ? 0 : sumMicros.sum() / n;
+    }
+
+    public long maxMicros() {
+        return maxMicros;
+    }
+
+    public long lastMicros() {
+        return lastMicros;
+    }
+
+    /**
+     * @param percentile 百分位数，0到1之间
+     * @return 所在桶的上界，不会超过记录过的最大值
+     */
+    public long percentileMicros(double percentile) {
+        var total = 0L;
+        var counts = new long[BUCKET_SIZE];
+        for (var i = 0; i < BUCKET_SIZE; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        var rank = (long) Math.ceil(total * percentile);
+        var accumulated = 0L;
+        for (var i = 0; i < BUCKET_SIZE; i++) {
+            accumulated += counts[i];
+            if (accumulated >= rank) {
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+}
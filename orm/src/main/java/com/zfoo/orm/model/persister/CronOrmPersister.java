@@ -13,7 +13,6 @@
 
 package com.zfoo.orm.model.persister;
 
-import com.zfoo.event.manager.EventBus;
 import com.zfoo.orm.OrmContext;
 import com.zfoo.orm.model.cache.EntityCaches;
 import com.zfoo.orm.model.vo.EntityDef;
@@ -58,10 +57,12 @@ public class CronOrmPersister extends AbstractOrmPersister {
 
     private void schedulePersist() {
         var delay = 0L;
+        var period = DEFAULT_DELAY;
         try {
             var now = TimeUtils.now();
             var nextTimestamp = TimeUtils.getNextTimestampByCronExpression(cronExpression, now);
             delay = nextTimestamp - now;
+            period = TimeUtils.getNextTimestampByCronExpression(cronExpression, nextTimestamp) - nextTimestamp;
 
             if (delay < 0) {
                 delay = DEFAULT_DELAY;
@@ -74,17 +75,12 @@ public class CronOrmPersister extends AbstractOrmPersister {
         }
 
         if (!OrmContext.isStop()) {
+            var persistPeriod = period;
             SchedulerContext.getSchedulerManager().schedule(new Runnable() {
                 @Override
                 public void run() {
                     if (!OrmContext.isStop()) {
-                        EventBus.asyncExecute().execute(new Runnable() {
-                            @Override
-                            public void run() {
-                                entityCaches.persistAll();
-                                schedulePersist();
-                            }
-                        });
+                        PersistScheduler.persist(entityCaches, persistPeriod).whenComplete((result, throwable) -> schedulePersist());
                     }
                 }
             }, delay, TimeUnit.MILLISECONDS);
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.persister;
+
+import com.google.common.hash.Hashing;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 实体写入数据库的时候每个顶层属性的指纹，下一次写入的时候只需要$set指纹改变了的属性
+ * <p>
+ * 指纹是属性的bson编码的128位murmur3哈希值，只占用很少的内存，不需要保存整个文档的快照
+ * <p>
+ * 每次写入都要编码整个实体并计算每个属性的指纹，持久化线程的CPU开销和实体的大小成正比，节省的只是写入数据库的字节数，见FingerprintBenchmarkTest
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityFingerprint {
+
+    private String[] fieldNames;
+
+    /**
+     * 每个属性两个long，一共128位
+     */
+    private long[] hashes;
+
+    /**
+     * 整个文档编码之后的字节数
+     */
+    private int size;
+
+    public static EntityFingerprint valueOf(RawBsonDocument document) {
+        var names = new ArrayList<String>();
+        var hashList = new ArrayList<Long>();
+
+        // RawBsonDocument的ByteBuffer和byte数组共享数据，reader中的位置就是byte数组中的下标
+        var byteBuf = document.getByteBuffer();
+        var bytes = byteBuf.array();
+        var size = byteBuf.remaining();
+
+        try (var reader = new BsonBinaryReader(byteBuf.asNIO())) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                names.add(reader.readName());
+                var start = reader.getBsonInput().getPosition();
+                reader.skipValue();
+                var end = reader.getBsonInput().getPosition();
+
+                var hash = ByteBuffer.wrap(Hashing.murmur3_128().hashBytes(bytes, start, end - start).asBytes());
+                hashList.add(hash.getLong());
+                hashList.add(hash.getLong());
+            }
+            reader.readEndDocument();
+        }
+
+        var fingerprint = new EntityFingerprint();
+        fingerprint.fieldNames = names.toArray(new String[0]);
+        fingerprint.hashes = hashList.stream().mapToLong(it -> it).toArray();
+        fingerprint.size = size;
+        return fingerprint;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return 和上一次写入的时候相比，改变了的属性，包括新增的属性
+     */
+    public List<String> changedFields(EntityFingerprint previous) {
+        var changedFields = new ArrayList<String>();
+        for (var i = 0; i < fieldNames.length; i++) {
+            var previousIndex = previous.indexOf(fieldNames[i], i);
+            if (previousIndex < 0
+                    || previous.hashes[2 * previousIndex] != hashes[2 * i]
+                    || previous.hashes[2 * previousIndex + 1] != hashes[2 * i + 1]) {
+                changedFields.add(fieldNames[i]);
+            }
+        }
+        return changedFields;
+    }
+
+    /**
+     * @return 上一次写入的时候有，这一次编码的时候没有了的属性（属性的值变成null的时候pojo编码会忽略这个属性）
+     */
+    public List<String> removedFields(EntityFingerprint previous) {
+        var removedFields = new ArrayList<String>();
+        for (var i = 0; i < previous.fieldNames.length; i++) {
+            if (indexOf(previous.fieldNames[i], i) < 0) {
+                removedFields.add(previous.fieldNames[i]);
+            }
+        }
+        return removedFields;
+    }
+
+    /**
+     * 同一个类的编码顺序是固定的，所以先看相同的位置
+     */
+    private int indexOf(String fieldName, int expectIndex) {
+        if (expectIndex < fieldNames.length && fieldNames[expectIndex].equals(fieldName)) {
+            return expectIndex;
+        }
+        return Arrays.asList(fieldNames).indexOf(fieldName);
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.persister;
+
+import com.zfoo.protocol.util.FileUtils;
+import com.zfoo.protocol.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * 实体更新的预写日志，使用内存映射文件追加写入，进程崩溃的时候还没有持久化到数据库的修改可以在启动的时候从日志中恢复
+ * <p>
+ * 每一条记录的格式：[int length][int crc32][byte[length] bson]
+ * <p>
+ * length为0表示segment后面还没有写入数据，length为-1表示segment已经结束，数据在下一个segment中。
+ * 持久化开始之前调用seal()切换到新的segment，持久化成功之后调用truncate()删除之前的segment
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityJournal.class);
+
+    public static final String SEGMENT_PREFIX = "journal-";
+    public static final String SEGMENT_SUFFIX = ".log";
+
+    public static final int RECORD_HEAD_LENGTH = 4 + 4;
+    public static final int END_OF_SEGMENT = -1;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final CRC32 crc32 = new CRC32();
+
+    private int segmentIndex;
+
+    private RandomAccessFile segmentFile;
+
+    private MappedByteBuffer buffer;
+
+    public EntityJournal(String directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public EntityJournal(String directory, int segmentSize) {
+        this.directory = new File(directory);
+        this.segmentSize = segmentSize;
+        FileUtils.createDirectory(directory);
+
+        // 接着目录中已经存在的segment继续写，已经存在的segment需要调用者先恢复
+        var segments = segments(directory);
+        this.segmentIndex = segments.isEmpty() ? 0 : segmentIndex(segments.get(segments.size() - 1)) + 1;
+        rotate(segmentSize);
+    }
+
+    public synchronized void append(byte[] bytes, int offset, int length) {
+        if (buffer == null) {
+            return;
+        }
+
+        if (buffer.remaining() < RECORD_HEAD_LENGTH + length) {
+            if (buffer.remaining() >= 4) {
+                buffer.putInt(END_OF_SEGMENT);
+            }
+            // 比segment还大的实体单独使用一个足够大的segment
+            rotate(Math.max(segmentSize, RECORD_HEAD_LENGTH + length + 4));
+        }
+
+        crc32.reset();
+        crc32.update(bytes, offset, length);
+
+        buffer.putInt(length);
+        buffer.putInt((int) crc32.getValue());
+        buffer.put(bytes, offset, length);
+    }
+
+    /**
+     * 切换到一个新的segment
+     *
+     * @return 新的segment的序号，这个序号之前的segment中的修改在这次持久化成功之后可以删除
+     */
+    public synchronized int seal() {
+        if (buffer != null && buffer.position() <= 0) {
+            return segmentIndex - 1;
+        }
+        if (buffer != null && buffer.remaining() >= 4) {
+            buffer.putInt(END_OF_SEGMENT);
+        }
+        rotate(segmentSize);
+        return segmentIndex - 1;
+    }
+
+    /**
+     * 删除sealIndex之前的segment
+     */
+    public synchronized void truncate(int sealIndex) {
+        for (var segment : segments(directory.getAbsolutePath())) {
+            if (segmentIndex(segment) < sealIndex) {
+                FileUtils.deleteFile(segment);
+            }
+        }
+    }
+
+    private void rotate(int size) {
+        closeSegment();
+        var file = new File(directory, segmentName(segmentIndex++));
+        try {
+            segmentFile = new RandomAccessFile(file, "rw");
+            buffer = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new RuntimeException(StringUtils.format("无法创建预写日志文件[{}]", file.getAbsolutePath()), e);
+        }
+    }
+
+    private void closeSegment() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (segmentFile != null) {
+            try {
+                segmentFile.close();
+            } catch (IOException e) {
+                logger.error("关闭预写日志文件异常", e);
+            }
+            segmentFile = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeSegment();
+    }
+
+    /**
+     * 按照写入的顺序读取目录中所有的记录，崩溃的时候只写了一半的记录通过crc32校验忽略
+     */
+    public static List<byte[]> records(String directory) {
+        var records = new ArrayList<byte[]>();
+        for (var segment : segments(directory)) {
+            try (var file = new RandomAccessFile(segment, "r")) {
+                var segmentBuffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                var crc32 = new CRC32();
+                while (segmentBuffer.remaining() >= RECORD_HEAD_LENGTH) {
+                    var length = segmentBuffer.getInt();
+                    if (length <= 0 || length > segmentBuffer.remaining() - 4) {
+                        break;
+                    }
+                    var crc = segmentBuffer.getInt();
+                    var bytes = new byte[length];
+                    segmentBuffer.get(bytes);
+
+                    crc32.reset();
+                    crc32.update(bytes);
+                    if ((int) crc32.getValue() != crc) {
+                        logger.error("预写日志文件[{}]中的记录校验失败，忽略这个segment后面的记录", segment.getAbsolutePath());
+                        break;
+                    }
+                    records.add(bytes);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(StringUtils.format("无法读取预写日志文件[{}]", segment.getAbsolutePath()), e);
+            }
+        }
+        return records;
+    }
+
+    public static String segmentName(int segmentIndex) {
+        return StringUtils.format("{}{}{}", SEGMENT_PREFIX, String.format("%08d", segmentIndex), SEGMENT_SUFFIX);
+    }
+
+    public static int segmentIndex(File segment) {
+        var name = segment.getName();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return 目录中所有的segment，按照写入的顺序排序
+     */
+    public static List<File> segments(String directory) {
+        var files = new File(directory).listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return List.of();
+        }
+        return Arrays.stream(files)
+                .sorted(Comparator.comparingInt(it -> segmentIndex(it)))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -16,6 +16,9 @@ package com.zfoo.orm.model.persister;
 import com.zfoo.orm.model.entity.IEntity;
 import com.zfoo.scheduler.util.TimeUtils;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Persister Node
  * <p>
@@ -26,6 +29,23 @@ import com.zfoo.scheduler.util.TimeUtils;
  */
 public class PNode<E extends IEntity<?>> {
 
+    private static final VarHandle DIRTY_HANDLE;
+
+    /**
+     * 对象头、引用、包装类型和字符串的UTF16编码让实体在堆中占用的内存大约是BSON编码的几倍，节点本身也有固定的开销
+     */
+    private static final int RETAINED_SIZE_FACTOR = 3;
+    private static final int NODE_OVERHEAD = 64;
+    private static final int DEFAULT_WEIGHT = 256;
+
+    static {
+        try {
+            DIRTY_HANDLE = MethodHandles.lookup().findVarHandle(PNode.class, "dirty", boolean.class);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // 写入数据库的时间
     private volatile long writeToDbTime;
     // 修改数据的时间
@@ -34,6 +54,36 @@ public class PNode<E extends IEntity<?>> {
 
     private volatile E entity;
 
+    /**
+     * 上一次写入数据库或者从数据库加载的时候每个属性的指纹，为null的时候需要替换整个文档
+     */
+    private volatile EntityFingerprint fingerprint;
+
+    /**
+     * 是否在等待写入数据库的队列中，保证一个节点在队列中只出现一次
+     */
+    private volatile boolean dirty;
+
+    /**
+     * 通过缓存插入的新实体，数据库中还没有对应的文档，写入的时候使用upsert
+     */
+    private volatile boolean inserting;
+
+    /**
+     * 负缓存或者布隆过滤器判断数据库中不存在的主键创建的节点，判断不一定准确（其它进程插入的文档），写入的时候只能插入，不能覆盖已经存在的文档
+     */
+    private volatile boolean probablyAbsent;
+
+    /**
+     * 上一次写入预写日志之后又被修改过，持久化线程写日志的时候清除
+     */
+    private volatile boolean journalDirty;
+
+    /**
+     * 估算的实体在堆中占用的内存，单位byte，每次得到新的指纹的时候根据文档的大小更新
+     */
+    private volatile int weight = DEFAULT_WEIGHT;
+
     public PNode(E entity) {
         this.entity = entity;
 
@@ -65,4 +115,61 @@ public class PNode<E extends IEntity<?>> {
     public void setModifiedTime(long modifiedTime) {
         this.modifiedTime = modifiedTime;
     }
+
+    public EntityFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(EntityFingerprint fingerprint) {
+        this.fingerprint = fingerprint;
+        if (fingerprint != null) {
+            this.weight = NODE_OVERHEAD + fingerprint.getSize() * RETAINED_SIZE_FACTOR;
+        }
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public boolean isInserting() {
+        return inserting;
+    }
+
+    public void setInserting(boolean inserting) {
+        this.inserting = inserting;
+    }
+
+    public boolean isProbablyAbsent() {
+        return probablyAbsent;
+    }
+
+    public void setProbablyAbsent(boolean probablyAbsent) {
+        this.probablyAbsent = probablyAbsent;
+    }
+
+    public boolean isJournalDirty() {
+        return journalDirty;
+    }
+
+    public void setJournalDirty(boolean journalDirty) {
+        this.journalDirty = journalDirty;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * @return 从干净变为脏的时候返回true，调用者需要把这个节点放入写入队列
+     */
+    public boolean markDirty() {
+        return !dirty && DIRTY_HANDLE.compareAndSet(this, false, true);
+    }
+
+    /**
+     * @return 从脏变为干净的时候返回true，调用者负责把这个节点写入数据库
+     */
+    public boolean clearDirty() {
+        return dirty && DIRTY_HANDLE.compareAndSet(this, true, false);
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.persister;
+
+import com.zfoo.orm.model.cache.EntityCaches;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.scheduler.util.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 所有实体类共享的持久化调度器
+ * <p>
+ * 不同实体类的持久化在独立的线程池中并行执行，同时执行的数量有上限；开始时间加上随机偏移，避免所有实体类在同一个时刻同时写入数据库；
+ * 同一个实体类的批量写入在另外一个线程池中执行，写入上一页的同时准备下一页
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class PersistScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistScheduler.class);
+
+    /**
+     * 同时持久化的实体类的最大数量，也是同时进行的批量写入的最大数量
+     */
+    private static final int CONCURRENCY = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * 持久化开始时间的随机偏移的上限，不超过持久化周期的1/10
+     */
+    private static final long MAX_JITTER = 5 * TimeUtils.MILLIS_PER_SECOND;
+
+    private static final long SHUTDOWN_TIMEOUT = TimeUtils.MILLIS_PER_MINUTE;
+
+    private static final ScheduledThreadPoolExecutor persistExecutor;
+
+    private static final ExecutorService writeExecutor;
+
+    /**
+     * 已经提交但是还没有开始执行的持久化，同一个实体类不会重复提交
+     */
+    private static final Map<EntityCaches<?, ?>, CompletableFuture<Void>> pendingMap = new ConcurrentHashMap<>();
+
+    static {
+        persistExecutor = new ScheduledThreadPoolExecutor(CONCURRENCY, new PersistThreadFactory("orm-persist"));
+        // 关闭的时候还没有开始的持久化不再执行，由关闭流程统一持久化
+        persistExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        writeExecutor = Executors.newFixedThreadPool(CONCURRENCY, new PersistThreadFactory("orm-write"));
+    }
+
+    /**
+     * orm的后台线程都是有名字的守护线程，启动时预加载的线程也使用这个工厂
+     */
+    public static class PersistThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        public PersistThreadFactory(String name) {
+            namePrefix = name + "-t";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var t = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY);
+            t.setUncaughtExceptionHandler((thread, e) -> logger.error(thread.toString(), e));
+            return t;
+        }
+    }
+
+    /**
+     * 提交一次持久化，开始时间有随机的偏移
+     *
+     * @param entityCaches 需要持久化的实体类缓存
+     * @param period       持久化的周期，毫秒
+     * @return 持久化完成的时候结束，同一个实体类已经有等待执行的持久化的时候返回那一次的结果
+     */
+    public static CompletableFuture<Void> persist(EntityCaches<?, ?> entityCaches, long period) {
+        var future = new CompletableFuture<Void>();
+        var pendingFuture = pendingMap.putIfAbsent(entityCaches, future);
+        if (pendingFuture != null) {
+            return pendingFuture;
+        }
+
+        var jitter = ThreadLocalRandom.current().nextLong(Math.min(MAX_JITTER, Math.max(period / 10, 0)) + 1);
+        try {
+            persistExecutor.schedule(() -> {
+                pendingMap.remove(entityCaches, future);
+                try {
+                    entityCaches.persistAll();
+                } finally {
+                    future.complete(null);
+                }
+            }, jitter, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingMap.remove(entityCaches, future);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * 在持久化线程池中把修改过的实体写入预写日志，线程池关闭之后不再执行，由关闭流程统一持久化
+     */
+    public static void flushJournal(EntityCaches<?, ?> entityCaches) {
+        try {
+            persistExecutor.execute(() -> entityCaches.flushJournal());
+        } catch (RejectedExecutionException e) {
+            // 线程池已经关闭
+        }
+    }
+
+    /**
+     * 在写入线程池中执行一次批量写入，线程池关闭之后在当前线程中执行
+     */
+    public static CompletableFuture<Boolean> write(Supplier<Boolean> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, writeExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(supplier.get());
+        }
+    }
+
+    /**
+     * 等待正在执行的持久化结束，然后并行持久化所有的实体类，最后关闭线程池
+     */
+    public static void shutdown(Collection<IEntityCaches<?, ?>> allEntityCaches) {
+        try {
+            persistExecutor.shutdown();
+            persistExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+            pendingMap.values().forEach(it -> it.complete(null));
+
+            // 批量写入在writeExecutor中执行，持久化不能也在writeExecutor中执行，否则线程池满了之后互相等待
+            var executor = Executors.newFixedThreadPool(CONCURRENCY, new PersistThreadFactory("orm-shutdown"));
+            try {
+                var futures = new ArrayList<CompletableFuture<Void>>(allEntityCaches.size());
+                for (var entityCaches : allEntityCaches) {
+                    futures.add(CompletableFuture.runAsync(() -> entityCaches.persistAll(), executor));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } finally {
+                executor.shutdown();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writeExecutor.shutdown();
+        }
+    }
+
+}
@@ -13,7 +13,6 @@
 
 package com.zfoo.orm.model.persister;
 
-import com.zfoo.event.manager.EventBus;
 import com.zfoo.orm.OrmContext;
 import com.zfoo.orm.model.cache.EntityCaches;
 import com.zfoo.orm.model.vo.EntityDef;
@@ -47,12 +46,7 @@ public class TimeOrmPersister extends AbstractOrmPersister {
             @Override
             public void run() {
                 if (!OrmContext.isStop()) {
-                    EventBus.asyncExecute().execute(new Runnable() {
-                        @Override
-                        public void run() {
-                            entityCaches.persistAll();
-                        }
-                    });
+                    PersistScheduler.persist(entityCaches, rate);
                 }
             }
         }, rate, TimeUnit.MILLISECONDS);
@@ -13,10 +13,14 @@
 
 package com.zfoo.orm.model.query;
 
+import com.mongodb.client.MongoCursor;
 import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.orm.model.vo.ViewDef;
 import com.zfoo.protocol.model.Pair;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 对数据库进行（查找）的相关方法
@@ -32,10 +36,26 @@ public interface IQuery {
 
     <E extends IEntity<?>> List<E> queryFieldEqual(String fieldName, Object fieldValue, Class<E> entityClazz);
 
-    <E extends IEntity<?>> List<E> queryFieldIn(String fieldName, List<?> fieldValueList, Class<E> entityClazz);
+    /**
+     * @param includeFields 只加载这些属性，为空的时候加载全部的属性，没有加载的属性为默认值
+     */
+    <E extends IEntity<?>> List<E> queryFieldIn(String fieldName, List<?> fieldValueList, Class<E> entityClazz, String... includeFields);
+
+    /**
+     * 只投影视图类中声明的属性，不会解码完整的文档，视图类的定义见ViewDef
+     */
+    default <E extends IEntity<?>, V> List<V> queryFieldInView(String fieldName, List<?> fieldValueList, Class<E> entityClazz, Class<V> viewClazz) {
+        var viewDef = ViewDef.valueOf(entityClazz, viewClazz);
+        return queryFieldIn(fieldName, fieldValueList, entityClazz, viewDef.getIncludeFields())
+                .stream()
+                .map(it -> viewDef.newView(it))
+                .collect(Collectors.toList());
+    }
 
     /**
      * 分页查询，默认按照id排序
+     * <p>
+     * 使用了countDocuments和skip，数据库的开销和页数成正比，很大的集合使用seekQuery
      *
      * @param page         第几页
      * @param itemsPerPage 每页容量
@@ -43,4 +63,28 @@ public interface IQuery {
      */
     <E extends IEntity<?>> Pair<Page, List<E>> pageQuery(int page, int itemsPerPage, Class<E> entityClazz);
 
+    /**
+     * 流式遍历整个集合，每次从数据库中取batchSize个实体，内存的占用和集合的大小无关
+     *
+     * @param includeFields 只加载这些属性，为空的时候加载全部的属性，没有加载的属性为默认值
+     */
+    <E extends IEntity<?>> void queryAllStream(Class<E> entityClazz, int batchSize, Consumer<E> consumer, String... includeFields);
+
+    /**
+     * 惰性加载的游标，每次从数据库中取batchSize个实体，没有遍历完的时候需要调用close
+     *
+     * @param includeFields 只加载这些属性，为空的时候加载全部的属性，没有加载的属性为默认值
+     */
+    <E extends IEntity<?>> MongoCursor<E> queryAllCursor(Class<E> entityClazz, int batchSize, String... includeFields);
+
+    /**
+     * 基于键的分页查询，按照fieldName升序，相同的时候按照_id升序
+     *
+     * @param fieldName     排序的属性，_id或者有索引的属性
+     * @param previous      上一页，为null的时候查询第一页
+     * @param itemsPerPage  每页容量
+     * @param includeFields 只加载这些属性，为空的时候加载全部的属性，fieldName和_id总是会加载
+     */
+    <E extends IEntity<?>> SeekPage<E> seekQuery(String fieldName, SeekPage<E> previous, int itemsPerPage, Class<E> entityClazz, String... includeFields);
+
 }
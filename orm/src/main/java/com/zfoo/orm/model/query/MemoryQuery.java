@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.query;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.orm.model.memory.MemoryCursor;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import com.zfoo.protocol.collection.CollectionUtils;
+import com.zfoo.protocol.model.Pair;
+import com.zfoo.protocol.util.ReflectionUtils;
+import com.zfoo.protocol.util.StringUtils;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 基于MemoryDatabase的IQuery，和MongodbQuery的行为一致，用于测试和压测
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class MemoryQuery implements IQuery {
+
+    @Override
+    public <E extends IEntity<?>> List<E> queryAll(Class<E> entityClazz) {
+        return decode(MemoryDatabase.find(entityClazz, new Document()), entityClazz);
+    }
+
+    @Override
+    public <E extends IEntity<?>> List<E> queryFieldEqual(String fieldName, Object fieldValue, Class<E> entityClazz) {
+        if (fieldValue == null) {
+            return Collections.emptyList();
+        }
+        return decode(MemoryDatabase.find(entityClazz, Filters.eq(fieldName, fieldValue)), entityClazz);
+    }
+
+    @Override
+    public <E extends IEntity<?>> List<E> queryFieldLike(String fieldName, String fieldValue, Class<E> entityClazz) {
+        if (StringUtils.isBlank(fieldValue)) {
+            return Collections.emptyList();
+        }
+        var regex = StringUtils.format("^{}.*", fieldValue);
+        return decode(MemoryDatabase.find(entityClazz, Filters.regex(fieldName, regex)), entityClazz);
+    }
+
+    @Override
+    public <E extends IEntity<?>> List<E> queryFieldIn(String fieldName, List<?> fieldValueList, Class<E> entityClazz, String... includeFields) {
+        if (CollectionUtils.isEmpty(fieldValueList)) {
+            return Collections.emptyList();
+        }
+        return decode(project(MemoryDatabase.find(entityClazz, Filters.in(fieldName, fieldValueList)), includeFields), entityClazz);
+    }
+
+    @Override
+    public <E extends IEntity<?>> Pair<Page, List<E>> pageQuery(int page, int itemsPerPage, Class<E> entityClazz) {
+        var documents = MemoryDatabase.find(entityClazz, new Document());
+        var p = Page.valueOf(page, itemsPerPage, documents.size());
+        var pageDocuments = documents.stream()
+                .skip(p.skipNum())
+                .limit(p.getItemsPerPage())
+                .collect(Collectors.toList());
+        return new Pair<>(p, decode(pageDocuments, entityClazz));
+    }
+
+    @Override
+    public <E extends IEntity<?>> void queryAllStream(Class<E> entityClazz, int batchSize, Consumer<E> consumer, String... includeFields) {
+        try (var cursor = queryAllCursor(entityClazz, batchSize, includeFields)) {
+            while (cursor.hasNext()) {
+                consumer.accept(cursor.next());
+            }
+        }
+    }
+
+    @Override
+    public <E extends IEntity<?>> MongoCursor<E> queryAllCursor(Class<E> entityClazz, int batchSize, String... includeFields) {
+        var documents = project(MemoryDatabase.find(entityClazz, new Document()), includeFields);
+        return new MemoryCursor<>(entityClazz, documents);
+    }
+
+    @Override
+    public <E extends IEntity<?>> SeekPage<E> seekQuery(String fieldName, SeekPage<E> previous, int itemsPerPage, Class<E> entityClazz, String... includeFields) {
+        if (itemsPerPage <= 0) {
+            throw new IllegalArgumentException(StringUtils.format("页容量必须大于0，[size:{}]", itemsPerPage));
+        }
+        if (previous != null && !fieldName.equals(previous.getFieldName())) {
+            throw new IllegalArgumentException(StringUtils.format("上一页的排序属性[{}]和当前的排序属性[{}]不一致", previous.getFieldName(), fieldName));
+        }
+
+        var sortById = "_id".equals(fieldName);
+        var field = sortById ? null : ReflectionUtils.getFieldByNameInPOJOClass(entityClazz, fieldName);
+        if (field != null) {
+            ReflectionUtils.makeAccessible(field);
+        }
+
+        // 从上一页最后一个实体之后开始查找，相同的属性值按照_id区分
+        Bson filter;
+        if (previous == null) {
+            filter = new Document();
+        } else if (sortById) {
+            filter = Filters.gt("_id", previous.getLastId());
+        } else {
+            filter = Filters.or(Filters.gt(fieldName, previous.getLastKey())
+                    , Filters.and(Filters.eq(fieldName, previous.getLastKey()), Filters.gt("_id", previous.getLastId())));
+        }
+
+        var documents = MemoryDatabase.find(entityClazz, filter).stream()
+                .sorted(sortById ? MemoryDatabase.sortBy("_id") : MemoryDatabase.sortBy(fieldName, "_id"))
+                .limit(itemsPerPage + 1)
+                .collect(Collectors.toList());
+        if (CollectionUtils.isNotEmpty(includeFields)) {
+            var fields = new ArrayList<>(Arrays.asList(includeFields));
+            fields.add(fieldName);
+            documents = project(documents, fields.toArray(new String[0]));
+        }
+
+        var list = decode(documents, entityClazz);
+
+        // 多查询一个实体用来判断是否有下一页
+        var hasNext = list.size() > itemsPerPage;
+        if (hasNext) {
+            list.remove(list.size() - 1);
+        }
+        if (list.isEmpty()) {
+            return SeekPage.valueOf(fieldName, null, null, list, false);
+        }
+
+        var last = list.get(list.size() - 1);
+        var lastKey = sortById ? last.id() : ReflectionUtils.getField(field, last);
+        return SeekPage.valueOf(fieldName, lastKey, last.id(), list, hasNext);
+    }
+
+    private List<BsonDocument> project(List<BsonDocument> documents, String... includeFields) {
+        if (CollectionUtils.isEmpty(includeFields)) {
+            return documents;
+        }
+        var fields = Arrays.asList(includeFields);
+        return documents.stream().map(it -> MemoryDatabase.project(it, fields)).collect(Collectors.toList());
+    }
+
+    private <E extends IEntity<?>> List<E> decode(List<BsonDocument> documents, Class<E> entityClazz) {
+        var list = new ArrayList<E>(documents.size());
+        for (var document : documents) {
+            list.add(MemoryDatabase.decode(document, entityClazz));
+        }
+        return list;
+    }
+
+}
@@ -13,14 +13,21 @@
 
 package com.zfoo.orm.model.query;
 
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 import com.zfoo.orm.OrmContext;
 import com.zfoo.orm.model.entity.IEntity;
 import com.zfoo.protocol.collection.CollectionUtils;
 import com.zfoo.protocol.model.Pair;
+import com.zfoo.protocol.util.ReflectionUtils;
 import com.zfoo.protocol.util.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
@@ -73,14 +80,18 @@ public class MongodbQuery implements IQuery {
     }
 
     @Override
-    public <E extends IEntity<?>> List<E> queryFieldIn(String fieldName, List<?> fieldValueList, Class<E> entityClazz) {
+    public <E extends IEntity<?>> List<E> queryFieldIn(String fieldName, List<?> fieldValueList, Class<E> entityClazz, String... includeFields) {
         if (CollectionUtils.isEmpty(fieldValueList)) {
             return Collections.emptyList();
         }
 
         var collection = OrmContext.getOrmManager().getCollection(entityClazz);
         var list = new ArrayList<E>();
-        collection.find(Filters.in(fieldName, fieldValueList)).forEach(new Consumer<IEntity<?>>() {
+        var iterable = collection.find(Filters.in(fieldName, fieldValueList));
+        if (CollectionUtils.isNotEmpty(includeFields)) {
+            iterable.projection(Projections.include(includeFields));
+        }
+        iterable.forEach(new Consumer<IEntity<?>>() {
             @Override
             public void accept(IEntity<?> entity) {
                 list.add((E) entity);
@@ -109,5 +120,78 @@ public class MongodbQuery implements IQuery {
         return new Pair<>(p, list);
     }
 
+    @Override
+    public <E extends IEntity<?>> void queryAllStream(Class<E> entityClazz, int batchSize, Consumer<E> consumer, String... includeFields) {
+        try (var cursor = queryAllCursor(entityClazz, batchSize, includeFields)) {
+            while (cursor.hasNext()) {
+                consumer.accept(cursor.next());
+            }
+        }
+    }
+
+    @Override
+    public <E extends IEntity<?>> MongoCursor<E> queryAllCursor(Class<E> entityClazz, int batchSize, String... includeFields) {
+        var collection = OrmContext.getOrmManager().getCollection(entityClazz);
+        var iterable = collection.find().batchSize(batchSize);
+        if (CollectionUtils.isNotEmpty(includeFields)) {
+            iterable.projection(Projections.include(includeFields));
+        }
+        return iterable.iterator();
+    }
+
+    @Override
+    public <E extends IEntity<?>> SeekPage<E> seekQuery(String fieldName, SeekPage<E> previous, int itemsPerPage, Class<E> entityClazz, String... includeFields) {
+        if (itemsPerPage <= 0) {
+            throw new IllegalArgumentException(StringUtils.format("页容量必须大于0，[size:{}]", itemsPerPage));
+        }
+        if (previous != null && !fieldName.equals(previous.getFieldName())) {
+            throw new IllegalArgumentException(StringUtils.format("上一页的排序属性[{}]和当前的排序属性[{}]不一致", previous.getFieldName(), fieldName));
+        }
+
+        var sortById = "_id".equals(fieldName);
+        var field = sortById ? null : ReflectionUtils.getFieldByNameInPOJOClass(entityClazz, fieldName);
+        if (field != null) {
+            ReflectionUtils.makeAccessible(field);
+        }
+
+        // 从上一页最后一个实体之后开始查找，相同的属性值按照_id区分
+        Bson filter;
+        if (previous == null) {
+            filter = new Document();
+        } else if (sortById) {
+            filter = Filters.gt("_id", previous.getLastId());
+        } else {
+            filter = Filters.or(Filters.gt(fieldName, previous.getLastKey())
+                    , Filters.and(Filters.eq(fieldName, previous.getLastKey()), Filters.gt("_id", previous.getLastId())));
+        }
+
+        var collection = OrmContext.getOrmManager().getCollection(entityClazz);
+        var iterable = collection.find(filter)
+                .sort(sortById ? Sorts.ascending("_id") : Sorts.ascending(fieldName, "_id"))
+                .limit(itemsPerPage + 1);
+        if (CollectionUtils.isNotEmpty(includeFields)) {
+            var fields = new ArrayList<>(Arrays.asList(includeFields));
+            fields.add(fieldName);
+            fields.add("_id");
+            iterable.projection(Projections.include(fields));
+        }
+
+        var list = new ArrayList<E>(itemsPerPage + 1);
+        iterable.forEach((Consumer<IEntity<?>>) entity -> list.add((E) entity));
+
+        // 多查询一个实体用来判断是否有下一页
+        var hasNext = list.size() > itemsPerPage;
+        if (hasNext) {
+            list.remove(list.size() - 1);
+        }
+        if (list.isEmpty()) {
+            return SeekPage.valueOf(fieldName, null, null, list, false);
+        }
+
+        var last = list.get(list.size() - 1);
+        var lastKey = sortById ? last.id() : ReflectionUtils.getField(field, last);
+        return SeekPage.valueOf(fieldName, lastKey, last.id(), list, hasNext);
+    }
+
 
 }
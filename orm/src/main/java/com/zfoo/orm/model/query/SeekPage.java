@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.model.query;
+
+import java.util.List;
+
+/**
+ * 基于键的分页（keyset pagination），记住上一页最后一个实体的键，下一页从这个键之后开始查找，不需要skip，查询的性能和第几页无关
+ * <p>
+ * 按照fieldName升序，相同的时候按照_id升序，fieldName需要有索引
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class SeekPage<E> {
+
+    /**
+     * 排序的属性
+     */
+    private String fieldName;
+
+    /**
+     * 当前页最后一个实体的属性值和主键
+     */
+    private Object lastKey;
+    private Object lastId;
+
+    private List<E> list;
+
+    private boolean hasNext;
+
+    public static <E> SeekPage<E> valueOf(String fieldName, Object lastKey, Object lastId, List<E> list, boolean hasNext) {
+        var page = new SeekPage<E>();
+        page.fieldName = fieldName;
+        page.lastKey = lastKey;
+        page.lastId = lastId;
+        page.list = list;
+        page.hasNext = hasNext;
+        return page;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    public Object getLastId() {
+        return lastId;
+    }
+
+    public List<E> getList() {
+        return list;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
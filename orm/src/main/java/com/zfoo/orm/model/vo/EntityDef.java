@@ -46,12 +46,28 @@ public class EntityDef {
 
     private long expireMillisecond;
 
+    private long cacheMaxWeight;
+
     private PersisterStrategy persisterStrategy;
 
     private Map<String, IndexDef> indexDefMap;
 
     private Map<String, IndexTextDef> indexTextDefMap;
 
+    private int warmUpSize;
+
+    private String warmUpIndex;
+
+    private int negativeCacheSize;
+
+    private long negativeExpireMillisecond;
+
+    private long coldTierMaxBytes;
+
+    private long coldTierExpireMillisecond;
+
+    private boolean bloomFilter;
+
     private EntityDef() {
     }
 
@@ -77,6 +93,7 @@ public class EntityDef {
         var cacheStrategy = cacheStrategyOptional.get();
         entityDef.cacheSize = cacheStrategy.getSize();
         entityDef.expireMillisecond = cacheStrategy.getExpireMillisecond();
+        entityDef.cacheMaxWeight = cacheStrategy.getMaxWeight();
 
         var idFields = ReflectionUtils.getFieldsByAnnoInPOJOClass(clazz, Id.class);
         AssertionUtils.isTrue(CollectionUtils.isNotEmpty(idFields) && idFields.length == 1, "实体类Entity[{}]必须只有且仅有一个Id注解", clazz.getSimpleName());
@@ -120,6 +137,22 @@ public class EntityDef {
         entityDef.indexDefMap = indexDefMap;
         entityDef.indexTextDefMap = indexTextDefMap;
 
+        var warmUp = cache.warmUp();
+        if (!StringUtils.isEmpty(warmUp.index()) && !indexDefMap.containsKey(warmUp.index())) {
+            throw new RuntimeException(StringUtils.format("实体类Entity[{}]预加载的属性[{}]没有被[{}]注解标注", clazz.getSimpleName(), warmUp.index(), Index.class.getSimpleName()));
+        }
+        entityDef.warmUpSize = Math.min(Math.max(warmUp.size(), 0), entityDef.cacheSize);
+        entityDef.warmUpIndex = warmUp.index();
+
+        var negativeCache = cache.negativeCache();
+        entityDef.negativeCacheSize = Math.max(negativeCache.size(), 0);
+        entityDef.negativeExpireMillisecond = negativeCache.expireMillisecond();
+        entityDef.bloomFilter = negativeCache.bloomFilter();
+
+        var coldTier = cache.coldTier();
+        entityDef.coldTierMaxBytes = Math.max(coldTier.maxBytes(), 0);
+        entityDef.coldTierExpireMillisecond = coldTier.expireMillisecond();
+
         return entityDef;
     }
 
@@ -141,6 +174,10 @@ public class EntityDef {
         return expireMillisecond;
     }
 
+    public long getCacheMaxWeight() {
+        return cacheMaxWeight;
+    }
+
     public PersisterStrategy getPersisterStrategy() {
         return persisterStrategy;
     }
@@ -152,4 +189,32 @@ public class EntityDef {
     public Map<String, IndexTextDef> getIndexTextDefMap() {
         return indexTextDefMap;
     }
+
+    public int getWarmUpSize() {
+        return warmUpSize;
+    }
+
+    public String getWarmUpIndex() {
+        return warmUpIndex;
+    }
+
+    public int getNegativeCacheSize() {
+        return negativeCacheSize;
+    }
+
+    public long getNegativeExpireMillisecond() {
+        return negativeExpireMillisecond;
+    }
+
+    public long getColdTierMaxBytes() {
+        return coldTierMaxBytes;
+    }
+
+    public long getColdTierExpireMillisecond() {
+        return coldTierExpireMillisecond;
+    }
+
+    public boolean isBloomFilter() {
+        return bloomFilter;
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.model.vo;
+
+import com.zfoo.orm.model.anno.Id;
+import com.zfoo.orm.model.entity.IEntity;
+import com.zfoo.protocol.util.ReflectionUtils;
+import com.zfoo.protocol.util.StringUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体的视图类，视图类只声明实体中的一部分属性，属性的名称和类型需要和实体中的属性一致
+ * <p>
+ * 从数据库中加载的时候只投影这些属性，从缓存中加载的时候直接从完整的实体中复制；集合类型的属性和缓存中的实体共享同一个对象，视图只能用来读
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ViewDef<E extends IEntity<?>, V> {
+
+    private static final Map<Class<?>, Map<Class<?>, ViewDef<?, ?>>> viewDefMap = new ConcurrentHashMap<>();
+
+    private Class<V> viewClazz;
+
+    private Constructor<V> constructor;
+
+    private Field[] viewFields;
+
+    private Field[] entityFields;
+
+    /**
+     * 需要从数据库中投影的属性，@Id属性在数据库中的名称为_id
+     */
+    private String[] includeFields;
+
+    public static <E extends IEntity<?>, V> ViewDef<E, V> valueOf(Class<E> entityClazz, Class<V> viewClazz) {
+        var map = viewDefMap.computeIfAbsent(entityClazz, it -> new ConcurrentHashMap<>());
+        return (ViewDef<E, V>) map.computeIfAbsent(viewClazz, it -> parse(entityClazz, viewClazz));
+    }
+
+    private static <E extends IEntity<?>, V> ViewDef<E, V> parse(Class<E> entityClazz, Class<V> viewClazz) {
+        Constructor<V> constructor;
+        try {
+            constructor = viewClazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(StringUtils.format("视图类[{}]必须有一个无参的构造器", viewClazz.getSimpleName()));
+        }
+        ReflectionUtils.makeAccessible(constructor);
+
+        var viewFields = new ArrayList<Field>();
+        var entityFields = new ArrayList<Field>();
+        var includeFields = new ArrayList<String>();
+        for (var viewField : viewClazz.getDeclaredFields()) {
+            if (Modifier.isStatic(viewField.getModifiers()) || Modifier.isTransient(viewField.getModifiers())) {
+                continue;
+            }
+
+            Field entityField;
+            try {
+                entityField = entityClazz.getDeclaredField(viewField.getName());
+            } catch (NoSuchFieldException e) {
+                throw new RuntimeException(StringUtils.format("视图类[{}]的属性[{}]在实体类[{}]中不存在"
+                        , viewClazz.getSimpleName(), viewField.getName(), entityClazz.getSimpleName()));
+            }
+            if (!entityField.getGenericType().equals(viewField.getGenericType())) {
+                throw new RuntimeException(StringUtils.format("视图类[{}]的属性[{}]的类型[{}]和实体类[{}]中的类型[{}]不一致"
+                        , viewClazz.getSimpleName(), viewField.getName(), viewField.getGenericType(), entityClazz.getSimpleName(), entityField.getGenericType()));
+            }
+
+            ReflectionUtils.makeAccessible(viewField);
+            ReflectionUtils.makeAccessible(entityField);
+            viewFields.add(viewField);
+            entityFields.add(entityField);
+            includeFields.add(entityField.isAnnotationPresent(Id.class) ? "_id" : entityField.getName());
+        }
+
+        if (viewFields.isEmpty()) {
+            throw new RuntimeException(StringUtils.format("视图类[{}]没有任何属性", viewClazz.getSimpleName()));
+        }
+
+        var viewDef = new ViewDef<E, V>();
+        viewDef.viewClazz = viewClazz;
+        viewDef.constructor = constructor;
+        viewDef.viewFields = viewFields.toArray(new Field[0]);
+        viewDef.entityFields = entityFields.toArray(new Field[0]);
+        viewDef.includeFields = includeFields.toArray(new String[0]);
+        return viewDef;
+    }
+
+    /**
+     * 从完整的实体或者只投影了视图属性的实体中创建视图
+     */
+    public V newView(E entity) {
+        var view = ReflectionUtils.newInstance(constructor);
+        for (var i = 0; i < viewFields.length; i++) {
+            ReflectionUtils.setField(viewFields[i], view, ReflectionUtils.getField(entityFields[i], entity));
+        }
+        return view;
+    }
+
+    public Class<V> getViewClazz() {
+        return viewClazz;
+    }
+
+    public String[] getIncludeFields() {
+        return includeFields;
+    }
+
+}
@@ -15,8 +15,10 @@ package com.zfoo.orm.schema;
 
 import com.zfoo.orm.OrmContext;
 import com.zfoo.orm.manager.OrmManager;
+import com.zfoo.orm.model.accessor.MemoryAccessor;
 import com.zfoo.orm.model.accessor.MongodbAccessor;
 import com.zfoo.orm.model.config.*;
+import com.zfoo.orm.model.query.MemoryQuery;
 import com.zfoo.orm.model.query.MongodbQuery;
 import com.zfoo.protocol.util.StringUtils;
 import com.zfoo.util.DomUtils;
@@ -64,14 +66,17 @@ public class OrmDefinitionParser implements BeanDefinitionParser {
         builder.addPropertyReference("ormConfig", OrmConfig.class.getCanonicalName());
         parserContext.getRegistry().registerBeanDefinition(name, builder.getBeanDefinition());
 
-        // 注册MongodbAccessor
-        clazz = MongodbAccessor.class;
+        // 内存数据库模式注册MemoryAccessor和MemoryQuery，否则注册MongodbAccessor和MongodbQuery
+        var memory = isMemory(element, parserContext);
+
+        // 注册Accessor
+        clazz = memory ? MemoryAccessor.class : MongodbAccessor.class;
         name = StringUtils.uncapitalize(clazz.getSimpleName());
         builder = BeanDefinitionBuilder.rootBeanDefinition(clazz);
         parserContext.getRegistry().registerBeanDefinition(name, builder.getBeanDefinition());
 
-        // 注册MongodbQuery
-        clazz = MongodbQuery.class;
+        // 注册Query
+        clazz = memory ? MemoryQuery.class : MongodbQuery.class;
         name = StringUtils.uncapitalize(clazz.getSimpleName());
         builder = BeanDefinitionBuilder.rootBeanDefinition(clazz);
         parserContext.getRegistry().registerBeanDefinition(name, builder.getBeanDefinition());
@@ -85,6 +90,8 @@ public class OrmDefinitionParser implements BeanDefinitionParser {
 
         resolvePlaceholder("id", "id", builder, element, parserContext);
         resolvePlaceholder("entity-package", "entityPackage", builder, element, parserContext);
+        resolvePlaceholder("journal", "journal", builder, element, parserContext);
+        builder.addPropertyValue("memory", isMemory(element, parserContext));
 
         parseHostConfig(DomUtils.getFirstChildElementByTagName(element, "host"), parserContext);
         builder.addPropertyReference("hostConfig", HostConfig.class.getCanonicalName());
@@ -122,6 +129,9 @@ public class OrmDefinitionParser implements BeanDefinitionParser {
 
         var cacheStrategies = parseCacheStrategies(element, parserContext);
         builder.addPropertyValue("cacheStrategies", cacheStrategies);
+        if (element.hasAttribute("heap-budget")) {
+            resolvePlaceholder("heap-budget", "heapBudget", builder, element, parserContext);
+        }
         parserContext.getRegistry().registerBeanDefinition(clazz.getCanonicalName(), builder.getBeanDefinition());
     }
 
@@ -149,6 +159,9 @@ public class OrmDefinitionParser implements BeanDefinitionParser {
             builder.addConstructorArgValue(environment.resolvePlaceholders(addressElement.getAttribute("strategy")));
             builder.addConstructorArgValue(environment.resolvePlaceholders(addressElement.getAttribute("size")));
             builder.addConstructorArgValue(environment.resolvePlaceholders(addressElement.getAttribute("expire-millisecond")));
+            if (addressElement.hasAttribute("max-weight")) {
+                builder.addConstructorArgValue(environment.resolvePlaceholders(addressElement.getAttribute("max-weight")));
+            }
 
             cacheStrategies.add(new BeanDefinitionHolder(builder.getBeanDefinition(), StringUtils.format("{}.{}", clazz.getCanonicalName(), i)));
         }
@@ -186,6 +199,14 @@ public class OrmDefinitionParser implements BeanDefinitionParser {
         return addressMap;
     }
 
+    private boolean isMemory(Element element, ParserContext parserContext) {
+        if (!element.hasAttribute("memory")) {
+            return false;
+        }
+        var environment = parserContext.getReaderContext().getEnvironment();
+        return Boolean.parseBoolean(environment.resolvePlaceholders(element.getAttribute("memory")));
+    }
+
     private void resolvePlaceholder(String attributeName, String fieldName, BeanDefinitionBuilder builder, Element element, ParserContext parserContext) {
         var attributeValue = element.getAttribute(attributeName);
         var environment = parserContext.getReaderContext().getEnvironment();
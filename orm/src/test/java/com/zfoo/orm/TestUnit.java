@@ -21,6 +21,8 @@ public class TestUnit {
 
     public static final String CONFIG_LOCATION = "application.xml";
 
+    public static final String MEMORY_CONFIG_LOCATION = "application-memory.xml";
+
 
     public static final int NUM = 10;
 
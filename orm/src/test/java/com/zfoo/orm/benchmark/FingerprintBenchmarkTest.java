@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.benchmark;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import com.zfoo.orm.model.persister.EntityFingerprint;
+import com.zfoo.protocol.util.StringUtils;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 只修改一个属性的时候，持久化线程为了找出改变的属性，编码整个实体并计算每个属性指纹的开销
+ * <p>
+ * 开销和实体的大小成正比，和修改了几个属性无关；节省的是写入数据库的字节数，不是持久化线程的CPU
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class FingerprintBenchmarkTest {
+
+    private static final int LOOP = 20000;
+
+    @Test
+    public void fingerprintTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var codec = (Codec<UserEntity>) OrmContext.getOrmManager().getCodecRegistry().get(UserEntity.class);
+
+            // 第一轮预热
+            for (var round = 0; round < 2; round++) {
+                for (var listSize : new int[]{0, 10, 100, 1000, 10000}) {
+                    benchmark(codec, listSize, round > 0);
+                }
+            }
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+    private void benchmark(Codec<UserEntity> codec, int listSize, boolean print) {
+        var entity = new UserEntity(1, (byte) 1, (short) 2, 3, true, "e", "f");
+        entity.setL(IntStream.range(0, listSize).boxed().collect(Collectors.toList()));
+        var loop = Math.max(100, LOOP / Math.max(1, listSize / 10));
+
+        // 只编码整个实体，替换整个文档的时候驱动也需要这样编码一次
+        var startTime = System.nanoTime();
+        var document = new RawBsonDocument(entity, codec);
+        for (var i = 0; i < loop; i++) {
+            entity.setC(entity.getC() + 1);
+            document = new RawBsonDocument(entity, codec);
+        }
+        var encodeNanos = (System.nanoTime() - startTime) / loop;
+
+        // 编码整个实体，计算指纹，找出改变的属性，和writeModel中的步骤一样
+        var previous = EntityFingerprint.valueOf(document);
+        var changedFields = List.<String>of();
+        startTime = System.nanoTime();
+        for (var i = 0; i < loop; i++) {
+            entity.setC(entity.getC() + 1);
+            document = new RawBsonDocument(entity, codec);
+            var fingerprint = EntityFingerprint.valueOf(document);
+            changedFields = fingerprint.changedFields(previous);
+            previous = fingerprint;
+        }
+        var fingerprintNanos = (System.nanoTime() - startTime) / loop;
+
+        var set = new BsonDocument();
+        for (var fieldName : changedFields) {
+            set.put(fieldName, document.get(fieldName));
+        }
+        var setSize = new RawBsonDocument(set, new BsonDocumentCodec()).getByteBuffer().remaining();
+        if (print) {
+            System.out.println(StringUtils.format("实体[{}]byte，编码[{}]ns，编码加指纹[{}]ns，$set{}写入[{}]byte"
+                    , document.getByteBuffer().remaining(), encodeNanos, fingerprintNanos, changedFields, setSize));
+        }
+    }
+
+}
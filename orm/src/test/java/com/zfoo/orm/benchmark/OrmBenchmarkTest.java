@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.benchmark;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * 基于内存数据库的缓存和持久化器压测，不需要启动MongoDB，结果只反映缓存，持久化器和编解码器的开销
+ * <p>
+ * UserEntity的缓存容量为10000，每个测试都从空的内存数据库开始
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class OrmBenchmarkTest {
+
+    private static final int CACHE_SIZE = 10000;
+
+    private ClassPathXmlApplicationContext context;
+
+    private IEntityCaches<Long, UserEntity> entityCaches;
+
+    @Before
+    public void before() {
+        MemoryDatabase.clear();
+        context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        entityCaches = (IEntityCaches<Long, UserEntity>) OrmContext.getOrmManager().getEntityCaches(UserEntity.class);
+    }
+
+    @After
+    public void after() {
+        context.close();
+        MemoryDatabase.clear();
+    }
+
+    private List<Long> insert(int count) {
+        var entities = new ArrayList<UserEntity>(count);
+        for (var i = 1; i <= count; i++) {
+            entities.add(new UserEntity(i, (byte) 1, (short) 2, i, true, "e" + i, "f"));
+        }
+        OrmContext.getAccessor().batchInsert(entities);
+        return LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * 命中和未命中缓存的load吞吐量
+     */
+    @Test
+    public void loadTest() {
+        var pks = insert(CACHE_SIZE);
+
+        var startTime = System.nanoTime();
+        pks.forEach(it -> entityCaches.load(it));
+        print("load miss", pks.size(), startTime);
+
+        for (var i = 0; i < 10; i++) {
+            startTime = System.nanoTime();
+            pks.forEach(it -> entityCaches.load(it));
+            print("load hit", pks.size(), startTime);
+        }
+
+        pks.forEach(it -> entityCaches.invalidate(it));
+        startTime = System.nanoTime();
+        entityCaches.loadAll(pks);
+        print("loadAll miss", pks.size(), startTime);
+    }
+
+    /**
+     * update只标记脏数据，吞吐量和持久化无关
+     */
+    @Test
+    public void updateTest() {
+        var pks = insert(CACHE_SIZE);
+        var entities = pks.stream().map(it -> entityCaches.load(it)).collect(Collectors.toList());
+
+        for (var i = 0; i < 10; i++) {
+            var startTime = System.nanoTime();
+            for (var entity : entities) {
+                entity.setC(entity.getC() + 1);
+                entityCaches.update(entity);
+            }
+            print("update", entities.size(), startTime);
+            entityCaches.persistAll();
+        }
+    }
+
+    /**
+     * 不同数量的脏数据，persistAll的耗时
+     */
+    @Test
+    public void persistAllTest() {
+        var pks = insert(CACHE_SIZE);
+        var entities = pks.stream().map(it -> entityCaches.load(it)).collect(Collectors.toList());
+
+        for (var dirtySize : List.of(100, 1000, 5000, CACHE_SIZE)) {
+            for (var i = 0; i < 5; i++) {
+                for (var entity : entities.subList(0, dirtySize)) {
+                    entity.setE(entity.getE() + i);
+                    entityCaches.update(entity);
+                }
+                var startTime = System.nanoTime();
+                entityCaches.persistAll();
+                print("persistAll " + dirtySize, dirtySize, startTime);
+            }
+        }
+    }
+
+    /**
+     * 超过缓存容量之后，被淘汰的脏数据需要在淘汰的时候写回数据库
+     */
+    @Test
+    public void evictionTest() {
+        var count = CACHE_SIZE * 5;
+        var pks = insert(count);
+
+        var startTime = System.nanoTime();
+        for (var pk : pks) {
+            var entity = entityCaches.load(pk);
+            entity.setE("evicted");
+            entityCaches.update(entity);
+        }
+        entityCaches.persistAll();
+        print("eviction write back", count, startTime);
+
+        var lost = OrmContext.getQuery().queryAll(UserEntity.class).stream().filter(it -> !"evicted".equals(it.getE())).count();
+        System.out.println("写回数据库失败的实体数量：" + lost);
+        System.out.println(entityCaches.recordStatus());
+    }
+
+    private void print(String name, int count, long startTime) {
+        var costMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        var opsPerSecond = costMillis == 0 ? count * 1000L : count * 1000L / costMillis;
+        System.out.println(name + "：" + count + "次耗时[" + costMillis + "ms]，[" + opsPerSecond + " ops/s]");
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.cache;
+
+import com.zfoo.orm.model.cache.CacheHeapBudget;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class CacheHeapBudgetTest {
+
+    @Test
+    public void allocateTest() {
+        // 保底1/4平分，剩下的按照访问量分配
+        var weights = CacheHeapBudget.allocate(1000, new long[]{300, 100, 0});
+        Assert.assertArrayEquals(new long[]{83 + 563, 83 + 187, 83}, weights);
+        Assert.assertTrue(Arrays.stream(weights).sum() <= 1000);
+    }
+
+    @Test
+    public void noDemandTest() {
+        var weights = CacheHeapBudget.allocate(1000, new long[]{0, 0});
+        Assert.assertArrayEquals(new long[]{500, 500}, weights);
+        Assert.assertEquals(0, CacheHeapBudget.allocate(1000, new long[0]).length);
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.cache;
+
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.persister.PNode;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 大缓存，低修改比例的情况下，遍历整个缓存和只遍历脏队列找出需要持久化的节点的性能对比
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class DirtyQueueTest {
+
+    private static final int CACHE_SIZE = 50_0000;
+
+    private static final int BATCH_SIZE = 512;
+
+    private static final int TICKS = 100;
+
+    @Test
+    public void benchmarkTest() {
+        for (var dirtyRatio : new double[]{0.001, 0.01, 0.02, 0.1}) {
+            var cache = new ConcurrentHashMap<Long, PNode<UserEntity>>();
+            for (var i = 0L; i < CACHE_SIZE; i++) {
+                cache.put(i, new PNode<>(new UserEntity(i, (byte) 0, (short) 0, 0, false, "", "")));
+            }
+            var dirtyQueue = new ConcurrentLinkedQueue<PNode<UserEntity>>();
+            var dirtySize = (int) (CACHE_SIZE * dirtyRatio);
+
+            // 预热
+            scan(cache, dirtySize);
+            drain(cache, dirtyQueue, dirtySize);
+
+            var scanTime = 0L;
+            var drainTime = 0L;
+            for (var tick = 0; tick < TICKS; tick++) {
+                scanTime += scan(cache, dirtySize);
+                drainTime += drain(cache, dirtyQueue, dirtySize);
+            }
+
+            System.out.println(String.format("cache:[%d] dirty:[%d] scan:[%.3fms/tick] dirtyQueue:[%.3fms/tick]"
+                    , CACHE_SIZE, dirtySize, scanTime / 1_000_000.0 / TICKS, drainTime / 1_000_000.0 / TICKS));
+        }
+    }
+
+    /**
+     * 原来的方式，比较修改时间和写入时间
+     */
+    private long scan(ConcurrentHashMap<Long, PNode<UserEntity>> cache, int dirtySize) {
+        for (var i = 0L; i < dirtySize; i++) {
+            cache.get(i * (CACHE_SIZE / dirtySize)).setModifiedTime(System.currentTimeMillis() + 100);
+        }
+
+        var startTime = System.nanoTime();
+        var updateList = new ArrayList<PNode<UserEntity>>();
+        var currentTime = System.currentTimeMillis();
+        for (var pnode : cache.values()) {
+            if (pnode.getModifiedTime() != pnode.getWriteToDbTime()) {
+                pnode.setWriteToDbTime(currentTime);
+                pnode.setModifiedTime(currentTime);
+                updateList.add(pnode);
+            }
+        }
+        batch(updateList);
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * 现在的方式，只遍历脏队列
+     */
+    private long drain(ConcurrentHashMap<Long, PNode<UserEntity>> cache, ConcurrentLinkedQueue<PNode<UserEntity>> dirtyQueue, int dirtySize) {
+        for (var i = 0L; i < dirtySize; i++) {
+            var pnode = cache.get(i * (CACHE_SIZE / dirtySize));
+            if (pnode.markDirty()) {
+                dirtyQueue.offer(pnode);
+            }
+        }
+
+        var startTime = System.nanoTime();
+        var updateList = new ArrayList<PNode<UserEntity>>();
+        for (var remainSize = dirtyQueue.size(); remainSize > 0; remainSize--) {
+            var pnode = dirtyQueue.poll();
+            if (pnode.clearDirty()) {
+                updateList.add(pnode);
+            }
+        }
+        batch(updateList);
+        return System.nanoTime() - startTime;
+    }
+
+    private void batch(List<PNode<UserEntity>> updateList) {
+        for (var i = 0; i < updateList.size(); i += BATCH_SIZE) {
+            updateList.subList(i, Math.min(i + BATCH_SIZE, updateList.size())).forEach(it -> it.getEntity().id());
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.cache;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.fixture.FaultyEnt;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * 一页中的一个实体编码失败，同一页中的其它实体照常写入，失败的实体留在队列中等待下一次持久化
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityCachesEncodeTest {
+
+    @Test
+    public void encodeFailTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var entityCaches = (IEntityCaches<Long, FaultyEnt>) OrmContext.getOrmManager().getEntityCaches(FaultyEnt.class);
+            for (var i = 1L; i <= 3L; i++) {
+                entityCaches.insert(new FaultyEnt(i, "name" + i));
+            }
+            entityCaches.persistAll();
+
+            // 编码失败的实体在同一页的中间，后面的实体照常写入
+            var faulty = entityCaches.load(2L);
+            faulty.setName("faulty");
+            entityCaches.update(faulty);
+            var entity = entityCaches.load(3L);
+            entity.setName("modified3");
+            entityCaches.update(entity);
+            entityCaches.persistAll();
+            Assert.assertEquals("modified3", OrmContext.getAccessor().load(3L, FaultyEnt.class).getName());
+            Assert.assertEquals(1, entityCaches.metrics().getDirtyBacklog());
+            Assert.assertEquals(1, faulty.getVs());
+
+            // 修复之后下一次持久化写入，版本号没有因为失败的那一次增加
+            faulty.setName("fixed");
+            entityCaches.update(faulty);
+            entityCaches.persistAll();
+            var dbEntity = OrmContext.getAccessor().load(2L, FaultyEnt.class);
+            Assert.assertEquals("fixed", dbEntity.getName());
+            Assert.assertEquals(2, dbEntity.getVs());
+            Assert.assertEquals(0, entityCaches.metrics().getDirtyBacklog());
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+}
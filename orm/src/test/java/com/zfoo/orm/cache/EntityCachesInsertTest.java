@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.cache;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.fixture.ItemEnt;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * 通过缓存插入的实体在持久化的时候批量upsert
+ * ItemEnt的定时持久化在测试期间不会触发，写入指标只由这个测试产生
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityCachesInsertTest {
+
+    @Test
+    public void insertTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var entityCaches = (IEntityCaches<Long, ItemEnt>) OrmContext.getOrmManager().getEntityCaches(ItemEnt.class);
+            var count = 2000;
+            for (var i = 1; i <= count; i++) {
+                entityCaches.insert(new ItemEnt(i, "name" + i, "desc"));
+            }
+
+            // 持久化之前只在缓存中
+            Assert.assertEquals(0, MemoryDatabase.count(ItemEnt.class));
+            Assert.assertEquals("name1", entityCaches.load(1L).getName());
+
+            // 插入之后在同一个持久化周期中的修改
+            var entity = entityCaches.load(2L);
+            entity.setName("modified");
+            entityCaches.update(entity);
+
+            entityCaches.persistAll();
+            Assert.assertEquals(count, MemoryDatabase.count(ItemEnt.class));
+            Assert.assertEquals(count, entityCaches.metrics().getBulkWriteEntityCount());
+            Assert.assertEquals(0, entityCaches.metrics().getFallbackEntityCount());
+            Assert.assertEquals(0, entityCaches.metrics().getDirtyBacklog());
+            Assert.assertEquals("modified", OrmContext.getAccessor().load(2L, ItemEnt.class).getName());
+
+            // 写入之后的修改只$set改变的属性
+            entity.setDesc("desc2");
+            entityCaches.update(entity);
+            entityCaches.persistAll();
+            var dbEntity = OrmContext.getAccessor().load(2L, ItemEnt.class);
+            Assert.assertEquals("desc2", dbEntity.getDesc());
+            Assert.assertEquals("modified", dbEntity.getName());
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+}
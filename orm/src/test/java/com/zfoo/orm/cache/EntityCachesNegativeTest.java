@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.PlayerEnt;
+import com.zfoo.orm.model.cache.EntityCaches;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 负缓存和布隆过滤器判断不存在的主键，之后被插入数据库的情况
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityCachesNegativeTest {
+
+    @Test
+    public void accessorInsertTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var entityCaches = (IEntityCaches<Long, PlayerEnt>) OrmContext.getOrmManager().getEntityCaches(PlayerEnt.class);
+            Assert.assertNull(entityCaches.load(10L).getName());
+
+            // 启动之后通过IAccessor插入，负缓存中的主键被移除
+            OrmContext.getAccessor().insert(new PlayerEnt(10L, "zfoo"));
+            Assert.assertEquals("zfoo", entityCaches.load(10L).getName());
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+    @Test
+    public void bloomFilterTest() throws Exception {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        var bloomFilterField = EntityCaches.class.getDeclaredField("bloomFilter");
+        bloomFilterField.setAccessible(true);
+        var entityCaches = (IEntityCaches<Long, PlayerEnt>) OrmContext.getOrmManager().getEntityCaches(PlayerEnt.class);
+        try {
+            // 内存数据库不会构建布隆过滤器，模拟启动的时候数据库是空的
+            bloomFilterField.set(entityCaches, BloomFilter.create((Funnel<Long>) (pk, into) -> into.putString(pk.toString(), StandardCharsets.UTF_8), 1000, 0.01));
+
+            // 管理工具直接插入数据库，布隆过滤器不知道，load仍然通过_id查询确认
+            MemoryDatabase.insert(new PlayerEnt(30L, "admin"));
+            Assert.assertEquals("admin", entityCaches.load(30L).getName());
+            Assert.assertTrue(((BloomFilter<Long>) bloomFilterField.get(entityCaches)).mightContain(30L));
+        } finally {
+            bloomFilterField.set(entityCaches, null);
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+    @Test
+    public void probablyAbsentTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var entityCaches = (IEntityCaches<Long, PlayerEnt>) OrmContext.getOrmManager().getEntityCaches(PlayerEnt.class);
+            Assert.assertNull(entityCaches.load(1L).getName());
+            Assert.assertNull(entityCaches.load(2L).getName());
+
+            // 模拟其它进程插入的文档，负缓存不知道
+            MemoryDatabase.insert(new PlayerEnt(2L, "other"));
+
+            // 负缓存判断不存在之后返回的默认值没有主键，业务设置主键之后创建的实体只能插入
+            var created = entityCaches.load(1L);
+            created.setId(1L);
+            created.setName("created");
+            entityCaches.update(created);
+
+            var player = entityCaches.load(2L);
+            Assert.assertNull(player.getName());
+            player.setId(2L);
+            player.setName("default");
+            entityCaches.update(player);
+
+            entityCaches.persistAll();
+            Assert.assertEquals("created", OrmContext.getAccessor().load(1L, PlayerEnt.class).getName());
+            Assert.assertEquals(1, OrmContext.getAccessor().load(1L, PlayerEnt.class).getVs());
+
+            // 数据库中已经存在的文档没有被覆盖，缓存中的默认值被丢弃，重新加载数据库中的文档
+            Assert.assertEquals("other", OrmContext.getAccessor().load(2L, PlayerEnt.class).getName());
+            Assert.assertEquals("other", entityCaches.load(2L).getName());
+            Assert.assertEquals(1, entityCaches.metrics().getVersionConflictCount());
+
+            // 插入成功之后的修改和正常的实体一样带有版本号更新
+            created = entityCaches.load(1L);
+            created.setName("modified");
+            entityCaches.update(created);
+            entityCaches.persistAll();
+            Assert.assertEquals("modified", OrmContext.getAccessor().load(1L, PlayerEnt.class).getName());
+            Assert.assertEquals(2, OrmContext.getAccessor().load(1L, PlayerEnt.class).getVs());
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+}
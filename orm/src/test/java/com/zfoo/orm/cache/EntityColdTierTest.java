@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.cache;
+
+import com.mongodb.MongoClientSettings;
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.fixture.ColdTierEnt;
+import com.zfoo.orm.model.cache.EntityColdTier;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.List;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityColdTierTest {
+
+    private static final Codec<UserEntity> codec = CodecRegistries.fromRegistries(MongoClientSettings.getDefaultCodecRegistry()
+            , CodecRegistries.fromProviders(PojoCodecProvider.builder().automatic(true).build()))
+            .get(UserEntity.class);
+
+    @Test
+    public void takeTest() {
+        var coldTier = new EntityColdTier<Long, UserEntity>(1024 * 1024, 60 * 1000);
+        var entity = new UserEntity(1, (byte) 1, (short) 2, 3, true, "e", "f");
+        entity.setL(List.of(1, 2, 3));
+        coldTier.put(entity.id(), new RawBsonDocument(entity, codec));
+
+        var pnode = coldTier.take(1L, codec);
+        Assert.assertNotNull(pnode.getFingerprint());
+        Assert.assertEquals(new RawBsonDocument(entity, codec), new RawBsonDocument(pnode.getEntity(), codec));
+
+        // 取出之后实体回到一级缓存，冷缓存中不再保留
+        Assert.assertNull(coldTier.take(1L, codec));
+        Assert.assertTrue(coldTier.recordStatus().contains("coldHitCount:1"));
+    }
+
+    @Test
+    public void invalidateTest() {
+        var coldTier = new EntityColdTier<Long, UserEntity>(1024 * 1024, 60 * 1000);
+        var entity = new UserEntity(2, (byte) 1, (short) 2, 3, true, "e", "f");
+        coldTier.put(entity.id(), new RawBsonDocument(entity, codec));
+        coldTier.invalidate(entity.id());
+        Assert.assertNull(coldTier.take(2L, codec));
+    }
+
+    @Test
+    public void entityCachesTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var entityCaches = (IEntityCaches<Long, ColdTierEnt>) OrmContext.getOrmManager().getEntityCaches(ColdTierEnt.class);
+            var count = 50;
+            for (var i = 1; i <= count; i++) {
+                entityCaches.insert(new ColdTierEnt(i, "name" + i));
+            }
+
+            // 一级缓存只有10个，写入数据库之后被淘汰的干净实体进入冷缓存，之后不访问数据库就能加载
+            entityCaches.persistAll();
+            MemoryDatabase.clear();
+            for (var i = 1; i <= count; i++) {
+                Assert.assertEquals("name" + i, entityCaches.load((long) i).getName());
+            }
+            Assert.assertFalse(entityCaches.recordStatus().contains("coldHitCount:0"));
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+}
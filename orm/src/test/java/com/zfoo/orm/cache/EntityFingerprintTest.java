@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.cache;
+
+import com.mongodb.MongoClientSettings;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.persister.EntityFingerprint;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityFingerprintTest {
+
+    private static final Codec<UserEntity> codec = CodecRegistries.fromRegistries(MongoClientSettings.getDefaultCodecRegistry()
+            , CodecRegistries.fromProviders(PojoCodecProvider.builder().automatic(true).build()))
+            .get(UserEntity.class);
+
+    private EntityFingerprint fingerprint(UserEntity entity) {
+        return EntityFingerprint.valueOf(new RawBsonDocument(entity, codec));
+    }
+
+    @Test
+    public void changedFieldsTest() {
+        var entity = new UserEntity(1, (byte) 1, (short) 2, 3, false, "e", "f");
+        var previous = fingerprint(entity);
+        Assert.assertTrue(fingerprint(entity).changedFields(previous).isEmpty());
+
+        entity.setC(4);
+        var current = fingerprint(entity);
+        Assert.assertEquals(List.of("c"), current.changedFields(previous));
+        Assert.assertTrue(current.removedFields(previous).isEmpty());
+    }
+
+    @Test
+    public void removedFieldsTest() {
+        var entity = new UserEntity(1, (byte) 1, (short) 2, 3, false, "e", "f");
+        entity.setL(List.of(1, 2));
+        var previous = fingerprint(entity);
+
+        // 属性变成null的时候pojo编码会忽略这个属性，需要$unset
+        entity.setL(null);
+        var current = fingerprint(entity);
+        Assert.assertTrue(current.changedFields(previous).isEmpty());
+        Assert.assertEquals(List.of("l"), current.removedFields(previous));
+
+        // 重新设置属性之后属性是新增的
+        entity.setL(List.of(1));
+        Assert.assertEquals(List.of("l"), fingerprint(entity).changedFields(current));
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.cache;
+
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.anno.Index;
+import com.zfoo.orm.model.cache.EntityIndex;
+import com.zfoo.orm.model.persister.PNode;
+import com.zfoo.orm.model.vo.IndexDef;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityIndexTest {
+
+    private EntityIndex<Long, UserEntity> entityIndex(String fieldName) throws NoSuchFieldException {
+        var field = UserEntity.class.getDeclaredField(fieldName);
+        var index = field.getAnnotation(Index.class);
+        return new EntityIndex<>(new IndexDef(field, index.ascending(), index.unique()));
+    }
+
+    @Test
+    public void updateIndexTest() throws Exception {
+        var entityIndex = entityIndex("c");
+        var entity = new UserEntity(1, (byte) 0, (short) 0, 100, false, "", "");
+        var pnode = new PNode<>(entity);
+        entityIndex.index(1L, pnode);
+        Assert.assertEquals(Set.of(1L), entityIndex.pks(100));
+
+        // 修改索引的属性之后旧的值被移除
+        entity.setC(200);
+        Assert.assertFalse(entityIndex.matches(entity, 100));
+        entityIndex.index(1L, pnode);
+        Assert.assertTrue(entityIndex.pks(100).isEmpty());
+        Assert.assertEquals(Set.of(1L), entityIndex.pks(200));
+
+        entityIndex.remove(1L, pnode);
+        Assert.assertTrue(entityIndex.pks(200).isEmpty());
+    }
+
+    @Test
+    public void staleRemovalTest() throws Exception {
+        var entityIndex = entityIndex("c");
+        var oldPnode = new PNode<>(new UserEntity(1, (byte) 0, (short) 0, 100, false, "", ""));
+        var newPnode = new PNode<>(new UserEntity(1, (byte) 0, (short) 0, 100, false, "", ""));
+        entityIndex.index(1L, oldPnode);
+
+        // 重新加载之后才收到旧的PNode的移除通知，不能移除新的索引
+        entityIndex.index(1L, newPnode);
+        entityIndex.remove(1L, oldPnode);
+        Assert.assertEquals(Set.of(1L), entityIndex.pks(100));
+
+        entityIndex.remove(1L, newPnode);
+        Assert.assertTrue(entityIndex.pks(100).isEmpty());
+    }
+
+    @Test
+    public void collectionIndexTest() throws Exception {
+        var entityIndex = entityIndex("l");
+        var entity = new UserEntity(1, (byte) 0, (short) 0, 0, false, "", "");
+        entity.setL(List.of(1, 2, 2));
+        entityIndex.index(1L, new PNode<>(entity));
+        Assert.assertEquals(Set.of(1L), entityIndex.pks(1));
+        Assert.assertEquals(Set.of(1L), entityIndex.pks(2));
+        Assert.assertTrue(entityIndex.pks(3).isEmpty());
+    }
+
+    @Test
+    public void completeTest() throws Exception {
+        var entityIndex = entityIndex("c");
+        var pnode = new PNode<>(new UserEntity(1, (byte) 0, (short) 0, 100, false, "", ""));
+        entityIndex.index(1L, pnode);
+
+        var stamp = entityIndex.removeStamp();
+        entityIndex.complete(100, stamp);
+        Assert.assertTrue(entityIndex.isComplete(100));
+
+        // 移除一个实体之后索引不再完整
+        entityIndex.remove(1L, pnode);
+        Assert.assertFalse(entityIndex.isComplete(100));
+
+        // 从数据库加载的过程中有实体被移除，不能标记为完整
+        entityIndex.index(1L, pnode);
+        stamp = entityIndex.removeStamp();
+        entityIndex.remove(1L, pnode);
+        entityIndex.complete(100, stamp);
+        Assert.assertFalse(entityIndex.isComplete(100));
+    }
+
+    @Test
+    public void insertedTest() throws Exception {
+        var entityIndex = entityIndex("l");
+        var entity = new UserEntity(1, (byte) 0, (short) 0, 0, false, "", "");
+        entity.setL(List.of(1));
+        entityIndex.index(1L, new PNode<>(entity));
+        entityIndex.complete(1, entityIndex.removeStamp());
+        entityIndex.complete(2, entityIndex.removeStamp());
+
+        // 不经过缓存插入了一个索引的值为1的实体，值为1的索引不再完整
+        var inserted = new UserEntity(2, (byte) 0, (short) 0, 0, false, "", "");
+        inserted.setL(List.of(1));
+        var stamp = entityIndex.removeStamp();
+        entityIndex.inserted(inserted);
+        Assert.assertFalse(entityIndex.isComplete(1));
+        Assert.assertTrue(entityIndex.isComplete(2));
+
+        // 插入之前开始的数据库查询不能标记为完整
+        entityIndex.complete(1, stamp);
+        Assert.assertFalse(entityIndex.isComplete(1));
+    }
+
+}
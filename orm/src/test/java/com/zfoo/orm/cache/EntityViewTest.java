@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.cache;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import com.zfoo.orm.model.vo.ViewDef;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.List;
+
+/**
+ * 视图只加载实体的部分属性
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityViewTest {
+
+    public static class UserView {
+        private long id;
+        private int c;
+        private String e;
+    }
+
+    public static class WrongView {
+        private String c;
+    }
+
+    @Test
+    public void viewDefTest() {
+        var viewDef = ViewDef.valueOf(UserEntity.class, UserView.class);
+        Assert.assertArrayEquals(new String[]{"_id", "c", "e"}, viewDef.getIncludeFields());
+
+        var view = viewDef.newView(new UserEntity(1, (byte) 1, (short) 1, 2, true, "e", "f"));
+        Assert.assertEquals(1, view.id);
+        Assert.assertEquals(2, view.c);
+        Assert.assertEquals("e", view.e);
+
+        Assert.assertThrows(RuntimeException.class, () -> ViewDef.valueOf(UserEntity.class, WrongView.class));
+    }
+
+    @Test
+    public void loadViewTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            for (var i = 1; i <= 10; i++) {
+                OrmContext.getAccessor().insert(new UserEntity(i, (byte) 1, (short) 1, i, true, "name" + i, "f"));
+            }
+
+            var entityCaches = (IEntityCaches<Long, UserEntity>) OrmContext.getOrmManager().getEntityCaches(UserEntity.class);
+
+            // 缓存中没有的时候从数据库中投影，不放入缓存
+            var view = entityCaches.loadView(1L, UserView.class);
+            Assert.assertEquals("name1", view.e);
+            Assert.assertEquals(0, entityCaches.size());
+            Assert.assertNull(entityCaches.loadView(100L, UserView.class));
+
+            // 缓存中的实体比数据库中的新
+            var entity = entityCaches.load(2L);
+            entity.setE("modified");
+            entityCaches.update(entity);
+
+            var viewMap = entityCaches.loadAllViews(List.of(3L, 2L, 100L, 1L), UserView.class);
+            Assert.assertEquals(List.of(3L, 2L, 1L), List.copyOf(viewMap.keySet()));
+            Assert.assertEquals("modified", viewMap.get(2L).e);
+            Assert.assertEquals(3, viewMap.get(3L).c);
+
+            var views = OrmContext.getQuery().queryFieldInView("c", List.of(4, 5), UserEntity.class, UserView.class);
+            Assert.assertEquals(2, views.size());
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.cache;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.entity.WarmUpEnt;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * 逐个加载和批量加载的对比，需要先执行AccessorTest.testBatchInsert插入数据
+ * <p>
+ * 第一次执行的时候插入WarmUpEnt，之后再执行的时候WarmUpEnt在启动时被预加载
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class LoadAllTest {
+
+    @Test
+    public void loadAllTest() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(TestUnit.CONFIG_LOCATION);
+        IEntityCaches<Long, UserEntity> entityCaches = (IEntityCaches<Long, UserEntity>) OrmContext.getOrmManager().getEntityCaches(UserEntity.class);
+        IEntityCaches<Long, WarmUpEnt> warmUpCaches = (IEntityCaches<Long, WarmUpEnt>) OrmContext.getOrmManager().getEntityCaches(WarmUpEnt.class);
+        System.out.println("预加载之后缓存的数量：" + warmUpCaches.size());
+        if (warmUpCaches.size() == 0) {
+            var warmUpEntities = LongStream.rangeClosed(1, 2000).mapToObj(it -> new WarmUpEnt(it, (int) (it % 100), "name" + it)).collect(Collectors.toList());
+            OrmContext.getAccessor().batchInsert(warmUpEntities);
+        }
+
+        var pks = LongStream.rangeClosed(2000, 2999).boxed().collect(Collectors.toList());
+
+        var startTime = System.currentTimeMillis();
+        var entities = new ArrayList<UserEntity>();
+        for (var pk : pks.subList(0, 500)) {
+            entities.add(entityCaches.load(pk));
+        }
+        System.out.println("load 500个实体耗时：" + (System.currentTimeMillis() - startTime));
+
+        startTime = System.currentTimeMillis();
+        var entityMap = entityCaches.loadAll(pks.subList(500, 1000));
+        System.out.println("loadAll 500个实体耗时：" + (System.currentTimeMillis() - startTime) + "，数量：" + entityMap.size());
+    }
+
+}
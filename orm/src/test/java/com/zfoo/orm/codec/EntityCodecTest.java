@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.codec;
+
+import com.mongodb.MongoClientSettings;
+import com.zfoo.orm.entity.MailEnt;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.codec.EntityCodecProvider;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityCodecTest {
+
+    private static final CodecRegistry pojoRegistry = CodecRegistries.fromRegistries(MongoClientSettings.getDefaultCodecRegistry()
+            , CodecRegistries.fromProviders(PojoCodecProvider.builder().automatic(true).build()));
+
+    private static final CodecRegistry entityRegistry = CodecRegistries.fromRegistries(
+            CodecRegistries.fromProviders(new EntityCodecProvider(Set.of(UserEntity.class, MailEnt.class, Unsupported.class)))
+            , pojoRegistry);
+
+    private UserEntity newUserEntity() {
+        var entity = new UserEntity(1, (byte) 1, (short) 2, 3, true, "e", null);
+        entity.setL(new ArrayList<>(Arrays.asList(1, null, 3)));
+        return entity;
+    }
+
+    @Test
+    public void userEntityTest() {
+        var pojoCodec = pojoRegistry.get(UserEntity.class);
+        var entityCodec = entityRegistry.get(UserEntity.class);
+        Assert.assertNotEquals(pojoCodec.getClass(), entityCodec.getClass());
+
+        // 生成的编解码器和PojoCodec编码出来的字节完全一致
+        var entity = newUserEntity();
+        var pojoDocument = new RawBsonDocument(entity, pojoCodec);
+        var entityDocument = new RawBsonDocument(entity, entityCodec);
+        Assert.assertEquals(pojoDocument, entityDocument);
+        Assert.assertEquals(pojoDocument.toJson(), entityDocument.toJson());
+
+        var decodeEntity = entityDocument.decode(entityCodec);
+        Assert.assertEquals(pojoDocument, new RawBsonDocument(decodeEntity, pojoCodec));
+        Assert.assertNull(decodeEntity.getF());
+    }
+
+    @Test
+    public void mailEntTest() {
+        var entityCodec = entityRegistry.get(MailEnt.class);
+        var entity = new MailEnt("mailId", "userName", "content");
+        var pojoDocument = new RawBsonDocument(entity, pojoRegistry.get(MailEnt.class));
+        Assert.assertEquals(pojoDocument.toJson(), new RawBsonDocument(entity, entityCodec).toJson());
+        Assert.assertEquals("content", pojoDocument.decode(entityCodec).getContent());
+    }
+
+    @Test
+    public void fallbackTest() {
+        // 不支持的实体类交给PojoCodecProvider
+        Assert.assertEquals(pojoRegistry.get(Unsupported.class).getClass(), entityRegistry.get(Unsupported.class).getClass());
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkTest() {
+        var entity = newUserEntity();
+        benchmark("pojo", pojoRegistry.get(UserEntity.class), entity);
+        benchmark("entity", entityRegistry.get(UserEntity.class), entity);
+    }
+
+    private void benchmark(String name, Codec<UserEntity> codec, UserEntity entity) {
+        var count = 1_000_000;
+        for (var i = 0; i < count; i++) {
+            new RawBsonDocument(entity, codec).decode(codec);
+        }
+
+        var startTime = System.currentTimeMillis();
+        for (var i = 0; i < count; i++) {
+            new RawBsonDocument(entity, codec);
+        }
+        var encodeTime = System.currentTimeMillis() - startTime;
+
+        var document = new RawBsonDocument(entity, codec);
+        startTime = System.currentTimeMillis();
+        for (var i = 0; i < count; i++) {
+            document.decode(codec);
+        }
+        var decodeTime = System.currentTimeMillis() - startTime;
+        System.out.println(name + " encode: " + encodeTime + "ms decode: " + decodeTime + "ms");
+    }
+
+    public static class Unsupported {
+        private Object value;
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+    }
+
+}
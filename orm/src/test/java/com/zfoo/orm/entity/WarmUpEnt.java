@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.entity;
+
+import com.zfoo.orm.model.anno.*;
+import com.zfoo.orm.model.entity.IEntity;
+
+/**
+ * 启动的时候按照level从大到小预加载1000个的实体
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@EntityCache(cacheStrategy = "tenThousand", persister = @Persister("time30s"), warmUp = @WarmUp(size = 1000, index = "level"))
+public class WarmUpEnt implements IEntity<Long> {
+
+    @Id
+    private long id;
+
+    @Index(ascending = false, unique = false)
+    private int level;
+
+    private String name;
+
+    public WarmUpEnt() {
+    }
+
+    public WarmUpEnt(long id, int level, String name) {
+        this.id = id;
+        this.level = level;
+        this.name = name;
+    }
+
+    @Override
+    public Long id() {
+        return id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
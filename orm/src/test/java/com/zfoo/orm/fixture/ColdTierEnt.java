@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.fixture;
+
+import com.zfoo.orm.model.anno.ColdTier;
+import com.zfoo.orm.model.anno.EntityCache;
+import com.zfoo.orm.model.anno.Id;
+import com.zfoo.orm.model.anno.Persister;
+import com.zfoo.orm.model.entity.IEntity;
+
+/**
+ * 开启了冷缓存的实体，一级缓存只有10个，被淘汰的实体进入冷缓存
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@EntityCache(cacheStrategy = "ten", persister = @Persister("time1d"), coldTier = @ColdTier(maxBytes = 1024 * 1024))
+public class ColdTierEnt implements IEntity<Long> {
+
+    @Id
+    private long id;
+
+    private String name;
+
+    public ColdTierEnt() {
+    }
+
+    public ColdTierEnt(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Override
+    public Long id() {
+        return id;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
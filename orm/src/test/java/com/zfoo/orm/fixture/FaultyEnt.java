@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.fixture;
+
+import com.zfoo.orm.model.anno.EntityCache;
+import com.zfoo.orm.model.anno.Id;
+import com.zfoo.orm.model.anno.Persister;
+import com.zfoo.orm.model.entity.IEntity;
+
+/**
+ * name为faulty的时候编码失败的实体，定时持久化在测试期间不会触发
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@EntityCache(cacheStrategy = "thousand", persister = @Persister("time1d"))
+public class FaultyEnt implements IEntity<Long> {
+
+    @Id
+    private long id;
+
+    private String name;
+
+    private long vs;
+
+    public FaultyEnt() {
+    }
+
+    public FaultyEnt(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Override
+    public Long id() {
+        return id;
+    }
+
+    @Override
+    public long gvs() {
+        return vs;
+    }
+
+    @Override
+    public void svs(long vs) {
+        this.vs = vs;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        if ("faulty".equals(name)) {
+            throw new IllegalStateException("faulty entity");
+        }
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getVs() {
+        return vs;
+    }
+
+    public void setVs(long vs) {
+        this.vs = vs;
+    }
+}
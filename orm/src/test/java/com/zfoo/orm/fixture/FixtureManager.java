@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.fixture;
+
+import com.zfoo.orm.model.anno.EntityCachesInjection;
+import com.zfoo.orm.model.cache.IEntityCaches;
+
+/**
+ * 只在内存数据库的配置中声明，注入这个包下的实体的缓存
+ * <p>
+ * 这个包下的实体使用内存数据库的配置中才有的策略，或者只用来测试某一个特性，不在application.xml的扫描范围内，所以不能通过组件扫描注入
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class FixtureManager {
+
+    @EntityCachesInjection
+    private IEntityCaches<Long, ItemEnt> itemEntityCaches;
+
+    @EntityCachesInjection
+    private IEntityCaches<Long, FaultyEnt> faultyEntityCaches;
+
+    @EntityCachesInjection
+    private IEntityCaches<Long, ColdTierEnt> coldTierEntityCaches;
+
+    public IEntityCaches<Long, ItemEnt> getItemEntityCaches() {
+        return itemEntityCaches;
+    }
+
+    public IEntityCaches<Long, FaultyEnt> getFaultyEntityCaches() {
+        return faultyEntityCaches;
+    }
+
+    public IEntityCaches<Long, ColdTierEnt> getColdTierEntityCaches() {
+        return coldTierEntityCaches;
+    }
+
+}
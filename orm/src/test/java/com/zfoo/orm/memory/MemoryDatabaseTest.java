@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.memory;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.cache.IEntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import com.zfoo.orm.model.query.SeekPage;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.List;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class MemoryDatabaseTest {
+
+    private static final BsonDocument document = BsonDocument.parse("{_id: 1, vs: 3, name: 'zfoo', level: 10, tags: [1, 2, 3]}");
+
+    @Test
+    public void matchesTest() {
+        Assert.assertTrue(matches("{}"));
+        Assert.assertTrue(matches("{_id: 1}"));
+        Assert.assertTrue(matches("{_id: {$numberLong: '1'}}"));
+        Assert.assertFalse(matches("{_id: 2}"));
+
+        // 持久化器的vs版本号过滤条件
+        Assert.assertTrue(matches("{$and: [{_id: 1}, {vs: 3}]}"));
+        Assert.assertFalse(matches("{$and: [{_id: 1}, {vs: 2}]}"));
+
+        Assert.assertTrue(matches("{level: {$gt: 9, $lte: 10}}"));
+        Assert.assertFalse(matches("{level: {$gt: 10}}"));
+        Assert.assertTrue(matches("{level: {$ne: 11}}"));
+        Assert.assertTrue(matches("{$or: [{level: 1}, {name: 'zfoo'}]}"));
+        Assert.assertTrue(matches("{name: {$in: ['a', 'zfoo']}}"));
+        Assert.assertFalse(matches("{name: {$nin: ['a', 'zfoo']}}"));
+        Assert.assertTrue(matches("{name: {$regex: '^zf.*'}}"));
+        Assert.assertFalse(matches("{name: {$regex: '^oo.*'}}"));
+        Assert.assertTrue(matches("{missing: {$exists: false}}"));
+        Assert.assertTrue(matches("{missing: null}"));
+
+        // 数组中有一个元素相等就算相等
+        Assert.assertTrue(matches("{tags: 2}"));
+        Assert.assertFalse(matches("{tags: 4}"));
+    }
+
+    @Test
+    public void compareTest() {
+        Assert.assertEquals(0, MemoryDatabase.compare(new BsonInt32(1), new BsonInt64(1)));
+        Assert.assertTrue(MemoryDatabase.compare(new BsonInt32(1), new BsonInt64(2)) < 0);
+        Assert.assertTrue(MemoryDatabase.compare(null, new BsonInt32(1)) < 0);
+    }
+
+    @Test
+    public void memoryOrmTest() {
+        MemoryDatabase.clear();
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var accessor = OrmContext.getAccessor();
+            var query = OrmContext.getQuery();
+            for (var i = 1; i <= 10; i++) {
+                Assert.assertTrue(accessor.insert(new UserEntity(i, (byte) 1, (short) 1, i, true, "name" + i, "f")));
+            }
+            Assert.assertFalse(accessor.insert(new UserEntity(1, (byte) 1, (short) 1, 1, true, "name1", "f")));
+
+            Assert.assertEquals(10, query.queryAll(UserEntity.class).size());
+            Assert.assertEquals(2, query.queryFieldIn("c", List.of(3, 4), UserEntity.class).size());
+            Assert.assertEquals(2, query.queryFieldLike("e", "name1", UserEntity.class).size());
+
+            SeekPage<UserEntity> page = query.seekQuery("c", null, 4, UserEntity.class);
+            Assert.assertEquals(4, page.getList().size());
+            page = query.seekQuery("c", page, 4, UserEntity.class);
+            page = query.seekQuery("c", page, 4, UserEntity.class);
+            Assert.assertEquals(2, page.getList().size());
+            Assert.assertFalse(page.hasNext());
+
+            // 通过缓存修改，持久化之后只写入改变的属性
+            var entityCaches = (IEntityCaches<Long, UserEntity>) OrmContext.getOrmManager().getEntityCaches(UserEntity.class);
+            var entity = entityCaches.load(1L);
+            entity.setE("newName");
+            entityCaches.update(entity);
+            entityCaches.persistAll();
+            Assert.assertEquals("newName", accessor.load(1L, UserEntity.class).getE());
+
+            // 内容没有改变的更新不算作修改
+            Assert.assertFalse(accessor.update(accessor.load(2L, UserEntity.class)));
+            Assert.assertTrue(accessor.delete(2L, UserEntity.class));
+            Assert.assertNull(accessor.load(2L, UserEntity.class));
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+        }
+    }
+
+    private boolean matches(String filter) {
+        return MemoryDatabase.matches(BsonDocument.parse(filter), document);
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.orm.metrics;
+
+import com.zfoo.orm.model.metrics.EntityMetrics;
+import com.zfoo.orm.model.metrics.LatencyHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityMetricsTest {
+
+    @Test
+    public void histogramTest() {
+        var histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.percentileMicros(0.99));
+
+        for (var i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(100, histogram.count());
+        Assert.assertEquals(50, histogram.meanMicros());
+        Assert.assertEquals(100, histogram.maxMicros());
+
+        // 50落在[32, 64)的桶中，返回桶的上界
+        Assert.assertEquals(63, histogram.percentileMicros(0.5));
+        Assert.assertEquals(100, histogram.percentileMicros(0.99));
+    }
+
+    @Test
+    public void mbeanTest() throws Exception {
+        var metrics = new EntityMetrics("MetricsTestEntity", () -> 3, () -> 0);
+        metrics.registerMBean();
+        metrics.recordBulkWrite(10, 2_000_000);
+        metrics.recordBulkWrite(20, 1_000_000);
+
+        var objectName = new ObjectName("com.zfoo.orm:type=EntityMetrics,name=MetricsTestEntity");
+        var mbs = ManagementFactory.getPlatformMBeanServer();
+        Assert.assertEquals(2L, mbs.getAttribute(objectName, "BulkWriteCount"));
+        Assert.assertEquals(30L, mbs.getAttribute(objectName, "BulkWriteEntityCount"));
+        Assert.assertEquals(20L, mbs.getAttribute(objectName, "BulkWriteMaxBatchSize"));
+        Assert.assertEquals(3L, mbs.getAttribute(objectName, "DirtyBacklog"));
+
+        // 重复注册替换之前的指标
+        new EntityMetrics("MetricsTestEntity", () -> 0, () -> 0).registerMBean();
+        Assert.assertEquals(0L, mbs.getAttribute(objectName, "BulkWriteCount"));
+        mbs.unregisterMBean(objectName);
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+package com.zfoo.orm.persister;
+
+import com.zfoo.orm.OrmContext;
+import com.zfoo.orm.TestUnit;
+import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.cache.EntityCaches;
+import com.zfoo.orm.model.memory.MemoryDatabase;
+import com.zfoo.orm.model.persister.EntityJournal;
+import com.zfoo.protocol.util.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class EntityJournalTest {
+
+    @Test
+    public void sealAndTruncateTest() {
+        var directory = new File(System.getProperty("java.io.tmpdir"), "zfoo-journal-test-" + System.nanoTime());
+        try {
+            var path = directory.getAbsolutePath();
+            // 很小的segment强制滚动，比segment还大的记录也能写入
+            try (var journal = new EntityJournal(path, 64)) {
+                journal.append(record(20, (byte) 1), 0, 20);
+                journal.append(record(100, (byte) 2), 0, 100);
+                var sealIndex = journal.seal();
+                journal.append(record(30, (byte) 3), 0, 30);
+
+                var records = EntityJournal.records(path);
+                Assert.assertEquals(3, records.size());
+                Assert.assertArrayEquals(record(100, (byte) 2), records.get(1));
+
+                // 持久化成功之后只剩下seal之后的修改
+                journal.truncate(sealIndex);
+                records = EntityJournal.records(path);
+                Assert.assertEquals(1, records.size());
+                Assert.assertArrayEquals(record(30, (byte) 3), records.get(0));
+            }
+
+            // 重新打开之后接着写新的segment
+            try (var journal = new EntityJournal(path, 64)) {
+                journal.append(record(10, (byte) 4), 0, 10);
+            }
+            Assert.assertEquals(2, EntityJournal.records(path).size());
+        } finally {
+            FileUtils.deleteFile(directory);
+        }
+    }
+
+    @Test
+    public void tornRecordTest() throws Exception {
+        var directory = new File(System.getProperty("java.io.tmpdir"), "zfoo-journal-test-" + System.nanoTime());
+        try {
+            var path = directory.getAbsolutePath();
+            try (var journal = new EntityJournal(path, 1024)) {
+                journal.append(record(20, (byte) 1), 0, 20);
+                journal.append(record(20, (byte) 2), 0, 20);
+            }
+
+            // 模拟崩溃的时候第二条记录只写了一半
+            var segment = EntityJournal.segments(path).get(0);
+            try (var file = new RandomAccessFile(segment, "rw")) {
+                file.seek(EntityJournal.RECORD_HEAD_LENGTH + 20 + EntityJournal.RECORD_HEAD_LENGTH + 10);
+                file.write(new byte[10]);
+            }
+
+            var records = EntityJournal.records(path);
+            Assert.assertEquals(1, records.size());
+            Assert.assertArrayEquals(record(20, (byte) 1), records.get(0));
+        } finally {
+            FileUtils.deleteFile(directory);
+        }
+    }
+
+    @Test
+    public void flushJournalTest() {
+        MemoryDatabase.clear();
+        var directory = new File(System.getProperty("java.io.tmpdir"), "zfoo-journal-test-" + System.nanoTime());
+        var context = new ClassPathXmlApplicationContext(TestUnit.MEMORY_CONFIG_LOCATION);
+        try {
+            var entityCaches = (EntityCaches<Long, UserEntity>) OrmContext.getOrmManager().getEntityCaches(UserEntity.class);
+            entityCaches.startJournal(directory.getAbsolutePath());
+            var path = new File(directory, UserEntity.class.getSimpleName()).getAbsolutePath();
+
+            // update只做标记，同一个实体在两次写日志之间的多次修改只写一条记录
+            var entity = new UserEntity(1, (byte) 1, (short) 1, 1, true, "name", "f");
+            entityCaches.insert(entity);
+            entity.setE("modified");
+            entityCaches.update(entity);
+            Assert.assertEquals(0, EntityJournal.records(path).size());
+
+            entityCaches.flushJournal();
+            Assert.assertEquals(1, EntityJournal.records(path).size());
+
+            // 没有新的修改不会重复写
+            entityCaches.flushJournal();
+            Assert.assertEquals(1, EntityJournal.records(path).size());
+
+            entity.setF("f2");
+            entityCaches.update(entity);
+            entityCaches.flushJournal();
+            Assert.assertEquals(2, EntityJournal.records(path).size());
+
+            // 持久化成功之后日志被删除
+            entityCaches.persistAll();
+            Assert.assertEquals(0, EntityJournal.records(path).size());
+        } finally {
+            context.close();
+            MemoryDatabase.clear();
+            FileUtils.deleteFile(directory);
+        }
+    }
+
+    private byte[] record(int length, byte value) {
+        var record = new byte[length];
+        Arrays.fill(record, value);
+        return record;
+    }
+
+}
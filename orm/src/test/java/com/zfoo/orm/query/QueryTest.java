@@ -16,11 +16,13 @@ package com.zfoo.orm.query;
 import com.zfoo.orm.OrmContext;
 import com.zfoo.orm.TestUnit;
 import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.model.query.SeekPage;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author jaysunxiao
@@ -43,5 +45,22 @@ public class QueryTest {
         System.out.println(list);
     }
 
+    @Test
+    public void queryAllStreamTest() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(TestUnit.CONFIG_LOCATION);
+        var count = new AtomicInteger(0);
+        OrmContext.getQuery().queryAllStream(UserEntity.class, 1000, entity -> count.incrementAndGet(), "c");
+        System.out.println(count.get());
+    }
+
+    @Test
+    public void seekQueryTest() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(TestUnit.CONFIG_LOCATION);
+        SeekPage<UserEntity> page = null;
+        do {
+            page = OrmContext.getQuery().seekQuery("c", page, 100, UserEntity.class);
+            System.out.println(page.getList().size() + " " + page.getLastKey() + " " + page.getLastId());
+        } while (page.hasNext());
+    }
 
 }
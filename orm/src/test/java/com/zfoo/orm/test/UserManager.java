@@ -13,7 +13,9 @@
 
 package com.zfoo.orm.test;
 
+import com.zfoo.orm.entity.PlayerEnt;
 import com.zfoo.orm.entity.UserEntity;
+import com.zfoo.orm.entity.WarmUpEnt;
 import com.zfoo.orm.model.anno.EntityCachesInjection;
 import com.zfoo.orm.model.cache.IEntityCaches;
 import org.springframework.stereotype.Component;
@@ -28,8 +30,22 @@ public class UserManager {
     @EntityCachesInjection
     private IEntityCaches<Long, UserEntity> entityCaches;
 
+    @EntityCachesInjection
+    private IEntityCaches<Long, PlayerEnt> playerEntityCaches;
+
+    @EntityCachesInjection
+    private IEntityCaches<Long, WarmUpEnt> warmUpEntityCaches;
+
     public IEntityCaches<Long, UserEntity> getEntityCaches() {
         return entityCaches;
     }
 
+    public IEntityCaches<Long, PlayerEnt> getPlayerEntityCaches() {
+        return playerEntityCaches;
+    }
+
+    public IEntityCaches<Long, WarmUpEnt> getWarmUpEntityCaches() {
+        return warmUpEntityCaches;
+    }
+
 }
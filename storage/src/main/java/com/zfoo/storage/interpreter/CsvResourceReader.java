@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import com.zfoo.protocol.util.IOUtils;
+import com.zfoo.protocol.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CSV格式的配置表解析器，格式和Excel一致：第一行是属性名称，第二行和第三行是描述，第四行开始是数据，第一列为空的行会被跳过
+ * <p>
+ * 文件使用UTF-8编码，可以带BOM
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class CsvResourceReader implements IResourceReader {
+
+    public static final String SUFFIX = "csv";
+
+    @Override
+    public <T> List<T> read(InputStream inputStream, Class<T> clazz) {
+        var injector = new ResourceInjector<>(clazz, ResourceTable.resourceFieldNames(clazz));
+        var result = new ArrayList<T>();
+        readRows(inputStream, clazz, row -> result.add(injector.newInstance(row)));
+        return result;
+    }
+
+    @Override
+    public ResourceTable readTable(InputStream inputStream, Class<?> clazz) {
+        var rows = new ArrayList<String[]>();
+        readRows(inputStream, clazz, rows::add);
+        return new ResourceTable(ResourceTable.resourceFieldNames(clazz), rows);
+    }
+
+    private void readRows(InputStream inputStream, Class<?> clazz, Consumer<String[]> consumer) {
+        CsvTokenizer tokenizer;
+        try {
+            tokenizer = new CsvTokenizer(IOUtils.toByteArray(inputStream));
+        } catch (IOException e) {
+            throw new RuntimeException(StringUtils.format("静态资源[{}]异常，无法读取文件", clazz.getSimpleName()), e);
+        }
+
+        var fieldRow = tokenizer.nextRow();
+        if (fieldRow == null) {
+            throw new RuntimeException(StringUtils.format("无法获取资源[class:{}]的CSV文件的属性控制列", clazz.getSimpleName()));
+        }
+        var fieldInfos = ExcelResourceReader.getFieldInfos(fieldRow, clazz);
+
+        // 行数定位到有效数据行，默认是第四行为有效数据行
+        tokenizer.nextRow();
+        tokenizer.nextRow();
+
+        List<String> cells;
+        while ((cells = tokenizer.nextRow()) != null) {
+            var row = cells;
+            var contents = ExcelResourceReader.rowContents(fieldInfos, index -> index < row.size() ? row.get(index) : null, clazz);
+            if (contents != null) {
+                consumer.accept(contents);
+            }
+        }
+    }
+
+}
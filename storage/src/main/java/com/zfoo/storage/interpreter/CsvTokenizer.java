@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV的分词器，整个文件只解码一次到同一个char数组中，直接在数组上按照下标切分单元格，不会为每一行创建字符串，也不使用split和正则
+ * <p>
+ * 支持RFC 4180的引号规则，引号中的逗号和换行属于单元格的内容，两个连续的引号表示一个引号；空行会被跳过
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+class CsvTokenizer {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char BOM = '\uFEFF';
+
+    private final char[] buffer;
+    private final int limit;
+    private int position;
+
+    private final List<String> cells = new ArrayList<>();
+
+    CsvTokenizer(byte[] bytes) {
+        CharBuffer charBuffer = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes));
+        this.buffer = charBuffer.array();
+        this.position = charBuffer.arrayOffset() + charBuffer.position();
+        this.limit = charBuffer.arrayOffset() + charBuffer.limit();
+        if (position < limit && buffer[position] == BOM) {
+            position++;
+        }
+    }
+
+    /**
+     * 读取下一行，返回的列表会在下一次调用的时候复用
+     *
+     * @return 每个单元格的内容，去掉了首尾的空白；没有更多的行返回null
+     */
+    List<String> nextRow() {
+        // 跳过空行
+        while (position < limit && (buffer[position] == '\r' || buffer[position] == '\n')) {
+            position++;
+        }
+        if (position >= limit) {
+            return null;
+        }
+
+        cells.clear();
+        while (true) {
+            cells.add(position < limit && buffer[position] == QUOTE ? quotedCell() : cell());
+
+            if (position >= limit) {
+                return cells;
+            }
+            var ch = buffer[position++];
+            if (ch == '\r') {
+                if (position < limit && buffer[position] == '\n') {
+                    position++;
+                }
+                return cells;
+            }
+            if (ch == '\n') {
+                return cells;
+            }
+            // 剩下的只能是分隔符，继续读取下一个单元格
+        }
+    }
+
+    private String cell() {
+        var start = position;
+        while (position < limit) {
+            var ch = buffer[position];
+            if (ch == SEPARATOR || ch == '\r' || ch == '\n') {
+                break;
+            }
+            position++;
+        }
+        return slice(start, position);
+    }
+
+    private String quotedCell() {
+        // 跳过开始的引号
+        var start = ++position;
+        StringBuilder builder = null;
+        while (position < limit) {
+            var ch = buffer[position];
+            if (ch != QUOTE) {
+                position++;
+                continue;
+            }
+
+            // 两个连续的引号表示一个引号，只有这种情况才需要拷贝
+            if (position + 1 < limit && buffer[position + 1] == QUOTE) {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(buffer, start, position + 1 - start);
+                position += 2;
+                start = position;
+                continue;
+            }
+            break;
+        }
+
+        String value;
+        if (builder == null) {
+            value = slice(start, position);
+        } else {
+            builder.append(buffer, start, position - start);
+            value = builder.toString().trim();
+        }
+
+        // 跳过结束的引号，以及引号和分隔符之间的内容
+        position++;
+        while (position < limit && buffer[position] != SEPARATOR && buffer[position] != '\r' && buffer[position] != '\n') {
+            position++;
+        }
+        return value;
+    }
+
+    private String slice(int start, int end) {
+        while (start < end && Character.isWhitespace(buffer[start])) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        return new String(buffer, start, end - start);
+    }
+
+}
@@ -13,22 +13,19 @@
 
 package com.zfoo.storage.interpreter;
 
-import com.zfoo.protocol.util.ReflectionUtils;
 import com.zfoo.protocol.util.StringUtils;
-import com.zfoo.storage.StorageContext;
 import com.zfoo.storage.model.anno.Id;
 import com.zfoo.storage.util.CellUtils;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.springframework.core.convert.TypeDescriptor;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -37,12 +34,15 @@ import java.util.stream.Collectors;
  */
 public class ExcelResourceReader implements IResourceReader {
 
-    private static final TypeDescriptor TYPE_DESCRIPTOR = TypeDescriptor.valueOf(String.class);
-
     @Override
     public <T> List<T> read(InputStream inputStream, Class<T> clazz) {
+        return readTable(inputStream, clazz).newInstances(clazz);
+    }
+
+    @Override
+    public ResourceTable readTable(InputStream inputStream, Class<?> clazz) {
         var wb = createWorkbook(inputStream, clazz);
-        var result = new ArrayList<T>();
+        var rows = new ArrayList<String[]>();
 
         // 默认取到第一个sheet页
         var sheet = wb.getSheetAt(0);
@@ -57,63 +57,45 @@ public class ExcelResourceReader implements IResourceReader {
         // 从ROW_SERVER这行开始读取数据
         while (iterator.hasNext()) {
             var row = iterator.next();
-            var instance = ReflectionUtils.newInstance(clazz);
-
-            var idCell = row.getCell(0);
-            if (idCell == null || StringUtils.isBlank(CellUtils.getCellStringValue(idCell))) {
+            var contents = rowContents(fieldInfos, index -> {
+                var cell = row.getCell(index);
+                return cell == null ? null : CellUtils.getCellStringValue(cell);
+            }, clazz);
+            if (contents == null) {
                 continue;
             }
 
-            for (var fieldInfo : fieldInfos) {
-                var cell = row.getCell(fieldInfo.index);
-                if (cell != null) {
-                    var content = CellUtils.getCellStringValue(cell);
-                    if (!StringUtils.isEmpty(content)) {
-                        inject(instance, fieldInfo.field, content);
-                    }
-                }
-
-                // 如果读的是id列的单元格，则判断当前id是否为空
-                if (fieldInfo.field.isAnnotationPresent(Id.class)) {
-                    if (cell == null || StringUtils.isEmpty(CellUtils.getCellStringValue(cell))) {
-                        throw new RuntimeException(StringUtils.format("静态资源[resource:{}]存在id未配置的项", clazz.getSimpleName()));
-                    }
-                }
-            }
-
-            result.add(instance);
+            rows.add(contents);
         }
-        return result;
-    }
 
-    private void inject(Object instance, Field field, String content) {
-        try {
-            var targetType = new TypeDescriptor(field);
-            var value = StorageContext.getConversionService().convert(content, TYPE_DESCRIPTOR, targetType);
-            ReflectionUtils.makeAccessible(field);
-            ReflectionUtils.setField(field, instance, value);
-        } catch (Exception e) {
-            throw new RuntimeException(StringUtils.format("无法将Excel资源[class:{}]中的[content:{}]转换为属性[field:{}]"
-                    , instance.getClass().getSimpleName(), content, field.getName()), e);
-        }
+        var fieldNames = fieldInfos.stream().map(it -> it.field.getName()).toArray(String[]::new);
+        return new ResourceTable(fieldNames, rows);
     }
 
 
-    // 只读取代码里写的字段
-    private Collection<FieldInfo> getFieldInfos(Sheet sheet, Class<?> clazz) {
+    private List<FieldInfo> getFieldInfos(Sheet sheet, Class<?> clazz) {
         var fieldRow = getFieldRow(sheet);
         if (fieldRow == null) {
             throw new RuntimeException(StringUtils.format("无法获取资源[class:{}]的Excel文件的属性控制列", clazz.getSimpleName()));
         }
 
-        var cellFieldMap = new HashMap<String, Integer>();
+        var fieldNames = new ArrayList<String>();
         for (var i = 0; i < fieldRow.getLastCellNum(); i++) {
             var cell = fieldRow.getCell(i);
-            if (Objects.isNull(cell)) {
-                continue;
-            }
+            fieldNames.add(Objects.isNull(cell) ? null : CellUtils.getCellStringValue(cell));
+        }
+        return getFieldInfos(fieldNames, clazz);
+    }
 
-            var name = CellUtils.getCellStringValue(cell);
+    /**
+     * 只读取代码里写的字段
+     *
+     * @param fieldRow 属性控制行，下标为列号，空的单元格为null
+     */
+    static List<FieldInfo> getFieldInfos(List<String> fieldRow, Class<?> clazz) {
+        var cellFieldMap = new HashMap<String, Integer>();
+        for (var i = 0; i < fieldRow.size(); i++) {
+            var name = fieldRow.get(i);
             if (StringUtils.isEmpty(name)) {
                 continue;
             }
@@ -124,10 +106,7 @@ public class ExcelResourceReader implements IResourceReader {
             }
         }
 
-        var fieldList = Arrays.stream(clazz.getDeclaredFields())
-                .filter(it -> !Modifier.isTransient(it.getModifiers()))
-                .filter(it -> !Modifier.isStatic(it.getModifiers()))
-                .collect(Collectors.toList());
+        var fieldList = ResourceTable.resourceFields(clazz);
 
         for (var field : fieldList) {
             if (!cellFieldMap.containsKey(field.getName())) {
@@ -139,6 +118,32 @@ public class ExcelResourceReader implements IResourceReader {
 
     }
 
+    /**
+     * 按照属性的顺序取出一行中每个单元格的内容，第一列为空的行不是有效数据行，返回null
+     *
+     * @param cellFunction 根据列号获取单元格的内容，单元格不存在返回null
+     */
+    static String[] rowContents(List<FieldInfo> fieldInfos, IntFunction<String> cellFunction, Class<?> clazz) {
+        if (StringUtils.isBlank(cellFunction.apply(0))) {
+            return null;
+        }
+
+        var contents = new String[fieldInfos.size()];
+        var i = 0;
+        for (var fieldInfo : fieldInfos) {
+            var content = cellFunction.apply(fieldInfo.index);
+            contents[i++] = StringUtils.isEmpty(content) ? null : content;
+
+            // 如果读的是id列的单元格，则判断当前id是否为空
+            if (fieldInfo.field.isAnnotationPresent(Id.class)) {
+                if (StringUtils.isEmpty(content)) {
+                    throw new RuntimeException(StringUtils.format("静态资源[resource:{}]存在id未配置的项", clazz.getSimpleName()));
+                }
+            }
+        }
+        return contents;
+    }
+
     // 获取配置表的有效列名称，默认第一行就是字段名称
     private Row getFieldRow(Sheet sheet) {
         var iterator = sheet.iterator();
@@ -156,7 +161,7 @@ public class ExcelResourceReader implements IResourceReader {
     }
 
 
-    private static class FieldInfo {
+    static class FieldInfo {
         public final int index;
         public final Field field;
 
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import com.zfoo.protocol.util.StringUtils;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于POI事件模型（SAX）的Excel解析器，不会在内存中构建整个workbook，一行一行的解析并转换为资源对象，适合很大的配置表
+ * <p>
+ * 只有xlsx格式支持流式解析，xls格式的配置表交给ExcelResourceReader解析
+ * <p>
+ * 单元格的取值规则和CellUtils保持一致，所以两种解析器读出来的资源是完全相同的
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ExcelStreamResourceReader implements IResourceReader {
+
+    private final ExcelResourceReader workbookReader = new ExcelResourceReader();
+
+    @Override
+    public <T> List<T> read(InputStream inputStream, Class<T> clazz) {
+        var input = FileMagic.prepareToCheckMagic(inputStream);
+        if (!isOOXML(input, clazz)) {
+            return workbookReader.read(input, clazz);
+        }
+
+        var injector = new ResourceInjector<>(clazz, ResourceTable.resourceFieldNames(clazz));
+        var result = new ArrayList<T>();
+        readRows(input, clazz, row -> result.add(injector.newInstance(row)));
+        return result;
+    }
+
+    @Override
+    public ResourceTable readTable(InputStream inputStream, Class<?> clazz) {
+        var input = FileMagic.prepareToCheckMagic(inputStream);
+        if (!isOOXML(input, clazz)) {
+            return workbookReader.readTable(input, clazz);
+        }
+
+        var rows = new ArrayList<String[]>();
+        readRows(input, clazz, rows::add);
+        return new ResourceTable(ResourceTable.resourceFieldNames(clazz), rows);
+    }
+
+    private boolean isOOXML(InputStream input, Class<?> clazz) {
+        try {
+            return FileMagic.valueOf(input) == FileMagic.OOXML;
+        } catch (IOException e) {
+            throw new RuntimeException(StringUtils.format("静态资源[{}]异常，无法读取文件", clazz.getSimpleName()), e);
+        }
+    }
+
+    private void readRows(InputStream input, Class<?> clazz, Consumer<String[]> consumer) {
+        File tempFile = null;
+        OPCPackage opcPackage = null;
+        try {
+            // 从InputStream打开会把整个压缩包解压到内存中，先写入临时文件，从文件打开只会按需读取第一个sheet
+            tempFile = File.createTempFile(clazz.getSimpleName(), ".xlsx");
+            Files.copy(input, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            opcPackage = OPCPackage.open(tempFile, PackageAccess.READ);
+
+            var xssfReader = new XSSFReader(opcPackage);
+            var handler = new SheetHandler(clazz, new ReadOnlySharedStringsTable(opcPackage), xssfReader.getStylesTable(), consumer);
+
+            // 默认取到第一个sheet页
+            var sheets = xssfReader.getSheetsData();
+            try (var sheet = sheets.next()) {
+                var parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(handler);
+                parser.parse(new InputSource(sheet));
+            }
+
+            if (!handler.hasFieldRow()) {
+                throw new RuntimeException(StringUtils.format("无法获取资源[class:{}]的Excel文件的属性控制列", clazz.getSimpleName()));
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(StringUtils.format("静态资源[{}]异常，无法读取文件", clazz.getSimpleName()), e);
+        } finally {
+            if (opcPackage != null) {
+                // 只读打开的文件不需要保存，直接revert
+                opcPackage.revert();
+            }
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+
+    private static class SheetHandler extends DefaultHandler {
+
+        private final Class<?> clazz;
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final Consumer<String[]> consumer;
+
+        private List<ExcelResourceReader.FieldInfo> fieldInfos;
+
+        /**
+         * 已经读取的行数，只统计实际存在的行，和Sheet.iterator()的行为一致
+         */
+        private int rowCount;
+        private final List<String> rowCells = new ArrayList<>();
+
+        private int column;
+        private String cellType;
+        private String cellStyle;
+        private boolean collecting;
+        private final StringBuilder cellValue = new StringBuilder();
+
+        SheetHandler(Class<?> clazz, ReadOnlySharedStringsTable sharedStrings, StylesTable styles, Consumer<String[]> consumer) {
+            this.clazz = clazz;
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.consumer = consumer;
+        }
+
+        boolean hasFieldRow() {
+            return fieldInfos != null;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    rowCells.clear();
+                    column = 0;
+                    break;
+                case "c":
+                    var reference = attributes.getValue("r");
+                    column = reference == null ? column : new CellReference(reference).getCol();
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    cellValue.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    collecting = true;
+                    break;
+                default:
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                cellValue.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    collecting = false;
+                    break;
+                case "c":
+                    while (rowCells.size() <= column) {
+                        rowCells.add(null);
+                    }
+                    rowCells.set(column, cellStringValue());
+                    column++;
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+            }
+        }
+
+        private void endRow() {
+            rowCount++;
+
+            // 默认第一行就是字段名称，第四行开始为有效数据行
+            if (rowCount == 1) {
+                fieldInfos = ExcelResourceReader.getFieldInfos(new ArrayList<>(rowCells), clazz);
+                return;
+            }
+            if (rowCount <= 3) {
+                return;
+            }
+
+            var contents = ExcelResourceReader.rowContents(fieldInfos, this::cell, clazz);
+            if (contents == null) {
+                return;
+            }
+            consumer.accept(contents);
+        }
+
+        private String cell(int index) {
+            return index < rowCells.size() ? rowCells.get(index) : null;
+        }
+
+        // 和CellUtils.getCellStringValue的取值规则保持一致
+        private String cellStringValue() {
+            var value = cellValue.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                return StringUtils.isEmpty(value) ? StringUtils.EMPTY : numericValue(Double.parseDouble(value)).trim();
+            }
+            switch (cellType) {
+                case "s":
+                    return sharedStrings.getItemAt(Integer.parseInt(value)).getString().trim();
+                case "b":
+                    return String.valueOf("1".equals(value));
+                default:
+                    // inlineStr，str（公式的字符串结果），e（错误）直接取文本
+                    return value.trim();
+            }
+        }
+
+        private String numericValue(double value) {
+            var style = styles == null ? null : styles.getStyleAt(cellStyle == null ? 0 : Integer.parseInt(cellStyle));
+            if (style == null) {
+                return String.valueOf(value);
+            }
+
+            // 判断是否为日期
+            var format = style.getDataFormatString();
+            if (DateUtil.isValidExcelDate(value) && DateUtil.isADateFormat(style.getDataFormat(), format)) {
+                return DateUtil.getJavaDate(value).toString();
+            }
+
+            // 普通数字，对于无小数部分的数字类型，转为Long
+            if (format != null && !format.contains(StringUtils.PERIOD)) {
+                var longValue = (long) value;
+                if (longValue == value) {
+                    return String.valueOf(longValue);
+                }
+            }
+            return String.valueOf(value);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+/**
+ * 由javassist为每个资源类生成的注入器，见ResourcePopulatorUtils
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public interface IResourcePopulator {
+
+    /**
+     * @param row 按照资源类声明属性顺序排列的原始字符串，空的单元格为null
+     */
+    Object newInstance(String[] row);
+
+}
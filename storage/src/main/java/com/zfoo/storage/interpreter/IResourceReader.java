@@ -29,4 +29,9 @@ public interface IResourceReader {
 
     <T> List<T> read(InputStream inputStream, Class<T> clazz);
 
+    /**
+     * 只解析出每一行的原始字符串，不做类型转换，用于生成二进制快照
+     */
+    ResourceTable readTable(InputStream inputStream, Class<?> clazz);
+
 }
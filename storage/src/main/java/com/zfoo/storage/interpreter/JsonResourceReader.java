@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.storage.model.anno.Id;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JSON格式的配置表解析器，文件是一个对象数组，对象的key对应资源类的属性名称，没有对应属性的key会被忽略
+ * <p>
+ * 使用Jackson的流式解析，数组和对象类型的值保留原始的json字符串，和Excel一样交给对应的转换器转换
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class JsonResourceReader implements IResourceReader {
+
+    public static final String SUFFIX = "json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public <T> List<T> read(InputStream inputStream, Class<T> clazz) {
+        var injector = new ResourceInjector<>(clazz, ResourceTable.resourceFieldNames(clazz));
+        var result = new ArrayList<T>();
+        readRows(inputStream, clazz, row -> result.add(injector.newInstance(row)));
+        return result;
+    }
+
+    @Override
+    public ResourceTable readTable(InputStream inputStream, Class<?> clazz) {
+        var rows = new ArrayList<String[]>();
+        readRows(inputStream, clazz, rows::add);
+        return new ResourceTable(ResourceTable.resourceFieldNames(clazz), rows);
+    }
+
+    private void readRows(InputStream inputStream, Class<?> clazz, Consumer<String[]> consumer) {
+        var fields = ResourceTable.resourceFields(clazz);
+        var fieldIndexMap = new HashMap<String, Integer>();
+        var idIndex = -1;
+        for (var i = 0; i < fields.size(); i++) {
+            fieldIndexMap.put(fields.get(i).getName(), i);
+            if (fields.get(i).isAnnotationPresent(Id.class)) {
+                idIndex = i;
+            }
+        }
+
+        try (var parser = MAPPER.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException(StringUtils.format("静态资源[{}]的JSON文件必须是一个对象数组", clazz.getSimpleName()));
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                var contents = new String[fields.size()];
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    var index = fieldIndexMap.get(parser.getCurrentName());
+                    var valueToken = parser.nextToken();
+                    if (index == null) {
+                        parser.skipChildren();
+                        continue;
+                    }
+
+                    String content;
+                    if (valueToken == JsonToken.START_ARRAY || valueToken == JsonToken.START_OBJECT) {
+                        content = MAPPER.writeValueAsString(parser.readValueAsTree());
+                    } else if (valueToken == JsonToken.VALUE_NULL) {
+                        content = null;
+                    } else {
+                        content = parser.getText();
+                    }
+                    contents[index] = StringUtils.isEmpty(content) ? null : content;
+                }
+
+                if (idIndex >= 0 && contents[idIndex] == null) {
+                    throw new RuntimeException(StringUtils.format("静态资源[resource:{}]存在id未配置的项", clazz.getSimpleName()));
+                }
+                consumer.accept(contents);
+            }
+
+            if (token != JsonToken.END_ARRAY) {
+                throw new RuntimeException(StringUtils.format("静态资源[{}]的JSON文件必须是一个对象数组", clazz.getSimpleName()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(StringUtils.format("静态资源[{}]异常，无法读取文件", clazz.getSimpleName()), e);
+        }
+    }
+
+}
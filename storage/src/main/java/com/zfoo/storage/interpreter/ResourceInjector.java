@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import com.zfoo.protocol.util.ReflectionUtils;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.storage.StorageContext;
+import org.springframework.core.convert.TypeDescriptor;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把一行按照资源类声明属性顺序排列的原始字符串，通过ConversionService转换后注入到新的资源对象中
+ * <p>
+ * 资源类可以生成注入器的时候，使用生成的注入器，见ResourcePopulatorUtils。注入器按资源类缓存，同一个资源类只生成一次
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+class ResourceInjector<T> {
+
+    private static final TypeDescriptor TYPE_DESCRIPTOR = TypeDescriptor.valueOf(String.class);
+
+    private final Class<T> clazz;
+
+    private final List<Field> fields;
+
+    private final TypeDescriptor[] targetTypes;
+
+    private final IResourcePopulator populator;
+
+    ResourceInjector(Class<T> clazz, String[] fieldNames) {
+        this.clazz = clazz;
+        this.fields = ResourceTable.resourceFields(clazz);
+
+        var names = fields.stream().map(it -> it.getName()).toArray(String[]::new);
+        if (!Arrays.equals(names, fieldNames)) {
+            throw new RuntimeException(StringUtils.format("资源类[class:{}]的声明属性{}和配置表的属性{}不一致"
+                    , clazz.getSimpleName(), Arrays.toString(names), Arrays.toString(fieldNames)));
+        }
+
+        this.targetTypes = new TypeDescriptor[fields.size()];
+        for (var i = 0; i < fields.size(); i++) {
+            ReflectionUtils.makeAccessible(fields.get(i));
+            targetTypes[i] = new TypeDescriptor(fields.get(i));
+        }
+
+        this.populator = ResourcePopulatorUtils.populator(clazz);
+    }
+
+    T newInstance(String[] row) {
+        if (populator != null) {
+            try {
+                return (T) populator.newInstance(row);
+            } catch (Exception e) {
+                // 生成的注入器不知道是哪个属性转换失败，用反射注入重新转换一次，给出准确的错误信息
+            }
+        }
+
+        var instance = ReflectionUtils.newInstance(clazz);
+        for (var i = 0; i < fields.size(); i++) {
+            var content = row[i];
+            if (!StringUtils.isEmpty(content)) {
+                inject(instance, fields.get(i), targetTypes[i], content);
+            }
+        }
+        return instance;
+    }
+
+    private void inject(Object instance, Field field, TypeDescriptor targetType, String content) {
+        try {
+            var value = StorageContext.getConversionService().convert(content, TYPE_DESCRIPTOR, targetType);
+            ReflectionUtils.setField(field, instance, value);
+        } catch (Exception e) {
+            throw new RuntimeException(StringUtils.format("无法将资源[class:{}]中的[content:{}]转换为属性[field:{}]"
+                    , clazz.getSimpleName(), content, field.getName()), e);
+        }
+    }
+
+}
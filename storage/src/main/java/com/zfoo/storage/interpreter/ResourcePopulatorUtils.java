@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import com.zfoo.protocol.exception.ExceptionUtils;
+import com.zfoo.protocol.util.ReflectionUtils;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.storage.StorageContext;
+import javassist.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.util.NumberUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用javassist为资源类生成注入器，直接调用set方法，基础类型直接解析，省去每个单元格的反射和ConversionService的查找
+ * <p>
+ * 基础类型的解析规则和Spring默认的转换器保持一致，数组，集合和对象等复杂类型仍然交给ConversionService转换
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class ResourcePopulatorUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourcePopulatorUtils.class);
+
+    private static final AtomicInteger index = new AtomicInteger(0);
+
+    private static final String populatorUtils = ResourcePopulatorUtils.class.getCanonicalName();
+
+    private static final TypeDescriptor TYPE_DESCRIPTOR = TypeDescriptor.valueOf(String.class);
+
+    /**
+     * 和Spring的StringToBooleanConverter保持一致
+     */
+    private static final Set<String> TRUE_VALUES = Set.of("true", "on", "yes", "1");
+    private static final Set<String> FALSE_VALUES = Set.of("false", "off", "no", "0");
+
+    /**
+     * key：基础类型和包装类型，value：解析的表达式
+     */
+    private static final Map<Class<?>, String> scalarParserMap = new HashMap<>();
+
+    /**
+     * 资源类对应的注入器，以及不能生成注入器的资源类
+     */
+    private static final Map<Class<?>, IResourcePopulator> populatorMap = new ConcurrentHashMap<>();
+    private static final Set<Class<?>> unsupportedSet = ConcurrentHashMap.newKeySet();
+
+    static {
+        register(boolean.class, Boolean.class, "parseBoolean", "booleanValue");
+        register(byte.class, Byte.class, "parseByte", "byteValue");
+        register(short.class, Short.class, "parseShort", "shortValue");
+        register(int.class, Integer.class, "parseInt", "intValue");
+        register(long.class, Long.class, "parseLong", "longValue");
+        register(float.class, Float.class, "parseFloat", "floatValue");
+        register(double.class, Double.class, "parseDouble", "doubleValue");
+        register(char.class, Character.class, "parseChar", "charValue");
+        scalarParserMap.put(String.class, "{}");
+    }
+
+    private static void register(Class<?> primitiveClazz, Class<?> boxedClazz, String parser, String unbox) {
+        var boxedParser = StringUtils.format("{}.{}({})", populatorUtils, parser, "{}");
+        scalarParserMap.put(boxedClazz, boxedParser);
+        scalarParserMap.put(primitiveClazz, StringUtils.format("({}).{}()", boxedParser, unbox));
+    }
+
+    /**
+     * 获取资源类的注入器，不能生成的返回null，调用者应该回退到反射注入
+     */
+    public static IResourcePopulator populator(Class<?> clazz) {
+        var populator = populatorMap.get(clazz);
+        if (populator != null || unsupportedSet.contains(clazz)) {
+            return populator;
+        }
+
+        // javassist的ClassPool不是线程安全的，并行加载配置表的时候串行生成
+        synchronized (ResourcePopulatorUtils.class) {
+            populator = populatorMap.get(clazz);
+            if (populator != null || unsupportedSet.contains(clazz)) {
+                return populator;
+            }
+
+            var reason = unsupportedReason(clazz);
+            if (reason == null) {
+                try {
+                    populator = createPopulator(clazz);
+                    populatorMap.put(clazz, populator);
+                    return populator;
+                } catch (Throwable t) {
+                    reason = ExceptionUtils.getMessage(t);
+                }
+            }
+
+            logger.info("资源类[{}]无法生成注入器，使用反射注入，原因：{}", clazz.getSimpleName(), reason);
+            unsupportedSet.add(clazz);
+            return null;
+        }
+    }
+
+    /**
+     * 判断资源类能否生成注入器，不能生成的返回原因
+     */
+    public static String unsupportedReason(Class<?> clazz) {
+        if (!Modifier.isPublic(clazz.getModifiers()) || Modifier.isAbstract(clazz.getModifiers()) || clazz.getEnclosingClass() != null) {
+            return "resource class is not a public top level class";
+        }
+        try {
+            if (!Modifier.isPublic(clazz.getConstructor().getModifiers())) {
+                return "resource class has no public constructor";
+            }
+        } catch (NoSuchMethodException e) {
+            return "resource class has no public constructor";
+        }
+
+        for (var field : ResourceTable.resourceFields(clazz)) {
+            try {
+                clazz.getMethod(ReflectionUtils.fieldToSetMethod(clazz, field), field.getType());
+                if (!Modifier.isPublic(field.getType().getModifiers())) {
+                    return StringUtils.format("field:[{}] type is not public", field.getName());
+                }
+            } catch (Exception e) {
+                return StringUtils.format("field:[{}] has no public set method", field.getName());
+            }
+        }
+        return null;
+    }
+
+    private static IResourcePopulator createPopulator(Class<?> clazz) throws Exception {
+        var fields = ResourceTable.resourceFields(clazz);
+        var targetTypes = new TypeDescriptor[fields.size()];
+        for (var i = 0; i < fields.size(); i++) {
+            targetTypes[i] = new TypeDescriptor(fields.get(i));
+        }
+
+        var classPool = ClassPool.getDefault();
+        if (classPool.find(clazz.getCanonicalName()) == null) {
+            classPool.insertClassPath(new ClassClassPath(clazz));
+        }
+
+        // 定义类名称，生成的类和ResourcePopulatorUtils放在同一个包下
+        var enhanceClazz = classPool.makeClass(StringUtils.format("{}.ResourcePopulator{}{}", ResourcePopulatorUtils.class.getPackageName(), clazz.getSimpleName(), index.incrementAndGet()));
+        enhanceClazz.addInterface(classPool.get(IResourcePopulator.class.getCanonicalName()));
+
+        var targetTypesField = new CtField(classPool.get(TypeDescriptor[].class.getCanonicalName()), "targetTypes", enhanceClazz);
+        targetTypesField.setModifiers(Modifier.PRIVATE);
+        enhanceClazz.addField(targetTypesField);
+
+        var constructor = new CtConstructor(classPool.get(new String[]{TypeDescriptor[].class.getCanonicalName()}), enhanceClazz);
+        constructor.setBody("{this.targetTypes=$1;}");
+        constructor.setModifiers(Modifier.PUBLIC);
+        enhanceClazz.addConstructor(constructor);
+
+        var newInstanceMethod = new CtMethod(classPool.get(Object.class.getCanonicalName()), "newInstance", classPool.get(new String[]{String[].class.getCanonicalName()}), enhanceClazz);
+        newInstanceMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        newInstanceMethod.setBody(newInstanceMethodBody(clazz, fields));
+        enhanceClazz.addMethod(newInstanceMethod);
+
+        // 释放缓存
+        enhanceClazz.detach();
+
+        var resultClazz = enhanceClazz.toClass(ResourcePopulatorUtils.class);
+        return (IResourcePopulator) resultClazz.getConstructor(TypeDescriptor[].class).newInstance((Object) targetTypes);
+    }
+
+    private static String newInstanceMethodBody(Class<?> clazz, List<Field> fields) {
+        var builder = new StringBuilder();
+        builder.append("{");
+        builder.append(StringUtils.format("{} instance = new {}();", clazz.getCanonicalName(), clazz.getCanonicalName()));
+        builder.append("String content;");
+        for (var i = 0; i < fields.size(); i++) {
+            var field = fields.get(i);
+            var setter = ReflectionUtils.fieldToSetMethod(clazz, field);
+
+            var parser = scalarParserMap.get(field.getType());
+            String value;
+            if (parser != null) {
+                value = StringUtils.format(parser, "content");
+            } else {
+                value = StringUtils.format("({}) {}.convert(content, this.targetTypes[{}])", field.getType().getCanonicalName(), populatorUtils, i);
+            }
+
+            builder.append(StringUtils.format("content = $1[{}];", i));
+            builder.append(StringUtils.format("if (content != null && content.length() > 0) { instance.{}({}); }", setter, value));
+        }
+        builder.append("return instance;");
+        builder.append("}");
+        return builder.toString();
+    }
+
+
+    //---------------------------------------------生成的注入器调用的方法---------------------------------------------
+    // 数字的解析和Spring的StringToNumberConverterFactory保持一致，支持首尾空白和16进制
+    public static Byte parseByte(String content) {
+        return NumberUtils.parseNumber(content, Byte.class);
+    }
+
+    public static Short parseShort(String content) {
+        return NumberUtils.parseNumber(content, Short.class);
+    }
+
+    public static Integer parseInt(String content) {
+        return NumberUtils.parseNumber(content, Integer.class);
+    }
+
+    public static Long parseLong(String content) {
+        return NumberUtils.parseNumber(content, Long.class);
+    }
+
+    public static Float parseFloat(String content) {
+        return NumberUtils.parseNumber(content, Float.class);
+    }
+
+    public static Double parseDouble(String content) {
+        return NumberUtils.parseNumber(content, Double.class);
+    }
+
+    public static Boolean parseBoolean(String content) {
+        var value = content.trim().toLowerCase();
+        if (TRUE_VALUES.contains(value)) {
+            return Boolean.TRUE;
+        }
+        if (FALSE_VALUES.contains(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException(StringUtils.format("Invalid boolean value '{}'", content));
+    }
+
+    public static Character parseChar(String content) {
+        if (content.length() > 1) {
+            throw new IllegalArgumentException(StringUtils.format("Can only convert a [String] with length of 1 to a [Character]; string value '{}'  has length of {}", content, content.length()));
+        }
+        return content.charAt(0);
+    }
+
+    public static Object convert(String content, TypeDescriptor targetType) {
+        return StorageContext.getConversionService().convert(content, TYPE_DESCRIPTOR, targetType);
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import com.zfoo.protocol.util.IOUtils;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.storage.StorageContext;
+import com.zfoo.util.security.MD5Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 配置表的二进制快照，第一次启动的时候用POI解析Excel并生成快照，之后的启动直接内存映射快照文件，跳过POI的解析
+ * <p>
+ * 快照以源文件内容的MD5作为key，配置表有任何修改或者资源类的属性有变化，快照都会失效并重新从Excel生成
+ * <p>
+ * 格式：magic，version，md5，属性数量，属性名称，行数，然后按行依次保存每个单元格的原始字符串，长度为-1表示空单元格
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class ResourceSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceSnapshot.class);
+
+    public static final String SNAPSHOT_SUFFIX = "snapshot";
+
+    private static final int MAGIC = 0x7A666F6F;
+
+    private static final int VERSION = 1;
+
+    private static final int NULL_LENGTH = -1;
+
+
+    /**
+     * 优先从快照加载，快照不存在或者已经过期则从原始的配置文件解析，并重新生成快照
+     */
+    public static ResourceTable load(Resource resource, File snapshotDirectory, Class<?> clazz) throws IOException {
+        var bytes = IOUtils.toByteArray(resource.getInputStream());
+        var hash = MD5Utils.bytesToMD5(bytes);
+        var snapshotFile = snapshotFile(snapshotDirectory, clazz);
+
+        var table = read(snapshotFile, hash, clazz);
+        if (table != null) {
+            return table;
+        }
+
+        table = StorageContext.getResourceReader().readTable(new ByteArrayInputStream(bytes), clazz);
+        try {
+            write(snapshotFile, hash, table);
+        } catch (IOException e) {
+            // 快照只是启动加速，写入失败不影响配置表的加载
+            logger.warn("配置表[resource:{}]的快照[file:{}]生成失败", clazz.getSimpleName(), snapshotFile, e);
+        }
+        return table;
+    }
+
+    public static File snapshotFile(File snapshotDirectory, Class<?> clazz) {
+        return new File(snapshotDirectory, StringUtils.format("{}.{}", clazz.getName(), SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * @return 快照不存在，或者快照的md5和属性与当前不一致，返回null
+     */
+    @Nullable
+    public static ResourceTable read(File snapshotFile, String hash, Class<?> clazz) {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+
+        try (var channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !hash.equals(readString(buffer))) {
+                return null;
+            }
+
+            var fieldNames = new String[buffer.getInt()];
+            for (var i = 0; i < fieldNames.length; i++) {
+                fieldNames[i] = readString(buffer);
+            }
+            if (!Arrays.equals(fieldNames, ResourceTable.resourceFieldNames(clazz))) {
+                return null;
+            }
+
+            var rowSize = buffer.getInt();
+            var rows = new ArrayList<String[]>(rowSize);
+            for (var i = 0; i < rowSize; i++) {
+                var row = new String[fieldNames.length];
+                for (var j = 0; j < row.length; j++) {
+                    row[j] = readString(buffer);
+                }
+                rows.add(row);
+            }
+            return new ResourceTable(fieldNames, rows);
+        } catch (Exception e) {
+            // 快照损坏的时候回退到原始的配置文件
+            logger.warn("配置表[resource:{}]的快照[file:{}]无法读取", clazz.getSimpleName(), snapshotFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * 先写入临时文件再替换，避免进程中途退出留下不完整的快照
+     */
+    public static void write(File snapshotFile, String hash, ResourceTable table) throws IOException {
+        var directory = snapshotFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+
+        var tempFile = File.createTempFile(snapshotFile.getName(), ".tmp", directory);
+        try (var output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            writeString(output, hash);
+
+            var fieldNames = table.getFieldNames();
+            output.writeInt(fieldNames.length);
+            for (var fieldName : fieldNames) {
+                writeString(output, fieldName);
+            }
+
+            output.writeInt(table.getRows().size());
+            for (var row : table.getRows()) {
+                for (var content : row) {
+                    writeString(output, content);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        var bytes = StringUtils.bytes(value);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return StringUtils.bytesToString(bytes);
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.interpreter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 配置表解析后的中间结果，按照资源类声明属性的顺序保存每一行的原始字符串，为空的单元格保存为null
+ * <p>
+ * 和具体的文件格式无关，既可以从Excel中读取，也可以从二进制快照中读取
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ResourceTable {
+
+    private String[] fieldNames;
+
+    private List<String[]> rows;
+
+    public ResourceTable(String[] fieldNames, List<String[]> rows) {
+        this.fieldNames = fieldNames;
+        this.rows = rows;
+    }
+
+    /**
+     * 只映射代码里声明的非static，非transient属性
+     */
+    public static List<Field> resourceFields(Class<?> clazz) {
+        return Arrays.stream(clazz.getDeclaredFields())
+                .filter(it -> !Modifier.isTransient(it.getModifiers()))
+                .filter(it -> !Modifier.isStatic(it.getModifiers()))
+                .collect(Collectors.toList());
+    }
+
+    public static String[] resourceFieldNames(Class<?> clazz) {
+        return resourceFields(clazz).stream().map(it -> it.getName()).toArray(String[]::new);
+    }
+
+    public <T> List<T> newInstances(Class<T> clazz) {
+        var injector = new ResourceInjector<>(clazz, fieldNames);
+        var result = new ArrayList<T>(rows.size());
+        for (var row : rows) {
+            result.add(injector.newInstance(row));
+        }
+        return result;
+    }
+
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
+
+    public List<String[]> getRows() {
+        return rows;
+    }
+}
@@ -16,17 +16,23 @@ package com.zfoo.storage.manager;
 import com.zfoo.protocol.collection.CollectionUtils;
 import com.zfoo.protocol.exception.ExceptionUtils;
 import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.storage.interpreter.ResourceSnapshot;
 import com.zfoo.storage.model.config.StorageConfig;
 import com.zfoo.storage.model.vo.ResourceDef;
 import com.zfoo.storage.model.vo.Storage;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.type.ClassMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.util.ResourceUtils;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -44,6 +50,11 @@ public class StorageManager implements IStorageManager {
     // classpath：和classpath*： 的区别，前者只会第一个加载到的类，后者会加载所有的类，包括jar文件下的类
     private static final String SUFFIX_PATTERN = "**/*.class";
 
+    /**
+     * 并行加载配置表的线程数
+     */
+    private static final int CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
     private StorageConfig storageConfig;
 
     /**
@@ -66,8 +77,10 @@ public class StorageManager implements IStorageManager {
 
     @Override
     public void initBefore() {
+        // 所有资源类共享同一个resolver，避免每个类都重新创建
+        var resourcePatternResolver = new PathMatchingResourcePatternResolver();
         var resourceDefinitionMap = new HashMap<Class<?>, ResourceDef>();
-        var clazzNameSet = scanResourceAnno(storageConfig.getScanPackage());
+        var clazzNameSet = scanResourceAnno(resourcePatternResolver, storageConfig.getScanPackage());
         for (var clazzName : clazzNameSet) {
             Class<?> resourceClazz;
             try {
@@ -76,7 +89,7 @@ public class StorageManager implements IStorageManager {
                 throw new RuntimeException(StringUtils.format("无法获取资源类[{}]", clazzName));
             }
 
-            var resourceFile = scanResourceFile(resourceClazz);
+            var resourceFile = scanResourceFile(resourcePatternResolver, resourceClazz);
             ResourceDef resourceDef = new ResourceDef(resourceClazz, resourceFile);
             if (resourceDefinitionMap.containsKey(resourceClazz)) {
                 throw new RuntimeException(StringUtils.format("类的资源定义[{}]已经存在[{}]", resourceClazz, resourceDef));
@@ -84,16 +97,76 @@ public class StorageManager implements IStorageManager {
             resourceDefinitionMap.put(resourceClazz, resourceDef);
         }
 
+        var storages = initStorages(resourceDefinitionMap.values(), CONCURRENCY);
+        for (var entry : storages.entrySet()) {
+            storageMap.putIfAbsent(entry.getKey(), entry.getValue());
+            allStorageClassSet.add(entry.getKey());
+        }
+    }
+
+    /**
+     * 在有界的线程池中并行解析和索引配置表，每个配置表的解析互相独立
+     * <p>
+     * 按照类名的顺序返回结果和报告错误，加载失败的时候抛出类名排序最靠前的异常，其它的异常作为suppressed附加在后面，
+     * 所以报告的错误和线程的执行顺序无关
+     *
+     * @param concurrency 并行加载的线程数，小于等于1的时候在当前线程中顺序加载
+     */
+    public Map<Class<?>, Storage<?, ?>> initStorages(Collection<ResourceDef> definitions, int concurrency) {
+        var sortedDefinitions = definitions.stream()
+                .sorted(Comparator.comparing(it -> it.getClazz().getName()))
+                .collect(Collectors.toList());
+
+        var result = new LinkedHashMap<Class<?>, Storage<?, ?>>();
+        if (concurrency <= 1 || sortedDefinitions.size() <= 1) {
+            for (var definition : sortedDefinitions) {
+                result.put(definition.getClazz(), initStorage(definition));
+            }
+            return result;
+        }
+
+        var executor = Executors.newFixedThreadPool(Math.min(concurrency, sortedDefinitions.size()), new DefaultThreadFactory("storage-loader", true));
         try {
-            for (var definition : resourceDefinitionMap.values()) {
-                var clazz = definition.getClazz();
-                Storage<?, ?> storage = new Storage<>();
-                storage.init(definition.getResource().getInputStream(), definition.getClazz());
-                storageMap.putIfAbsent(clazz, storage);
-                allStorageClassSet.add(clazz);
+            var futures = sortedDefinitions.stream()
+                    .map(it -> CompletableFuture.supplyAsync(() -> initStorage(it), executor))
+                    .collect(Collectors.toList());
+
+            RuntimeException exception = null;
+            for (var i = 0; i < sortedDefinitions.size(); i++) {
+                try {
+                    result.put(sortedDefinitions.get(i).getClazz(), futures.get(i).join());
+                } catch (CompletionException e) {
+                    var cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                    if (exception == null) {
+                        exception = cause;
+                    } else {
+                        exception.addSuppressed(cause);
+                    }
+                }
+            }
+
+            if (exception != null) {
+                throw exception;
             }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Storage<?, ?> initStorage(ResourceDef definition) {
+        var clazz = definition.getClazz();
+        try {
+            Storage<?, ?> storage = new Storage<>();
+            if (StringUtils.isBlank(storageConfig.getSnapshotLocation())) {
+                storage.init(definition.getResource().getInputStream(), clazz);
+            } else {
+                var table = ResourceSnapshot.load(definition.getResource(), new File(storageConfig.getSnapshotLocation()), clazz);
+                storage.init(table, clazz);
+            }
+            return storage;
         } catch (Exception e) {
-            throw new RuntimeException(e);
+            throw new RuntimeException(StringUtils.format("静态资源[resource:{}]加载失败", clazz.getSimpleName()), e);
         }
     }
 
@@ -130,8 +203,7 @@ public class StorageManager implements IStorageManager {
         storageMap.put(clazz, storage);
     }
 
-    private Set<String> scanResourceAnno(String scanLocation) {
-        var resourcePatternResolver = new PathMatchingResourcePatternResolver();
+    private Set<String> scanResourceAnno(PathMatchingResourcePatternResolver resourcePatternResolver, String scanLocation) {
         var metadataReaderFactory = new CachingMetadataReaderFactory(resourcePatternResolver);
 
         try {
@@ -155,10 +227,7 @@ public class StorageManager implements IStorageManager {
         }
     }
 
-    private Resource scanResourceFile(Class<?> clazz) {
-        var resourcePatternResolver = new PathMatchingResourcePatternResolver();
-        var metadataReaderFactory = new CachingMetadataReaderFactory(resourcePatternResolver);
-
+    private Resource scanResourceFile(PathMatchingResourcePatternResolver resourcePatternResolver, Class<?> clazz) {
         try {
             var resourceList = new ArrayList<Resource>();
 
@@ -27,6 +27,11 @@ public class StorageConfig {
 
     private String resourceSuffix;
 
+    /**
+     * 配置表二进制快照的保存目录，为空则不使用快照，每次启动都直接解析配置文件
+     */
+    private String snapshotLocation;
+
     public String getId() {
         return id;
     }
@@ -58,4 +63,12 @@ public class StorageConfig {
     public void setResourceSuffix(String resourceSuffix) {
         this.resourceSuffix = resourceSuffix;
     }
+
+    public String getSnapshotLocation() {
+        return snapshotLocation;
+    }
+
+    public void setSnapshotLocation(String snapshotLocation) {
+        this.snapshotLocation = snapshotLocation;
+    }
 }
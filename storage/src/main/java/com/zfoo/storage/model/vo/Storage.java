@@ -19,6 +19,7 @@ import com.zfoo.protocol.util.IOUtils;
 import com.zfoo.protocol.util.ReflectionUtils;
 import com.zfoo.protocol.util.StringUtils;
 import com.zfoo.storage.StorageContext;
+import com.zfoo.storage.interpreter.ResourceTable;
 import org.springframework.lang.Nullable;
 
 import java.io.InputStream;
@@ -48,13 +49,20 @@ public class Storage<K, V> {
     }
 
     public void init(InputStream inputStream, Class<?> resourceClazz) {
+        try {
+            init(StorageContext.getResourceReader().readTable(inputStream, resourceClazz), resourceClazz);
+        } finally {
+            IOUtils.closeIO(inputStream);
+        }
+    }
+
+    public void init(ResourceTable table, Class<?> resourceClazz) {
         try {
             this.clazz = (Class<V>) resourceClazz;
-            var reader = StorageContext.getResourceReader();
             idDef = IdDef.valueOf(resourceClazz);
             indexDefMap = IndexDef.createResourceIndexes(resourceClazz);
 
-            var list = reader.read(inputStream, resourceClazz);
+            var list = table.newInstances(resourceClazz);
 
             dataMap.clear();
             indexMap.clear();
@@ -65,8 +73,6 @@ public class Storage<K, V> {
             }
         } catch (Throwable e) {
             throw new RuntimeException(e.getMessage(), e);
-        } finally {
-            IOUtils.closeIO(inputStream);
         }
     }
 
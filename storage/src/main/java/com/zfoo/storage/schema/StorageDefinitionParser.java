@@ -15,7 +15,9 @@ package com.zfoo.storage.schema;
 
 import com.zfoo.protocol.util.StringUtils;
 import com.zfoo.storage.StorageContext;
-import com.zfoo.storage.interpreter.ExcelResourceReader;
+import com.zfoo.storage.interpreter.CsvResourceReader;
+import com.zfoo.storage.interpreter.ExcelStreamResourceReader;
+import com.zfoo.storage.interpreter.JsonResourceReader;
 import com.zfoo.storage.manager.StorageManager;
 import com.zfoo.storage.model.config.StorageConfig;
 import com.zfoo.storage.strategy.*;
@@ -45,8 +47,8 @@ public class StorageDefinitionParser implements BeanDefinitionParser {
         // 注册StorageConfig
         parseStorageConfig(element, parserContext);
 
-        // 注入StorageSpringContext，ExcelResourceReader，ResInjectionProcessor，ConversionService
-        registerBeanDefinition(parserContext);
+        // 注入StorageSpringContext，IResourceReader，ResInjectionProcessor，ConversionService
+        registerBeanDefinition(element, parserContext);
 
         // 注入StorageManager
         var clazz = StorageManager.class;
@@ -75,11 +77,12 @@ public class StorageDefinitionParser implements BeanDefinitionParser {
         resolvePlaceholder("package", "scanPackage", builder, scanElement, parserContext);
         resolvePlaceholder("location", "resourceLocation", builder, resourceElement, parserContext);
         resolvePlaceholder("suffix", "resourceSuffix", builder, resourceElement, parserContext);
+        resolvePlaceholder("snapshot", "snapshotLocation", builder, resourceElement, parserContext);
 
         parserContext.getRegistry().registerBeanDefinition(clazz.getCanonicalName(), builder.getBeanDefinition());
     }
 
-    private void registerBeanDefinition(ParserContext parserContext) {
+    private void registerBeanDefinition(Element element, ParserContext parserContext) {
         var registry = parserContext.getRegistry();
 
         Class<?> clazz;
@@ -92,8 +95,8 @@ public class StorageDefinitionParser implements BeanDefinitionParser {
         builder = BeanDefinitionBuilder.rootBeanDefinition(clazz);
         registry.registerBeanDefinition(name, builder.getBeanDefinition());
 
-        // 注入ExcelResourceReader
-        clazz = ExcelResourceReader.class;
+        // 根据资源文件的后缀注入IResourceReader，默认为Excel，xlsx流式解析，xls交给ExcelResourceReader解析
+        clazz = resourceReaderClazz(element, parserContext);
         name = StringUtils.uncapitalize(clazz.getName());
         builder = BeanDefinitionBuilder.rootBeanDefinition(clazz);
         registry.registerBeanDefinition(name, builder.getBeanDefinition());
@@ -119,6 +122,19 @@ public class StorageDefinitionParser implements BeanDefinitionParser {
         registry.registerBeanDefinition(name, builder.getBeanDefinition());
     }
 
+    private Class<?> resourceReaderClazz(Element element, ParserContext parserContext) {
+        var resourceElement = DomUtils.getFirstChildElementByTagName(element, "resource");
+        var suffix = parserContext.getReaderContext().getEnvironment().resolvePlaceholders(resourceElement.getAttribute("suffix"));
+        switch (suffix.trim().toLowerCase()) {
+            case CsvResourceReader.SUFFIX:
+                return CsvResourceReader.class;
+            case JsonResourceReader.SUFFIX:
+                return JsonResourceReader.class;
+            default:
+                return ExcelStreamResourceReader.class;
+        }
+    }
+
     private void resolvePlaceholder(String attributeName, String fieldName, BeanDefinitionBuilder builder, Element element, ParserContext parserContext) {
         var attributeValue = element.getAttribute(attributeName);
         var environment = parserContext.getReaderContext().getEnvironment();
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.benchmark;
+
+import com.zfoo.protocol.util.JsonUtils;
+import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.storage.interpreter.CsvResourceReader;
+import com.zfoo.storage.interpreter.ExcelStreamResourceReader;
+import com.zfoo.storage.interpreter.IResourceReader;
+import com.zfoo.storage.interpreter.JsonResourceReader;
+import com.zfoo.storage.interpreter.ResourcePopulatorUtils;
+import com.zfoo.storage.interpreter.ResourceTable;
+import com.zfoo.storage.manager.StorageManager;
+import com.zfoo.storage.model.anno.Id;
+import com.zfoo.storage.model.config.StorageConfig;
+import com.zfoo.storage.model.vo.ResourceDef;
+import javassist.ClassPool;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.annotation.Annotation;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动时间的基准测试，动态生成几百个配置表，比较顺序加载和并行加载的耗时，不同格式的配置表的耗时，以及生成的注入器和反射注入的耗时
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Ignore
+public class StorageBenchmarkTest {
+
+    private static final int TABLE_SIZE = 300;
+
+    private static final int ROW_SIZE = 500;
+
+    /**
+     * 比较配置表格式的时候使用行数较多的配置表
+     */
+    private static final int READER_TABLE_SIZE = 60;
+    private static final int READER_ROW_SIZE = 10000;
+
+    private static final String[] FIELDS = {"id", "name", "level", "rewards"};
+
+    private static final int POPULATOR_LOOP = 20;
+
+    private static final AtomicInteger index = new AtomicInteger(0);
+
+    @Test
+    public void startupBenchmark() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+        var directory = Files.createTempDirectory("storage-benchmark").toFile();
+        var definitions = createDefinitions(directory);
+
+        var storageManager = new StorageManager();
+        storageManager.setStorageConfig(new StorageConfig());
+
+        // 预热
+        storageManager.initStorages(definitions, Runtime.getRuntime().availableProcessors());
+
+        for (var concurrency : new int[]{1, 2, 4, Runtime.getRuntime().availableProcessors()}) {
+            var startTime = System.currentTimeMillis();
+            var storages = storageManager.initStorages(definitions, concurrency);
+            var costTime = System.currentTimeMillis() - startTime;
+            Assert.assertEquals(TABLE_SIZE, storages.size());
+            System.out.println(StringUtils.format("加载[{}]个配置表，[concurrency:{}]，耗时[{}]ms", TABLE_SIZE, concurrency, costTime));
+        }
+
+        for (var file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+        context.close();
+    }
+
+    /**
+     * 比较不同格式的配置表的加载耗时
+     */
+    @Test
+    public void readerBenchmark() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+        var directory = Files.createTempDirectory("storage-benchmark").toFile();
+
+        var classes = new ArrayList<Class<?>>();
+        for (var i = 0; i < READER_TABLE_SIZE; i++) {
+            var clazz = createResourceClass("ReaderResource", false);
+            writeExcel(new File(directory, clazz.getSimpleName() + ".xls"), i, READER_ROW_SIZE);
+            writeCsv(new File(directory, clazz.getSimpleName() + ".csv"), i, READER_ROW_SIZE);
+            writeJson(new File(directory, clazz.getSimpleName() + ".json"), i, READER_ROW_SIZE);
+            classes.add(clazz);
+        }
+
+        // 预热
+        readAll(new CsvResourceReader(), "csv", directory, classes);
+
+        readAll(new ExcelStreamResourceReader(), "xls", directory, classes);
+        readAll(new CsvResourceReader(), "csv", directory, classes);
+        readAll(new JsonResourceReader(), "json", directory, classes);
+
+        for (var file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+        context.close();
+    }
+
+    /**
+     * 比较生成的注入器和反射注入每个单元格的耗时，以及生成一个注入器的耗时，不读取文件，只比较注入
+     */
+    @Test
+    public void populatorBenchmark() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+
+        // 没有set方法的资源类使用反射注入，有set方法的资源类使用生成的注入器
+        var reflectClass = createResourceClass("ReflectResource", false);
+        var populatorClasses = new ArrayList<Class<?>>();
+        for (var i = 0; i < READER_TABLE_SIZE; i++) {
+            populatorClasses.add(createResourceClass("PopulatorResource", true));
+        }
+
+        // 每个资源类只生成一次注入器，这是小配置表使用注入器的全部额外开销
+        var startTime = System.nanoTime();
+        for (var clazz : populatorClasses) {
+            Assert.assertNotNull(ResourcePopulatorUtils.populator(clazz));
+        }
+        var generateMicros = (System.nanoTime() - startTime) / 1000 / READER_TABLE_SIZE;
+        var populatorClass = populatorClasses.get(0);
+
+        // 全部属性的配置表，数组属性两种方式都通过ConversionService转换；只有基础类型属性的配置表，空的单元格不注入
+        var rows = new ArrayList<String[]>(READER_ROW_SIZE);
+        var scalarRows = new ArrayList<String[]>(READER_ROW_SIZE);
+        for (var i = 0; i < READER_ROW_SIZE; i++) {
+            rows.add(new String[]{String.valueOf(i + 1), "name" + i, String.valueOf(i % 100), StringUtils.format("[\"item{}\"]", i)});
+            scalarRows.add(new String[]{String.valueOf(i + 1), "name" + i, String.valueOf(i % 100), null});
+        }
+        var table = new ResourceTable(FIELDS, rows);
+        var scalarTable = new ResourceTable(FIELDS, scalarRows);
+
+        // 预热
+        for (var i = 0; i < POPULATOR_LOOP; i++) {
+            table.newInstances(reflectClass);
+            table.newInstances(populatorClass);
+        }
+
+        var cells = FIELDS.length;
+        var scalarCells = FIELDS.length - 1;
+        System.out.println(StringUtils.format("生成一个注入器耗时[{}]us", generateMicros));
+        System.out.println(StringUtils.format("全部属性，反射注入每个单元格[{}]ns，生成的注入器每个单元格[{}]ns"
+                , cellNanos(table, reflectClass, cells), cellNanos(table, populatorClass, cells)));
+        System.out.println(StringUtils.format("基础类型属性，反射注入每个单元格[{}]ns，生成的注入器每个单元格[{}]ns"
+                , cellNanos(scalarTable, reflectClass, scalarCells), cellNanos(scalarTable, populatorClass, scalarCells)));
+        context.close();
+    }
+
+    private long cellNanos(ResourceTable table, Class<?> clazz, int cellsPerRow) {
+        var startTime = System.nanoTime();
+        for (var i = 0; i < POPULATOR_LOOP; i++) {
+            Assert.assertEquals(READER_ROW_SIZE, table.newInstances(clazz).size());
+        }
+        return (System.nanoTime() - startTime) / POPULATOR_LOOP / ((long) READER_ROW_SIZE * cellsPerRow);
+    }
+
+    private void readAll(IResourceReader reader, String suffix, File directory, List<Class<?>> classes) throws Exception {
+        var startTime = System.currentTimeMillis();
+        for (var i = 0; i < READER_TABLE_SIZE; i++) {
+            try (var input = new FileInputStream(new File(directory, classes.get(i).getSimpleName() + StringUtils.PERIOD + suffix))) {
+                var list = reader.read(input, classes.get(i));
+                Assert.assertEquals(READER_ROW_SIZE, list.size());
+            }
+        }
+        var costTime = System.currentTimeMillis() - startTime;
+        System.out.println(StringUtils.format("[{}]格式加载[{}]个配置表，耗时[{}]ms", suffix, READER_TABLE_SIZE, costTime));
+    }
+
+    private List<ResourceDef> createDefinitions(File directory) throws Exception {
+        var definitions = new ArrayList<ResourceDef>();
+        for (var i = 0; i < TABLE_SIZE; i++) {
+            var clazz = createResourceClass("BenchmarkResource", false);
+            var file = new File(directory, clazz.getSimpleName() + ".xls");
+            writeExcel(file, i, ROW_SIZE);
+            definitions.add(new ResourceDef(clazz, new FileSystemResource(file)));
+        }
+        return definitions;
+    }
+
+    private Class<?> createResourceClass(String prefix, boolean setters) throws Exception {
+        var classPool = ClassPool.getDefault();
+        var ctClass = classPool.makeClass(StorageBenchmarkTest.class.getPackageName() + StringUtils.PERIOD + prefix + index.incrementAndGet());
+        var constPool = ctClass.getClassFile().getConstPool();
+
+        var fields = new ArrayList<CtField>();
+        var idField = CtField.make("private int id;", ctClass);
+        var attribute = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+        attribute.addAnnotation(new Annotation(Id.class.getName(), constPool));
+        idField.getFieldInfo().addAttribute(attribute);
+        fields.add(idField);
+        fields.add(CtField.make("private String name;", ctClass));
+        fields.add(CtField.make("private int level;", ctClass));
+        fields.add(CtField.make("private String[] rewards;", ctClass));
+        for (var field : fields) {
+            ctClass.addField(field);
+            if (setters) {
+                ctClass.addMethod(CtNewMethod.setter("set" + StringUtils.capitalize(field.getName()), field));
+            }
+        }
+        ctClass.addConstructor(CtNewConstructor.defaultConstructor(ctClass));
+
+        var clazz = ctClass.toClass(StorageBenchmarkTest.class);
+        // 动态生成的类没有class文件，生成注入器的时候需要从ClassPool中找到它，不能detach
+        if (!setters) {
+            ctClass.detach();
+        }
+        return clazz;
+    }
+
+    private void writeCsv(File file, int seed, int rowSize) throws Exception {
+        var builder = new StringBuilder();
+        for (var i = 0; i < 3; i++) {
+            builder.append(String.join(",", FIELDS)).append("\n");
+        }
+        for (var i = 0; i < rowSize; i++) {
+            builder.append(StringUtils.format("{},name{}_{},{},\"[\"\"item{}\"\",\"\"item{}\"\"]\"\n", i + 1, seed, i, i % 100, i, seed));
+        }
+        Files.writeString(file.toPath(), builder.toString());
+    }
+
+    private void writeJson(File file, int seed, int rowSize) throws Exception {
+        var list = new ArrayList<Map<String, Object>>();
+        for (var i = 0; i < rowSize; i++) {
+            list.add(Map.of("id", i + 1, "name", "name" + seed + "_" + i, "level", i % 100, "rewards", List.of("item" + i, "item" + seed)));
+        }
+        Files.writeString(file.toPath(), JsonUtils.object2String(list));
+    }
+
+    // 第一行是属性名称，第二行和第三行是描述，第四行开始是数据
+    private void writeExcel(File file, int seed, int rowSize) throws Exception {
+        try (var workbook = new HSSFWorkbook(); var output = new FileOutputStream(file)) {
+            var sheet = workbook.createSheet();
+            for (var i = 0; i < 3; i++) {
+                var row = sheet.createRow(i);
+                for (var j = 0; j < FIELDS.length; j++) {
+                    row.createCell(j).setCellValue(FIELDS[j]);
+                }
+            }
+
+            for (var i = 0; i < rowSize; i++) {
+                var row = sheet.createRow(i + 3);
+                row.createCell(0).setCellValue(i + 1);
+                row.createCell(1).setCellValue("name" + seed + "_" + i);
+                row.createCell(2).setCellValue(i % 100);
+                row.createCell(3).setCellValue("[\"item" + i + "\",\"item" + seed + "\"]");
+            }
+            workbook.write(output);
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.excel;
+
+import com.zfoo.protocol.util.JsonUtils;
+import com.zfoo.storage.interpreter.ExcelResourceReader;
+import com.zfoo.storage.interpreter.ExcelStreamResourceReader;
+import com.zfoo.storage.interpreter.ResourceTable;
+import com.zfoo.storage.model.anno.Id;
+import com.zfoo.storage.resource.StudentResource;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ExcelStreamReaderTest {
+
+    public static class StreamResource {
+        @Id
+        private int id;
+        private String name;
+        private long count;
+        private double ratio;
+        private String[] courses;
+        private boolean flag;
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public String[] getCourses() {
+            return courses;
+        }
+
+        public boolean isFlag() {
+            return flag;
+        }
+    }
+
+    @Test
+    public void xlsxTest() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+        var bytes = createXlsx();
+
+        var workbookTable = new ExcelResourceReader().readTable(new ByteArrayInputStream(bytes), StreamResource.class);
+        var streamTable = new ExcelStreamResourceReader().readTable(new ByteArrayInputStream(bytes), StreamResource.class);
+        assertTableEquals(workbookTable, streamTable);
+        Assert.assertEquals(100, streamTable.getRows().size());
+
+        var workbookResources = new ExcelResourceReader().read(new ByteArrayInputStream(bytes), StreamResource.class);
+        var streamResources = new ExcelStreamResourceReader().read(new ByteArrayInputStream(bytes), StreamResource.class);
+        Assert.assertEquals(JsonUtils.object2String(workbookResources), JsonUtils.object2String(streamResources));
+        Assert.assertEquals(1.5D, streamResources.get(0).getRatio(), 0);
+        Assert.assertNull(streamResources.get(0).getCourses());
+        Assert.assertEquals(2, streamResources.get(1).getCourses().length);
+
+        context.close();
+    }
+
+    @Test
+    public void xlsTest() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+        var resource = new ClassPathResource("excel/StudentResource.xls");
+
+        // xls格式交给ExcelResourceReader解析
+        var workbookTable = new ExcelResourceReader().readTable(resource.getInputStream(), StudentResource.class);
+        var streamTable = new ExcelStreamResourceReader().readTable(resource.getInputStream(), StudentResource.class);
+        assertTableEquals(workbookTable, streamTable);
+
+        context.close();
+    }
+
+    private void assertTableEquals(ResourceTable expected, ResourceTable actual) {
+        Assert.assertArrayEquals(expected.getFieldNames(), actual.getFieldNames());
+        Assert.assertEquals(expected.getRows().size(), actual.getRows().size());
+        for (var i = 0; i < expected.getRows().size(); i++) {
+            Assert.assertArrayEquals(expected.getRows().get(i), actual.getRows().get(i));
+        }
+    }
+
+    // 第一行是属性名称，第二行和第三行是描述，第四行开始是数据，列的顺序和类的属性顺序不同，并且有不映射的列和空行
+    private byte[] createXlsx() throws Exception {
+        try (var workbook = new XSSFWorkbook(); var output = new ByteArrayOutputStream()) {
+            var sheet = workbook.createSheet();
+            var decimalStyle = workbook.createCellStyle();
+            decimalStyle.setDataFormat(workbook.createDataFormat().getFormat("0.00"));
+
+            var fields = new String[]{"id", "flag", "name", "comment", "ratio", "count", "courses"};
+            for (var i = 0; i < 3; i++) {
+                var row = sheet.createRow(i);
+                for (var j = 0; j < fields.length; j++) {
+                    row.createCell(j).setCellValue(i == 0 ? fields[j] : "desc");
+                }
+            }
+
+            var rowIndex = 3;
+            for (var i = 0; i < 100; i++) {
+                var row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(i + 1);
+                row.createCell(1).setCellValue(i % 2 == 0);
+                row.createCell(2).setCellValue("  name" + i + " ");
+                row.createCell(3).setCellValue("not mapped");
+                var ratioCell = row.createCell(4);
+                ratioCell.setCellValue(1.5D + i);
+                if (i % 3 == 0) {
+                    ratioCell.setCellStyle(decimalStyle);
+                }
+                row.createCell(5).setCellValue(i * 1000);
+                if (i % 5 != 0) {
+                    row.createCell(6).setCellValue("[\"math\",\"course" + i + "\"]");
+                }
+
+                // id为空的行会被跳过
+                if (i % 10 == 0) {
+                    sheet.createRow(rowIndex++).createCell(2).setCellValue("empty");
+                }
+            }
+            workbook.write(output);
+            return output.toByteArray();
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.reader;
+
+import com.zfoo.storage.model.anno.Id;
+import com.zfoo.storage.resource.User;
+
+import java.util.List;
+
+/**
+ * 有set方法的资源类，可以生成注入器
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ItemResource {
+
+    @Id
+    private int id;
+    private String name;
+    private Integer level;
+    private long exp;
+    private double ratio;
+    private boolean enable;
+    private char grade;
+    private String[] rewards;
+    private List<Integer> costs;
+    private User user;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public void setLevel(Integer level) {
+        this.level = level;
+    }
+
+    public long getExp() {
+        return exp;
+    }
+
+    public void setExp(long exp) {
+        this.exp = exp;
+    }
+
+    public double getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(double ratio) {
+        this.ratio = ratio;
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public void setEnable(boolean enable) {
+        this.enable = enable;
+    }
+
+    public char getGrade() {
+        return grade;
+    }
+
+    public void setGrade(char grade) {
+        this.grade = grade;
+    }
+
+    public String[] getRewards() {
+        return rewards;
+    }
+
+    public void setRewards(String[] rewards) {
+        this.rewards = rewards;
+    }
+
+    public List<Integer> getCosts() {
+        return costs;
+    }
+
+    public void setCosts(List<Integer> costs) {
+        this.costs = costs;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+}
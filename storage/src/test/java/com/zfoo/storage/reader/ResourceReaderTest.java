@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.reader;
+
+import com.zfoo.protocol.util.JsonUtils;
+import com.zfoo.storage.interpreter.CsvResourceReader;
+import com.zfoo.storage.interpreter.JsonResourceReader;
+import com.zfoo.storage.interpreter.ResourcePopulatorUtils;
+import com.zfoo.storage.resource.StudentResource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ResourceReaderTest {
+
+    @Test
+    public void csvTest() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+        var resources = new CsvResourceReader().read(new ClassPathResource("reader/ItemResource.csv").getInputStream(), ItemResource.class);
+        assertResources(resources);
+        context.close();
+    }
+
+    @Test
+    public void jsonTest() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+        var resources = new JsonResourceReader().read(new ClassPathResource("reader/ItemResource.json").getInputStream(), ItemResource.class);
+        assertResources(resources);
+
+        var csvResources = new CsvResourceReader().read(new ClassPathResource("reader/ItemResource.csv").getInputStream(), ItemResource.class);
+        Assert.assertEquals(JsonUtils.object2String(csvResources), JsonUtils.object2String(resources));
+        context.close();
+    }
+
+    @Test
+    public void populatorTest() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+
+        // 有set方法的资源类生成注入器，没有set方法的资源类使用反射注入
+        Assert.assertNull(ResourcePopulatorUtils.unsupportedReason(ItemResource.class));
+        Assert.assertNotNull(ResourcePopulatorUtils.populator(ItemResource.class));
+        Assert.assertNotNull(ResourcePopulatorUtils.unsupportedReason(StudentResource.class));
+        Assert.assertNull(ResourcePopulatorUtils.populator(StudentResource.class));
+
+        // 只有3行的配置表也使用生成的注入器，结果和csv读取的一致
+        var populator = ResourcePopulatorUtils.populator(ItemResource.class);
+        var table = new CsvResourceReader().readTable(new ClassPathResource("reader/ItemResource.csv").getInputStream(), ItemResource.class);
+        var populatorResources = table.getRows().stream().map(it -> (ItemResource) populator.newInstance(it)).collect(Collectors.toList());
+        assertResources(populatorResources);
+        Assert.assertEquals(JsonUtils.object2String(table.newInstances(ItemResource.class)), JsonUtils.object2String(populatorResources));
+
+        // 转换失败的时候给出准确的属性
+        var csv = "id,name,level,exp,ratio,enable,grade,rewards,costs,user\ndesc\ntype\n1,a,notNumber,1,1,true,A,,,\n";
+        var row = new CsvResourceReader().readTable(new ByteArrayInputStream(csv.getBytes()), ItemResource.class).getRows().get(0);
+        Assert.assertThrows(IllegalArgumentException.class, () -> populator.newInstance(row));
+        try {
+            new CsvResourceReader().read(new ByteArrayInputStream(csv.getBytes()), ItemResource.class);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("[field:level]"));
+        }
+        context.close();
+    }
+
+    private void assertResources(List<ItemResource> resources) {
+        Assert.assertEquals(3, resources.size());
+
+        var sword = resources.get(0);
+        Assert.assertEquals(1, sword.getId());
+        Assert.assertEquals("sword", sword.getName());
+        Assert.assertEquals(Integer.valueOf(10), sword.getLevel());
+        Assert.assertEquals(100000000000L, sword.getExp());
+        Assert.assertEquals(1.5D, sword.getRatio(), 0);
+        Assert.assertTrue(sword.isEnable());
+        Assert.assertEquals('A', sword.getGrade());
+        Assert.assertArrayEquals(new String[]{"gold", "gem"}, sword.getRewards());
+        Assert.assertEquals(List.of(1, 2, 3), sword.getCosts());
+        Assert.assertEquals("jack", sword.getUser().getName());
+        Assert.assertEquals(18, sword.getUser().getAge());
+
+        var shield = resources.get(1);
+        Assert.assertEquals("shield \"big\"", shield.getName());
+        Assert.assertNull(shield.getLevel());
+        Assert.assertTrue(shield.isEnable());
+        Assert.assertEquals(0, shield.getRewards().length);
+        Assert.assertNull(shield.getCosts());
+        Assert.assertNull(shield.getUser());
+
+        var multiLine = resources.get(2);
+        Assert.assertEquals(3, multiLine.getId());
+        Assert.assertEquals("multi\nline", multiLine.getName());
+        Assert.assertEquals(-5L, multiLine.getExp());
+        Assert.assertEquals(2D, multiLine.getRatio(), 0);
+        Assert.assertFalse(multiLine.isEnable());
+        Assert.assertArrayEquals(new String[]{"a,b"}, multiLine.getRewards());
+        Assert.assertEquals(List.of(4), multiLine.getCosts());
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.storage.snapshot;
+
+import com.zfoo.protocol.util.JsonUtils;
+import com.zfoo.storage.StorageContext;
+import com.zfoo.storage.interpreter.ResourceSnapshot;
+import com.zfoo.storage.resource.StudentResource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.file.Files;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ResourceSnapshotTest {
+
+    @Test
+    public void snapshotTest() throws Exception {
+        var context = new ClassPathXmlApplicationContext("application.xml");
+        var resource = new ClassPathResource("excel/StudentResource.xls");
+        var directory = Files.createTempDirectory("storage-snapshot").toFile();
+
+        // 第一次加载从Excel解析并生成快照
+        var excelTable = ResourceSnapshot.load(resource, directory, StudentResource.class);
+        var snapshotFile = ResourceSnapshot.snapshotFile(directory, StudentResource.class);
+        Assert.assertTrue(snapshotFile.isFile());
+
+        // 第二次加载直接读取快照，和Excel解析的结果一致
+        var snapshotTable = ResourceSnapshot.load(resource, directory, StudentResource.class);
+        Assert.assertArrayEquals(excelTable.getFieldNames(), snapshotTable.getFieldNames());
+        Assert.assertEquals(excelTable.getRows().size(), snapshotTable.getRows().size());
+        for (var i = 0; i < excelTable.getRows().size(); i++) {
+            Assert.assertArrayEquals(excelTable.getRows().get(i), snapshotTable.getRows().get(i));
+        }
+
+        var excelResources = StorageContext.getResourceReader().read(resource.getInputStream(), StudentResource.class);
+        var snapshotResources = snapshotTable.newInstances(StudentResource.class);
+        Assert.assertFalse(snapshotResources.isEmpty());
+        Assert.assertEquals(JsonUtils.object2String(excelResources), JsonUtils.object2String(snapshotResources));
+
+        // 源文件的md5变化之后，快照失效
+        Assert.assertNull(ResourceSnapshot.read(snapshotFile, "changed", StudentResource.class));
+
+        snapshotFile.delete();
+        directory.delete();
+        context.close();
+    }
+
+}